@@ -1,24 +1,64 @@
 package com.dream11.grpc;
 
+import com.dream11.grpc.annotation.CallPriority;
 import com.dream11.grpc.annotation.GrpcInterceptor;
 import com.dream11.grpc.annotation.GrpcService;
+import com.dream11.grpc.annotation.ServiceScope;
+import com.dream11.grpc.connection.ConnectionManager;
+import com.dream11.grpc.connection.ConnectionTracker;
+import com.dream11.grpc.connection.FlowControlTuner;
+import com.dream11.grpc.connection.FlushConsolidator;
+import com.dream11.grpc.diagnostics.BlockedCallDetector;
+import com.dream11.grpc.diagnostics.MemoryPressureMonitor;
+import com.dream11.grpc.health.HealthCheckV1Handler;
+import com.dream11.grpc.health.HealthIndicator;
+import com.dream11.grpc.health.HealthStatusRegistry;
+import com.dream11.grpc.health.HealthWatchV1Handler;
+import com.dream11.grpc.inprocess.InProcessChannel;
+import com.dream11.grpc.interceptor.AdmissionControlInterceptor;
 import com.dream11.grpc.interceptor.LoggingInterceptor;
+import com.dream11.grpc.interceptor.OnLoopTimeInterceptor;
+import com.dream11.grpc.metrics.GrpcServerMetrics;
 import com.dream11.grpc.reflection.GrpcServerIndex;
 import com.dream11.grpc.reflection.ReflectionServiceV1Handler;
+import com.dream11.grpc.service.ServiceFactory;
+import com.dream11.grpc.service.ServiceRegistry;
+import com.dream11.grpc.transport.GrpcCallRouter;
+import com.dream11.grpc.transport.MethodPolicy;
 import com.dream11.grpc.util.AnnotationUtil;
+import com.dream11.grpc.warmup.WarmUp;
 import io.grpc.BindableService;
+import io.grpc.MethodDescriptor;
 import io.grpc.ServerInterceptor;
 import io.grpc.ServerInterceptors;
+import io.grpc.ServerMethodDefinition;
 import io.grpc.ServerServiceDefinition;
+import io.grpc.health.v1.HealthCheckRequest;
+import io.grpc.health.v1.HealthCheckResponse.ServingStatus;
+import io.grpc.health.v1.HealthGrpc;
 import io.grpc.reflection.v1alpha.ServerReflectionGrpc;
 import io.reactivex.Completable;
+import io.reactivex.Flowable;
+import io.reactivex.Single;
+import io.vertx.core.Future;
 import io.vertx.core.http.HttpServerOptions;
-import io.vertx.grpc.server.GrpcServiceBridge;
+import io.vertx.core.net.SocketAddress;
+import io.vertx.grpc.common.GrpcMessageDecoder;
+import io.vertx.grpc.common.GrpcMessageEncoder;
+import io.vertx.grpc.common.GrpcStatus;
+import io.vertx.grpc.common.ServiceMethod;
+import io.vertx.grpc.common.ServiceName;
 import io.vertx.reactivex.core.AbstractVerticle;
+import io.vertx.reactivex.core.http.HttpConnection;
 import io.vertx.reactivex.core.http.HttpServer;
 import io.vertx.reactivex.grpc.server.GrpcServer;
+import java.time.Duration;
 import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
 import java.util.List;
+import java.util.Map;
+import java.util.stream.Collectors;
 import lombok.SneakyThrows;
 import lombok.extern.slf4j.Slf4j;
 
@@ -30,7 +70,14 @@ import lombok.extern.slf4j.Slf4j;
  *   <li>Server creation and configuration
  *   <li>Service registration with interceptors
  *   <li>Reflection service support
+ *   <li>Health service support
  *   <li>Automatic discovery of services and interceptors using annotations
+ *   <li>Graceful draining of in-flight calls on shutdown
+ *   <li>An in-process channel to call the services from the same JVM without the network
+ *   <li>Listening on several ports and Unix domain sockets with their own transport settings
+ *   <li>Per-service and per-method compression policies with pluggable codecs
+ *   <li>Passthrough services forwarding the raw bytes of messages without parsing them
+ *   <li>Adding, replacing and removing services and interceptors without restarting the listeners
  * </ul>
  *
  * <p>To use this class, extend it and implement the {@link #getInjector()} method to provide
@@ -41,9 +88,22 @@ public abstract class AbstractGrpcVerticle extends AbstractVerticle {
 
   private final String packageName;
   private final boolean hasReflectionService;
-  private HttpServer httpServer;
+  private final List<HttpServer> httpServers = new ArrayList<>();
   private GrpcServer grpcServer;
+  private GrpcCallRouter callRouter;
+  private final List<ConnectionTracker> connectionTrackers = new ArrayList<>();
+  private final List<Class<?>> acquiredServices = new ArrayList<>();
+  private final Map<String, ServiceBinding> serviceBindings = new LinkedHashMap<>();
+  private List<ServerInterceptor> interceptors;
+  private GrpcServerIndex serverIndex;
+  private ReflectionServiceV1Handler reflectionHandler;
+  private HealthStatusRegistry healthStatusRegistry;
+  private BlockedCallDetector blockedCallDetector;
+  private MemoryPressureMonitor memoryPressureMonitor;
+  private GrpcServerMetrics metrics;
+  private InProcessChannel inProcessChannel;
   final HttpServerOptions httpServerOptions;
+  final GrpcVerticleOptions options;
 
   /**
    * Creates a new gRPC verticle with reflection service enabled.
@@ -87,9 +147,40 @@ public abstract class AbstractGrpcVerticle extends AbstractVerticle {
    */
   protected AbstractGrpcVerticle(
       String packageName, HttpServerOptions httpServerOptions, boolean hasReflectionService) {
+    this(packageName, httpServerOptions, hasReflectionService, new GrpcVerticleOptions());
+  }
+
+  /**
+   * Creates a new gRPC verticle with reflection service enabled and custom verticle options.
+   *
+   * @param packageName The package name to scan for {@link GrpcService} and {@link GrpcInterceptor}
+   *     annotations
+   * @param httpServerOptions Custom HTTP server options
+   * @param options Custom gRPC verticle options
+   */
+  protected AbstractGrpcVerticle(
+      String packageName, HttpServerOptions httpServerOptions, GrpcVerticleOptions options) {
+    this(packageName, httpServerOptions, true, options);
+  }
+
+  /**
+   * Creates a new gRPC verticle with full configuration options.
+   *
+   * @param packageName The package name to scan for {@link GrpcService} and {@link GrpcInterceptor}
+   *     annotations
+   * @param httpServerOptions Custom HTTP server options
+   * @param hasReflectionService Whether to enable the gRPC reflection service
+   * @param options Custom gRPC verticle options
+   */
+  protected AbstractGrpcVerticle(
+      String packageName,
+      HttpServerOptions httpServerOptions,
+      boolean hasReflectionService,
+      GrpcVerticleOptions options) {
     this.packageName = packageName;
     this.hasReflectionService = hasReflectionService;
     this.httpServerOptions = httpServerOptions;
+    this.options = options;
   }
 
   /**
@@ -116,9 +207,10 @@ public abstract class AbstractGrpcVerticle extends AbstractVerticle {
    *
    * <ul>
    *   <li>Creates the HTTP and gRPC servers
-   *   <li>Registers the reflection service if enabled
-   *   <li>Discovers and registers all services with their interceptors
-   *   <li>Starts the server listening for requests
+   *   <li>Registers the reflection and health services if enabled
+   *   <li>Discovers, creates and registers all services with their interceptors
+   *   <li>Warms up the services if {@link GrpcVerticleOptions#getWarmUpIterations()} is set
+   *   <li>Starts all the listeners, which share the same services
    * </ul>
    *
    * @return A {@link Completable} that completes when the server is started successfully
@@ -126,46 +218,500 @@ public abstract class AbstractGrpcVerticle extends AbstractVerticle {
   @SneakyThrows
   protected Completable rxStartGrpcServer() {
     // Create gRPC server
-    this.httpServer = this.vertx.createHttpServer(this.httpServerOptions);
     this.grpcServer = GrpcServer.server(this.vertx);
-    List<ServerInterceptor> interceptors = this.getAllInterceptors();
-    List<ServerServiceDefinition> definitions = new ArrayList<>();
-
-    // Register services
-    for (Class<?> clazz : this.getGrpcServices()) {
-      log.debug("Registering service:{}", clazz.getName());
-      BindableService service = (BindableService) this.getInjector().getInstance(clazz);
-      definitions.add(service.bindService());
-      this.addServiceWithInterceptors(service, interceptors);
-    }
-
-    // Register reflection service
-    if (this.hasReflectionService) {
-      this.grpcServer
-          .getDelegate()
-          .callHandler(
-              ServerReflectionGrpc.getServerReflectionInfoMethod(),
-              new ReflectionServiceV1Handler(new GrpcServerIndex(definitions)));
-    }
-    return this.httpServer
-        .requestHandler(this.grpcServer)
-        .rxListen()
-        .ignoreElement()
+    // Answer the calls to unknown methods, such as the methods of a removed service
+    this.grpcServer
+        .getDelegate()
+        .callHandler(
+            request ->
+                request
+                    .response()
+                    .status(GrpcStatus.UNIMPLEMENTED)
+                    .statusMessage("Method not found: " + request.fullMethodName())
+                    .end());
+    this.metrics = this.getMetrics();
+    this.callRouter = new GrpcCallRouter(this.grpcServer, this.options, this.metrics);
+    this.inProcessChannel =
+        new InProcessChannel(this.context, this.options.isSerializeInProcessMessages());
+    if (this.options.isOnLoopTimeTracking()) {
+      this.blockedCallDetector =
+          new BlockedCallDetector(
+              this.options.getBlockedCallThreshold(),
+              this.options.getBlockedCallCheckInterval(),
+              this.metrics);
+      this.blockedCallDetector.start();
+    }
+    if (this.options.isAdmissionControl()) {
+      this.memoryPressureMonitor =
+          new MemoryPressureMonitor(
+              this.options.getMaxHeapOccupancy(),
+              this.options.getMaxDirectMemoryUsage(),
+              this.options.getMaxPendingOutboundBytes(),
+              this.options.getMemoryPressureCheckInterval(),
+              this.metrics);
+      this.memoryPressureMonitor.start();
+    }
+    this.interceptors = this.getAllInterceptors();
+    List<Class<?>> services = this.getGrpcServices();
+    return this.createServices(services)
+        .flatMapCompletable(
+            definitions -> {
+              // Register services, warming up the ones already created
+              List<ServerServiceDefinition> warmed = new ArrayList<>();
+              for (int i = 0; i < services.size(); i++) {
+                log.debug("Registering service:{}", services.get(i).getName());
+                ServerServiceDefinition intercepted =
+                    this.addServiceWithInterceptors(services.get(i), definitions.get(i));
+                if (!isLazy(services.get(i))) {
+                  warmed.add(intercepted);
+                }
+              }
+
+              // Register reflection service
+              if (this.hasReflectionService) {
+                this.serverIndex =
+                    new GrpcServerIndex(definitions, this.options.isLazyReflectionIndex());
+                this.reflectionHandler = new ReflectionServiceV1Handler(this.serverIndex);
+                this.grpcServer
+                    .getDelegate()
+                    .callHandler(
+                        ServerReflectionGrpc.getServerReflectionInfoMethod(),
+                        this.reflectionHandler);
+              }
+
+              // Register health service
+              if (this.options.isHealthService()) {
+                this.registerHealthService();
+              }
+              return this.warmUp(warmed)
+                  .andThen(Completable.defer(this::listen))
+                  .doOnComplete(() -> this.markServing(definitions));
+            })
         .doOnComplete(() -> log.info("gRPC server started successfully"))
-        .doOnError(err -> log.info("Failed to start gRPC server", err));
+        .doOnError(
+            err -> {
+              if (this.memoryPressureMonitor != null) {
+                this.memoryPressureMonitor.stop();
+              }
+              this.releaseServices();
+              log.info("Failed to start gRPC server", err);
+            });
   }
 
   /**
-   * Registers a service with the specified interceptors.
+   * Creates the services and binds them to their definitions. Services annotated as {@link
+   * GrpcService#lazy()} are created on their first call; the other services are created on the
+   * event loop, or in parallel on worker threads if {@link
+   * GrpcVerticleOptions#isParallelServiceCreation()} is set. Services of the {@link
+   * ServiceScope#SHARED} scope are only created by the first verticle registering them, and shared
+   * with the others through the {@link ServiceRegistry}. If a service cannot be created, the
+   * services created after the failure are released as soon as they are.
    *
-   * @param service The gRPC service to register
-   * @param interceptors List of interceptors to apply to the service
+   * @param services The classes of the services
+   * @return A {@link Single} emitting the definitions of the services, in the order of the classes
    */
-  private void addServiceWithInterceptors(
-      BindableService service, List<ServerInterceptor> interceptors) {
+  private Single<List<ServerServiceDefinition>> createServices(List<Class<?>> services) {
+    ServiceFactory factory =
+        new ServiceFactory(
+            this.vertx.getDelegate(), this.getInjector(), this.options.getServiceCreationTimeout());
+    List<Flowable<ServerServiceDefinition>> definitions = new ArrayList<>();
+    for (Class<?> clazz : services) {
+      definitions.add(
+          Single.<ServerServiceDefinition>create(
+                  emitter ->
+                      ServiceRegistry.getInstance()
+                          .acquire(
+                              clazz,
+                              getScope(clazz),
+                              () -> this.createService(factory, clazz),
+                              this.metrics)
+                          .onSuccess(
+                              definition -> {
+                                if (emitter.isDisposed()) {
+                                  // Another service failed and the start was aborted, releasing
+                                  // the services acquired until then
+                                  ServiceRegistry.getInstance()
+                                      .release(clazz, getScope(clazz), this.metrics);
+                                  return;
+                                }
+                                this.acquiredServices.add(clazz);
+                                emitter.onSuccess(definition);
+                              })
+                          .onFailure(emitter::onError))
+              .toFlowable());
+    }
+    return Flowable.concatEager(definitions).toList();
+  }
+
+  private Future<ServerServiceDefinition> createService(ServiceFactory factory, Class<?> clazz) {
+    if (this.options.isParallelServiceCreation() && !isLazy(clazz)) {
+      return factory.createOnWorker(clazz);
+    }
+    try {
+      return Future.succeededFuture(
+          isLazy(clazz) ? factory.createLazy(clazz) : factory.create(clazz));
+    } catch (RuntimeException e) {
+      return Future.failedFuture(e);
+    }
+  }
+
+  /** Releases the services acquired from the {@link ServiceRegistry} by this verticle. */
+  private void releaseServices() {
+    for (Class<?> clazz : this.acquiredServices) {
+      ServiceRegistry.getInstance().release(clazz, getScope(clazz), this.metrics);
+    }
+    this.acquiredServices.clear();
+  }
+
+  private static ServiceScope getScope(Class<?> service) {
+    GrpcService annotation = service.getAnnotation(GrpcService.class);
+    return annotation == null ? ServiceScope.VERTICLE : annotation.scope();
+  }
+
+  private static boolean isLazy(Class<?> service) {
+    GrpcService annotation = service.getAnnotation(GrpcService.class);
+    return annotation != null && annotation.lazy();
+  }
+
+  /**
+   * Starts the configured listeners. Every listener dispatches to the same {@link GrpcCallRouter},
+   * so the services and interceptors are bound once and served identically on all of them.
+   *
+   * @return A {@link Completable} that completes when all listeners are bound
+   */
+  private Completable listen() {
+    List<GrpcListenerOptions> listeners = this.getListeners();
+    if (listeners.isEmpty()) {
+      return Completable.error(new IllegalStateException("No listener is configured"));
+    }
+    for (GrpcListenerOptions listener : listeners) {
+      SocketAddress address = listener.getAddress();
+      if (address != null && address.isDomainSocket() && !this.vertx.isNativeTransportEnabled()) {
+        return Completable.error(
+            new IllegalStateException(
+                "Domain socket listener "
+                    + listener.getName()
+                    + " requires the native transport, enable it with"
+                    + " VertxOptions#setPreferNativeTransport"));
+      }
+    }
+    return Completable.merge(listeners.stream().map(this::listen).collect(Collectors.toList()));
+  }
+
+  /**
+   * Returns the listeners of the verticle: the TCP listener configured by the {@link
+   * HttpServerOptions} of the verticle, the domain socket listener and the additional listeners of
+   * the {@link GrpcVerticleOptions}.
+   *
+   * @return List of listener definitions
+   */
+  private List<GrpcListenerOptions> getListeners() {
+    List<GrpcListenerOptions> listeners = new ArrayList<>();
+    if (this.options.isTcpListener()) {
+      listeners.add(new GrpcListenerOptions("default", this.httpServerOptions));
+    }
+    String domainSocketPath = this.options.getDomainSocketPath();
+    if (domainSocketPath != null) {
+      listeners.add(
+          new GrpcListenerOptions("domain-socket", new HttpServerOptions(this.httpServerOptions))
+              .setAddress(SocketAddress.domainSocketAddress(domainSocketPath)));
+    }
+    listeners.addAll(this.options.getListeners());
+    return listeners;
+  }
+
+  /**
+   * Starts an HTTP server for a listener that tracks its connections and dispatches requests to the
+   * call router.
+   *
+   * @param listener The definition of the listener
+   * @return A {@link Completable} that completes when the listener is bound
+   */
+  private Completable listen(GrpcListenerOptions listener) {
+    ConnectionTracker tracker =
+        new ConnectionTracker(listener.getName(), listener.getMaxConnections(), this.metrics);
+    this.connectionTrackers.add(tracker);
+    HttpServer server =
+        this.vertx
+            .createHttpServer(listener.getHttpServerOptions())
+            .connectionHandler(connection -> this.onConnection(listener, tracker, connection))
+            .requestHandler(this.callRouter);
+    this.httpServers.add(server);
+    SocketAddress address = listener.getAddress();
+    Single<HttpServer> bound =
+        address == null
+            ? server.rxListen()
+            : server.rxListen(io.vertx.reactivex.core.net.SocketAddress.newInstance(address));
+    return bound
+        .doOnSuccess(
+            s ->
+                log.info(
+                    "Listener {} bound to {}",
+                    listener.getName(),
+                    address == null ? "port " + s.actualPort() : address))
+        .ignoreElement();
+  }
+
+  /**
+   * Sets up a connection accepted by a listener: tracks it for draining and installs the flow
+   * control tuning and the connection management configured in the {@link GrpcVerticleOptions}.
+   *
+   * @param listener The listener that accepted the connection
+   * @param tracker The connection tracker of the listener
+   * @param connection The accepted connection
+   */
+  private void onConnection(
+      GrpcListenerOptions listener, ConnectionTracker tracker, HttpConnection connection) {
+    tracker.handle(connection);
+    if (this.options.isFlowControlAutoTuning()) {
+      FlowControlTuner.install(
+          connection.getDelegate(),
+          listener.getName(),
+          this.options.getMaxFlowControlWindow(),
+          this.metrics);
+    }
+    if (this.options.isWriteCoalescing()) {
+      FlushConsolidator.install(connection.getDelegate());
+    }
+    ConnectionManager.install(
+        this.vertx.getDelegate(),
+        connection.getDelegate(),
+        listener.getName(),
+        this.options,
+        this.metrics);
+  }
+
+  /**
+   * Registers the {@code grpc.health.v1.Health} service and starts polling the health indicators
+   * returned by {@link #getHealthIndicators()}.
+   */
+  private void registerHealthService() {
+    this.healthStatusRegistry = new HealthStatusRegistry(this.context);
+    ServiceName health = ServiceName.create(HealthGrpc.SERVICE_NAME);
+    this.grpcServer
+        .getDelegate()
+        .callHandler(
+            ServiceMethod.server(
+                health,
+                "Check",
+                GrpcMessageEncoder.encoder(),
+                GrpcMessageDecoder.decoder(HealthCheckRequest.parser())),
+            new HealthCheckV1Handler(this.healthStatusRegistry))
+        .callHandler(
+            ServiceMethod.server(
+                health,
+                "Watch",
+                GrpcMessageEncoder.encoder(),
+                GrpcMessageDecoder.decoder(HealthCheckRequest.parser())),
+            new HealthWatchV1Handler(this.healthStatusRegistry));
+    List<HealthIndicator> indicators = this.getHealthIndicators();
+    if (!indicators.isEmpty()) {
+      indicators.forEach(this.healthStatusRegistry::addIndicator);
+      this.vertx.setPeriodic(
+          this.options.getHealthCheckInterval().toMillis(),
+          id -> this.healthStatusRegistry.refreshIndicators());
+    }
+  }
+
+  /**
+   * Reports the server and every registered service as serving once the server is listening.
+   *
+   * @param definitions The definitions of the registered services
+   */
+  private void markServing(List<ServerServiceDefinition> definitions) {
+    if (this.healthStatusRegistry != null) {
+      definitions.forEach(
+          definition ->
+              this.healthStatusRegistry.setStatus(
+                  definition.getServiceDescriptor().getName(), ServingStatus.SERVING));
+      this.healthStatusRegistry.setStatus(HealthStatusRegistry.OVERALL, ServingStatus.SERVING);
+    }
+  }
+
+  /**
+   * Registers a service with the current interceptors on the call router and the in-process
+   * channel, replacing the service of the same name if there is one.
+   *
+   * @param clazz The class of the service, holding the annotations of its policy
+   * @param service The definition of the gRPC service to register
+   * @return The definition of the service with its interceptors
+   */
+  private ServerServiceDefinition addServiceWithInterceptors(
+      Class<?> clazz, ServerServiceDefinition service) {
     // Add all interceptors to service
-    GrpcServiceBridge.bridge(ServerInterceptors.intercept(service, interceptors))
-        .bind(this.grpcServer.getDelegate());
+    ServerServiceDefinition intercepted = ServerInterceptors.intercept(service, this.interceptors);
+    if (this.memoryPressureMonitor != null) {
+      // Shed calls before any other interceptor runs
+      intercepted =
+          ServerInterceptors.intercept(
+              intercepted,
+              new AdmissionControlInterceptor(
+                  this.memoryPressureMonitor, this.getPriorities(clazz, service), this.metrics));
+    }
+    this.callRouter.addService(intercepted, clazz);
+    this.inProcessChannel.addService(intercepted);
+    this.serviceBindings.put(
+        service.getServiceDescriptor().getName(), new ServiceBinding(clazz, service));
+    return intercepted;
+  }
+
+  /**
+   * Resolves the priorities of the methods of a service from the annotations of its class.
+   *
+   * @param clazz The class of the service
+   * @param service The definition of the service
+   * @return The priorities of the methods, by fully qualified method name
+   */
+  private Map<String, CallPriority> getPriorities(Class<?> clazz, ServerServiceDefinition service) {
+    Map<String, CallPriority> priorities = new HashMap<>();
+    for (ServerMethodDefinition<?, ?> method : service.getMethods()) {
+      MethodDescriptor<?, ?> descriptor = method.getMethodDescriptor();
+      priorities.put(
+          descriptor.getFullMethodName(),
+          MethodPolicy.resolve(clazz, descriptor.getBareMethodName(), this.options).getPriority());
+    }
+    return priorities;
+  }
+
+  /**
+   * Adds a service to the running server, or replaces the service of the same name, without
+   * restarting the listeners. Calls in flight on the replaced service finish on it, while new calls
+   * are served by the new service, with the current interceptors. The service is neither warmed up
+   * nor acquired from the {@link ServiceRegistry}: its lifecycle is up to the caller.
+   *
+   * @param service The service to add
+   * @return A {@link Completable} that completes once the service is serving
+   */
+  public Completable rxAddService(BindableService service) {
+    return this.onContext(
+        () -> {
+          ServerServiceDefinition definition = service.bindService();
+          String name = definition.getServiceDescriptor().getName();
+          if (this.serverIndex != null) {
+            this.serverIndex = this.serverIndex.withService(definition);
+          }
+          this.releaseService(name);
+          this.addServiceWithInterceptors(service.getClass(), definition);
+          if (this.reflectionHandler != null) {
+            this.reflectionHandler.setIndex(this.serverIndex);
+          }
+          if (this.healthStatusRegistry != null) {
+            this.healthStatusRegistry.setStatus(name, ServingStatus.SERVING);
+          }
+          log.info("Added service:{}", name);
+        });
+  }
+
+  /**
+   * Removes a service from the running server without restarting the listeners. Calls in flight
+   * finish, while new calls fail with {@code UNIMPLEMENTED}.
+   *
+   * @param serviceName The fully qualified name of the service
+   * @return A {@link Completable} that completes once the service is removed
+   */
+  public Completable rxRemoveService(String serviceName) {
+    return this.onContext(
+        () -> {
+          if (!this.serviceBindings.containsKey(serviceName)) {
+            throw new IllegalArgumentException("Unknown gRPC service: " + serviceName);
+          }
+          this.callRouter.removeService(serviceName);
+          this.inProcessChannel.removeService(serviceName);
+          this.releaseService(serviceName);
+          this.serviceBindings.remove(serviceName);
+          if (this.reflectionHandler != null) {
+            this.serverIndex = this.serverIndex.withoutService(serviceName);
+            this.reflectionHandler.setIndex(this.serverIndex);
+          }
+          if (this.healthStatusRegistry != null) {
+            this.healthStatusRegistry.clearStatus(serviceName);
+          }
+          log.info("Removed service:{}", serviceName);
+        });
+  }
+
+  /**
+   * Replaces the custom interceptors of all the services of the running server, e.g. when their
+   * configuration changes, without restarting the listeners. The request/response and on-loop time
+   * interceptors of the framework are kept around them. Calls in flight finish with the previous
+   * interceptors.
+   *
+   * <p>The swap is atomic for this verticle instance only: when the verticle is deployed with
+   * several instances, each of them must be changed, and until all of them are, calls may see the
+   * old or the new interceptors depending on the instance that receives them.
+   *
+   * @param interceptors The new custom interceptors, in the order of {@link
+   *     ServerInterceptors#intercept(ServerServiceDefinition, List)}
+   * @return A {@link Completable} that completes once all the services use the new interceptors
+   */
+  public Completable rxSetInterceptors(List<ServerInterceptor> interceptors) {
+    return this.onContext(
+        () -> {
+          this.interceptors = this.getInterceptorChain(interceptors);
+          for (ServiceBinding binding : List.copyOf(this.serviceBindings.values())) {
+            this.addServiceWithInterceptors(binding.clazz, binding.definition);
+          }
+          log.info("Replaced interceptors of {} services", this.serviceBindings.size());
+        });
+  }
+
+  /**
+   * Runs a change of the services on the context of the verticle, where requests are dispatched, so
+   * that the calls received by the verticle see either none or all of the change.
+   */
+  private Completable onContext(Runnable change) {
+    return Completable.create(
+        emitter ->
+            this.context.runOnContext(
+                v -> {
+                  try {
+                    if (this.callRouter == null) {
+                      throw new IllegalStateException("gRPC server is not started");
+                    }
+                    change.run();
+                    emitter.onComplete();
+                  } catch (RuntimeException e) {
+                    emitter.onError(e);
+                  }
+                }));
+  }
+
+  /** Releases a service being removed or replaced, if it was acquired from the registry. */
+  private void releaseService(String serviceName) {
+    ServiceBinding binding = this.serviceBindings.get(serviceName);
+    if (binding != null && this.acquiredServices.remove(binding.clazz)) {
+      ServiceRegistry.getInstance().release(binding.clazz, getScope(binding.clazz), this.metrics);
+    }
+  }
+
+  /**
+   * Sends the warm-up calls to every method of the services, with their interceptors, through an
+   * in-process channel serializing the messages, so that their marshallers are warmed up as well.
+   *
+   * @param services The definitions of the services with their interceptors
+   * @return A {@link Completable} that completes once the warm-up is over
+   */
+  private Completable warmUp(List<ServerServiceDefinition> services) {
+    if (this.options.getWarmUpIterations() <= 0) {
+      return Completable.complete();
+    }
+    InProcessChannel channel = new InProcessChannel(this.context, true);
+    WarmUp warmUp =
+        new WarmUp(
+            this.context,
+            channel,
+            this.options.getWarmUpIterations(),
+            this.options.getWarmUpDuration(),
+            this.options.getWarmUpConcurrency(),
+            this.metrics);
+    for (ServerServiceDefinition service : services) {
+      channel.addService(service);
+      for (ServerMethodDefinition<?, ?> method : service.getMethods()) {
+        warmUp.addMethod(
+            method.getMethodDescriptor(), this.getWarmUpRequests(method.getMethodDescriptor()));
+      }
+    }
+    return warmUp.run();
   }
 
   /**
@@ -175,15 +721,31 @@ public abstract class AbstractGrpcVerticle extends AbstractVerticle {
    * @return List of server interceptors to apply
    */
   private List<ServerInterceptor> getAllInterceptors() {
+    List<ServerInterceptor> custom = new ArrayList<>();
+    for (Class<?> clazz : this.getGrpcInterceptors()) {
+      log.debug("Adding interceptor:{}", clazz.getName());
+      custom.add((ServerInterceptor) this.getInjector().getInstance(clazz));
+    }
+    return this.getInterceptorChain(custom);
+  }
+
+  /**
+   * Builds the interceptor chain of the services around custom interceptors.
+   *
+   * @param custom The custom interceptors
+   * @return List of server interceptors to apply
+   */
+  private List<ServerInterceptor> getInterceptorChain(List<ServerInterceptor> custom) {
     List<ServerInterceptor> interceptors = new ArrayList<>();
     // Register Request Response Interceptor
     if (this.getRequestResponseInterceptor() != null) {
       interceptors.add(this.getRequestResponseInterceptor());
     }
     // Register custom interceptors
-    for (Class<?> clazz : this.getGrpcInterceptors()) {
-      log.debug("Adding interceptor:{}", clazz.getName());
-      interceptors.add((ServerInterceptor) this.getInjector().getInstance(clazz));
+    interceptors.addAll(custom);
+    // Register on-loop time interceptor last so that it wraps all the other interceptors
+    if (this.blockedCallDetector != null) {
+      interceptors.add(new OnLoopTimeInterceptor(this.blockedCallDetector, this.metrics));
     }
     return interceptors;
   }
@@ -218,15 +780,120 @@ public abstract class AbstractGrpcVerticle extends AbstractVerticle {
   }
 
   /**
-   * Stops the gRPC server. This method is called by Vert.x when the verticle is undeployed.
+   * Provides the requests the warm-up sends in turn to a method, see {@link
+   * GrpcVerticleOptions#getWarmUpIterations()}. Override this method to send representative
+   * requests, e.g. samples recorded from production traffic, or to skip methods with side effects
+   * by returning an empty list. The default sends the default instance of the request message of
+   * protobuf methods, and skips the other methods.
+   *
+   * @param method The method to warm up
+   * @return The requests of the method, empty to skip it
+   */
+  protected List<?> getWarmUpRequests(MethodDescriptor<?, ?> method) {
+    if (method.getRequestMarshaller() instanceof MethodDescriptor.PrototypeMarshaller) {
+      Object prototype =
+          ((MethodDescriptor.PrototypeMarshaller<?>) method.getRequestMarshaller())
+              .getMessagePrototype();
+      if (prototype != null) {
+        return List.of(prototype);
+      }
+    }
+    return List.of();
+  }
+
+  /**
+   * Provides the metrics implementation the framework reports to. Override this method to bridge
+   * the metrics to the metrics library of the application.
+   *
+   * @return A {@link GrpcServerMetrics} implementation, {@link GrpcServerMetrics#NOOP} by default
+   */
+  protected GrpcServerMetrics getMetrics() {
+    return GrpcServerMetrics.NOOP;
+  }
+
+  /**
+   * Provides the indicators that drive the status reported by the health service, such as an {@link
+   * com.dream11.grpc.health.EventLoopLagIndicator}. While any indicator is unhealthy, all services
+   * are reported as not serving. Override this method to register indicators; it is called on the
+   * event loop of the verticle while the server is starting.
+   *
+   * @return List of health indicators, empty by default
+   */
+  protected List<HealthIndicator> getHealthIndicators() {
+    return List.of();
+  }
+
+  /**
+   * Returns the registry holding the statuses reported by the health service. Services can use it
+   * to report themselves as not serving, e.g. while a dependency is unavailable.
+   *
+   * @return The health status registry, or null if the health service is disabled or the server has
+   *     not been started
+   */
+  public HealthStatusRegistry getHealthStatusRegistry() {
+    return this.healthStatusRegistry;
+  }
+
+  /**
+   * Returns a channel dispatching calls directly to the services of this verticle, with their
+   * interceptors, without going through the network. Stubs created from this channel can be used to
+   * call the services from the same JVM; the channel is created before the services so that it can
+   * be injected into them. The reflection and health services are not available through it.
+   *
+   * @return The in-process channel, or null if the server has not been started
+   */
+  public InProcessChannel getInProcessChannel() {
+    return this.inProcessChannel;
+  }
+
+  /**
+   * Stops the gRPC server. This method is called by Vert.x when the verticle is undeployed. The
+   * health status is switched to not serving and the open connections of all listeners are drained:
+   * clients receive a GOAWAY frame and in-flight calls are given up to {@link
+   * GrpcVerticleOptions#getShutdownGracePeriod()} to complete before the servers are closed.
    *
    * @return A {@link Completable} that completes when the server is stopped successfully
    */
   @Override
   public Completable rxStop() {
-    return this.httpServer
-        .rxClose()
+    if (this.healthStatusRegistry != null) {
+      this.healthStatusRegistry.enterTerminalState();
+    }
+    Duration gracePeriod = this.options.getShutdownGracePeriod();
+    Completable drain =
+        gracePeriod.isZero()
+            ? Completable.complete()
+            : Completable.merge(
+                this.connectionTrackers.stream()
+                    .map(tracker -> tracker.drain(gracePeriod))
+                    .collect(Collectors.toList()));
+    return drain
+        .andThen(
+            Completable.merge(
+                this.httpServers.stream().map(HttpServer::rxClose).collect(Collectors.toList())))
+        .doOnComplete(
+            () -> {
+              if (this.blockedCallDetector != null) {
+                this.blockedCallDetector.stop();
+              }
+              if (this.memoryPressureMonitor != null) {
+                this.memoryPressureMonitor.stop();
+              }
+              this.releaseServices();
+            })
         .doOnComplete(() -> log.info("gRPC server stopped successfully"))
         .doOnError(err -> log.info("Failed to stop gRPC server", err));
   }
+
+  /** A service registered on the server, with the class holding the annotations of its policy. */
+  private static final class ServiceBinding {
+
+    private final Class<?> clazz;
+    private final ServerServiceDefinition definition;
+
+    ServiceBinding(Class<?> clazz, ServerServiceDefinition definition) {
+      this.clazz = clazz;
+      this.definition = definition;
+    }
+  }
 }
@@ -0,0 +1,63 @@
+package com.dream11.grpc;
+
+import io.vertx.core.http.HttpServerOptions;
+import io.vertx.core.net.SocketAddress;
+import lombok.Getter;
+import lombok.Setter;
+import lombok.experimental.Accessors;
+
+/**
+ * Definition of an additional listener of an {@link AbstractGrpcVerticle}. Every listener has its
+ * own transport settings, e.g. an internal plaintext port tuned for high concurrency next to a
+ * public TLS port with stricter limits, while all listeners dispatch to the same gRPC server so
+ * that the services, interceptors and index are bound only once.
+ *
+ * <p>TLS, the SSL engine, session resumption and the HTTP/2 settings are configured through the
+ * {@link HttpServerOptions} of the listener, for instance:
+ *
+ * <pre>{@code
+ * new GrpcListenerOptions("public", new HttpServerOptions()
+ *         .setPort(8443)
+ *         .setSsl(true)
+ *         .setUseAlpn(true)
+ *         .setKeyCertOptions(keyCert)
+ *         .setSslEngineOptions(new OpenSSLEngineOptions().setSessionCacheEnabled(true))
+ *         .setInitialSettings(new Http2Settings().setMaxConcurrentStreams(100)))
+ *     .setMaxConnections(1000);
+ * }</pre>
+ */
+@Getter
+@Setter
+@Accessors(chain = true)
+public class GrpcListenerOptions {
+
+  /** Name of the listener, used in logs and metrics. */
+  private String name;
+
+  /** Transport settings of the listener. */
+  private HttpServerOptions httpServerOptions;
+
+  /**
+   * Address to listen on. Null, the default, listens on the host and port of the {@link
+   * #httpServerOptions}. A {@link SocketAddress#domainSocketAddress(String) domain socket address}
+   * requires the native transport.
+   */
+  private SocketAddress address;
+
+  /**
+   * Maximum number of connections the listener accepts at once. Connections above the limit are
+   * sent a GOAWAY frame straight away. Zero, the default, means unlimited.
+   */
+  private int maxConnections;
+
+  /**
+   * Creates a new listener definition.
+   *
+   * @param name The name of the listener
+   * @param httpServerOptions The transport settings of the listener
+   */
+  public GrpcListenerOptions(String name, HttpServerOptions httpServerOptions) {
+    this.name = name;
+    this.httpServerOptions = httpServerOptions;
+  }
+}
@@ -0,0 +1,328 @@
+package com.dream11.grpc;
+
+import com.dream11.grpc.transport.SchedulingPolicy;
+import io.grpc.Codec;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import lombok.Getter;
+import lombok.Setter;
+import lombok.experimental.Accessors;
+
+/**
+ * Options controlling the behaviour of an {@link AbstractGrpcVerticle} beyond the transport level
+ * settings held by {@link io.vertx.core.http.HttpServerOptions}. All setters return this instance
+ * so that the options can be configured fluently, in the same way as the Vert.x options classes.
+ */
+@Getter
+@Setter
+@Accessors(chain = true)
+public class GrpcVerticleOptions {
+
+  /** Default maximum size of the flow-control windows grown by the auto-tuning, 8MiB. */
+  public static final int DEFAULT_MAX_FLOW_CONTROL_WINDOW = 8 * 1024 * 1024;
+
+  /** Default maximum size of request messages, 256KiB as in the Vert.x gRPC server. */
+  public static final int DEFAULT_MAX_INBOUND_MESSAGE_SIZE = 256 * 1024;
+
+  /** Default maximum size of request metadata, 8KiB as in grpc-java. */
+  public static final int DEFAULT_MAX_INBOUND_METADATA_SIZE = 8 * 1024;
+
+  /** Default maximum size of the outbound queue of a stream, 16MiB. */
+  public static final int DEFAULT_MAX_OUTBOUND_QUEUE_SIZE = 16 * 1024 * 1024;
+
+  /** Default size above which coalesced responses are written without waiting, 16KiB. */
+  public static final int DEFAULT_WRITE_COALESCING_THRESHOLD = 16 * 1024;
+
+  /** Default time given to the in-flight calls of a connection that reached its maximum age. */
+  public static final Duration DEFAULT_MAX_CONNECTION_AGE_GRACE = Duration.ofSeconds(30);
+
+  /** Default time given to in-flight calls to complete when the verticle is stopped. */
+  public static final Duration DEFAULT_SHUTDOWN_GRACE_PERIOD = Duration.ofSeconds(10);
+
+  /** Default maximum time to create a service on a worker thread. */
+  public static final Duration DEFAULT_SERVICE_CREATION_TIMEOUT = Duration.ofSeconds(30);
+
+  /** Default maximum duration of the warm-up of the services. */
+  public static final Duration DEFAULT_WARM_UP_DURATION = Duration.ofSeconds(30);
+
+  /** Default number of warm-up calls in flight at once. */
+  public static final int DEFAULT_WARM_UP_CONCURRENCY = 8;
+
+  /** Default interval at which health indicators are polled. */
+  public static final Duration DEFAULT_HEALTH_CHECK_INTERVAL = Duration.ofSeconds(1);
+
+  /** Default time a single callback may hold the event loop before being reported. */
+  public static final Duration DEFAULT_BLOCKED_CALL_THRESHOLD = Duration.ofMillis(100);
+
+  /** Default interval at which event loops are inspected for blocked calls. */
+  public static final Duration DEFAULT_BLOCKED_CALL_CHECK_INTERVAL = Duration.ofMillis(50);
+
+  /** Default occupancy of the heap after garbage collection above which calls are shed, 85%. */
+  public static final double DEFAULT_MAX_HEAP_OCCUPANCY = 0.85;
+
+  /** Default usage of the direct memory above which calls are shed, 85%. */
+  public static final double DEFAULT_MAX_DIRECT_MEMORY_USAGE = 0.85;
+
+  /** Default size of the pending responses of the process above which calls are shed, 256MiB. */
+  public static final long DEFAULT_MAX_PENDING_OUTBOUND_BYTES = 256L * 1024 * 1024;
+
+  /** Default interval at which the memory pressure is sampled. */
+  public static final Duration DEFAULT_MEMORY_PRESSURE_CHECK_INTERVAL = Duration.ofMillis(100);
+
+  /**
+   * Maximum time to wait for in-flight calls to complete when the verticle is stopped. Once the
+   * grace period has elapsed, the remaining connections are closed forcefully. A zero duration
+   * closes the server immediately.
+   */
+  private Duration shutdownGracePeriod = DEFAULT_SHUTDOWN_GRACE_PERIOD;
+
+  /**
+   * Whether to listen on the TCP address configured in the {@link
+   * io.vertx.core.http.HttpServerOptions} of the verticle. Disabling it together with setting a
+   * {@link #domainSocketPath} restricts the server to same-host clients.
+   */
+  private boolean tcpListener = true;
+
+  /**
+   * Path of a Unix domain socket to listen on, in addition to the TCP address. Same-host clients
+   * such as sidecars can connect through it to avoid the overhead of the TCP loopback. Domain
+   * sockets require the native transport, see {@link
+   * io.vertx.core.VertxOptions#setPreferNativeTransport(boolean)}. Null, the default, disables the
+   * domain socket listener.
+   */
+  private String domainSocketPath;
+
+  /**
+   * Additional listeners, each with its own transport settings, sharing the services of the
+   * verticle with the TCP and domain socket listeners.
+   */
+  private List<GrpcListenerOptions> listeners = new ArrayList<>();
+
+  /**
+   * Whether to grow the HTTP/2 flow-control windows of each connection based on the measured
+   * bandwidth-delay product, see {@link com.dream11.grpc.connection.FlowControlTuner}. Connections
+   * start with the windows configured in the {@link io.vertx.core.http.HttpServerOptions}, which
+   * should be left small.
+   */
+  private boolean flowControlAutoTuning = false;
+
+  /** Maximum size the flow-control windows are grown to by the auto-tuning, in bytes. */
+  private int maxFlowControlWindow = DEFAULT_MAX_FLOW_CONTROL_WINDOW;
+
+  /**
+   * Maximum age of a connection, with a jitter of +/-10%. Once reached, the client is sent a GOAWAY
+   * frame so that it reconnects, possibly to another server, which spreads long-lived connections
+   * across the fleet after scaling out. Null, the default, keeps connections open forever.
+   */
+  private Duration maxConnectionAge;
+
+  /**
+   * Time given to the in-flight calls of a connection that reached {@link #maxConnectionAge} to
+   * complete before the connection is closed forcefully.
+   */
+  private Duration maxConnectionAgeGrace = DEFAULT_MAX_CONNECTION_AGE_GRACE;
+
+  /**
+   * Maximum time a connection may stay without any call before it is closed. Null, the default,
+   * keeps idle connections open.
+   */
+  private Duration maxConnectionIdle;
+
+  /**
+   * Minimum interval between keepalive pings allowed from clients. Clients pinging more often are
+   * sent a GOAWAY frame with the {@code ENHANCE_YOUR_CALM} error code and disconnected. Null, the
+   * default, accepts pings at any rate.
+   */
+  private Duration permitKeepAliveTime;
+
+  /**
+   * Whether clients may send keepalive pings while they have no call in progress. When false, such
+   * pings are only allowed every two hours, as in grpc-java.
+   */
+  private boolean permitKeepAliveWithoutCalls = false;
+
+  /**
+   * Whether messages sent through the {@link com.dream11.grpc.inprocess.InProcessChannel} of the
+   * verticle are serialized, so that the caller and the service never share an instance. Disabling
+   * it passes message objects as they are, which is safe for immutable protobuf messages and saves
+   * their serialization.
+   */
+  private boolean serializeInProcessMessages = true;
+
+  /** Whether to register the built-in {@code grpc.health.v1.Health} service. */
+  private boolean healthService = true;
+
+  /**
+   * Whether the reflection service indexes the proto files of the services lazily. Only the
+   * services are registered at startup, and the files, symbols and extensions are indexed as
+   * clients look them up, so that the startup time and the heap of the index do not grow with the
+   * size of the proto graph. Duplicated symbols are then not detected at startup.
+   */
+  private boolean lazyReflectionIndex = false;
+
+  /**
+   * How often the {@link com.dream11.grpc.health.HealthIndicator}s of the verticle are polled to
+   * update the status reported by the health service.
+   */
+  private Duration healthCheckInterval = DEFAULT_HEALTH_CHECK_INTERVAL;
+
+  /**
+   * Whether to measure the synchronous time each call spends on the event loop. When enabled, the
+   * per-call on-loop time is reported per method to the {@link
+   * com.dream11.grpc.metrics.GrpcServerMetrics} of the verticle, and calls holding the event loop
+   * for longer than {@link #blockedCallThreshold} are logged with the stack trace of the loop.
+   */
+  private boolean onLoopTimeTracking = false;
+
+  /** Time a single callback of a call may hold the event loop before being reported. */
+  private Duration blockedCallThreshold = DEFAULT_BLOCKED_CALL_THRESHOLD;
+
+  /** How often event loops are inspected for blocked calls. */
+  private Duration blockedCallCheckInterval = DEFAULT_BLOCKED_CALL_CHECK_INTERVAL;
+
+  /**
+   * Whether to shed new calls with {@code UNAVAILABLE} while the process is under memory pressure,
+   * before it runs out of direct memory or spends its time collecting garbage. Pressure is sampled
+   * from the occupancy of the heap after garbage collection, the usage of the direct memory and the
+   * size of the responses pending for slow clients; the further a signal goes above its threshold,
+   * the more priorities are shed, lowest first. See {@link
+   * com.dream11.grpc.annotation.CallPriority}.
+   */
+  private boolean admissionControl = false;
+
+  /** Occupancy of the heap after garbage collection, from 0 to 1, above which calls are shed. */
+  private double maxHeapOccupancy = DEFAULT_MAX_HEAP_OCCUPANCY;
+
+  /** Usage of the maximum direct memory, from 0 to 1, above which calls are shed. */
+  private double maxDirectMemoryUsage = DEFAULT_MAX_DIRECT_MEMORY_USAGE;
+
+  /** Size, in bytes, of the responses pending in the process above which calls are shed. */
+  private long maxPendingOutboundBytes = DEFAULT_MAX_PENDING_OUTBOUND_BYTES;
+
+  /** How often the memory pressure is sampled. */
+  private Duration memoryPressureCheckInterval = DEFAULT_MEMORY_PRESSURE_CHECK_INTERVAL;
+
+  /**
+   * Whether to run the delivery of request messages and the writes of responses of the calls
+   * received by the listeners in the order of the {@link com.dream11.grpc.annotation.CallPriority}
+   * of their methods, so that high priority calls keep a low latency while the event loop is
+   * contended. Each message and write then waits for its turn on the event loop, which adds some
+   * latency to calls while the event loop is idle.
+   */
+  private boolean priorityScheduling = false;
+
+  /** Order in which the work of the calls is run with priority scheduling. */
+  private SchedulingPolicy schedulingPolicy = SchedulingPolicy.WEIGHTED;
+
+  /**
+   * Compression codecs available to the services in addition to gzip, such as zstd or lz4 codecs
+   * implemented in Java. Each codec is registered under its message encoding, and is used to
+   * decompress requests and to compress responses of the methods whose {@link
+   * com.dream11.grpc.annotation.Compression} policy selects it.
+   */
+  private List<Codec> codecs = new ArrayList<>();
+
+  /**
+   * Maximum size, in bytes, of request messages, unless overridden by the {@link
+   * com.dream11.grpc.annotation.GrpcService} or {@link com.dream11.grpc.annotation.GrpcMethod}
+   * annotations. The limit is checked against the length prefix of each message, so oversized
+   * messages are rejected with {@code RESOURCE_EXHAUSTED} before being buffered.
+   */
+  private int maxInboundMessageSize = DEFAULT_MAX_INBOUND_MESSAGE_SIZE;
+
+  /**
+   * Maximum size, in bytes, of request metadata, counted as the HTTP/2 header list size, unless
+   * overridden by the annotations of the service. Calls with larger metadata are rejected with
+   * {@code RESOURCE_EXHAUSTED} before reaching the interceptors. The {@code
+   * SETTINGS_MAX_HEADER_LIST_SIZE} of the {@link io.vertx.core.http.HttpServerOptions} bounds the
+   * size of the headers a connection accepts in the first place.
+   */
+  private int maxInboundMetadataSize = DEFAULT_MAX_INBOUND_METADATA_SIZE;
+
+  /**
+   * Whether to parse protobuf requests from the buffers they were deframed from, with aliasing
+   * enabled, so that {@code bytes} fields reference the received data instead of being copied by
+   * the marshaller. These buffers are the heap copies Vert.x makes of each HTTP/2 DATA frame, freed
+   * by the garbage collector, so decoding is not zero-copy from the network. Aliased fields keep
+   * the copy they were read from reachable, including the other messages received along with them,
+   * for as long as they are referenced: services should copy the fields they retain beyond the
+   * call, e.g. in caches. Requests of methods not using protobuf marshallers are parsed as usual.
+   */
+  private boolean zeroCopyDecoding = false;
+
+  /**
+   * Maximum size, in bytes, of the responses queued by a stream while it cannot be written to, e.g.
+   * because the client reads slower than the service produces. Services waiting for the call to be
+   * ready, such as the ones implemented with Rx {@code Flowable}s, never queue more than a few
+   * messages; streams of services ignoring the readiness of the call are reset once the limit is
+   * exceeded, instead of buffering responses without bound.
+   */
+  private int maxOutboundQueueSize = DEFAULT_MAX_OUTBOUND_QUEUE_SIZE;
+
+  /**
+   * Whether to coalesce the writes of responses. The responses a stream sends within one event loop
+   * iteration are written together, as a single HTTP/2 DATA frame, once the iteration is over or
+   * once they exceed {@link #writeCoalescingThreshold}, and the flushes of the streams of a
+   * connection are consolidated. This saves frames and system calls for streaming services sending
+   * many small messages in a row, at the cost of a slight delay of each response.
+   */
+  private boolean writeCoalescing = false;
+
+  /** Size, in bytes, of the coalesced responses of a stream above which they are written. */
+  private int writeCoalescingThreshold = DEFAULT_WRITE_COALESCING_THRESHOLD;
+
+  /**
+   * Whether to create the services in parallel on worker threads, rather than one after the other
+   * on the event loop of the verticle, so that services with heavy constructors, e.g. preloading
+   * caches, neither delay the start of each other nor block the event loop. The {@link
+   * com.dream11.grpc.ClassInjector} of the verticle must then be thread-safe.
+   */
+  private boolean parallelServiceCreation = false;
+
+  /**
+   * Maximum time to create a service on a worker thread, in parallel or lazily. A service not
+   * created in time fails the start of the verticle, or the calls of a lazy service.
+   */
+  private Duration serviceCreationTimeout = DEFAULT_SERVICE_CREATION_TIMEOUT;
+
+  /**
+   * Number of synthetic calls sent to each method of the services before the verticle listens, so
+   * that the JIT compiles the services, their interceptors and the marshallers of their messages
+   * before the first real call. The requests are given by {@link
+   * AbstractGrpcVerticle#getWarmUpRequests(io.grpc.MethodDescriptor)}. Zero, the default, disables
+   * the warm-up.
+   */
+  private int warmUpIterations = 0;
+
+  /**
+   * Maximum duration of the warm-up. The verticle starts listening once it has elapsed, even if not
+   * every warm-up call has been made.
+   */
+  private Duration warmUpDuration = DEFAULT_WARM_UP_DURATION;
+
+  /** Number of warm-up calls in flight at once, across all the methods. */
+  private int warmUpConcurrency = DEFAULT_WARM_UP_CONCURRENCY;
+
+  /**
+   * Adds a listener to the verticle.
+   *
+   * @param listener The definition of the listener
+   * @return This instance, for chaining
+   */
+  public GrpcVerticleOptions addListener(GrpcListenerOptions listener) {
+    this.listeners.add(listener);
+    return this;
+  }
+
+  /**
+   * Adds a compression codec to the verticle.
+   *
+   * @param codec The codec, registered under its message encoding
+   * @return This instance, for chaining
+   */
+  public GrpcVerticleOptions addCodec(Codec codec) {
+    this.codecs.add(codec);
+    return this;
+  }
+}
@@ -0,0 +1,32 @@
+package com.dream11.grpc.annotation;
+
+/**
+ * Priority of the calls to a service or to a single method, set through {@link
+ * GrpcService#priority()} or {@link GrpcMethod#priority()}. While the process is under memory
+ * pressure, new calls are shed lowest priority first, see {@link
+ * com.dream11.grpc.GrpcVerticleOptions#isAdmissionControl()}. With priority scheduling, the work of
+ * the calls waiting for an event loop is run highest priority first, see {@link
+ * com.dream11.grpc.GrpcVerticleOptions#isPriorityScheduling()}.
+ *
+ * <pre>{@code
+ * @GrpcService(priority = CallPriority.LOW)
+ * public class LeaderboardService extends RxLeaderboardGrpc.LeaderboardImplBase { ... }
+ * }</pre>
+ */
+public enum CallPriority {
+
+  /** Calls that can be deferred, such as exports and batch jobs. They are shed first. */
+  LOW,
+
+  /** Regular calls. This is the default. */
+  NORMAL,
+
+  /** Calls on the critical path of user requests. They are shed under high pressure only. */
+  HIGH,
+
+  /**
+   * Calls that must not be shed, such as payment confirmations. They are admitted whatever the
+   * memory pressure, so that a method should only be critical if its calls are cheap.
+   */
+  CRITICAL
+}
@@ -0,0 +1,53 @@
+package com.dream11.grpc.annotation;
+
+import java.lang.annotation.Retention;
+import java.lang.annotation.RetentionPolicy;
+import java.lang.annotation.Target;
+
+/**
+ * Message compression policy of a service or of a single method, set through {@link
+ * GrpcService#compression()} or {@link GrpcMethod#compression()}. A policy set on a method replaces
+ * the policy of its service.
+ *
+ * <p>Codecs are referred to by their message encoding, e.g. {@code gzip}. Besides gzip, any codec
+ * registered with {@link com.dream11.grpc.GrpcVerticleOptions#addCodec(io.grpc.Codec)} can be used,
+ * such as a zstd or lz4 codec implemented in Java.
+ *
+ * <pre>{@code
+ * @GrpcService(compression = @Compression(send = {"zstd", "gzip"}, minMessageSize = 4096))
+ * public class CatalogService extends RxCatalogGrpc.CatalogImplBase { ... }
+ * }</pre>
+ */
+@Target({})
+@Retention(value = RetentionPolicy.RUNTIME)
+public @interface Compression {
+
+  /** Default size below which messages are sent uncompressed, 1KiB. */
+  int DEFAULT_MIN_MESSAGE_SIZE = 1024;
+
+  /**
+   * Encodings responses may be compressed with, in order of preference. The first encoding
+   * advertised by the client in its {@code grpc-accept-encoding} header is used; responses are sent
+   * uncompressed when there is none, which is the default.
+   *
+   * @return The encodings to compress responses with
+   */
+  String[] send() default {};
+
+  /**
+   * Encodings accepted for compressed requests. Requests compressed with any other encoding are
+   * rejected with {@code UNIMPLEMENTED}. Empty, the default, accepts all registered codecs.
+   *
+   * @return The encodings accepted from clients
+   */
+  String[] accept() default {};
+
+  /**
+   * Serialized size, in bytes, below which responses are sent uncompressed even when a codec has
+   * been negotiated: compressing small messages costs CPU time and barely reduces, or even grows,
+   * their size.
+   *
+   * @return The minimum size of compressed messages
+   */
+  int minMessageSize() default DEFAULT_MIN_MESSAGE_SIZE;
+}
@@ -0,0 +1,18 @@
+package com.dream11.grpc.annotation;
+
+import java.lang.annotation.ElementType;
+import java.lang.annotation.Retention;
+import java.lang.annotation.RetentionPolicy;
+import java.lang.annotation.Target;
+
+/**
+ * Annotation to mark a class as a gRPC client interceptor. Classes annotated with this annotation
+ * will be automatically discovered and applied to the calls of the {@link
+ * com.dream11.grpc.client.AbstractGrpcClient}s scanning their package.
+ *
+ * <p>The annotated class should implement {@link io.grpc.ClientInterceptor} and provide the
+ * interceptor logic in the {@link io.grpc.ClientInterceptor#interceptCall} method.
+ */
+@Target({ElementType.TYPE})
+@Retention(value = RetentionPolicy.RUNTIME)
+public @interface GrpcClientInterceptor {}
@@ -12,6 +12,9 @@ import java.lang.annotation.Target;
  *
  * <p>The annotated class should implement {@link io.grpc.ServerInterceptor} and provide the
  * interceptor logic in the {@link io.grpc.ServerInterceptor#interceptCall} method.
+ *
+ * <p>Every instance of the verticle creates its own instance of the interceptor: unlike services,
+ * interceptors have no {@link ServiceScope}.
  */
 @Target({ElementType.TYPE})
 @Retention(value = RetentionPolicy.RUNTIME)
@@ -0,0 +1,66 @@
+package com.dream11.grpc.annotation;
+
+import java.lang.annotation.ElementType;
+import java.lang.annotation.Retention;
+import java.lang.annotation.RetentionPolicy;
+import java.lang.annotation.Target;
+
+/**
+ * Annotation to configure a single method of a {@link GrpcService}. It is placed on the method of
+ * the service class implementing the RPC, and overrides the settings of the service for that method
+ * only.
+ *
+ * <pre>{@code
+ * @GrpcService
+ * public class CatalogService extends RxCatalogGrpc.CatalogImplBase {
+ *
+ *   @Override
+ *   @GrpcMethod(compression = @Compression(send = "gzip"))
+ *   public Flowable<Product> listProducts(ListProductsRequest request) { ... }
+ * }
+ * }</pre>
+ */
+@Target({ElementType.METHOD})
+@Retention(value = RetentionPolicy.RUNTIME)
+public @interface GrpcMethod {
+
+  /**
+   * Name of the RPC as declared in the .proto file, e.g. {@code ListProducts}. Empty, the default,
+   * matches the RPC from the name of the annotated method, as generated by the gRPC compiler.
+   *
+   * @return The name of the RPC
+   */
+  String value() default "";
+
+  /**
+   * Compression policy of the method, replacing the policy of the service. At most one policy may
+   * be given; empty, the default, keeps the policy of the service.
+   *
+   * @return The compression policy of the method
+   */
+  Compression[] compression() default {};
+
+  /**
+   * Maximum size, in bytes, of the request messages of the method, replacing the limit of the
+   * service. -1, the default, keeps the limit of the service.
+   *
+   * @return The maximum size of request messages
+   */
+  int maxInboundMessageSize() default -1;
+
+  /**
+   * Maximum size, in bytes, of the request metadata of the method, replacing the limit of the
+   * service. -1, the default, keeps the limit of the service.
+   *
+   * @return The maximum size of request metadata
+   */
+  int maxInboundMetadataSize() default -1;
+
+  /**
+   * Priority of the calls to the method, replacing the priority of the service. At most one
+   * priority may be given; empty, the default, keeps the priority of the service.
+   *
+   * @return The priority of the method
+   */
+  CallPriority[] priority() default {};
+}
@@ -11,7 +11,65 @@ import java.lang.annotation.Target;
  * it starts.
  *
  * <p>The annotated class should implement a gRPC service interface generated from a .proto file.
+ * Individual methods can be configured with {@link GrpcMethod}.
  */
 @Target({ElementType.TYPE})
 @Retention(value = RetentionPolicy.RUNTIME)
-public @interface GrpcService {}
+public @interface GrpcService {
+
+  /**
+   * Compression policy of all the methods of the service. At most one policy may be given; empty,
+   * the default, sends uncompressed responses and accepts requests compressed with any registered
+   * codec.
+   *
+   * @return The compression policy of the service
+   */
+  Compression[] compression() default {};
+
+  /**
+   * Maximum size, in bytes, of the request messages of all the methods of the service, checked
+   * against the length prefix of each message before it is read. Larger messages are rejected with
+   * {@code RESOURCE_EXHAUSTED}. -1, the default, uses {@link
+   * com.dream11.grpc.GrpcVerticleOptions#getMaxInboundMessageSize()}.
+   *
+   * @return The maximum size of request messages
+   */
+  int maxInboundMessageSize() default -1;
+
+  /**
+   * Maximum size, in bytes, of the request metadata of all the methods of the service, counted as
+   * the HTTP/2 header list size. Larger metadata is rejected with {@code RESOURCE_EXHAUSTED} before
+   * the service is called. -1, the default, uses {@link
+   * com.dream11.grpc.GrpcVerticleOptions#getMaxInboundMetadataSize()}.
+   *
+   * @return The maximum size of request metadata
+   */
+  int maxInboundMetadataSize() default -1;
+
+  /**
+   * Whether to create the service on its first call rather than when the verticle starts, for
+   * rarely used services that are expensive to create. The service is created on a worker thread,
+   * and the calls received in the meantime wait for it. Lazy services must extend a class generated
+   * by the gRPC compiler, from which their methods are read. Lazy services are not warmed up, as
+   * this would create them.
+   *
+   * @return Whether the service is created lazily
+   */
+  boolean lazy() default false;
+
+  /**
+   * Scope of the instances of the service: one per verticle instance, the default, or one shared by
+   * the whole process, which must then be thread-safe. See {@link ServiceScope}.
+   *
+   * @return The scope of the service
+   */
+  ServiceScope scope() default ServiceScope.VERTICLE;
+
+  /**
+   * Priority of the calls to all the methods of the service, which decides the order in which calls
+   * are shed under memory pressure and scheduled on the event loop. See {@link CallPriority}.
+   *
+   * @return The priority of the service
+   */
+  CallPriority priority() default CallPriority.NORMAL;
+}
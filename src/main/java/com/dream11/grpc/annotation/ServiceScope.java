@@ -0,0 +1,37 @@
+package com.dream11.grpc.annotation;
+
+/**
+ * Scope of the instances of a service, set through {@link GrpcService#scope()}.
+ *
+ * <p>Scopes only apply to services: every instance of a verticle creates its own instances of the
+ * {@link GrpcInterceptor} classes. An interceptor holding large state should keep it in an object
+ * that the {@link com.dream11.grpc.ClassInjector} binds as a singleton.
+ *
+ * <pre>{@code
+ * @GrpcService(scope = ServiceScope.SHARED)
+ * public class CatalogService extends RxCatalogGrpc.CatalogImplBase { ... }
+ * }</pre>
+ */
+public enum ServiceScope {
+
+  /**
+   * Every instance of the verticle creates its own instance of the service, which is only called
+   * from the event loop of that verticle. This is the default.
+   */
+  VERTICLE,
+
+  /**
+   * A single instance of the service is created for the whole process, the first time a verticle
+   * registers it, and is shared by all the instances of all the verticles registering it, until the
+   * last of them is undeployed. It is created through the {@link com.dream11.grpc.ClassInjector} of
+   * the first verticle.
+   *
+   * <p>A shared service is called concurrently from the event loops of all these verticles, and
+   * must therefore be thread-safe: state shared between calls, such as caches, must be immutable or
+   * concurrent. Each call runs on the event loop of the verticle that received it, as do the
+   * observers of the call, so that code within a single call needs no synchronization. A shared
+   * service must not capture the Vert.x context it is created on, e.g. to schedule timers, as it
+   * belongs to the first verticle only.
+   */
+  SHARED
+}
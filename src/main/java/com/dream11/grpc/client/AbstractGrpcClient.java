@@ -0,0 +1,252 @@
+package com.dream11.grpc.client;
+
+import com.dream11.grpc.ClassInjector;
+import com.dream11.grpc.annotation.GrpcClientInterceptor;
+import com.dream11.grpc.metrics.GrpcClientMetrics;
+import com.dream11.grpc.util.AnnotationUtil;
+import io.grpc.CallOptions;
+import io.grpc.Channel;
+import io.grpc.ClientCall;
+import io.grpc.ClientInterceptor;
+import io.grpc.ClientInterceptors;
+import io.grpc.MethodDescriptor;
+import io.netty.channel.EventLoop;
+import io.reactivex.Completable;
+import io.vertx.core.Context;
+import io.vertx.core.impl.ContextInternal;
+import io.vertx.core.impl.VertxInternal;
+import io.vertx.core.net.SocketAddress;
+import io.vertx.reactivex.core.Vertx;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executor;
+import java.util.concurrent.TimeUnit;
+import lombok.extern.slf4j.Slf4j;
+
+/**
+ * Abstract base class for gRPC clients in a Vert.x environment, the client counterpart of {@link
+ * com.dream11.grpc.AbstractGrpcVerticle}. This class handles:
+ *
+ * <ul>
+ *   <li>A pool of HTTP/2 connections to the target per event loop, see {@link
+ *       GrpcClientOptions#getConnectionsPerEventLoop()}
+ *   <li>Load balancing over the endpoints of an {@link EndpointGroup}, with outlier ejection
+ *   <li>Hedging and retries of idempotent methods within a token budget, see {@link HedgingPolicy}
+ *   <li>Automatic discovery of client interceptors using the {@link GrpcClientInterceptor}
+ *       annotation
+ *   <li>Per-method latency metrics, see {@link GrpcClientMetrics}
+ *   <li>A default deadline for the calls started without one
+ * </ul>
+ *
+ * <p>Calls are sent over the connections of the event loop of the caller, and their responses are
+ * delivered on the context of the caller without any thread hop, so a single client can be shared
+ * by all the verticles of an application. Calls started outside of Vert.x are spread over the event
+ * loops. Errors can be mapped back to {@link com.dream11.grpc.error.GrpcException}s with {@link
+ * com.dream11.grpc.util.ExceptionUtil#toGrpcException(Throwable)}.
+ *
+ * <pre>{@code
+ * public class CatalogClient extends AbstractGrpcClient {
+ *   ...
+ *   public Single<Product> getProduct(GetProductRequest request) {
+ *     return RxCatalogGrpc.newRxStub(this.getChannel())
+ *         .getProduct(request)
+ *         .onErrorResumeNext(e -> Single.error(ExceptionUtil.toGrpcException(e)));
+ *   }
+ * }
+ * }</pre>
+ *
+ * <p>To use this class, extend it and implement the {@link #getInjector()} method to provide
+ * dependency injection for the interceptors.
+ */
+@Slf4j
+public abstract class AbstractGrpcClient {
+
+  private final Vertx vertx;
+  private final String packageName;
+  private final GrpcClientOptions options;
+  private final EndpointGroup endpointGroup;
+  private final Map<EventLoop, LoadBalancer> balancers = new ConcurrentHashMap<>();
+  private volatile Channel channel;
+  private GrpcClientMetrics metrics;
+  private volatile boolean closed;
+
+  /**
+   * Creates a new gRPC client.
+   *
+   * @param vertx The Vert.x instance the connections run on
+   * @param packageName The package name to scan for {@link GrpcClientInterceptor} annotations
+   * @param options The options of the client, including its target
+   */
+  protected AbstractGrpcClient(Vertx vertx, String packageName, GrpcClientOptions options) {
+    this.vertx = vertx;
+    this.packageName = packageName;
+    this.options = options;
+    this.endpointGroup =
+        options.getEndpointGroup() != null
+            ? options.getEndpointGroup()
+            : EndpointGroup.of(
+                options.getHost() + ":" + options.getPort(),
+                List.of(SocketAddress.inetSocketAddress(options.getPort(), options.getHost())));
+  }
+
+  /**
+   * Provides the dependency injector for creating interceptor instances.
+   *
+   * @return A {@link ClassInjector} instance that can create interceptor instances
+   */
+  protected abstract ClassInjector getInjector();
+
+  /**
+   * Discovers all classes annotated with {@link GrpcClientInterceptor} in the configured package.
+   *
+   * @return List of interceptor classes to apply to the calls
+   */
+  protected List<Class<?>> getGrpcClientInterceptors() {
+    return AnnotationUtil.getClassesWithAnnotation(this.packageName, GrpcClientInterceptor.class);
+  }
+
+  /**
+   * Provides the metrics implementation the client reports to. Override this method to bridge the
+   * metrics to the metrics library of the application.
+   *
+   * @return A {@link GrpcClientMetrics} implementation, {@link GrpcClientMetrics#NOOP} by default
+   */
+  protected GrpcClientMetrics getMetrics() {
+    return GrpcClientMetrics.NOOP;
+  }
+
+  /**
+   * Returns the target of the client.
+   *
+   * @return The name of the endpoint group of the client, or {@code host:port} without group
+   */
+  public String getTarget() {
+    return this.endpointGroup.getName();
+  }
+
+  /**
+   * Returns the channel of the client, with its interceptors. Stubs, including the Rx stubs, can be
+   * created once from this channel and shared: each call is sent over the connections of the event
+   * loop it is started on. The interceptors are instantiated on the first call to this method.
+   *
+   * @return The channel of the client
+   */
+  public Channel getChannel() {
+    Channel current = this.channel;
+    if (current == null) {
+      synchronized (this) {
+        current = this.channel;
+        if (current == null) {
+          current = this.createChannel();
+          this.channel = current;
+        }
+      }
+    }
+    return current;
+  }
+
+  /**
+   * Closes the connections of the client once their calls have completed. Calls started afterwards
+   * fail.
+   *
+   * @return A {@link Completable} that completes once the connections are shutting down
+   */
+  public Completable rxClose() {
+    return Completable.fromAction(
+        () -> {
+          this.closed = true;
+          this.balancers.values().forEach(LoadBalancer::shutdown);
+          log.info("gRPC client of {} closed", this.getTarget());
+        });
+  }
+
+  /**
+   * Wraps the routing channel with the discovered interceptors and the metrics interceptor, the
+   * latter registered last so that it is invoked first. The hedging interceptor is registered
+   * first, so that each attempt of a call is routed on its own while the other interceptors see the
+   * call once.
+   */
+  private Channel createChannel() {
+    this.metrics = this.getMetrics();
+    List<ClientInterceptor> interceptors = new ArrayList<>();
+    if (this.options.getHedgingPolicy() != null) {
+      interceptors.add(
+          new HedgingInterceptor(
+              this.vertx.getDelegate(),
+              this.getTarget(),
+              this.options.getHedgingPolicy(),
+              this.metrics));
+    }
+    for (Class<?> clazz : this.getGrpcClientInterceptors()) {
+      log.debug("Adding client interceptor:{}", clazz.getName());
+      interceptors.add((ClientInterceptor) this.getInjector().getInstance(clazz));
+    }
+    interceptors.add(new ClientMetricsInterceptor(this.getTarget(), this.metrics));
+    return ClientInterceptors.intercept(new RoutingChannel(), interceptors);
+  }
+
+  /**
+   * Returns the load balancer of the event loop of the caller, creating it on the first call of the
+   * loop.
+   */
+  private LoadBalancer getBalancer(Context caller) {
+    VertxInternal owner = (VertxInternal) this.vertx.getDelegate();
+    EventLoop eventLoop =
+        caller != null
+            ? ((ContextInternal) caller).nettyEventLoop()
+            : owner.getEventLoopGroup().next();
+    return this.balancers.computeIfAbsent(
+        eventLoop,
+        loop -> {
+          if (this.closed) {
+            throw new IllegalStateException("gRPC client of " + this.getTarget() + " is closed");
+          }
+          log.debug("Creating load balancer of {} for event loop {}", this.getTarget(), loop);
+          return new LoadBalancer(owner, loop, this.options, this.endpointGroup, this.metrics);
+        });
+  }
+
+  /**
+   * Creates an executor delivering the callbacks of a call on the context of its caller. Callbacks
+   * raised on the event loop of an event loop context are delivered straight away.
+   */
+  private static Executor onContext(Context context) {
+    ContextInternal internal = (ContextInternal) context;
+    return task -> {
+      if (internal.isEventLoopContext() && internal.nettyEventLoop().inEventLoop()) {
+        internal.dispatch(task);
+      } else {
+        internal.runOnContext(v -> task.run());
+      }
+    };
+  }
+
+  /** Sends each call to the load balancer of the event loop of its caller. */
+  private final class RoutingChannel extends Channel {
+
+    @Override
+    public <R1, R2> ClientCall<R1, R2> newCall(
+        MethodDescriptor<R1, R2> methodDescriptor, CallOptions callOptions) {
+      Context caller = io.vertx.core.Vertx.currentContext();
+      CallOptions options = callOptions;
+      if (options.getExecutor() == null && caller != null) {
+        options = options.withExecutor(onContext(caller));
+      }
+      if (options.getDeadline() == null
+          && AbstractGrpcClient.this.options.getDefaultDeadline() != null) {
+        options =
+            options.withDeadlineAfter(
+                AbstractGrpcClient.this.options.getDefaultDeadline().toNanos(),
+                TimeUnit.NANOSECONDS);
+      }
+      return AbstractGrpcClient.this.getBalancer(caller).newCall(methodDescriptor, options);
+    }
+
+    @Override
+    public String authority() {
+      return AbstractGrpcClient.this.getTarget();
+    }
+  }
+}
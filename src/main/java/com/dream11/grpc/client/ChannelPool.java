@@ -0,0 +1,77 @@
+package com.dream11.grpc.client;
+
+import io.grpc.CallOptions;
+import io.grpc.Channel;
+import io.grpc.ClientCall;
+import io.grpc.ManagedChannel;
+import io.grpc.MethodDescriptor;
+import io.grpc.netty.NettyChannelBuilder;
+import io.netty.channel.EventLoop;
+import io.vertx.core.impl.VertxInternal;
+import io.vertx.core.net.SocketAddress;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * The connections of an event loop to an endpoint of a client. Each connection is a grpc-java
+ * {@link ManagedChannel} whose transport runs on the event loop, so that the calls started on the
+ * loop are written, and their responses read, without any thread hop. Calls are spread over the
+ * connections in turn.
+ */
+final class ChannelPool extends Channel {
+
+  private final ManagedChannel[] channels;
+  private final AtomicInteger next = new AtomicInteger();
+
+  /**
+   * Creates the connections of an event loop. Connections are only opened on their first call.
+   *
+   * @param vertx The Vert.x instance providing the transport
+   * @param eventLoop The event loop of the connections
+   * @param endpoint The address of the endpoint
+   * @param options The options of the client
+   */
+  ChannelPool(
+      VertxInternal vertx, EventLoop eventLoop, SocketAddress endpoint, GrpcClientOptions options) {
+    this.channels = new ManagedChannel[Math.max(1, options.getConnectionsPerEventLoop())];
+    for (int i = 0; i < this.channels.length; i++) {
+      NettyChannelBuilder builder =
+          NettyChannelBuilder.forAddress(endpoint.host(), endpoint.port())
+              .eventLoopGroup(eventLoop)
+              .channelFactory(vertx.transport().channelFactory(false))
+              .executor(eventLoop)
+              .maxInboundMessageSize(options.getMaxInboundMessageSize());
+      if (options.isSsl()) {
+        builder.useTransportSecurity();
+      } else {
+        builder.usePlaintext();
+      }
+      if (options.getKeepAliveTime() != null) {
+        builder.keepAliveTime(options.getKeepAliveTime().toNanos(), TimeUnit.NANOSECONDS);
+      }
+      if (options.getIdleTimeout() != null) {
+        builder.idleTimeout(options.getIdleTimeout().toNanos(), TimeUnit.NANOSECONDS);
+      }
+      this.channels[i] = builder.build();
+    }
+  }
+
+  @Override
+  public <R1, R2> ClientCall<R1, R2> newCall(
+      MethodDescriptor<R1, R2> methodDescriptor, CallOptions callOptions) {
+    int index = Math.floorMod(this.next.getAndIncrement(), this.channels.length);
+    return this.channels[index].newCall(methodDescriptor, callOptions);
+  }
+
+  @Override
+  public String authority() {
+    return this.channels[0].authority();
+  }
+
+  /** Closes the connections once their calls have completed, and fails any new call. */
+  void shutdown() {
+    for (ManagedChannel channel : this.channels) {
+      channel.shutdown();
+    }
+  }
+}
@@ -0,0 +1,55 @@
+package com.dream11.grpc.client;
+
+import com.dream11.grpc.metrics.GrpcClientMetrics;
+import io.grpc.CallOptions;
+import io.grpc.Channel;
+import io.grpc.ClientCall;
+import io.grpc.ClientInterceptor;
+import io.grpc.ForwardingClientCall;
+import io.grpc.ForwardingClientCallListener;
+import io.grpc.Metadata;
+import io.grpc.MethodDescriptor;
+import io.grpc.Status;
+
+/**
+ * Records the latency of the calls of a client, from their start to the reception of their status.
+ * Registered as the outermost interceptor of the client, so that the time spent in the other
+ * interceptors is accounted for.
+ */
+final class ClientMetricsInterceptor implements ClientInterceptor {
+
+  private final String target;
+  private final GrpcClientMetrics metrics;
+
+  ClientMetricsInterceptor(String target, GrpcClientMetrics metrics) {
+    this.target = target;
+    this.metrics = metrics;
+  }
+
+  @Override
+  public <R1, R2> ClientCall<R1, R2> interceptCall(
+      MethodDescriptor<R1, R2> method, CallOptions callOptions, Channel next) {
+    String fullMethodName = method.getFullMethodName();
+    return new ForwardingClientCall.SimpleForwardingClientCall<>(
+        next.newCall(method, callOptions)) {
+      @Override
+      public void start(Listener<R2> responseListener, Metadata headers) {
+        long start = System.nanoTime();
+        super.start(
+            new ForwardingClientCallListener.SimpleForwardingClientCallListener<>(
+                responseListener) {
+              @Override
+              public void onClose(Status status, Metadata trailers) {
+                ClientMetricsInterceptor.this.metrics.recordClientCall(
+                    ClientMetricsInterceptor.this.target,
+                    fullMethodName,
+                    status.getCode(),
+                    System.nanoTime() - start);
+                super.onClose(status, trailers);
+              }
+            },
+            headers);
+      }
+    };
+  }
+}
@@ -0,0 +1,156 @@
+package com.dream11.grpc.client;
+
+import io.vertx.core.net.SocketAddress;
+import io.vertx.reactivex.core.Vertx;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.stream.Collectors;
+import lombok.extern.slf4j.Slf4j;
+
+/**
+ * The endpoints an {@link AbstractGrpcClient} balances its calls over, given as a static list or
+ * read from a file refreshed periodically. The file holds one {@code host:port} endpoint per line;
+ * blank lines and lines starting with {@code #} are ignored.
+ *
+ * <p>Clients pick up a new list of endpoints on their next call: connections to new endpoints are
+ * opened lazily, and connections to removed endpoints are closed once their calls have completed. A
+ * group may be shared by several clients, and must be closed once none of them uses it anymore.
+ */
+@Slf4j
+public final class EndpointGroup {
+
+  private final String name;
+  private volatile List<SocketAddress> endpoints;
+  private Vertx vertx;
+  private long refreshTimer = -1;
+
+  private EndpointGroup(String name, List<SocketAddress> endpoints) {
+    this.name = name;
+    this.endpoints = List.copyOf(endpoints);
+  }
+
+  /**
+   * Creates a group of fixed endpoints.
+   *
+   * @param name The name of the group, reported as the target of the client
+   * @param endpoints The endpoints, as {@code host:port}
+   * @return The endpoint group
+   */
+  public static EndpointGroup of(String name, String... endpoints) {
+    return of(
+        name, Arrays.stream(endpoints).map(EndpointGroup::parse).collect(Collectors.toList()));
+  }
+
+  /**
+   * Creates a group of fixed endpoints.
+   *
+   * @param name The name of the group, reported as the target of the client
+   * @param endpoints The endpoints
+   * @return The endpoint group
+   */
+  public static EndpointGroup of(String name, List<SocketAddress> endpoints) {
+    return new EndpointGroup(name, endpoints);
+  }
+
+  /**
+   * Creates a group of the endpoints listed in a file. The file is read once when the group is
+   * created, and then periodically: the endpoints are updated when the content of the file changes,
+   * and kept as they are when the file cannot be read.
+   *
+   * @param vertx The Vert.x instance the file is read with
+   * @param name The name of the group, reported as the target of the client
+   * @param path The path of the file
+   * @param refreshInterval How often the file is read
+   * @return The endpoint group
+   */
+  public static EndpointGroup fromFile(
+      Vertx vertx, String name, String path, Duration refreshInterval) {
+    EndpointGroup group =
+        new EndpointGroup(name, parseFile(vertx.fileSystem().readFileBlocking(path).toString()));
+    group.vertx = vertx;
+    group.refreshTimer =
+        vertx.setPeriodic(
+            refreshInterval.toMillis(),
+            id ->
+                vertx
+                    .fileSystem()
+                    .rxReadFile(path)
+                    .map(content -> parseFile(content.toString()))
+                    .subscribe(
+                        group::setEndpoints,
+                        err ->
+                            log.warn(
+                                "Failed to refresh endpoints of {} from {}", name, path, err)));
+    return group;
+  }
+
+  /**
+   * Returns the name of the group.
+   *
+   * @return The name of the group
+   */
+  public String getName() {
+    return this.name;
+  }
+
+  /**
+   * Returns the current endpoints of the group. The list is immutable and replaced as a whole when
+   * the endpoints change, so that clients can detect changes by identity.
+   *
+   * @return The endpoints of the group
+   */
+  public List<SocketAddress> getEndpoints() {
+    return this.endpoints;
+  }
+
+  /** Stops refreshing the endpoints of the group. */
+  public void close() {
+    if (this.refreshTimer != -1) {
+      this.vertx.cancelTimer(this.refreshTimer);
+      this.refreshTimer = -1;
+    }
+  }
+
+  private void setEndpoints(List<SocketAddress> endpoints) {
+    if (!endpoints.equals(this.endpoints)) {
+      log.info("Endpoints of {} changed to {}", this.name, endpoints);
+      this.endpoints = List.copyOf(endpoints);
+    }
+  }
+
+  private static List<SocketAddress> parseFile(String content) {
+    List<SocketAddress> endpoints = new ArrayList<>();
+    for (String line : content.split("\n")) {
+      String endpoint = line.trim();
+      if (!endpoint.isEmpty() && !endpoint.startsWith("#")) {
+        endpoints.add(parse(endpoint));
+      }
+    }
+    return endpoints;
+  }
+
+  /**
+   * Parses an endpoint given as {@code host:port}, with IPv6 addresses enclosed in brackets.
+   *
+   * @param endpoint The endpoint
+   * @return The address of the endpoint
+   */
+  static SocketAddress parse(String endpoint) {
+    int separator = endpoint.lastIndexOf(':');
+    if (separator <= 0 || separator == endpoint.length() - 1) {
+      throw new IllegalArgumentException("Invalid endpoint " + endpoint + ", expected host:port");
+    }
+    String host = endpoint.substring(0, separator);
+    if (host.startsWith("[") && host.endsWith("]")) {
+      host = host.substring(1, host.length() - 1);
+    }
+    try {
+      return SocketAddress.inetSocketAddress(
+          Integer.parseInt(endpoint.substring(separator + 1)), host);
+    } catch (NumberFormatException e) {
+      throw new IllegalArgumentException("Invalid port of endpoint " + endpoint, e);
+    }
+  }
+}
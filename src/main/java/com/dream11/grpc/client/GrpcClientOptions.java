@@ -0,0 +1,104 @@
+package com.dream11.grpc.client;
+
+import java.time.Duration;
+import lombok.Getter;
+import lombok.Setter;
+import lombok.experimental.Accessors;
+
+/**
+ * Options controlling the connections and calls of an {@link AbstractGrpcClient}. All setters
+ * return this instance so that the options can be configured fluently, in the same way as the
+ * Vert.x options classes.
+ */
+@Getter
+@Setter
+@Accessors(chain = true)
+public class GrpcClientOptions {
+
+  /** Default number of connections opened to the target by each event loop. */
+  public static final int DEFAULT_CONNECTIONS_PER_EVENT_LOOP = 2;
+
+  /** Default number of consecutive {@code UNAVAILABLE} calls after which an endpoint is ejected. */
+  public static final int DEFAULT_OUTLIER_EJECTION_FAILURES = 5;
+
+  /** Default time an ejected endpoint is no longer picked. */
+  public static final Duration DEFAULT_OUTLIER_EJECTION_TIME = Duration.ofSeconds(30);
+
+  /** Default maximum percentage of the endpoints that can be ejected at once. */
+  public static final int DEFAULT_MAX_EJECTION_PERCENT = 50;
+
+  /** Default time constant of the moving average of the latency of the endpoints. */
+  public static final Duration DEFAULT_LATENCY_DECAY = Duration.ofSeconds(10);
+
+  /** Default maximum size of response messages, 4MiB as in grpc-java. */
+  public static final int DEFAULT_MAX_INBOUND_MESSAGE_SIZE = 4 * 1024 * 1024;
+
+  /** The host name or address of the target, unless an {@link #endpointGroup} is set. */
+  private String host = "localhost";
+
+  /** The port of the target, unless an {@link #endpointGroup} is set. */
+  private int port = 8080;
+
+  /**
+   * The endpoints to balance the calls over, in place of the single {@link #host} and {@link
+   * #port}. Each event loop picks the endpoint of a call with the power of two choices over the
+   * outstanding calls and the latency of the endpoints.
+   */
+  private EndpointGroup endpointGroup;
+
+  /**
+   * Number of calls failing in a row with {@code UNAVAILABLE} after which an endpoint is ejected
+   * from the load balancing for {@link #outlierEjectionTime}. Zero or less disables the ejection.
+   */
+  private int outlierEjectionFailures = DEFAULT_OUTLIER_EJECTION_FAILURES;
+
+  /** Time an ejected endpoint is no longer picked, after which it is tried again. */
+  private Duration outlierEjectionTime = DEFAULT_OUTLIER_EJECTION_TIME;
+
+  /** Maximum percentage of the endpoints of an event loop that can be ejected at once. */
+  private int maxEjectionPercent = DEFAULT_MAX_EJECTION_PERCENT;
+
+  /**
+   * Time constant of the moving average of the latency of each endpoint: the weight of a latency
+   * halves roughly every 0.7 times this duration.
+   */
+  private Duration latencyDecay = DEFAULT_LATENCY_DECAY;
+
+  /**
+   * Number of HTTP/2 connections each event loop opens to each endpoint. Calls started on an event
+   * loop are spread over its connections in turn, so that a single connection, its flow-control
+   * windows and the concurrent stream limit of the server, does not bound the calls of the loop.
+   * Connections are opened on the first call of the event loop.
+   */
+  private int connectionsPerEventLoop = DEFAULT_CONNECTIONS_PER_EVENT_LOOP;
+
+  /** Whether to connect with TLS, trusting the certificates of the default trust store. */
+  private boolean ssl = false;
+
+  /** Maximum size, in bytes, of response messages. */
+  private int maxInboundMessageSize = DEFAULT_MAX_INBOUND_MESSAGE_SIZE;
+
+  /**
+   * Deadline applied to the calls started without one. Null, the default, leaves such calls without
+   * deadline.
+   */
+  private Duration defaultDeadline;
+
+  /**
+   * Interval at which keepalive pings are sent on each connection while calls are in progress.
+   * Null, the default, disables keepalive pings.
+   */
+  private Duration keepAliveTime;
+
+  /**
+   * Time a connection may stay without any call before it is closed, and opened again on the next
+   * call. Null, the default, uses the 30 minutes of grpc-java.
+   */
+  private Duration idleTimeout;
+
+  /**
+   * The methods to hedge and retry, and the budget of their additional attempts. Null, the default,
+   * sends every call once.
+   */
+  private HedgingPolicy hedgingPolicy;
+}
@@ -0,0 +1,335 @@
+package com.dream11.grpc.client;
+
+import com.dream11.grpc.metrics.GrpcClientMetrics;
+import com.dream11.grpc.util.ExceptionUtil;
+import com.google.rpc.Code;
+import io.grpc.CallOptions;
+import io.grpc.Channel;
+import io.grpc.ClientCall;
+import io.grpc.ClientInterceptor;
+import io.grpc.Metadata;
+import io.grpc.MethodDescriptor;
+import io.grpc.Status;
+import io.vertx.core.Vertx;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Hedges and retries the calls of the unary methods of a {@link HedgingPolicy}. Registered as the
+ * innermost interceptor of the client, so that the other interceptors see a single call, and each
+ * attempt goes through the load balancer on its own, which steers hedges away from the endpoint the
+ * first attempt is pending on.
+ *
+ * <p>The request and the responses of a hedged call are buffered: attempts started late are sent
+ * the request again, and the responses of the winning attempt are delivered once it completes.
+ */
+final class HedgingInterceptor implements ClientInterceptor {
+
+  /** The header telling servers how many attempts of a call were made before, as in grpc-java. */
+  static final Metadata.Key<String> PREVIOUS_ATTEMPTS =
+      Metadata.Key.of("grpc-previous-rpc-attempts", Metadata.ASCII_STRING_MARSHALLER);
+
+  private final Vertx vertx;
+  private final String target;
+  private final HedgingPolicy policy;
+  private final GrpcClientMetrics metrics;
+  private final RetryBudget budget;
+  private final Map<String, LatencyWindow> latencies = new ConcurrentHashMap<>();
+
+  HedgingInterceptor(Vertx vertx, String target, HedgingPolicy policy, GrpcClientMetrics metrics) {
+    this.vertx = vertx;
+    this.target = target;
+    this.policy = policy;
+    this.metrics = metrics;
+    this.budget = new RetryBudget(policy.getBudgetRatio(), policy.getMaxBudgetTokens());
+  }
+
+  @Override
+  public <R1, R2> ClientCall<R1, R2> interceptCall(
+      MethodDescriptor<R1, R2> method, CallOptions callOptions, Channel next) {
+    if (method.getType() != MethodDescriptor.MethodType.UNARY
+        || !this.policy.appliesTo(method.getFullMethodName())) {
+      return next.newCall(method, callOptions);
+    }
+    this.budget.deposit();
+    return new HedgedCall<>(
+        method,
+        callOptions,
+        next,
+        this.latencies.computeIfAbsent(method.getFullMethodName(), name -> new LatencyWindow()));
+  }
+
+  /**
+   * Returns whether a failed attempt is retried, based on its status code or on the error code of
+   * the {@link com.dream11.grpc.error.GrpcException} reported by the service.
+   */
+  private boolean isRetryable(Status status, Metadata trailers) {
+    if (this.policy.getRetryableCodes().contains(Code.forNumber(status.getCode().value()))) {
+      return true;
+    }
+    return !this.policy.getRetryableErrorCodes().isEmpty()
+        && this.policy
+            .getRetryableErrorCodes()
+            .contains(
+                ExceptionUtil.toGrpcException(status.asRuntimeException(trailers)).getErrorCode());
+  }
+
+  /**
+   * The recent latencies of a method, from which the hedging delay of its calls is computed. The
+   * delay is recomputed every few latencies rather than on every call, and latencies recorded
+   * concurrently may overwrite each other, which is harmless for a percentile estimate.
+   */
+  final class LatencyWindow {
+
+    private final long[] samples = new long[HedgingPolicy.LATENCY_WINDOW];
+    private final AtomicLong count = new AtomicLong();
+    private volatile long delay = -1;
+
+    void record(long nanos) {
+      long recorded = this.count.incrementAndGet();
+      this.samples[(int) ((recorded - 1) % this.samples.length)] = nanos;
+      if (recorded >= HedgingPolicy.MIN_LATENCY_SAMPLES && recorded % 16 == 0) {
+        long[] sorted = Arrays.copyOf(this.samples, (int) Math.min(recorded, this.samples.length));
+        Arrays.sort(sorted);
+        double percentile = HedgingInterceptor.this.policy.getDelayPercentile();
+        int index = (int) Math.ceil(percentile / 100 * sorted.length);
+        this.delay = sorted[Math.max(0, Math.min(sorted.length, index) - 1)];
+      }
+    }
+
+    /** Returns the hedging delay in nanoseconds, or -1 until enough latencies are recorded. */
+    long getDelay() {
+      return this.delay;
+    }
+  }
+
+  /** A call sent as one or more attempts, of which the first to complete is delivered. */
+  private final class HedgedCall<R1, R2> extends ClientCall<R1, R2> {
+
+    private final MethodDescriptor<R1, R2> method;
+    private final CallOptions callOptions;
+    private final Channel next;
+    private final LatencyWindow latencyWindow;
+    private final List<Attempt> active = new ArrayList<>(2);
+    private Listener<R2> listener;
+    private Metadata headers;
+    private R1 message;
+    private boolean halfClosed;
+    private boolean cancelled;
+    private boolean committed;
+    private int attempts;
+    private long hedgeTimer = -1;
+    private long start;
+
+    HedgedCall(
+        MethodDescriptor<R1, R2> method,
+        CallOptions callOptions,
+        Channel next,
+        LatencyWindow latencyWindow) {
+      this.method = method;
+      this.callOptions = callOptions;
+      this.next = next;
+      this.latencyWindow = latencyWindow;
+    }
+
+    @Override
+    public synchronized void start(Listener<R2> responseListener, Metadata headers) {
+      this.listener = responseListener;
+      this.headers = headers;
+      this.start = System.nanoTime();
+      this.startAttempt();
+      this.scheduleHedge();
+    }
+
+    @Override
+    public void request(int numMessages) {
+      // The responses are buffered and delivered once an attempt completes
+    }
+
+    @Override
+    public synchronized void sendMessage(R1 message) {
+      this.message = message;
+      for (Attempt attempt : List.copyOf(this.active)) {
+        attempt.call.sendMessage(message);
+      }
+    }
+
+    @Override
+    public synchronized void halfClose() {
+      this.halfClosed = true;
+      for (Attempt attempt : List.copyOf(this.active)) {
+        attempt.call.halfClose();
+      }
+    }
+
+    @Override
+    public synchronized void cancel(String message, Throwable cause) {
+      this.cancelled = true;
+      this.cancelHedge();
+      for (Attempt attempt : List.copyOf(this.active)) {
+        attempt.call.cancel(message, cause);
+      }
+    }
+
+    /**
+     * Starts an attempt, replaying the request sent so far. The servers are told the number of
+     * previous attempts.
+     */
+    private void startAttempt() {
+      Metadata attemptHeaders = new Metadata();
+      attemptHeaders.merge(this.headers);
+      if (this.attempts > 0) {
+        attemptHeaders.put(PREVIOUS_ATTEMPTS, String.valueOf(this.attempts));
+      }
+      this.attempts++;
+      Attempt attempt = new Attempt(this.next.newCall(this.method, this.callOptions));
+      this.active.add(attempt);
+      attempt.call.start(attempt, attemptHeaders);
+      attempt.call.request(2);
+      if (this.message != null) {
+        attempt.call.sendMessage(this.message);
+      }
+      if (this.halfClosed) {
+        attempt.call.halfClose();
+      }
+    }
+
+    /**
+     * Schedules the next hedge after the hedging delay of the method, on the context of the caller
+     * so that the hedge is sent over the connections of its event loop.
+     */
+    private void scheduleHedge() {
+      long delay = this.latencyWindow.getDelay();
+      if (delay < 0 || this.attempts >= HedgingInterceptor.this.policy.getMaxAttempts()) {
+        return;
+      }
+      long nanos = Math.max(delay, HedgingInterceptor.this.policy.getMinDelay().toNanos());
+      this.hedgeTimer =
+          HedgingInterceptor.this.vertx.setTimer(
+              Math.max(1, TimeUnit.NANOSECONDS.toMillis(nanos)), id -> this.onHedgeTimer());
+    }
+
+    private void cancelHedge() {
+      if (this.hedgeTimer != -1) {
+        HedgingInterceptor.this.vertx.cancelTimer(this.hedgeTimer);
+        this.hedgeTimer = -1;
+      }
+    }
+
+    private synchronized void onHedgeTimer() {
+      this.hedgeTimer = -1;
+      if (this.committed
+          || this.cancelled
+          || this.attempts >= HedgingInterceptor.this.policy.getMaxAttempts()) {
+        return;
+      }
+      if (!this.withdraw()) {
+        return;
+      }
+      HedgingInterceptor.this.metrics.recordClientRetry(
+          HedgingInterceptor.this.target, this.method.getFullMethodName(), true);
+      this.startAttempt();
+      this.scheduleHedge();
+    }
+
+    /**
+     * Handles the completion of an attempt: successful and non-retryable attempts are delivered,
+     * retryable ones are retried once no other attempt is pending, as long as attempts and tokens
+     * remain.
+     */
+    private void onAttemptClose(Attempt attempt, Status status, Metadata trailers) {
+      Runnable delivery;
+      synchronized (this) {
+        if (this.committed) {
+          return;
+        }
+        this.active.remove(attempt);
+        if (status.isOk()) {
+          // The latency of the call rather than of the attempt: a winning hedge would otherwise
+          // record a latency far below the one the caller observed
+          this.latencyWindow.record(System.nanoTime() - this.start);
+        }
+        if (status.isOk()
+            || this.cancelled
+            || !HedgingInterceptor.this.isRetryable(status, trailers)) {
+          delivery = this.commit(attempt, status, trailers);
+        } else if (!this.active.isEmpty()) {
+          return;
+        } else if (this.attempts < HedgingInterceptor.this.policy.getMaxAttempts()
+            && this.withdraw()) {
+          HedgingInterceptor.this.metrics.recordClientRetry(
+              HedgingInterceptor.this.target, this.method.getFullMethodName(), false);
+          this.cancelHedge();
+          this.startAttempt();
+          this.scheduleHedge();
+          return;
+        } else {
+          delivery = this.commit(attempt, status, trailers);
+        }
+      }
+      delivery.run();
+    }
+
+    /** Withdraws the token of an additional attempt from the budget. */
+    private boolean withdraw() {
+      if (HedgingInterceptor.this.budget.tryWithdraw()) {
+        return true;
+      }
+      HedgingInterceptor.this.metrics.recordRetryBudgetExhausted(
+          HedgingInterceptor.this.target, this.method.getFullMethodName());
+      return false;
+    }
+
+    /** Cancels the other attempts, and returns the delivery of the outcome of an attempt. */
+    private Runnable commit(Attempt winner, Status status, Metadata trailers) {
+      this.committed = true;
+      this.cancelHedge();
+      for (Attempt attempt : this.active) {
+        attempt.call.cancel("Another attempt of the call completed", null);
+      }
+      this.active.clear();
+      Listener<R2> responseListener = this.listener;
+      return () -> {
+        if (winner.headers != null) {
+          responseListener.onHeaders(winner.headers);
+        }
+        if (winner.response != null) {
+          responseListener.onMessage(winner.response);
+        }
+        responseListener.onClose(status, trailers);
+      };
+    }
+
+    /** An attempt of the call, buffering its responses until it completes. */
+    private final class Attempt extends ClientCall.Listener<R2> {
+
+      private final ClientCall<R1, R2> call;
+      private Metadata headers;
+      private R2 response;
+
+      Attempt(ClientCall<R1, R2> call) {
+        this.call = call;
+      }
+
+      @Override
+      public void onHeaders(Metadata headers) {
+        this.headers = headers;
+      }
+
+      @Override
+      public void onMessage(R2 message) {
+        this.response = message;
+      }
+
+      @Override
+      public void onClose(Status status, Metadata trailers) {
+        HedgedCall.this.onAttemptClose(this, status, trailers);
+      }
+    }
+  }
+}
@@ -0,0 +1,108 @@
+package com.dream11.grpc.client;
+
+import com.dream11.grpc.error.GrpcError;
+import com.google.rpc.Code;
+import java.time.Duration;
+import java.util.HashSet;
+import java.util.Set;
+import lombok.Getter;
+import lombok.Setter;
+import lombok.experimental.Accessors;
+
+/**
+ * Options controlling the hedging and retries of the idempotent unary methods of an {@link
+ * AbstractGrpcClient}. A call is hedged, i.e. sent again without waiting for the first attempt,
+ * when it has not completed after the {@link #delayPercentile} of the recent latencies of its
+ * method; the first attempt to complete wins and the others are cancelled. An attempt failing with
+ * a retryable error is retried straight away.
+ *
+ * <p>Additional attempts, hedges and retries alike, are paid for with the tokens of a budget shared
+ * by all the methods of the client: each call deposits {@link #budgetRatio} token, and each
+ * additional attempt withdraws one, so that hedges and retries never add more than this ratio of
+ * calls to the load of the target, even when all its endpoints slow down or fail.
+ *
+ * <p>Only methods that can safely be executed several times should be hedged.
+ */
+@Getter
+@Setter
+@Accessors(chain = true)
+public class HedgingPolicy {
+
+  /** Number of recent latencies of a method the hedging delay is computed from. */
+  public static final int LATENCY_WINDOW = 256;
+
+  /** Number of latencies a method must have recorded before its calls are hedged. */
+  public static final int MIN_LATENCY_SAMPLES = 32;
+
+  /**
+   * The methods to hedge and retry: fully qualified method names, e.g. {@code
+   * package.Service/Method}, or service names followed by {@code /*} for all the unary methods of a
+   * service.
+   */
+  private Set<String> methods = new HashSet<>();
+
+  /** Maximum number of attempts of a call, including the first one. */
+  private int maxAttempts = 2;
+
+  /**
+   * Percentile of the recent latencies of a method after which its calls are hedged, between 0 and
+   * 100. Calls are not hedged until {@link #MIN_LATENCY_SAMPLES} latencies have been recorded, but
+   * may still be retried.
+   */
+  private double delayPercentile = 95;
+
+  /** Minimum time to wait before hedging a call, however fast its method usually is. */
+  private Duration minDelay = Duration.ofMillis(1);
+
+  /** Status codes of the attempts that are retried. */
+  private Set<Code> retryableCodes = new HashSet<>(Set.of(Code.UNAVAILABLE));
+
+  /**
+   * Error codes of the {@link com.dream11.grpc.error.GrpcException}s that are retried, as reported
+   * by the services in the details of their status, see {@link #addRetryableError(GrpcError)}.
+   */
+  private Set<String> retryableErrorCodes = new HashSet<>();
+
+  /** Tokens deposited in the budget by each call, one token paying for one additional attempt. */
+  private double budgetRatio = 0.1;
+
+  /** Maximum number of tokens of the budget, which starts full. */
+  private int maxBudgetTokens = 10;
+
+  /**
+   * Adds a method to hedge and retry.
+   *
+   * @param method The fully qualified method name, or a service name followed by {@code /*}
+   * @return This instance, for chaining
+   */
+  public HedgingPolicy addMethod(String method) {
+    this.methods.add(method);
+    return this;
+  }
+
+  /**
+   * Marks an error of the services as retryable, e.g. an error reporting a transient failure of a
+   * dependency.
+   *
+   * @param error The error
+   * @return This instance, for chaining
+   */
+  public HedgingPolicy addRetryableError(GrpcError error) {
+    this.retryableErrorCodes.add(error.getErrorCode());
+    return this;
+  }
+
+  /**
+   * Returns whether the calls of a method are hedged and retried.
+   *
+   * @param fullMethodName The fully qualified method name
+   * @return Whether the method is hedged
+   */
+  boolean appliesTo(String fullMethodName) {
+    if (this.methods.contains(fullMethodName)) {
+      return true;
+    }
+    int separator = fullMethodName.lastIndexOf('/');
+    return separator > 0 && this.methods.contains(fullMethodName.substring(0, separator) + "/*");
+  }
+}
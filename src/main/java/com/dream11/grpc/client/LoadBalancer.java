@@ -0,0 +1,304 @@
+package com.dream11.grpc.client;
+
+import com.dream11.grpc.metrics.GrpcClientMetrics;
+import io.grpc.CallOptions;
+import io.grpc.Channel;
+import io.grpc.ClientCall;
+import io.grpc.ForwardingClientCall;
+import io.grpc.ForwardingClientCallListener;
+import io.grpc.Metadata;
+import io.grpc.MethodDescriptor;
+import io.grpc.Status;
+import io.netty.channel.EventLoop;
+import io.vertx.core.impl.VertxInternal;
+import io.vertx.core.net.SocketAddress;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.Executor;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+import lombok.extern.slf4j.Slf4j;
+
+/**
+ * Balances the calls of an event loop over the endpoints of an {@link EndpointGroup}, each with its
+ * own {@link ChannelPool}. Endpoints are picked with the power of two choices: two endpoints are
+ * drawn at random and the call goes to the one with the lowest cost, the product of its outstanding
+ * calls and of the peak EWMA of its latency. Slow or overloaded endpoints are thus avoided without
+ * the herding of always picking the least loaded endpoint.
+ *
+ * <p>Endpoints failing {@link GrpcClientOptions#getOutlierEjectionFailures()} calls in a row with
+ * {@code UNAVAILABLE} are ejected, i.e. no longer picked, for {@link
+ * GrpcClientOptions#getOutlierEjectionTime()}, while at most {@link
+ * GrpcClientOptions#getMaxEjectionPercent()} of the endpoints are ejected at once.
+ *
+ * <p>The state of the balancer is only accessed from its event loop, where calls are started and
+ * their responses delivered, and is therefore kept without locks. Calls started outside of Vert.x
+ * update the statistics of a balancer from their own thread; the statistics are only hints to the
+ * picking, so such races may affect the balance of the calls but never their outcome.
+ */
+@Slf4j
+final class LoadBalancer extends Channel {
+
+  /**
+   * The latency calls failing with {@code UNAVAILABLE} are accounted with, so that endpoints
+   * failing fast, e.g. refusing connections, do not attract calls.
+   */
+  private static final long FAILURE_PENALTY = TimeUnit.SECONDS.toNanos(1);
+
+  private final VertxInternal vertx;
+  private final EventLoop eventLoop;
+  private final GrpcClientOptions options;
+  private final EndpointGroup group;
+  private final GrpcClientMetrics metrics;
+  private final Map<SocketAddress, Endpoint> endpointsByAddress = new HashMap<>();
+  private List<SocketAddress> addresses = List.of();
+  private Endpoint[] endpoints = new Endpoint[0];
+  private boolean closed;
+
+  LoadBalancer(
+      VertxInternal vertx,
+      EventLoop eventLoop,
+      GrpcClientOptions options,
+      EndpointGroup group,
+      GrpcClientMetrics metrics) {
+    this.vertx = vertx;
+    this.eventLoop = eventLoop;
+    this.options = options;
+    this.group = group;
+    this.metrics = metrics;
+  }
+
+  @Override
+  public <R1, R2> ClientCall<R1, R2> newCall(
+      MethodDescriptor<R1, R2> methodDescriptor, CallOptions callOptions) {
+    Endpoint endpoint = this.pick();
+    if (endpoint == null) {
+      return new FailingCall<>(
+          Status.UNAVAILABLE.withDescription(
+              "No endpoint of " + this.group.getName() + " is available"),
+          callOptions.getExecutor());
+    }
+    return new TrackedCall<>(endpoint, endpoint.pool.newCall(methodDescriptor, callOptions));
+  }
+
+  @Override
+  public String authority() {
+    return this.group.getName();
+  }
+
+  /** Closes the connections to all the endpoints once their calls have completed. */
+  void shutdown() {
+    this.closed = true;
+    for (Endpoint endpoint : this.endpoints) {
+      endpoint.pool.shutdown();
+    }
+  }
+
+  /**
+   * Picks the endpoint of a call with the power of two choices, preferring endpoints that are not
+   * ejected.
+   *
+   * @return The endpoint, or null if the group has no endpoint
+   */
+  Endpoint pick() {
+    this.refresh();
+    Endpoint[] candidates = this.endpoints;
+    int count = candidates.length;
+    if (count <= 1) {
+      return count == 0 ? null : candidates[0];
+    }
+    long now = System.nanoTime();
+    ThreadLocalRandom random = ThreadLocalRandom.current();
+    int first = random.nextInt(count);
+    int second = random.nextInt(count - 1);
+    if (second >= first) {
+      second++;
+    }
+    Endpoint a = candidates[first];
+    Endpoint b = candidates[second];
+    boolean aEjected = a.isEjected(now);
+    boolean bEjected = b.isEjected(now);
+    if (aEjected != bEjected) {
+      return aEjected ? b : a;
+    }
+    if (aEjected) {
+      // Both are ejected: fall back to the next endpoint that is not, if any
+      for (int i = 1; i < count; i++) {
+        Endpoint candidate = candidates[(first + i) % count];
+        if (!candidate.isEjected(now)) {
+          return candidate;
+        }
+      }
+    }
+    long decay = this.options.getLatencyDecay().toNanos();
+    return a.cost(now, decay) <= b.cost(now, decay) ? a : b;
+  }
+
+  /** Follows the changes of the endpoints of the group. */
+  private void refresh() {
+    List<SocketAddress> current = this.group.getEndpoints();
+    if (current == this.addresses || this.closed) {
+      return;
+    }
+    Map<SocketAddress, Endpoint> removed = new HashMap<>(this.endpointsByAddress);
+    Endpoint[] updated = new Endpoint[current.size()];
+    for (int i = 0; i < updated.length; i++) {
+      SocketAddress address = current.get(i);
+      Endpoint endpoint = removed.remove(address);
+      if (endpoint == null) {
+        ChannelPool pool = new ChannelPool(this.vertx, this.eventLoop, address, this.options);
+        endpoint = new Endpoint(address, pool);
+        this.endpointsByAddress.put(address, endpoint);
+      }
+      updated[i] = endpoint;
+    }
+    for (Endpoint endpoint : removed.values()) {
+      this.endpointsByAddress.remove(endpoint.address);
+      endpoint.pool.shutdown();
+    }
+    this.endpoints = updated;
+    this.addresses = current;
+  }
+
+  /** Updates the statistics of an endpoint once a call has completed, and ejects outliers. */
+  private void onComplete(Endpoint endpoint, Status.Code code, long start) {
+    long now = System.nanoTime();
+    endpoint.outstanding--;
+    long decay = this.options.getLatencyDecay().toNanos();
+    if (code != Status.Code.UNAVAILABLE) {
+      endpoint.observe(now - start, now, decay);
+      endpoint.consecutiveFailures = 0;
+      return;
+    }
+    endpoint.observe(Math.max(now - start, FAILURE_PENALTY), now, decay);
+    int threshold = this.options.getOutlierEjectionFailures();
+    if (threshold <= 0
+        || ++endpoint.consecutiveFailures < threshold
+        || endpoint.isEjected(now)
+        || !this.canEject(now)) {
+      return;
+    }
+    endpoint.ejectedUntil = now + this.options.getOutlierEjectionTime().toNanos();
+    endpoint.consecutiveFailures = 0;
+    log.warn(
+        "Ejecting endpoint {} of {} for {}",
+        endpoint.address,
+        this.group.getName(),
+        this.options.getOutlierEjectionTime());
+    this.metrics.recordEndpointEjection(this.group.getName(), endpoint.address.toString());
+  }
+
+  /** Returns whether one more endpoint can be ejected without exceeding the maximum percentage. */
+  private boolean canEject(long now) {
+    int ejected = 1;
+    for (Endpoint endpoint : this.endpoints) {
+      if (endpoint.isEjected(now)) {
+        ejected++;
+      }
+    }
+    return ejected * 100 <= this.endpoints.length * this.options.getMaxEjectionPercent();
+  }
+
+  /** An endpoint of the group and the statistics the picking is based on. */
+  static final class Endpoint {
+
+    final SocketAddress address;
+    final ChannelPool pool;
+    int outstanding;
+    int consecutiveFailures;
+    long ejectedUntil;
+    private double latency;
+    private long lastObservation;
+
+    Endpoint(SocketAddress address, ChannelPool pool) {
+      this.address = address;
+      this.pool = pool;
+    }
+
+    boolean isEjected(long now) {
+      return this.ejectedUntil != 0 && now - this.ejectedUntil < 0;
+    }
+
+    /**
+     * Returns the cost of sending one more call to the endpoint. The latency decays while no call
+     * completes, so that an endpoint avoided after a latency spike is eventually tried again.
+     * Endpoints that have not completed any call yet have no latency, and are tried first.
+     */
+    double cost(long now, long decay) {
+      double latency = this.latency * Math.exp(-(now - this.lastObservation) / (double) decay);
+      return (latency + 1) * (this.outstanding + 1);
+    }
+
+    /**
+     * Adds a latency to the peak EWMA of the endpoint: latencies above the average replace it, so
+     * that the endpoint is avoided as soon as it slows down, and lower ones are averaged in with a
+     * weight decaying with the time elapsed since the previous observation.
+     */
+    void observe(long latency, long now, long decay) {
+      if (latency > this.latency) {
+        this.latency = latency;
+      } else {
+        double weight = Math.exp(-(now - this.lastObservation) / (double) decay);
+        this.latency = this.latency * weight + latency * (1 - weight);
+      }
+      this.lastObservation = now;
+    }
+  }
+
+  /** Tracks the outstanding calls of an endpoint and their outcome. */
+  private final class TrackedCall<R1, R2>
+      extends ForwardingClientCall.SimpleForwardingClientCall<R1, R2> {
+
+    private final Endpoint endpoint;
+
+    TrackedCall(Endpoint endpoint, ClientCall<R1, R2> delegate) {
+      super(delegate);
+      this.endpoint = endpoint;
+    }
+
+    @Override
+    public void start(Listener<R2> responseListener, Metadata headers) {
+      long start = System.nanoTime();
+      this.endpoint.outstanding++;
+      super.start(
+          new ForwardingClientCallListener.SimpleForwardingClientCallListener<>(responseListener) {
+            @Override
+            public void onClose(Status status, Metadata trailers) {
+              LoadBalancer.this.onComplete(TrackedCall.this.endpoint, status.getCode(), start);
+              super.onClose(status, trailers);
+            }
+          },
+          headers);
+    }
+  }
+
+  /** A call failing as soon as it is started, on the executor of its options when set. */
+  private static final class FailingCall<R1, R2> extends ClientCall<R1, R2> {
+
+    private final Status status;
+    private final Executor executor;
+
+    FailingCall(Status status, Executor executor) {
+      this.status = status;
+      this.executor = executor != null ? executor : Runnable::run;
+    }
+
+    @Override
+    public void start(Listener<R2> responseListener, Metadata headers) {
+      this.executor.execute(() -> responseListener.onClose(this.status, new Metadata()));
+    }
+
+    @Override
+    public void request(int numMessages) {}
+
+    @Override
+    public void cancel(String message, Throwable cause) {}
+
+    @Override
+    public void halfClose() {}
+
+    @Override
+    public void sendMessage(R1 message) {}
+  }
+}
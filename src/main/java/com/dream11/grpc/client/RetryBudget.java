@@ -0,0 +1,58 @@
+package com.dream11.grpc.client;
+
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * A token bucket bounding the additional attempts of the calls of a client. Each call deposits a
+ * fraction of a token, each additional attempt withdraws a whole token, and the balance is capped,
+ * so that additional attempts amount to at most a fixed ratio of the calls, plus a small burst.
+ */
+final class RetryBudget {
+
+  /** Tokens are counted in thousandths, so that fractions of tokens can be deposited. */
+  private static final long SCALE = 1000;
+
+  private final long deposit;
+  private final long maxBalance;
+  private final AtomicLong balance;
+
+  /**
+   * Creates a full budget.
+   *
+   * @param ratio The tokens deposited by each call
+   * @param maxTokens The maximum number of tokens of the budget
+   */
+  RetryBudget(double ratio, int maxTokens) {
+    this.deposit = Math.round(ratio * SCALE);
+    this.maxBalance = maxTokens * SCALE;
+    this.balance = new AtomicLong(this.maxBalance);
+  }
+
+  /** Deposits the tokens of a call. */
+  void deposit() {
+    long current;
+    do {
+      current = this.balance.get();
+      if (current >= this.maxBalance) {
+        return;
+      }
+    } while (!this.balance.compareAndSet(
+        current, Math.min(this.maxBalance, current + this.deposit)));
+  }
+
+  /**
+   * Withdraws the token of an additional attempt.
+   *
+   * @return Whether the budget held a token
+   */
+  boolean tryWithdraw() {
+    long current;
+    do {
+      current = this.balance.get();
+      if (current < SCALE) {
+        return false;
+      }
+    } while (!this.balance.compareAndSet(current, current - SCALE));
+    return true;
+  }
+}
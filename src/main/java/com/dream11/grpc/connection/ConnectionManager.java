@@ -0,0 +1,203 @@
+package com.dream11.grpc.connection;
+
+import com.dream11.grpc.GrpcVerticleOptions;
+import com.dream11.grpc.metrics.GrpcServerMetrics;
+import io.netty.channel.Channel;
+import io.netty.handler.codec.http2.Http2Connection;
+import io.netty.handler.codec.http2.Http2ConnectionAdapter;
+import io.netty.handler.codec.http2.Http2ConnectionHandler;
+import io.netty.handler.codec.http2.Http2Stream;
+import io.vertx.core.Vertx;
+import io.vertx.core.buffer.Buffer;
+import io.vertx.core.http.HttpConnection;
+import io.vertx.core.net.impl.ConnectionBase;
+import java.time.Duration;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+import lombok.extern.slf4j.Slf4j;
+
+/**
+ * Manages the lifetime of an HTTP/2 connection the same way as grpc servers do:
+ *
+ * <ul>
+ *   <li>Connections older than {@link GrpcVerticleOptions#getMaxConnectionAge()}, with a jitter of
+ *       +/-10% so that connections opened together do not all go away together, are sent a GOAWAY
+ *       frame and given {@link GrpcVerticleOptions#getMaxConnectionAgeGrace()} to complete their
+ *       in-flight calls. Clients then reconnect and are spread across the fleet again.
+ *   <li>Connections without any call for {@link GrpcVerticleOptions#getMaxConnectionIdle()} are
+ *       sent a GOAWAY frame and closed.
+ *   <li>Clients sending keepalive pings more often than {@link
+ *       GrpcVerticleOptions#getPermitKeepAliveTime()} are sent a GOAWAY frame with the {@code
+ *       ENHANCE_YOUR_CALM} error code and disconnected after a few strikes.
+ * </ul>
+ *
+ * <p>All callbacks run on the event loop of the connection.
+ */
+@Slf4j
+public class ConnectionManager extends Http2ConnectionAdapter {
+
+  static final long ENHANCE_YOUR_CALM = 0xb;
+  static final int MAX_PING_STRIKES = 2;
+  static final double MAX_CONNECTION_AGE_JITTER = 0.1;
+
+  /** Minimum interval between pings accepted when there is no call and they are not permitted. */
+  static final long IMPLICIT_PERMIT_TIME_NANOS = TimeUnit.HOURS.toNanos(2);
+
+  private final Vertx vertx;
+  private final HttpConnection connection;
+  private final Http2Connection http2Connection;
+  private final String listener;
+  private final GrpcVerticleOptions options;
+  private final GrpcServerMetrics metrics;
+  private final long epoch = System.nanoTime();
+  private long ageTimer = -1;
+  private long idleTimer = -1;
+  private long lastValidPing = this.epoch;
+  private int pingStrikes;
+  private boolean shuttingDown;
+
+  ConnectionManager(
+      Vertx vertx,
+      HttpConnection connection,
+      Http2Connection http2Connection,
+      String listener,
+      GrpcVerticleOptions options,
+      GrpcServerMetrics metrics) {
+    this.vertx = vertx;
+    this.connection = connection;
+    this.http2Connection = http2Connection;
+    this.listener = listener;
+    this.options = options;
+    this.metrics = metrics;
+  }
+
+  /**
+   * Starts managing a connection if any of the connection management options is enabled.
+   * Connections that do not use HTTP/2 are left untouched.
+   *
+   * @param vertx The Vert.x instance used to schedule timers
+   * @param connection The connection to manage
+   * @param listener The name of the listener that accepted the connection
+   * @param options The options of the verticle
+   * @param metrics The metrics to report connection shutdowns to
+   */
+  public static void install(
+      Vertx vertx,
+      HttpConnection connection,
+      String listener,
+      GrpcVerticleOptions options,
+      GrpcServerMetrics metrics) {
+    boolean enabled =
+        options.getMaxConnectionAge() != null
+            || options.getMaxConnectionIdle() != null
+            || options.getPermitKeepAliveTime() != null;
+    if (!enabled || !(connection instanceof ConnectionBase)) {
+      return;
+    }
+    Channel channel = ((ConnectionBase) connection).channel();
+    Http2ConnectionHandler handler = channel.pipeline().get(Http2ConnectionHandler.class);
+    if (handler == null) {
+      return;
+    }
+    ConnectionManager manager =
+        new ConnectionManager(vertx, connection, handler.connection(), listener, options, metrics);
+    handler.connection().addListener(manager);
+    manager.start();
+    channel.closeFuture().addListener(future -> manager.stop());
+  }
+
+  private void start() {
+    Duration maxAge = this.options.getMaxConnectionAge();
+    if (maxAge != null) {
+      double jitter =
+          ThreadLocalRandom.current()
+              .nextDouble(-MAX_CONNECTION_AGE_JITTER, MAX_CONNECTION_AGE_JITTER);
+      long delay = Math.max((long) (maxAge.toMillis() * (1 + jitter)), 1);
+      this.ageTimer = this.vertx.setTimer(delay, id -> this.onMaxAge());
+    }
+    this.scheduleIdleTimer();
+    if (this.options.getPermitKeepAliveTime() != null) {
+      this.connection.pingHandler(ping -> this.onPing());
+    }
+  }
+
+  private void stop() {
+    this.vertx.cancelTimer(this.ageTimer);
+    this.vertx.cancelTimer(this.idleTimer);
+  }
+
+  @Override
+  public void onStreamActive(Http2Stream stream) {
+    this.vertx.cancelTimer(this.idleTimer);
+    this.resetPingStrikes();
+  }
+
+  @Override
+  public void onStreamClosed(Http2Stream stream) {
+    this.resetPingStrikes();
+    if (this.http2Connection.numActiveStreams() == 0) {
+      this.scheduleIdleTimer();
+    }
+  }
+
+  private void scheduleIdleTimer() {
+    Duration maxIdle = this.options.getMaxConnectionIdle();
+    if (maxIdle != null && !this.shuttingDown) {
+      this.vertx.cancelTimer(this.idleTimer);
+      this.idleTimer = this.vertx.setTimer(Math.max(maxIdle.toMillis(), 1), id -> this.onMaxIdle());
+    }
+  }
+
+  private void onMaxAge() {
+    Duration grace = this.options.getMaxConnectionAgeGrace();
+    this.shutdown("max_age", grace.toMillis());
+  }
+
+  private void onMaxIdle() {
+    if (this.http2Connection.numActiveStreams() == 0) {
+      this.shutdown("max_idle", 0);
+    }
+  }
+
+  /**
+   * Enforces the minimum interval between keepalive pings, the same way as the {@code
+   * KeepAliveEnforcer} of grpc-java. Pings are only counted as strikes when received too early
+   * since the last accepted ping; strikes are reset whenever a call starts or ends.
+   */
+  private void onPing() {
+    long now = System.nanoTime();
+    long permitTime =
+        this.http2Connection.numActiveStreams() > 0 || this.options.isPermitKeepAliveWithoutCalls()
+            ? this.options.getPermitKeepAliveTime().toNanos()
+            : IMPLICIT_PERMIT_TIME_NANOS;
+    if (now - this.lastValidPing >= permitTime) {
+      this.lastValidPing = now;
+      return;
+    }
+    if (++this.pingStrikes > MAX_PING_STRIKES && !this.shuttingDown) {
+      log.debug("Closing connection {} sending too many pings", this.connection.remoteAddress());
+      this.connection.goAway(ENHANCE_YOUR_CALM, -1, Buffer.buffer("too_many_pings"));
+      this.shutdown("too_many_pings", 0);
+    }
+  }
+
+  private void resetPingStrikes() {
+    this.lastValidPing = this.epoch;
+    this.pingStrikes = 0;
+  }
+
+  private void shutdown(String reason, long graceMillis) {
+    if (this.shuttingDown) {
+      return;
+    }
+    this.shuttingDown = true;
+    this.stop();
+    log.debug(
+        "Shutting down connection {} of listener {}, reason:{}",
+        this.connection.remoteAddress(),
+        this.listener,
+        reason);
+    this.metrics.recordConnectionShutdown(this.listener, reason);
+    this.connection.shutdown(graceMillis, TimeUnit.MILLISECONDS);
+  }
+}
@@ -0,0 +1,113 @@
+package com.dream11.grpc.connection;
+
+import com.dream11.grpc.metrics.GrpcServerMetrics;
+import io.reactivex.Completable;
+import io.vertx.core.Handler;
+import io.vertx.reactivex.core.http.HttpConnection;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.TimeUnit;
+import lombok.extern.slf4j.Slf4j;
+
+/**
+ * Keeps track of the HTTP/2 connections accepted by a listener so that they can be drained
+ * gracefully when the server is stopped, and enforces the maximum number of connections of the
+ * listener.
+ *
+ * <p>The tracker is registered as the connection handler of an {@link
+ * io.vertx.reactivex.core.http.HttpServer}. Connection events are delivered on the event loop of
+ * the verticle that created the server, so no synchronisation is needed as long as {@link
+ * #drain(Duration)} is called from the same context.
+ */
+@Slf4j
+public class ConnectionTracker implements Handler<HttpConnection> {
+
+  private final String listener;
+  private final int maxConnections;
+  private final GrpcServerMetrics metrics;
+  private final Set<HttpConnection> connections = new HashSet<>();
+  private boolean draining;
+
+  /**
+   * Creates a new tracker.
+   *
+   * @param listener The name of the listener the tracker is registered on
+   * @param maxConnections The maximum number of open connections, or zero for no limit
+   * @param metrics The metrics to report rejected connections to
+   */
+  public ConnectionTracker(String listener, int maxConnections, GrpcServerMetrics metrics) {
+    this.listener = listener;
+    this.maxConnections = maxConnections;
+    this.metrics = metrics;
+  }
+
+  @Override
+  public void handle(HttpConnection connection) {
+    if (this.draining) {
+      // The server is going away, ask the client to connect elsewhere before it opens any stream
+      log.debug("Rejecting connection from {} while draining", connection.remoteAddress());
+      connection.shutdown(0, TimeUnit.MILLISECONDS);
+      return;
+    }
+    if (this.maxConnections > 0 && this.connections.size() >= this.maxConnections) {
+      log.debug(
+          "Rejecting connection from {}, listener {} reached {} connections",
+          connection.remoteAddress(),
+          this.listener,
+          this.maxConnections);
+      this.metrics.recordRejectedConnection(this.listener);
+      connection.shutdown(0, TimeUnit.MILLISECONDS);
+      return;
+    }
+    this.connections.add(connection);
+    connection.closeHandler(v -> this.connections.remove(connection));
+  }
+
+  /**
+   * Returns the number of connections that are currently open.
+   *
+   * @return The number of open connections
+   */
+  public int size() {
+    return this.connections.size();
+  }
+
+  /**
+   * Returns whether {@link #drain(Duration)} has been called on this tracker.
+   *
+   * @return true if the tracked connections are being drained
+   */
+  public boolean isDraining() {
+    return this.draining;
+  }
+
+  /**
+   * Drains all open connections. Each connection is sent an HTTP/2 GOAWAY frame so that clients
+   * stop opening new streams on it, in-flight streams are allowed to complete, and the connection
+   * is closed once it has no more active streams or when the grace period elapses, whichever
+   * happens first. Connections accepted after this method is called are shut down immediately.
+   *
+   * @param gracePeriod Maximum time to wait for in-flight streams to complete
+   * @return A {@link Completable} that completes when all connections are closed
+   */
+  public Completable drain(Duration gracePeriod) {
+    this.draining = true;
+    List<Completable> shutdowns = new ArrayList<>(this.connections.size());
+    for (HttpConnection connection : this.connections) {
+      shutdowns.add(
+          connection
+              .rxShutdown(gracePeriod.toMillis(), TimeUnit.MILLISECONDS)
+              .doOnError(err -> log.debug("Failed to shutdown connection gracefully", err))
+              .onErrorComplete());
+    }
+    log.info(
+        "Draining {} connection(s) of listener {} with grace period {}",
+        shutdowns.size(),
+        this.listener,
+        gracePeriod);
+    return Completable.merge(shutdowns);
+  }
+}
@@ -0,0 +1,141 @@
+package com.dream11.grpc.connection;
+
+import com.dream11.grpc.metrics.GrpcServerMetrics;
+import io.netty.buffer.ByteBuf;
+import io.netty.channel.ChannelHandlerContext;
+import io.netty.channel.ChannelInboundHandlerAdapter;
+import io.netty.channel.ChannelPipeline;
+import io.netty.handler.codec.http2.Http2ConnectionHandler;
+import io.vertx.core.AsyncResult;
+import io.vertx.core.buffer.Buffer;
+import io.vertx.core.http.Http2Settings;
+import io.vertx.core.http.HttpConnection;
+import io.vertx.core.net.impl.ConnectionBase;
+import java.util.concurrent.TimeUnit;
+import lombok.extern.slf4j.Slf4j;
+
+/**
+ * Grows the HTTP/2 flow-control windows of a connection based on an estimation of its
+ * bandwidth-delay product (BDP), in the same way as the Netty transport of grpc-java.
+ *
+ * <p>When data is received and no measurement is in progress, a PING is sent and the bytes received
+ * until its acknowledgement are counted. The count over one round trip is a sample of the BDP: if
+ * twice the sample exceeds the current window and the measured bandwidth has increased, both the
+ * connection window and the initial stream window are raised to twice the sample, up to the
+ * configured maximum. Connections therefore start with the small windows configured in the {@link
+ * io.vertx.core.http.HttpServerOptions} and only the connections that need it, such as streaming
+ * calls over high-latency links, end up with large windows.
+ *
+ * <p>All methods run on the event loop of the connection.
+ */
+@Slf4j
+public class FlowControlTuner extends ChannelInboundHandlerAdapter {
+
+  private static final String HANDLER_NAME = "grpcFlowControlTuner";
+  private static final Buffer PING_PAYLOAD = Buffer.buffer().appendLong(0x6764705f42445000L);
+
+  private final HttpConnection connection;
+  private final String listener;
+  private final int maxWindowSize;
+  private final GrpcServerMetrics metrics;
+  private ChannelHandlerContext handlerContext;
+  private int windowSize;
+  private boolean pinging;
+  private long pingStart;
+  private long bytesSincePing;
+  private long lastBandwidth;
+
+  FlowControlTuner(
+      HttpConnection connection, String listener, int maxWindowSize, GrpcServerMetrics metrics) {
+    this.connection = connection;
+    this.listener = listener;
+    this.maxWindowSize = maxWindowSize;
+    this.metrics = metrics;
+    this.windowSize = connection.settings().getInitialWindowSize();
+  }
+
+  /**
+   * Starts tuning the flow-control windows of a connection. Connections that do not use HTTP/2 are
+   * left untouched.
+   *
+   * @param connection The connection to tune
+   * @param listener The name of the listener that accepted the connection
+   * @param maxWindowSize The maximum size of the windows, in bytes
+   * @param metrics The metrics to report the window sizes to
+   */
+  public static void install(
+      HttpConnection connection, String listener, int maxWindowSize, GrpcServerMetrics metrics) {
+    if (!(connection instanceof ConnectionBase)) {
+      return;
+    }
+    ChannelPipeline pipeline = ((ConnectionBase) connection).channel().pipeline();
+    ChannelHandlerContext http2 = pipeline.context(Http2ConnectionHandler.class);
+    if (http2 == null || pipeline.get(HANDLER_NAME) != null) {
+      return;
+    }
+    // Count the bytes as they are handed to the HTTP/2 codec, i.e. after TLS
+    pipeline.addBefore(
+        http2.name(),
+        HANDLER_NAME,
+        new FlowControlTuner(connection, listener, maxWindowSize, metrics));
+  }
+
+  @Override
+  public void handlerAdded(ChannelHandlerContext ctx) {
+    this.handlerContext = ctx;
+  }
+
+  @Override
+  public void channelRead(ChannelHandlerContext ctx, Object msg) {
+    if (msg instanceof ByteBuf) {
+      this.onBytesRead(((ByteBuf) msg).readableBytes());
+    }
+    ctx.fireChannelRead(msg);
+  }
+
+  private void onBytesRead(int bytes) {
+    if (!this.pinging) {
+      this.pinging = true;
+      this.bytesSincePing = 0;
+      this.pingStart = System.nanoTime();
+      this.connection.ping(PING_PAYLOAD).onComplete(this::onPingAck);
+    }
+    this.bytesSincePing += bytes;
+  }
+
+  private void onPingAck(AsyncResult<Buffer> ack) {
+    this.pinging = false;
+    if (ack.failed()) {
+      // The connection is closing
+      return;
+    }
+    long elapsed = Math.max(System.nanoTime() - this.pingStart, 1);
+    long bandwidth = this.bytesSincePing * TimeUnit.SECONDS.toNanos(1) / elapsed;
+    int target = (int) Math.min(this.bytesSincePing * 2, this.maxWindowSize);
+    if (target > this.windowSize && bandwidth > this.lastBandwidth) {
+      this.lastBandwidth = bandwidth;
+      this.updateWindows(target);
+    }
+  }
+
+  private void updateWindows(int target) {
+    log.debug(
+        "Growing flow-control windows of connection {} from {} to {}, rtt:{}us",
+        this.connection.remoteAddress(),
+        this.windowSize,
+        target,
+        TimeUnit.NANOSECONDS.toMicros(System.nanoTime() - this.pingStart));
+    this.windowSize = target;
+    if (target > this.connection.getWindowSize()) {
+      this.connection.setWindowSize(target);
+    }
+    // Keep the other settings of the connection, only changed settings are sent
+    this.connection.updateSettings(
+        new Http2Settings(this.connection.settings()).setInitialWindowSize(target));
+    this.metrics.recordFlowControlWindow(this.listener, target);
+    if (target >= this.maxWindowSize && this.handlerContext != null) {
+      // Nothing left to tune, stop pinging
+      this.handlerContext.pipeline().remove(this);
+    }
+  }
+}
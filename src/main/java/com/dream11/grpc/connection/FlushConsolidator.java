@@ -0,0 +1,45 @@
+package com.dream11.grpc.connection;
+
+import io.netty.channel.ChannelHandlerContext;
+import io.netty.channel.ChannelPipeline;
+import io.netty.handler.codec.http2.Http2ConnectionHandler;
+import io.netty.handler.flush.FlushConsolidationHandler;
+import io.vertx.core.http.HttpConnection;
+import io.vertx.core.net.impl.ConnectionBase;
+
+/**
+ * Consolidates the flushes of a connection. The HTTP/2 codec flushes the connection after each
+ * write made outside of a read, that is once per response of every stream; with consolidation, the
+ * writes made within one event loop iteration are flushed at once, in a single system call.
+ */
+public final class FlushConsolidator {
+
+  private static final String HANDLER_NAME = "grpcFlushConsolidator";
+
+  /** The number of flushes after which the connection is flushed during a read. */
+  private static final int EXPLICIT_FLUSH_AFTER_FLUSHES = 256;
+
+  private FlushConsolidator() {}
+
+  /**
+   * Starts consolidating the flushes of a connection. Connections that do not use HTTP/2 are left
+   * untouched.
+   *
+   * @param connection The connection
+   */
+  public static void install(HttpConnection connection) {
+    if (!(connection instanceof ConnectionBase)) {
+      return;
+    }
+    ChannelPipeline pipeline = ((ConnectionBase) connection).channel().pipeline();
+    ChannelHandlerContext http2 = pipeline.context(Http2ConnectionHandler.class);
+    if (http2 == null || pipeline.get(HANDLER_NAME) != null) {
+      return;
+    }
+    // Flushes travel towards the head of the pipeline, so the handler must precede the codec
+    pipeline.addBefore(
+        http2.name(),
+        HANDLER_NAME,
+        new FlushConsolidationHandler(EXPLICIT_FLUSH_AFTER_FLUSHES, true));
+  }
+}
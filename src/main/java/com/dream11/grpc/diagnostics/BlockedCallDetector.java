@@ -0,0 +1,155 @@
+package com.dream11.grpc.diagnostics;
+
+import com.dream11.grpc.metrics.GrpcServerMetrics;
+import java.time.Duration;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.TimeUnit;
+import lombok.extern.slf4j.Slf4j;
+
+/**
+ * Tracks the gRPC method currently executing on each event loop thread and reports calls that hold
+ * the loop for longer than a threshold.
+ *
+ * <p>Event loop threads publish the method they are running with {@link #enter(String)} and {@link
+ * #exit(Slot)}. A single watchdog thread, shared by all detectors of the process, periodically
+ * inspects the published slots; when a callback has been running for longer than the threshold, the
+ * stack trace of the event loop thread is logged once for that callback, together with the name of
+ * the method, which is the information Vert.x's blocked thread checker lacks.
+ */
+@Slf4j
+public class BlockedCallDetector {
+
+  private static final ScheduledExecutorService WATCHDOG =
+      Executors.newSingleThreadScheduledExecutor(
+          runnable -> {
+            Thread thread = new Thread(runnable, "grpc-blocked-call-detector");
+            thread.setDaemon(true);
+            return thread;
+          });
+
+  private final long thresholdNanos;
+  private final Duration checkInterval;
+  private final GrpcServerMetrics metrics;
+  private final Map<Thread, Slot> slots = new ConcurrentHashMap<>();
+  private final ThreadLocal<Slot> currentSlot = ThreadLocal.withInitial(this::newSlot);
+  private ScheduledFuture<?> task;
+
+  /**
+   * Creates a new detector.
+   *
+   * @param threshold The time a single callback may hold the event loop before being reported
+   * @param checkInterval How often the watchdog inspects the event loops
+   * @param metrics The metrics to report blocked calls to
+   */
+  public BlockedCallDetector(
+      Duration threshold, Duration checkInterval, GrpcServerMetrics metrics) {
+    this.thresholdNanos = threshold.toNanos();
+    this.checkInterval = checkInterval;
+    this.metrics = metrics;
+  }
+
+  /** Starts the periodic inspection of the event loops. */
+  public synchronized void start() {
+    if (this.task == null) {
+      long interval = this.checkInterval.toNanos();
+      this.task =
+          WATCHDOG.scheduleAtFixedRate(this::check, interval, interval, TimeUnit.NANOSECONDS);
+    }
+  }
+
+  /** Stops the periodic inspection of the event loops. */
+  public synchronized void stop() {
+    if (this.task != null) {
+      this.task.cancel(false);
+      this.task = null;
+    }
+    this.slots.clear();
+  }
+
+  /**
+   * Publishes that the current thread starts running a callback of the given method. Nested calls
+   * on the same thread are attributed to the outermost method.
+   *
+   * @param fullMethodName The fully qualified method name
+   * @return The slot of the current thread, to be passed to {@link #exit(Slot)}
+   */
+  public Slot enter(String fullMethodName) {
+    Slot slot = this.currentSlot.get();
+    if (slot.depth++ == 0) {
+      slot.startNanos = System.nanoTime();
+      slot.method = fullMethodName;
+    }
+    return slot;
+  }
+
+  /**
+   * Publishes that the current thread finished running a callback.
+   *
+   * @param slot The slot returned by {@link #enter(String)}
+   * @return The time spent since the matching {@link #enter(String)} in nanoseconds, or 0 for a
+   *     nested callback
+   */
+  public long exit(Slot slot) {
+    if (--slot.depth == 0) {
+      slot.method = null;
+      slot.activation++;
+      return System.nanoTime() - slot.startNanos;
+    }
+    return 0;
+  }
+
+  private Slot newSlot() {
+    Slot slot = new Slot(Thread.currentThread());
+    this.slots.put(slot.thread, slot);
+    return slot;
+  }
+
+  private void check() {
+    long now = System.nanoTime();
+    for (Slot slot : this.slots.values()) {
+      // Read the activation first so that a callback completing concurrently is not reported
+      long activation = slot.activation;
+      String method = slot.method;
+      long elapsed = now - slot.startNanos;
+      if (method != null && elapsed > this.thresholdNanos && slot.reported != activation) {
+        slot.reported = activation;
+        this.metrics.recordBlockedCall(method, elapsed);
+        BlockedCallException stack = new BlockedCallException(method, elapsed);
+        stack.setStackTrace(slot.thread.getStackTrace());
+        log.warn("Thread {} has been blocked by {}", slot.thread.getName(), method, stack);
+      }
+    }
+  }
+
+  /** The method published by one event loop thread. */
+  public static final class Slot {
+    private final Thread thread;
+    private int depth;
+    private volatile String method;
+    private volatile long startNanos;
+    private volatile long activation;
+    private long reported = -1;
+
+    private Slot(Thread thread) {
+      this.thread = thread;
+    }
+  }
+
+  /** Carries the stack trace of an event loop thread held by a gRPC call. */
+  private static final class BlockedCallException extends Exception {
+    private static final long serialVersionUID = 1L;
+
+    BlockedCallException(String method, long elapsedNanos) {
+      super(
+          "Call to "
+              + method
+              + " has been running on the event loop for "
+              + TimeUnit.NANOSECONDS.toMillis(elapsedNanos)
+              + " ms");
+    }
+  }
+}
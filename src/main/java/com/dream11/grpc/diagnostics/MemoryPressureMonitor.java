@@ -0,0 +1,227 @@
+package com.dream11.grpc.diagnostics;
+
+import com.dream11.grpc.annotation.CallPriority;
+import com.dream11.grpc.metrics.GrpcServerMetrics;
+import com.dream11.grpc.transport.GrpcCallRouter;
+import io.netty.util.internal.PlatformDependent;
+import java.lang.management.BufferPoolMXBean;
+import java.lang.management.ManagementFactory;
+import java.lang.management.MemoryPoolMXBean;
+import java.lang.management.MemoryType;
+import java.lang.management.MemoryUsage;
+import java.time.Duration;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.TimeUnit;
+import lombok.extern.slf4j.Slf4j;
+
+/**
+ * Samples the memory pressure of the process and decides the lowest priority of the calls that are
+ * admitted, see {@link com.dream11.grpc.interceptor.AdmissionControlInterceptor}.
+ *
+ * <p>Three signals are sampled by a single thread shared by all monitors of the process: the
+ * occupancy of the heap after the last garbage collection, which unlike the current occupancy does
+ * not count garbage, the usage of the direct memory, as counted by Netty and by the JVM, and the
+ * size of the responses pending for slow clients. The severity of a signal grows from 0, at its
+ * threshold, to 1, when the heap or the direct memory is full or the pending responses reach twice
+ * their threshold. The most severe signal sheds {@link CallPriority#LOW} calls as soon as it goes
+ * above its threshold, then {@link CallPriority#NORMAL} calls from a third of the way and {@link
+ * CallPriority#HIGH} calls from two thirds; {@link CallPriority#CRITICAL} calls are never shed.
+ */
+@Slf4j
+public class MemoryPressureMonitor {
+
+  private static final ScheduledExecutorService SAMPLER =
+      Executors.newSingleThreadScheduledExecutor(
+          runnable -> {
+            Thread thread = new Thread(runnable, "grpc-memory-pressure-monitor");
+            thread.setDaemon(true);
+            return thread;
+          });
+
+  private static final CallPriority[] PRIORITIES = CallPriority.values();
+
+  private final double maxHeapOccupancy;
+  private final double maxDirectMemoryUsage;
+  private final long maxPendingOutboundBytes;
+  private final Duration checkInterval;
+  private final GrpcServerMetrics metrics;
+  private volatile Level level = new Level(CallPriority.LOW, null);
+  private ScheduledFuture<?> task;
+
+  /**
+   * Creates a new monitor.
+   *
+   * @param maxHeapOccupancy The occupancy of the heap after garbage collection, from 0 to 1, above
+   *     which calls are shed
+   * @param maxDirectMemoryUsage The usage of the direct memory, from 0 to 1, above which calls are
+   *     shed
+   * @param maxPendingOutboundBytes The size of the pending responses above which calls are shed
+   * @param checkInterval How often the signals are sampled
+   * @param metrics The metrics to report the changes of level to
+   */
+  public MemoryPressureMonitor(
+      double maxHeapOccupancy,
+      double maxDirectMemoryUsage,
+      long maxPendingOutboundBytes,
+      Duration checkInterval,
+      GrpcServerMetrics metrics) {
+    this.maxHeapOccupancy = maxHeapOccupancy;
+    this.maxDirectMemoryUsage = maxDirectMemoryUsage;
+    this.maxPendingOutboundBytes = maxPendingOutboundBytes;
+    this.checkInterval = checkInterval;
+    this.metrics = metrics;
+  }
+
+  /** Starts the periodic sampling of the signals. */
+  public synchronized void start() {
+    if (this.task == null) {
+      long interval = this.checkInterval.toNanos();
+      this.task = SAMPLER.scheduleAtFixedRate(this::sample, 0, interval, TimeUnit.NANOSECONDS);
+    }
+  }
+
+  /** Stops the periodic sampling of the signals and admits all calls. */
+  public synchronized void stop() {
+    if (this.task != null) {
+      this.task.cancel(false);
+      this.task = null;
+    }
+    this.level = new Level(CallPriority.LOW, null);
+  }
+
+  /**
+   * Decides whether a new call is admitted.
+   *
+   * @param priority The priority of the call
+   * @return The signal shedding the call, or null if the call is admitted
+   */
+  public Signal getShedSignal(CallPriority priority) {
+    Level current = this.level;
+    return priority.compareTo(current.lowestAdmitted) < 0 ? current.signal : null;
+  }
+
+  /**
+   * Returns the lowest priority of the calls currently admitted.
+   *
+   * @return The lowest priority admitted, {@link CallPriority#LOW} while there is no pressure
+   */
+  public CallPriority getLowestAdmitted() {
+    return this.level.lowestAdmitted;
+  }
+
+  private void sample() {
+    try {
+      this.update(heapOccupancy(), directMemoryUsage(), GrpcCallRouter.getPendingOutboundBytes());
+    } catch (RuntimeException e) {
+      log.error("Failed to sample the memory pressure", e);
+    }
+  }
+
+  /**
+   * Updates the level from a sample of the signals.
+   *
+   * @param heapOccupancy The occupancy of the heap after garbage collection, from 0 to 1
+   * @param directMemoryUsage The usage of the direct memory, from 0 to 1
+   * @param pendingOutboundBytes The size of the pending responses
+   */
+  void update(double heapOccupancy, double directMemoryUsage, long pendingOutboundBytes) {
+    Signal signal = Signal.HEAP;
+    double severity = severity(heapOccupancy, this.maxHeapOccupancy, 1);
+    double direct = severity(directMemoryUsage, this.maxDirectMemoryUsage, 1);
+    if (direct > severity) {
+      signal = Signal.DIRECT_MEMORY;
+      severity = direct;
+    }
+    long maxOutbound = this.maxPendingOutboundBytes;
+    double outbound = severity(pendingOutboundBytes, maxOutbound, 2 * maxOutbound);
+    if (outbound > severity) {
+      signal = Signal.OUTBOUND_BYTES;
+      severity = outbound;
+    }
+    Level next =
+        severity < 0
+            ? new Level(CallPriority.LOW, null)
+            : new Level(PRIORITIES[1 + Math.min((int) (severity * 3), 2)], signal);
+    Level previous = this.level;
+    if (next.lowestAdmitted == previous.lowestAdmitted && next.signal == previous.signal) {
+      return;
+    }
+    this.level = next;
+    if (next.signal == null) {
+      log.info("Memory pressure is over, admitting all calls");
+    } else {
+      log.warn(
+          "Memory pressure on {}, shedding calls below priority {}",
+          next.signal,
+          next.lowestAdmitted);
+    }
+    this.metrics.recordAdmissionLevel(next.lowestAdmitted, next.signal);
+  }
+
+  /**
+   * Returns how far a signal is above its threshold, from 0 at the threshold to 1 at the limit, or
+   * a negative value below the threshold.
+   */
+  private static double severity(double value, double threshold, double limit) {
+    if (value <= threshold) {
+      return -1;
+    }
+    return threshold >= limit ? 1 : Math.min((value - threshold) / (limit - threshold), 1);
+  }
+
+  /** Returns the occupancy of the heap after the last garbage collection of each of its pools. */
+  private static double heapOccupancy() {
+    long used = 0;
+    for (MemoryPoolMXBean pool : ManagementFactory.getMemoryPoolMXBeans()) {
+      MemoryUsage usage = pool.getType() == MemoryType.HEAP ? pool.getCollectionUsage() : null;
+      if (usage != null) {
+        used += usage.getUsed();
+      }
+    }
+    return (double) used / Runtime.getRuntime().maxMemory();
+  }
+
+  /**
+   * Returns the usage of the direct memory, counting the memory allocated by Netty without a
+   * cleaner as well as the direct buffers known to the JVM.
+   */
+  private static double directMemoryUsage() {
+    long max = PlatformDependent.maxDirectMemory();
+    if (max <= 0) {
+      return 0;
+    }
+    long used = Math.max(PlatformDependent.usedDirectMemory(), 0);
+    for (BufferPoolMXBean pool : ManagementFactory.getPlatformMXBeans(BufferPoolMXBean.class)) {
+      if ("direct".equals(pool.getName())) {
+        used = Math.max(used, pool.getMemoryUsed());
+      }
+    }
+    return (double) used / max;
+  }
+
+  /** A signal of memory pressure. */
+  public enum Signal {
+
+    /** Occupancy of the heap after garbage collection. */
+    HEAP,
+
+    /** Usage of the direct memory. */
+    DIRECT_MEMORY,
+
+    /** Size of the responses pending for slow clients. */
+    OUTBOUND_BYTES
+  }
+
+  /** The lowest priority admitted, with the signal that caused it. */
+  private static final class Level {
+    private final CallPriority lowestAdmitted;
+    private final Signal signal;
+
+    private Level(CallPriority lowestAdmitted, Signal signal) {
+      this.lowestAdmitted = lowestAdmitted;
+      this.signal = signal;
+    }
+  }
+}
@@ -0,0 +1,57 @@
+package com.dream11.grpc.health;
+
+import io.vertx.core.Vertx;
+import java.time.Duration;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * A {@link HealthIndicator} that reports unhealthy when the event loop it was created on is
+ * lagging. The lag is measured as the drift of a periodic timer: when the loop is busy the timer
+ * fires later than scheduled, and the difference is the time tasks had to wait before being
+ * executed.
+ *
+ * <p>The indicator must be created on the event loop it should observe, typically while the
+ * verticle is starting. Its timer is cancelled together with the other timers of the verticle when
+ * the verticle is undeployed.
+ */
+public class EventLoopLagIndicator implements HealthIndicator {
+
+  private final long intervalNanos;
+  private final long maxLagNanos;
+  private long lastTick;
+  private volatile long lagNanos;
+
+  /**
+   * Creates a new indicator and starts measuring the lag of the current event loop.
+   *
+   * @param vertx The Vert.x instance
+   * @param interval How often the lag is sampled
+   * @param maxLag The lag above which the indicator reports unhealthy
+   */
+  public EventLoopLagIndicator(Vertx vertx, Duration interval, Duration maxLag) {
+    this.intervalNanos = interval.toNanos();
+    this.maxLagNanos = maxLag.toNanos();
+    this.lastTick = System.nanoTime();
+    vertx.setPeriodic(interval.toMillis(), id -> this.tick());
+  }
+
+  private void tick() {
+    long now = System.nanoTime();
+    this.lagNanos = Math.max(0, now - this.lastTick - this.intervalNanos);
+    this.lastTick = now;
+  }
+
+  /**
+   * Returns the lag observed at the last sample.
+   *
+   * @return The event loop lag in milliseconds
+   */
+  public long getLagMillis() {
+    return TimeUnit.NANOSECONDS.toMillis(this.lagNanos);
+  }
+
+  @Override
+  public boolean isHealthy() {
+    return this.lagNanos <= this.maxLagNanos;
+  }
+}
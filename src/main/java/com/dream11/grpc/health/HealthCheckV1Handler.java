@@ -0,0 +1,38 @@
+package com.dream11.grpc.health;
+
+import io.grpc.health.v1.HealthCheckRequest;
+import io.grpc.health.v1.HealthCheckResponse;
+import io.vertx.core.Handler;
+import io.vertx.grpc.common.GrpcStatus;
+import io.vertx.grpc.server.GrpcServerRequest;
+
+/**
+ * Handles the unary {@code grpc.health.v1.Health/Check} method by answering with the cached
+ * response held by the {@link HealthStatusRegistry}.
+ */
+public class HealthCheckV1Handler
+    implements Handler<GrpcServerRequest<HealthCheckRequest, HealthCheckResponse>> {
+
+  private final HealthStatusRegistry registry;
+
+  public HealthCheckV1Handler(HealthStatusRegistry registry) {
+    this.registry = registry;
+  }
+
+  @Override
+  public void handle(GrpcServerRequest<HealthCheckRequest, HealthCheckResponse> request) {
+    request.handler(
+        healthCheckRequest -> {
+          HealthCheckResponse response = this.registry.getResponse(healthCheckRequest.getService());
+          if (response != null) {
+            request.response().end(response);
+          } else {
+            request
+                .response()
+                .status(GrpcStatus.NOT_FOUND)
+                .statusMessage("Unknown service " + healthCheckRequest.getService())
+                .end();
+          }
+        });
+  }
+}
@@ -0,0 +1,20 @@
+package com.dream11.grpc.health;
+
+/**
+ * A signal that contributes to the health status reported by the built-in health service. The
+ * indicators registered with a {@link HealthStatusRegistry} are polled periodically on the event
+ * loop; while any of them reports unhealthy, every service is reported as {@code NOT_SERVING} so
+ * that load balancers steer traffic away from an overloaded node.
+ *
+ * <p>Implementations must be cheap and non-blocking, e.g. reading a counter maintained elsewhere
+ * such as a concurrency limiter's in-flight count.
+ */
+@FunctionalInterface
+public interface HealthIndicator {
+  /**
+   * Returns whether the node is healthy according to this indicator.
+   *
+   * @return true if healthy, false if the node should be reported as not serving
+   */
+  boolean isHealthy();
+}
@@ -0,0 +1,254 @@
+package com.dream11.grpc.health;
+
+import io.grpc.health.v1.HealthCheckResponse;
+import io.grpc.health.v1.HealthCheckResponse.ServingStatus;
+import io.vertx.core.Context;
+import io.vertx.core.Handler;
+import io.vertx.core.Vertx;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CopyOnWriteArrayList;
+import lombok.extern.slf4j.Slf4j;
+
+/**
+ * Holds the serving status of each service exposed through the built-in {@code grpc.health.v1}
+ * service.
+ *
+ * <p>Statuses are published as an immutable snapshot that is swapped atomically on every change,
+ * and the snapshot maps each service to a pre-built {@link HealthCheckResponse}. Serving a health
+ * check therefore only costs a volatile read and a map lookup, with no allocation. Updates may be
+ * made from any thread, while watchers are always notified on the context the registry was created
+ * on.
+ *
+ * <p>The empty service name {@link #OVERALL} represents the health of the server as a whole.
+ */
+@Slf4j
+public class HealthStatusRegistry {
+
+  /** The service name used by clients to query the overall health of the server. */
+  public static final String OVERALL = "";
+
+  private static final Map<ServingStatus, HealthCheckResponse> RESPONSES = new HashMap<>();
+
+  static {
+    for (ServingStatus status : ServingStatus.values()) {
+      if (status != ServingStatus.UNRECOGNIZED) {
+        RESPONSES.put(status, HealthCheckResponse.newBuilder().setStatus(status).build());
+      }
+    }
+  }
+
+  private final Context context;
+  private final Map<String, ServingStatus> statuses = new HashMap<>();
+  private final List<HealthIndicator> indicators = new CopyOnWriteArrayList<>();
+  private final Map<String, Map<Watcher, HealthCheckResponse>> watchers = new HashMap<>();
+  private volatile Map<String, HealthCheckResponse> snapshot = Map.of();
+  private boolean overloaded;
+  private boolean terminal;
+
+  /**
+   * Creates a new registry whose watchers are notified on the given context.
+   *
+   * @param context The context of the verticle serving the health service
+   */
+  public HealthStatusRegistry(Context context) {
+    this.context = context;
+  }
+
+  /**
+   * Returns the cached response for a service.
+   *
+   * @param service The fully qualified service name, or {@link #OVERALL}
+   * @return The response describing the status of the service, or null if the service is unknown
+   */
+  public HealthCheckResponse getResponse(String service) {
+    return this.snapshot.get(service);
+  }
+
+  /**
+   * Returns the current serving status of a service.
+   *
+   * @param service The fully qualified service name, or {@link #OVERALL}
+   * @return The status of the service, or {@link ServingStatus#SERVICE_UNKNOWN} if it is unknown
+   */
+  public ServingStatus getStatus(String service) {
+    HealthCheckResponse response = this.snapshot.get(service);
+    return response == null ? ServingStatus.SERVICE_UNKNOWN : response.getStatus();
+  }
+
+  /**
+   * Sets the serving status of a service. The change is ignored once {@link #enterTerminalState()}
+   * has been called.
+   *
+   * @param service The fully qualified service name, or {@link #OVERALL}
+   * @param status The new status
+   */
+  public synchronized void setStatus(String service, ServingStatus status) {
+    if (this.terminal) {
+      log.debug("Ignoring status {} for service '{}' after terminal state", status, service);
+      return;
+    }
+    this.statuses.put(service, status);
+    this.publish();
+  }
+
+  /**
+   * Removes a service from the registry. Subsequent checks for the service fail with {@code
+   * NOT_FOUND} and watchers receive {@link ServingStatus#SERVICE_UNKNOWN}.
+   *
+   * @param service The fully qualified service name
+   */
+  public synchronized void clearStatus(String service) {
+    if (!this.terminal) {
+      this.statuses.remove(service);
+      this.publish();
+    }
+  }
+
+  /**
+   * Marks every service as {@link ServingStatus#NOT_SERVING} and ignores all further updates. This
+   * is used when the server starts draining so that load balancers move traffic away before the
+   * connections are closed. Watchers receive the new status and are then terminated so that open
+   * watch streams do not hold the server until the end of the drain.
+   */
+  public synchronized void enterTerminalState() {
+    this.statuses.replaceAll((service, status) -> ServingStatus.NOT_SERVING);
+    this.terminal = true;
+    this.publish();
+  }
+
+  /**
+   * Registers an indicator that is taken into account by {@link #refreshIndicators()}.
+   *
+   * @param indicator The indicator to register
+   */
+  public void addIndicator(HealthIndicator indicator) {
+    this.indicators.add(indicator);
+  }
+
+  /**
+   * Polls the registered indicators. While any indicator reports unhealthy, every service is
+   * reported as {@link ServingStatus#NOT_SERVING}; the configured statuses are restored once all
+   * indicators are healthy again.
+   */
+  public synchronized void refreshIndicators() {
+    boolean unhealthy = false;
+    for (HealthIndicator indicator : this.indicators) {
+      if (!indicator.isHealthy()) {
+        unhealthy = true;
+        break;
+      }
+    }
+    if (unhealthy != this.overloaded) {
+      log.info("Overload signal changed, overloaded:{}", unhealthy);
+      this.overloaded = unhealthy;
+      this.publish();
+    }
+  }
+
+  /**
+   * Registers a watcher for a service. The watcher is called with the current response straight
+   * away and then every time the status of the service changes. Must be called on the context of
+   * the registry. Once the registry has entered its terminal state, the watcher is terminated right
+   * after the current response instead, as no further change will be published.
+   *
+   * @param service The fully qualified service name, or {@link #OVERALL}
+   * @param watcher The watcher to call with the new status
+   */
+  synchronized void addWatcher(String service, Watcher watcher) {
+    HealthCheckResponse response = this.responseOrUnknown(this.snapshot, service);
+    if (this.terminal) {
+      watcher.onStatus(response);
+      watcher.onTerminated();
+      return;
+    }
+    this.watchers.computeIfAbsent(service, s -> new LinkedHashMap<>()).put(watcher, response);
+    watcher.onStatus(response);
+  }
+
+  /**
+   * Unregisters a watcher previously registered with {@link #addWatcher(String, Watcher)}. Must be
+   * called on the context of the registry.
+   *
+   * @param service The service the watcher was registered for
+   * @param watcher The watcher to remove
+   */
+  void removeWatcher(String service, Watcher watcher) {
+    Map<Watcher, HealthCheckResponse> handlers = this.watchers.get(service);
+    if (handlers != null) {
+      handlers.remove(watcher);
+      if (handlers.isEmpty()) {
+        this.watchers.remove(service);
+      }
+    }
+  }
+
+  private void publish() {
+    Map<String, HealthCheckResponse> next = new HashMap<>();
+    this.statuses.forEach(
+        (service, status) ->
+            next.put(service, RESPONSES.get(this.overloaded ? ServingStatus.NOT_SERVING : status)));
+    this.snapshot = Map.copyOf(next);
+    boolean terminate = this.terminal;
+    Handler<Void> task =
+        v -> {
+          this.notifyWatchers();
+          if (terminate) {
+            this.terminateWatchers();
+          }
+        };
+    if (Vertx.currentContext() == this.context) {
+      task.handle(null);
+    } else {
+      this.context.runOnContext(task);
+    }
+  }
+
+  /**
+   * Sends the latest status to every watcher whose service changed since it was last notified.
+   * Reading the latest snapshot rather than the one that triggered the notification ensures that
+   * watchers never receive a stale status when several updates are queued on the context.
+   */
+  private void notifyWatchers() {
+    Map<String, HealthCheckResponse> current = this.snapshot;
+    // Copy as a watcher may unregister itself while being notified
+    for (String service : new ArrayList<>(this.watchers.keySet())) {
+      HealthCheckResponse response = this.responseOrUnknown(current, service);
+      Map<Watcher, HealthCheckResponse> handlers = this.watchers.get(service);
+      for (Map.Entry<Watcher, HealthCheckResponse> entry : new ArrayList<>(handlers.entrySet())) {
+        if (entry.getValue() != response) {
+          handlers.put(entry.getKey(), response);
+          entry.getKey().onStatus(response);
+        }
+      }
+    }
+  }
+
+  private void terminateWatchers() {
+    List<Watcher> terminated = new ArrayList<>();
+    this.watchers.values().forEach(handlers -> terminated.addAll(handlers.keySet()));
+    this.watchers.clear();
+    terminated.forEach(Watcher::onTerminated);
+  }
+
+  private HealthCheckResponse responseOrUnknown(
+      Map<String, HealthCheckResponse> snapshot, String service) {
+    return snapshot.getOrDefault(service, RESPONSES.get(ServingStatus.SERVICE_UNKNOWN));
+  }
+
+  /** Receives the status updates of a watched service. */
+  interface Watcher {
+    /**
+     * Called with the status of the watched service when it changes.
+     *
+     * @param response The response describing the new status
+     */
+    void onStatus(HealthCheckResponse response);
+
+    /** Called once the registry has entered its terminal state. */
+    void onTerminated();
+  }
+}
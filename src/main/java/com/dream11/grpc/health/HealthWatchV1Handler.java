@@ -0,0 +1,49 @@
+package com.dream11.grpc.health;
+
+import io.grpc.health.v1.HealthCheckRequest;
+import io.grpc.health.v1.HealthCheckResponse;
+import io.vertx.core.Handler;
+import io.vertx.grpc.common.GrpcStatus;
+import io.vertx.grpc.server.GrpcServerRequest;
+import io.vertx.grpc.server.GrpcServerResponse;
+
+/**
+ * Handles the server streaming {@code grpc.health.v1.Health/Watch} method. The current status is
+ * sent as soon as the request is received, followed by a new message every time the status of the
+ * watched service changes. The stream stays open until the client cancels it, or until the server
+ * starts draining, in which case it ends with {@code UNAVAILABLE} so that the client watches
+ * another server.
+ */
+public class HealthWatchV1Handler
+    implements Handler<GrpcServerRequest<HealthCheckRequest, HealthCheckResponse>> {
+
+  private final HealthStatusRegistry registry;
+
+  public HealthWatchV1Handler(HealthStatusRegistry registry) {
+    this.registry = registry;
+  }
+
+  @Override
+  public void handle(GrpcServerRequest<HealthCheckRequest, HealthCheckResponse> request) {
+    request.handler(
+        healthCheckRequest -> {
+          String service = healthCheckRequest.getService();
+          GrpcServerResponse<HealthCheckRequest, HealthCheckResponse> response = request.response();
+          HealthStatusRegistry.Watcher watcher =
+              new HealthStatusRegistry.Watcher() {
+                @Override
+                public void onStatus(HealthCheckResponse status) {
+                  response.write(status);
+                }
+
+                @Override
+                public void onTerminated() {
+                  response.status(GrpcStatus.UNAVAILABLE).statusMessage("Server is draining").end();
+                }
+              };
+          request.errorHandler(error -> this.registry.removeWatcher(service, watcher));
+          request.exceptionHandler(err -> this.registry.removeWatcher(service, watcher));
+          this.registry.addWatcher(service, watcher);
+        });
+  }
+}
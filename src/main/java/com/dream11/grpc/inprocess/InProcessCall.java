@@ -0,0 +1,447 @@
+package com.dream11.grpc.inprocess;
+
+import io.grpc.Attributes;
+import io.grpc.CallOptions;
+import io.grpc.ClientCall;
+import io.grpc.Deadline;
+import io.grpc.Metadata;
+import io.grpc.MethodDescriptor;
+import io.grpc.ServerCall;
+import io.grpc.ServerMethodDefinition;
+import io.grpc.Status;
+import io.vertx.core.Vertx;
+import java.io.ByteArrayInputStream;
+import java.io.InputStream;
+import java.util.ArrayDeque;
+import java.util.Queue;
+import java.util.concurrent.Executor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Function;
+import lombok.SneakyThrows;
+import lombok.extern.slf4j.Slf4j;
+
+/**
+ * A call of an {@link InProcessChannel}, connecting the client call of the caller directly to a
+ * server call of the service.
+ *
+ * <p>The state of each side is confined to a serializing executor: the client side runs on the
+ * context of the caller and the server side on the context of the server. Messages are queued on
+ * the receiving side until they are requested. A side is not ready while {@link #READY_THRESHOLD}
+ * of its messages are queued, and is notified with {@code onReady} once the receiver catches up, so
+ * that a sender respecting {@code isReady} is paced by the demand of the receiver as over the
+ * network. Unlike the network, the threshold is a number of messages rather than of bytes.
+ *
+ * @param <R1> The request type
+ * @param <R2> The response type
+ */
+@Slf4j
+final class InProcessCall<R1, R2> extends ClientCall<R1, R2> {
+
+  /** Number of messages queued on the receiving side from which the sending side is not ready. */
+  static final int READY_THRESHOLD = 16;
+
+  private final MethodDescriptor<R1, R2> method;
+  private final ServerMethodDefinition<R1, R2> definition;
+  private final CallOptions callOptions;
+  private final Executor clientExecutor;
+  private final Executor serverExecutor;
+  private final Vertx vertx;
+  private final boolean serializeMessages;
+  private final ServerSide serverCall = new ServerSide();
+  private final AtomicBoolean serverCallClosed = new AtomicBoolean();
+  private volatile boolean closed;
+  private volatile boolean cancelled;
+  private volatile long deadlineTimer = -1;
+  private boolean halfCloseCalled;
+  private final AtomicInteger pendingRequests = new AtomicInteger();
+  private final AtomicInteger pendingResponses = new AtomicInteger();
+
+  // Client side, confined to the client executor
+  private Listener<R2> clientListener;
+  private final Queue<R2> responses = new ArrayDeque<>();
+  private long clientDemand;
+  private Status pendingStatus;
+  private Metadata pendingTrailers;
+  private boolean clientClosed;
+
+  // Server side, confined to the server executor
+  private ServerCall.Listener<R1> serverListener;
+  private final Queue<R1> requests = new ArrayDeque<>();
+  private long serverDemand;
+  private boolean halfClosed;
+  private boolean halfCloseDelivered;
+  private boolean serverDone;
+
+  InProcessCall(
+      MethodDescriptor<R1, R2> method,
+      ServerMethodDefinition<R1, R2> definition,
+      CallOptions callOptions,
+      Executor clientExecutor,
+      Executor serverExecutor,
+      Vertx vertx,
+      boolean serializeMessages) {
+    this.method = method;
+    this.definition = definition;
+    this.callOptions = callOptions;
+    this.clientExecutor = clientExecutor;
+    this.serverExecutor = serverExecutor;
+    this.vertx = vertx;
+    this.serializeMessages = serializeMessages;
+  }
+
+  @Override
+  public void start(Listener<R2> listener, Metadata headers) {
+    this.clientListener = listener;
+    if (this.definition == null) {
+      this.closed = true;
+      Status status =
+          Status.UNIMPLEMENTED.withDescription(
+              "Method not found: " + this.method.getFullMethodName());
+      this.clientExecutor.execute(() -> this.closeClient(status, new Metadata()));
+      return;
+    }
+    Deadline deadline = this.callOptions.getDeadline();
+    if (deadline != null) {
+      long remaining = deadline.timeRemaining(TimeUnit.MILLISECONDS);
+      if (remaining <= 0) {
+        this.cancel(Status.DEADLINE_EXCEEDED.withDescription("Deadline exceeded before start"));
+        return;
+      }
+      this.deadlineTimer =
+          this.vertx.setTimer(
+              remaining,
+              id ->
+                  this.cancel(
+                      Status.DEADLINE_EXCEEDED.withDescription(
+                          "Deadline exceeded after " + remaining + "ms")));
+    }
+    Metadata serverHeaders = new Metadata();
+    serverHeaders.merge(headers);
+    this.serverExecutor.execute(() -> this.startServer(serverHeaders));
+    this.clientExecutor.execute(() -> this.runClient(listener::onReady));
+  }
+
+  @Override
+  public void request(int numMessages) {
+    this.clientExecutor.execute(
+        () -> {
+          this.clientDemand += numMessages;
+          this.deliverResponses();
+        });
+  }
+
+  @Override
+  public void cancel(String message, Throwable cause) {
+    Status status = Status.CANCELLED;
+    if (message != null) {
+      status = status.withDescription(message);
+    }
+    if (cause != null) {
+      status = status.withCause(cause);
+    }
+    this.cancel(status);
+  }
+
+  @Override
+  public void halfClose() {
+    if (this.halfCloseCalled) {
+      throw new IllegalStateException("call was already half-closed");
+    }
+    this.halfCloseCalled = true;
+    this.serverExecutor.execute(
+        () -> {
+          this.halfClosed = true;
+          this.deliverRequests();
+        });
+  }
+
+  @Override
+  public void sendMessage(R1 message) {
+    if (this.halfCloseCalled) {
+      throw new IllegalStateException("call was half-closed");
+    }
+    if (this.closed) {
+      return;
+    }
+    R1 request =
+        this.serializeMessages
+            ? copy(
+                this.method.streamRequest(message),
+                this.definition.getMethodDescriptor()::parseRequest)
+            : message;
+    this.pendingRequests.incrementAndGet();
+    this.serverExecutor.execute(
+        () -> {
+          if (!this.serverDone) {
+            this.requests.add(request);
+            this.deliverRequests();
+          }
+        });
+  }
+
+  @Override
+  public boolean isReady() {
+    return !this.closed && this.pendingRequests.get() < READY_THRESHOLD;
+  }
+
+  private void startServer(Metadata headers) {
+    if (this.serverDone) {
+      // Cancelled before the server side could start
+      return;
+    }
+    this.runServer(
+        () -> {
+          this.serverListener =
+              this.definition.getServerCallHandler().startCall(this.serverCall, headers);
+          this.deliverRequests();
+          if (!this.serverDone) {
+            this.serverListener.onReady();
+          }
+        });
+  }
+
+  private void deliverRequests() {
+    if (this.serverDone || this.serverListener == null) {
+      return;
+    }
+    this.runServer(
+        () -> {
+          R1 request;
+          while (this.serverDemand > 0 && (request = this.requests.poll()) != null) {
+            this.serverDemand--;
+            if (this.pendingRequests.getAndDecrement() == READY_THRESHOLD && !this.closed) {
+              this.clientExecutor.execute(() -> this.runClient(this.clientListener::onReady));
+            }
+            this.serverListener.onMessage(request);
+            if (this.serverDone) {
+              return;
+            }
+          }
+          if (this.halfClosed && !this.halfCloseDelivered && this.requests.isEmpty()) {
+            this.halfCloseDelivered = true;
+            this.serverListener.onHalfClose();
+          }
+        });
+  }
+
+  private void deliverResponses() {
+    while (!this.clientClosed && this.clientDemand > 0 && !this.responses.isEmpty()) {
+      this.clientDemand--;
+      R2 response = this.responses.poll();
+      if (this.pendingResponses.getAndDecrement() == READY_THRESHOLD) {
+        this.serverExecutor.execute(this::notifyServerReady);
+      }
+      this.runClient(() -> this.clientListener.onMessage(response));
+    }
+    if (this.pendingStatus != null && this.responses.isEmpty()) {
+      Status status = this.pendingStatus;
+      this.pendingStatus = null;
+      this.closeClient(status, this.pendingTrailers);
+    }
+  }
+
+  private void notifyServerReady() {
+    if (!this.serverDone && this.serverListener != null) {
+      this.runServer(this.serverListener::onReady);
+    }
+  }
+
+  /**
+   * Closes the client side. A successful status is only delivered once all the responses have been
+   * requested and delivered, while any other status discards the pending responses.
+   */
+  private void closeClient(Status status, Metadata trailers) {
+    if (this.clientClosed) {
+      return;
+    }
+    if (status.isOk() && !this.responses.isEmpty()) {
+      this.pendingStatus = status;
+      this.pendingTrailers = trailers;
+      return;
+    }
+    this.clientClosed = true;
+    this.responses.clear();
+    this.cancelDeadlineTimer();
+    try {
+      this.clientListener.onClose(status, trailers);
+    } catch (RuntimeException e) {
+      log.error("Exception while closing in-process call {}", this.method.getFullMethodName(), e);
+    }
+  }
+
+  /** Cancels the call from the client side, or when its deadline is exceeded. */
+  private void cancel(Status status) {
+    this.closed = true;
+    this.cancelled = true;
+    this.serverExecutor.execute(
+        () -> {
+          if (!this.serverDone) {
+            this.serverDone = true;
+            this.requests.clear();
+            if (this.serverListener != null) {
+              try {
+                this.serverListener.onCancel();
+              } catch (RuntimeException e) {
+                log.error("Exception while cancelling {}", this.method.getFullMethodName(), e);
+              }
+            }
+          }
+        });
+    this.clientExecutor.execute(() -> this.closeClient(status, new Metadata()));
+  }
+
+  private void cancelDeadlineTimer() {
+    if (this.deadlineTimer >= 0) {
+      this.vertx.cancelTimer(this.deadlineTimer);
+    }
+  }
+
+  /** Runs a callback of the service, failing the call if the callback throws. */
+  private void runServer(Runnable callback) {
+    try {
+      callback.run();
+    } catch (RuntimeException e) {
+      log.error("Exception while executing {}", this.method.getFullMethodName(), e);
+      if (!this.serverCallClosed.get()) {
+        this.serverCall.close(Status.fromThrowable(e), new Metadata());
+      }
+    }
+  }
+
+  /** Runs a callback of the caller, cancelling the call if the callback throws. */
+  private void runClient(Runnable callback) {
+    if (this.clientClosed) {
+      return;
+    }
+    try {
+      callback.run();
+    } catch (RuntimeException e) {
+      this.cancel(Status.CANCELLED.withDescription("Failed to process response").withCause(e));
+    }
+  }
+
+  /**
+   * Copies a message by parsing its serialized form, as done when the message is sent over the
+   * network.
+   */
+  @SneakyThrows
+  private static <T> T copy(InputStream stream, Function<InputStream, T> parser) {
+    try (InputStream in = stream) {
+      return parser.apply(new ByteArrayInputStream(in.readAllBytes()));
+    }
+  }
+
+  /** The server side of the call, handed to the service. */
+  private final class ServerSide extends ServerCall<R1, R2> {
+
+    @Override
+    public void request(int numMessages) {
+      InProcessCall.this.serverExecutor.execute(
+          () -> {
+            InProcessCall.this.serverDemand += numMessages;
+            InProcessCall.this.deliverRequests();
+          });
+    }
+
+    @Override
+    public void sendHeaders(Metadata headers) {
+      Metadata clientHeaders = new Metadata();
+      clientHeaders.merge(headers);
+      InProcessCall.this.clientExecutor.execute(
+          () ->
+              InProcessCall.this.runClient(
+                  () -> InProcessCall.this.clientListener.onHeaders(clientHeaders)));
+    }
+
+    @Override
+    public void sendMessage(R2 message) {
+      if (InProcessCall.this.serverCallClosed.get()) {
+        throw new IllegalStateException("call is closed");
+      }
+      if (InProcessCall.this.cancelled) {
+        return;
+      }
+      R2 response =
+          InProcessCall.this.serializeMessages
+              ? copy(
+                  InProcessCall.this.definition.getMethodDescriptor().streamResponse(message),
+                  InProcessCall.this.method::parseResponse)
+              : message;
+      InProcessCall.this.pendingResponses.incrementAndGet();
+      InProcessCall.this.clientExecutor.execute(
+          () -> {
+            if (!InProcessCall.this.clientClosed) {
+              InProcessCall.this.responses.add(response);
+              InProcessCall.this.deliverResponses();
+            }
+          });
+    }
+
+    @Override
+    public void close(Status status, Metadata trailers) {
+      if (InProcessCall.this.serverCallClosed.getAndSet(true)) {
+        throw new IllegalStateException("call already closed");
+      }
+      InProcessCall.this.closed = true;
+      // The cause is not sent to clients over the network either
+      Status clientStatus =
+          Status.fromCode(status.getCode()).withDescription(status.getDescription());
+      Metadata clientTrailers = new Metadata();
+      clientTrailers.merge(trailers);
+      InProcessCall.this.clientExecutor.execute(
+          () -> InProcessCall.this.closeClient(clientStatus, clientTrailers));
+      InProcessCall.this.serverExecutor.execute(
+          () -> {
+            if (!InProcessCall.this.serverDone) {
+              InProcessCall.this.serverDone = true;
+              InProcessCall.this.requests.clear();
+              if (InProcessCall.this.serverListener != null) {
+                try {
+                  InProcessCall.this.serverListener.onComplete();
+                } catch (RuntimeException e) {
+                  log.error(
+                      "Exception while completing {}",
+                      InProcessCall.this.method.getFullMethodName(),
+                      e);
+                }
+              }
+            }
+          });
+    }
+
+    @Override
+    public boolean isCancelled() {
+      return InProcessCall.this.cancelled;
+    }
+
+    @Override
+    public boolean isReady() {
+      return !InProcessCall.this.cancelled
+          && !InProcessCall.this.serverCallClosed.get()
+          && InProcessCall.this.pendingResponses.get() < READY_THRESHOLD;
+    }
+
+    @Override
+    public MethodDescriptor<R1, R2> getMethodDescriptor() {
+      return InProcessCall.this.definition.getMethodDescriptor();
+    }
+
+    /**
+     * Returns the attributes of the call. In-process calls have no transport, so the attributes set
+     * by the network transport, such as the remote address, are not available.
+     *
+     * @return {@link Attributes#EMPTY}
+     */
+    @Override
+    public Attributes getAttributes() {
+      return Attributes.EMPTY;
+    }
+
+    @Override
+    public String getAuthority() {
+      return InProcessChannel.AUTHORITY;
+    }
+  }
+}
@@ -0,0 +1,107 @@
+package com.dream11.grpc.inprocess;
+
+import io.grpc.CallOptions;
+import io.grpc.Channel;
+import io.grpc.ClientCall;
+import io.grpc.MethodDescriptor;
+import io.grpc.ServerMethodDefinition;
+import io.grpc.ServerServiceDefinition;
+import io.vertx.core.Context;
+import io.vertx.core.Vertx;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.concurrent.Executor;
+
+/**
+ * A {@link Channel} that short-circuits calls to services registered in the same JVM. Calls are
+ * dispatched directly to the {@link ServerServiceDefinition}s of the server, with their interceptor
+ * chain, on the event loop of the server, without HTTP/2 framing. Generated stubs, including the Rx
+ * stubs, can be created from this channel unchanged.
+ *
+ * <p>Responses are delivered on the context of the caller, or on the executor of the call options
+ * when one is set, as done by blocking stubs. When the caller runs on the event loop of the server,
+ * calls are executed without any thread hop.
+ *
+ * <p>By default, messages are serialized and parsed again when crossing the channel so that the
+ * caller and the service never share an instance, exactly as over the network. When message
+ * serialization is disabled, message objects are passed as they are, which is safe for immutable
+ * messages such as the ones generated by protobuf.
+ */
+public class InProcessChannel extends Channel {
+
+  /** The authority reported by the channel and to the services. */
+  public static final String AUTHORITY = "inprocess";
+
+  private final Context context;
+  private final boolean serializeMessages;
+  private volatile Map<String, ServerMethodDefinition<?, ?>> methods = Map.of();
+
+  /**
+   * Creates a new channel without any service.
+   *
+   * @param context The context of the server the services are dispatched on
+   * @param serializeMessages Whether to serialize messages, or pass message objects as they are
+   */
+  public InProcessChannel(Context context, boolean serializeMessages) {
+    this.context = context;
+    this.serializeMessages = serializeMessages;
+  }
+
+  /**
+   * Makes the methods of a service available through the channel, replacing the methods of the
+   * service of the same name if there is one. Calls in flight finish on the methods they started
+   * with.
+   *
+   * @param service The service definition, with its interceptors
+   */
+  public synchronized void addService(ServerServiceDefinition service) {
+    Map<String, ServerMethodDefinition<?, ?>> methods =
+        this.copyWithoutService(service.getServiceDescriptor().getName());
+    for (ServerMethodDefinition<?, ?> method : service.getMethods()) {
+      methods.put(method.getMethodDescriptor().getFullMethodName(), method);
+    }
+    this.methods = methods;
+  }
+
+  /**
+   * Removes the methods of a service from the channel. New calls to the service fail with {@code
+   * UNIMPLEMENTED}, while calls in flight finish.
+   *
+   * @param serviceName The fully qualified name of the service
+   */
+  public synchronized void removeService(String serviceName) {
+    this.methods = this.copyWithoutService(serviceName);
+  }
+
+  private Map<String, ServerMethodDefinition<?, ?>> copyWithoutService(String serviceName) {
+    String prefix = serviceName + "/";
+    Map<String, ServerMethodDefinition<?, ?>> methods = new HashMap<>(this.methods);
+    methods.keySet().removeIf(name -> name.startsWith(prefix));
+    return methods;
+  }
+
+  @Override
+  @SuppressWarnings("unchecked")
+  public <R1, R2> ClientCall<R1, R2> newCall(
+      MethodDescriptor<R1, R2> methodDescriptor, CallOptions callOptions) {
+    Context caller = Vertx.currentContext();
+    Executor callOptionsExecutor = callOptions.getExecutor();
+    SerializingExecutor clientExecutor =
+        callOptionsExecutor != null
+            ? new SerializingExecutor(callOptionsExecutor)
+            : SerializingExecutor.onContext(caller != null ? caller : this.context);
+    return new InProcessCall<>(
+        methodDescriptor,
+        (ServerMethodDefinition<R1, R2>) this.methods.get(methodDescriptor.getFullMethodName()),
+        callOptions,
+        clientExecutor,
+        SerializingExecutor.onContext(this.context),
+        this.context.owner(),
+        this.serializeMessages);
+  }
+
+  @Override
+  public String authority() {
+    return AUTHORITY;
+  }
+}
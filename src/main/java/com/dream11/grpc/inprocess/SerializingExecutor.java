@@ -0,0 +1,75 @@
+package com.dream11.grpc.inprocess;
+
+import io.vertx.core.Context;
+import io.vertx.core.Vertx;
+import java.util.Queue;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.Executor;
+import java.util.concurrent.atomic.AtomicBoolean;
+import lombok.extern.slf4j.Slf4j;
+
+/**
+ * Executes tasks one at a time, in submission order, on an underlying executor. Tasks submitted
+ * while another task is running, e.g. a server sending a response from within the callback
+ * delivering the request, are queued and run once the current task returns instead of recursing.
+ */
+@Slf4j
+final class SerializingExecutor implements Executor {
+
+  private final Executor delegate;
+  private final Queue<Runnable> tasks = new ConcurrentLinkedQueue<>();
+  private final AtomicBoolean running = new AtomicBoolean();
+
+  SerializingExecutor(Executor delegate) {
+    this.delegate = delegate;
+  }
+
+  /**
+   * Creates an executor that runs tasks on a Vert.x context. Tasks submitted from the context are
+   * run straight away, without going through the task queue of the event loop.
+   *
+   * @param context The context to run tasks on
+   * @return The executor
+   */
+  static SerializingExecutor onContext(Context context) {
+    return new SerializingExecutor(
+        task -> {
+          if (Vertx.currentContext() == context) {
+            task.run();
+          } else {
+            context.runOnContext(v -> task.run());
+          }
+        });
+  }
+
+  @Override
+  public void execute(Runnable task) {
+    this.tasks.add(task);
+    this.schedule();
+  }
+
+  private void schedule() {
+    if (this.running.compareAndSet(false, true)) {
+      this.delegate.execute(this::drain);
+    }
+  }
+
+  private void drain() {
+    try {
+      Runnable task;
+      while ((task = this.tasks.poll()) != null) {
+        try {
+          task.run();
+        } catch (RuntimeException e) {
+          log.error("Exception while executing in-process call task", e);
+        }
+      }
+    } finally {
+      this.running.set(false);
+    }
+    // A task may have been queued between the last poll and the release of the flag
+    if (!this.tasks.isEmpty()) {
+      this.schedule();
+    }
+  }
+}
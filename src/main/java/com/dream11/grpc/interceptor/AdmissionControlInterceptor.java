@@ -0,0 +1,61 @@
+package com.dream11.grpc.interceptor;
+
+import com.dream11.grpc.annotation.CallPriority;
+import com.dream11.grpc.diagnostics.MemoryPressureMonitor;
+import com.dream11.grpc.metrics.GrpcServerMetrics;
+import io.grpc.Metadata;
+import io.grpc.ServerCall;
+import io.grpc.ServerCallHandler;
+import io.grpc.ServerInterceptor;
+import io.grpc.Status;
+import java.util.Map;
+
+/**
+ * A gRPC server interceptor that sheds new calls with {@code UNAVAILABLE} while the {@link
+ * MemoryPressureMonitor} does not admit their priority, so that clients retry them on another
+ * server. Calls in flight are not affected. Shed calls are reported to {@link
+ * GrpcServerMetrics#recordShedCall(String, CallPriority, MemoryPressureMonitor.Signal)}.
+ *
+ * <p>This interceptor is installed by {@link com.dream11.grpc.AbstractGrpcVerticle} around each
+ * service, outside all the other interceptors, so that a shed call costs as little as possible.
+ */
+public class AdmissionControlInterceptor implements ServerInterceptor {
+
+  private final MemoryPressureMonitor monitor;
+  private final Map<String, CallPriority> priorities;
+  private final GrpcServerMetrics metrics;
+
+  /**
+   * Creates a new interceptor.
+   *
+   * @param monitor The monitor deciding which priorities are admitted
+   * @param priorities The priorities of the methods, by fully qualified method name; methods
+   *     missing from the map are of {@link CallPriority#NORMAL} priority
+   * @param metrics The metrics to report shed calls to
+   */
+  public AdmissionControlInterceptor(
+      MemoryPressureMonitor monitor,
+      Map<String, CallPriority> priorities,
+      GrpcServerMetrics metrics) {
+    this.monitor = monitor;
+    this.priorities = priorities;
+    this.metrics = metrics;
+  }
+
+  @Override
+  public <R1, R2> ServerCall.Listener<R1> interceptCall(
+      ServerCall<R1, R2> serverCall, Metadata metadata, ServerCallHandler<R1, R2> next) {
+    String method = serverCall.getMethodDescriptor().getFullMethodName();
+    CallPriority priority = this.priorities.getOrDefault(method, CallPriority.NORMAL);
+    MemoryPressureMonitor.Signal signal = this.monitor.getShedSignal(priority);
+    if (signal == null) {
+      return next.startCall(serverCall, metadata);
+    }
+    this.metrics.recordShedCall(method, priority, signal);
+    serverCall.close(
+        Status.UNAVAILABLE.withDescription(
+            "Server is under memory pressure (" + signal + "), shedding " + priority + " calls"),
+        new Metadata());
+    return new ServerCall.Listener<>() {};
+  }
+}
@@ -0,0 +1,107 @@
+package com.dream11.grpc.interceptor;
+
+import com.dream11.grpc.diagnostics.BlockedCallDetector;
+import com.dream11.grpc.metrics.GrpcServerMetrics;
+import io.grpc.ForwardingServerCallListener;
+import io.grpc.Metadata;
+import io.grpc.ServerCall;
+import io.grpc.ServerCallHandler;
+import io.grpc.ServerInterceptor;
+
+/**
+ * A gRPC server interceptor that measures the synchronous time each call spends on the event loop.
+ * Every callback of the call, from {@code startCall} to {@code onComplete}, is timed and published
+ * to the {@link BlockedCallDetector} while it runs, and the total is reported per method to {@link
+ * GrpcServerMetrics#recordOnLoopTime(String, long)} once the call is over.
+ *
+ * <p>This interceptor is installed by {@link com.dream11.grpc.AbstractGrpcVerticle} as the
+ * outermost interceptor so that the time spent in the other interceptors is accounted for.
+ */
+public class OnLoopTimeInterceptor implements ServerInterceptor {
+
+  private final BlockedCallDetector detector;
+  private final GrpcServerMetrics metrics;
+
+  public OnLoopTimeInterceptor(BlockedCallDetector detector, GrpcServerMetrics metrics) {
+    this.detector = detector;
+    this.metrics = metrics;
+  }
+
+  @Override
+  public <R1, R2> ServerCall.Listener<R1> interceptCall(
+      ServerCall<R1, R2> serverCall, Metadata metadata, ServerCallHandler<R1, R2> next) {
+    String method = serverCall.getMethodDescriptor().getFullMethodName();
+    BlockedCallDetector.Slot slot = this.detector.enter(method);
+    ServerCall.Listener<R1> listener;
+    long elapsed;
+    try {
+      listener = next.startCall(serverCall, metadata);
+    } finally {
+      elapsed = this.detector.exit(slot);
+    }
+    return new TimedListener<>(listener, method, elapsed);
+  }
+
+  private final class TimedListener<R>
+      extends ForwardingServerCallListener.SimpleForwardingServerCallListener<R> {
+
+    private final String method;
+    private long onLoopNanos;
+    private int depth;
+    private boolean completed;
+
+    TimedListener(ServerCall.Listener<R> delegate, String method, long startCallNanos) {
+      super(delegate);
+      this.method = method;
+      this.onLoopNanos = startCallNanos;
+    }
+
+    @Override
+    public void onMessage(R message) {
+      this.timed(() -> super.onMessage(message), false);
+    }
+
+    @Override
+    public void onHalfClose() {
+      this.timed(super::onHalfClose, false);
+    }
+
+    @Override
+    public void onReady() {
+      this.timed(super::onReady, false);
+    }
+
+    @Override
+    public void onCancel() {
+      this.timed(super::onCancel, true);
+    }
+
+    @Override
+    public void onComplete() {
+      this.timed(super::onComplete, true);
+    }
+
+    /**
+     * Runs a callback of the call while it is published to the detector. The total is reported when
+     * the outermost callback returns after the call is over, as the call may complete synchronously
+     * from within another callback, e.g. a unary call closed in {@code onHalfClose}.
+     */
+    private void timed(Runnable callback, boolean last) {
+      BlockedCallDetector.Slot slot = detector.enter(this.method);
+      this.depth++;
+      try {
+        callback.run();
+      } finally {
+        this.depth--;
+        this.onLoopNanos += detector.exit(slot);
+        if (last) {
+          this.completed = true;
+        }
+        if (this.completed && this.depth == 0) {
+          this.completed = false;
+          metrics.recordOnLoopTime(this.method, this.onLoopNanos);
+        }
+      }
+    }
+  }
+}
@@ -0,0 +1,56 @@
+package com.dream11.grpc.metrics;
+
+import io.grpc.Status;
+
+/**
+ * Service provider interface for the metrics reported by {@link
+ * com.dream11.grpc.client.AbstractGrpcClient}. Every method has a no-op default implementation so
+ * that an implementation only needs to override the metrics it is interested in.
+ *
+ * <p>Methods may be called concurrently from several event loops and must not block.
+ */
+public interface GrpcClientMetrics {
+
+  /** An implementation that discards all metrics. */
+  GrpcClientMetrics NOOP = new GrpcClientMetrics() {};
+
+  /**
+   * Records the latency of a call, from its start to the reception of its status.
+   *
+   * @param target The target of the client, e.g. {@code catalog:9090}
+   * @param fullMethodName The fully qualified method name, e.g. {@code package.Service/Method}
+   * @param code The status code the call completed with
+   * @param nanos The latency of the call in nanoseconds
+   */
+  default void recordClientCall(
+      String target, String fullMethodName, Status.Code code, long nanos) {}
+
+  /**
+   * Records that an endpoint was ejected from the load balancing of a client after failing too many
+   * calls in a row.
+   *
+   * @param target The target of the client
+   * @param endpoint The address of the ejected endpoint
+   */
+  default void recordEndpointEjection(String target, String endpoint) {}
+
+  /**
+   * Records an additional attempt of a call of a method hedged or retried by the {@link
+   * com.dream11.grpc.client.HedgingPolicy} of the client.
+   *
+   * @param target The target of the client
+   * @param fullMethodName The fully qualified method name
+   * @param hedge Whether the attempt is a hedge sent while the previous one was pending, rather
+   *     than a retry of a failed attempt
+   */
+  default void recordClientRetry(String target, String fullMethodName, boolean hedge) {}
+
+  /**
+   * Records that a call was not hedged or retried because the retry budget of the client was
+   * exhausted.
+   *
+   * @param target The target of the client
+   * @param fullMethodName The fully qualified method name
+   */
+  default void recordRetryBudgetExhausted(String target, String fullMethodName) {}
+}
@@ -0,0 +1,175 @@
+package com.dream11.grpc.metrics;
+
+import com.dream11.grpc.annotation.CallPriority;
+import com.dream11.grpc.annotation.ServiceScope;
+import com.dream11.grpc.diagnostics.MemoryPressureMonitor.Signal;
+
+/**
+ * Service provider interface for the metrics reported by {@link
+ * com.dream11.grpc.AbstractGrpcVerticle}. Every method has a no-op default implementation so that
+ * an implementation only needs to override the metrics it is interested in, and bridge them to the
+ * metrics library of the application (Micrometer, Dropwizard, ...).
+ *
+ * <p>Methods may be called concurrently from several event loops and must not block.
+ */
+public interface GrpcServerMetrics {
+
+  /** An implementation that discards all metrics. */
+  GrpcServerMetrics NOOP = new GrpcServerMetrics() {};
+
+  /**
+   * Records the synchronous time a call spent on the event loop, summed over every callback of the
+   * call in the service and its interceptors.
+   *
+   * @param fullMethodName The fully qualified method name, e.g. {@code package.Service/Method}
+   * @param nanos The on-loop time in nanoseconds
+   */
+  default void recordOnLoopTime(String fullMethodName, long nanos) {}
+
+  /**
+   * Records that a single callback of a call held the event loop for longer than the configured
+   * blocked call threshold.
+   *
+   * @param fullMethodName The fully qualified method name
+   * @param nanos The time the event loop has been held so far, in nanoseconds
+   */
+  default void recordBlockedCall(String fullMethodName, long nanos) {}
+
+  /**
+   * Records that a listener turned a connection away because it reached its maximum number of
+   * connections.
+   *
+   * @param listener The name of the listener
+   */
+  default void recordRejectedConnection(String listener) {}
+
+  /**
+   * Records the new size of the flow-control windows of a connection after they have been grown by
+   * the flow-control auto-tuning.
+   *
+   * @param listener The name of the listener that accepted the connection
+   * @param windowSize The new size of the connection and stream windows, in bytes
+   */
+  default void recordFlowControlWindow(String listener, int windowSize) {}
+
+  /**
+   * Records that the server asked a client to go away from a connection.
+   *
+   * @param listener The name of the listener that accepted the connection
+   * @param reason The reason of the shutdown: {@code max_age}, {@code max_idle} or {@code
+   *     too_many_pings}
+   */
+  default void recordConnectionShutdown(String listener, String reason) {}
+
+  /**
+   * Records the compression of a response message. The ratio of the two sizes gives the compression
+   * ratio achieved by the codec for the method.
+   *
+   * @param fullMethodName The fully qualified method name
+   * @param encoding The encoding of the codec, e.g. {@code gzip}
+   * @param uncompressedBytes The serialized size of the message
+   * @param compressedBytes The size of the message once compressed
+   * @param nanos The time spent compressing the message, in nanoseconds
+   */
+  default void recordCompression(
+      String fullMethodName,
+      String encoding,
+      long uncompressedBytes,
+      long compressedBytes,
+      long nanos) {}
+
+  /**
+   * Records the decompression of a request message.
+   *
+   * @param fullMethodName The fully qualified method name
+   * @param encoding The encoding of the codec, e.g. {@code gzip}
+   * @param compressedBytes The size of the message as received
+   * @param uncompressedBytes The size of the message once decompressed
+   * @param nanos The time spent decompressing the message, in nanoseconds
+   */
+  default void recordDecompression(
+      String fullMethodName,
+      String encoding,
+      long compressedBytes,
+      long uncompressedBytes,
+      long nanos) {}
+
+  /**
+   * Records the peak depth of the outbound queue of a stream once the call is over. The queue holds
+   * the responses sent by the service while the stream cannot be written to, e.g. because of a slow
+   * client, and stays empty as long as the service waits for the call to be ready.
+   *
+   * @param fullMethodName The fully qualified method name
+   * @param messages The maximum number of messages queued at once
+   * @param bytes The maximum number of bytes queued at once
+   */
+  default void recordOutboundQueueDepth(String fullMethodName, int messages, long bytes) {}
+
+  /**
+   * Records that a stream has been reset because its outbound queue exceeded the maximum size.
+   *
+   * @param fullMethodName The fully qualified method name
+   */
+  default void recordOutboundQueueOverflow(String fullMethodName) {}
+
+  /**
+   * Records a write of responses to a stream. Without write coalescing, each response is written on
+   * its own; with write coalescing, the number of responses per write gives the number of frames
+   * and flushes saved.
+   *
+   * @param fullMethodName The fully qualified method name
+   * @param messages The number of responses written at once
+   * @param bytes The size of the write, in bytes
+   */
+  default void recordResponseWrite(String fullMethodName, int messages, long bytes) {}
+
+  /**
+   * Records the calls made to a method by the warm-up of the verticle, before it started listening.
+   *
+   * @param fullMethodName The fully qualified method name
+   * @param calls The number of warm-up calls that completed
+   * @param failures The number of warm-up calls that completed with an error status
+   * @param nanos The duration of the whole warm-up, in nanoseconds
+   */
+  default void recordWarmUp(String fullMethodName, int calls, int failures, long nanos) {}
+
+  /**
+   * Records the number of live instances of a service in the process, each time a verticle
+   * registers or releases it. Services of the {@link ServiceScope#VERTICLE} scope have one instance
+   * per verticle instance registering them, and services of the {@link ServiceScope#SHARED} scope
+   * at most one.
+   *
+   * @param serviceClass The fully qualified name of the class of the service
+   * @param scope The scope of the service
+   * @param instances The number of instances of the service
+   */
+  default void recordServiceInstances(String serviceClass, ServiceScope scope, int instances) {}
+
+  /**
+   * Records a change of the lowest priority admitted by the admission control, each time the memory
+   * pressure crosses a level.
+   *
+   * @param lowestAdmitted The lowest priority of the calls admitted, {@link CallPriority#LOW} once
+   *     the pressure is over
+   * @param signal The signal furthest above its threshold, or null once the pressure is over
+   */
+  default void recordAdmissionLevel(CallPriority lowestAdmitted, Signal signal) {}
+
+  /**
+   * Records that a call has been shed with {@code UNAVAILABLE} by the admission control.
+   *
+   * @param fullMethodName The fully qualified method name
+   * @param priority The priority of the method
+   * @param signal The signal furthest above its threshold
+   */
+  default void recordShedCall(String fullMethodName, CallPriority priority, Signal signal) {}
+
+  /**
+   * Records the time a task of a call, such as the delivery of a request message or the write of a
+   * response, waited for the event loop when priority scheduling is enabled.
+   *
+   * @param priority The priority of the method of the call
+   * @param nanos The time the task was queued, in nanoseconds
+   */
+  default void recordSchedulingDelay(CallPriority priority, long nanos) {}
+}
@@ -0,0 +1,201 @@
+package com.dream11.grpc.passthrough;
+
+import com.dream11.grpc.util.ExceptionUtil;
+import io.grpc.BindableService;
+import io.grpc.MethodDescriptor;
+import io.grpc.ServerServiceDefinition;
+import io.grpc.ServiceDescriptor;
+import io.grpc.StatusException;
+import io.grpc.StatusRuntimeException;
+import io.grpc.stub.ServerCallStreamObserver;
+import io.grpc.stub.ServerCalls;
+import io.grpc.stub.StreamObserver;
+import io.reactivex.Flowable;
+import io.reactivex.FlowableSubscriber;
+import io.reactivex.processors.UnicastProcessor;
+import io.vertx.core.buffer.Buffer;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicBoolean;
+import org.reactivestreams.Subscription;
+
+/**
+ * Base class for services forwarding requests without parsing them, such as services routing each
+ * request to a shard. The methods of the service are bound with the {@link BufferMarshaller}, so
+ * that requests and responses are handled as the raw bytes of their serialized form, saving their
+ * parsing and serialization. A {@link RoutingKeyParser} can be used to read the few fields the
+ * routing depends on.
+ *
+ * <p>Subclasses are annotated with {@link com.dream11.grpc.annotation.GrpcService} and registered
+ * like any other service: they are called through the interceptors of the verticle, and their
+ * methods keep the schema of the original service, which remains available through reflection.
+ *
+ * <pre>{@code
+ * @GrpcService
+ * public class CatalogProxy extends AbstractPassthroughService {
+ *
+ *   public CatalogProxy() {
+ *     super(CatalogGrpc.getServiceDescriptor());
+ *   }
+ *
+ *   @Override
+ *   protected Flowable<Buffer> handle(
+ *       MethodDescriptor<Buffer, Buffer> method, Flowable<Buffer> requests) {
+ *     return requests.concatMapSingle(request -> this.forward(method, request));
+ *   }
+ * }
+ * }</pre>
+ */
+public abstract class AbstractPassthroughService implements BindableService {
+
+  private final ServiceDescriptor serviceDescriptor;
+
+  /**
+   * Creates a passthrough service.
+   *
+   * @param serviceDescriptor The descriptor of the service to expose, e.g. {@code
+   *     CatalogGrpc.getServiceDescriptor()}
+   */
+  protected AbstractPassthroughService(ServiceDescriptor serviceDescriptor) {
+    this.serviceDescriptor = serviceDescriptor;
+  }
+
+  /**
+   * Handles a call to a method of the service. Requests are requested from the client as the
+   * returned {@link Flowable} consumes them. Unary and server streaming methods receive a single
+   * request, and unary and client streaming methods must emit a single response.
+   *
+   * @param method The method called, bound with the {@link BufferMarshaller}
+   * @param requests The serialized requests of the call
+   * @return The serialized responses of the call
+   */
+  protected abstract Flowable<Buffer> handle(
+      MethodDescriptor<Buffer, Buffer> method, Flowable<Buffer> requests);
+
+  @Override
+  public ServerServiceDefinition bindService() {
+    ServiceDescriptor.Builder descriptor =
+        ServiceDescriptor.newBuilder(this.serviceDescriptor.getName())
+            .setSchemaDescriptor(this.serviceDescriptor.getSchemaDescriptor());
+    List<MethodDescriptor<Buffer, Buffer>> methods = new ArrayList<>();
+    for (MethodDescriptor<?, ?> method : this.serviceDescriptor.getMethods()) {
+      MethodDescriptor<Buffer, Buffer> raw =
+          method.toBuilder(BufferMarshaller.INSTANCE, BufferMarshaller.INSTANCE).build();
+      descriptor.addMethod(raw);
+      methods.add(raw);
+    }
+    ServerServiceDefinition.Builder definition =
+        ServerServiceDefinition.builder(descriptor.build());
+    for (MethodDescriptor<Buffer, Buffer> method : methods) {
+      definition.addMethod(
+          method,
+          ServerCalls.asyncBidiStreamingCall(
+              responseObserver -> this.startCall(method, responseObserver)));
+    }
+    return definition.build();
+  }
+
+  /**
+   * Connects a call to the {@link Flowable}s of {@link #handle}: the demand of the service is
+   * forwarded to the call, responses are requested while the call is ready, and the cancellation of
+   * the call disposes of the responses.
+   */
+  private StreamObserver<Buffer> startCall(
+      MethodDescriptor<Buffer, Buffer> method, StreamObserver<Buffer> responseObserver) {
+    ServerCallStreamObserver<Buffer> response = (ServerCallStreamObserver<Buffer>) responseObserver;
+    response.disableAutoRequest();
+    ResponseSubscriber subscriber = new ResponseSubscriber(response);
+    response.setOnCancelHandler(subscriber::cancel);
+    response.setOnReadyHandler(subscriber::requestIfReady);
+    UnicastProcessor<Buffer> requests = UnicastProcessor.create();
+    this.handle(
+            method,
+            requests.doOnRequest(n -> response.request((int) Math.min(n, Integer.MAX_VALUE))))
+        .subscribe(subscriber);
+    return new StreamObserver<>() {
+      @Override
+      public void onNext(Buffer value) {
+        requests.onNext(value);
+      }
+
+      @Override
+      public void onError(Throwable t) {
+        requests.onError(t);
+      }
+
+      @Override
+      public void onCompleted() {
+        requests.onComplete();
+      }
+    };
+  }
+
+  /** Keeps the status of errors forwarded from upstream services, and maps the other errors. */
+  private static Throwable toStatusException(Throwable throwable) {
+    if (throwable instanceof StatusRuntimeException || throwable instanceof StatusException) {
+      return throwable;
+    }
+    return ExceptionUtil.parseThrowable(throwable);
+  }
+
+  /**
+   * Sends the responses of a call, requesting them one at a time while the call is ready, so that
+   * responses are produced at the pace of the client.
+   */
+  private static final class ResponseSubscriber implements FlowableSubscriber<Buffer> {
+
+    private final ServerCallStreamObserver<Buffer> response;
+    private final AtomicBoolean requested = new AtomicBoolean();
+    private volatile Subscription subscription;
+    private volatile boolean cancelled;
+
+    ResponseSubscriber(ServerCallStreamObserver<Buffer> response) {
+      this.response = response;
+    }
+
+    @Override
+    public void onSubscribe(Subscription s) {
+      this.subscription = s;
+      if (this.cancelled) {
+        s.cancel();
+      } else {
+        this.requestIfReady();
+      }
+    }
+
+    @Override
+    public void onNext(Buffer value) {
+      this.response.onNext(value);
+      this.requested.set(false);
+      this.requestIfReady();
+    }
+
+    @Override
+    public void onError(Throwable t) {
+      this.response.onError(toStatusException(t));
+    }
+
+    @Override
+    public void onComplete() {
+      this.response.onCompleted();
+    }
+
+    void requestIfReady() {
+      Subscription s = this.subscription;
+      if (s != null
+          && !this.cancelled
+          && this.response.isReady()
+          && this.requested.compareAndSet(false, true)) {
+        s.request(1);
+      }
+    }
+
+    void cancel() {
+      this.cancelled = true;
+      Subscription s = this.subscription;
+      if (s != null) {
+        s.cancel();
+      }
+    }
+  }
+}
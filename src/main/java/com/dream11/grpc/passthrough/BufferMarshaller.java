@@ -0,0 +1,56 @@
+package com.dream11.grpc.passthrough;
+
+import io.grpc.Drainable;
+import io.grpc.KnownLength;
+import io.grpc.MethodDescriptor;
+import io.netty.buffer.ByteBuf;
+import io.netty.buffer.ByteBufInputStream;
+import io.vertx.core.buffer.Buffer;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import lombok.SneakyThrows;
+
+/**
+ * A marshaller passing messages as the raw bytes of their serialized form. The call router of the
+ * verticle hands the received bytes to the service without copying them, and the bytes of the
+ * responses are written as they are to the response frames.
+ */
+public final class BufferMarshaller implements MethodDescriptor.Marshaller<Buffer> {
+
+  /** The shared instance of the marshaller. */
+  public static final BufferMarshaller INSTANCE = new BufferMarshaller();
+
+  private BufferMarshaller() {}
+
+  @Override
+  @SuppressWarnings("deprecation")
+  public InputStream stream(Buffer value) {
+    // Buffer#getByteBuf has no public replacement in Vert.x 4 to stream it without copying
+    return new BufferInputStream(value.getByteBuf());
+  }
+
+  @Override
+  @SneakyThrows
+  public Buffer parse(InputStream stream) {
+    return Buffer.buffer(stream.readAllBytes());
+  }
+
+  private static final class BufferInputStream extends ByteBufInputStream
+      implements KnownLength, Drainable {
+
+    private final ByteBuf buffer;
+
+    BufferInputStream(ByteBuf buffer) {
+      super(buffer);
+      this.buffer = buffer;
+    }
+
+    @Override
+    public int drainTo(OutputStream target) throws IOException {
+      int length = this.buffer.readableBytes();
+      this.buffer.readBytes(target, length);
+      return length;
+    }
+  }
+}
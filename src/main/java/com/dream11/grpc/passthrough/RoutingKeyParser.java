@@ -0,0 +1,171 @@
+package com.dream11.grpc.passthrough;
+
+import com.google.protobuf.CodedInputStream;
+import com.google.protobuf.Descriptors;
+import com.google.protobuf.WireFormat;
+import io.grpc.MethodDescriptor;
+import io.grpc.Status;
+import io.grpc.protobuf.ProtoMethodDescriptorSupplier;
+import io.vertx.core.buffer.Buffer;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Reads a single field of a serialized message, such as the key a request is routed by, without
+ * parsing the message. The other fields are skipped without being decoded. As with protobuf
+ * parsers, the last occurrence of the field wins, and the occurrences of the message fields on its
+ * path are merged, so the whole message is scanned.
+ *
+ * <p>The field is designated by a path of field names, e.g. {@code user.id} for the {@code id}
+ * field of the {@code user} message field. Repeated fields are not supported.
+ */
+public final class RoutingKeyParser {
+
+  private final List<Descriptors.FieldDescriptor> path;
+  private final Object defaultValue;
+
+  private RoutingKeyParser(List<Descriptors.FieldDescriptor> path) {
+    this.path = path;
+    Descriptors.FieldDescriptor field = path.get(path.size() - 1);
+    this.defaultValue =
+        field.getType() == Descriptors.FieldDescriptor.Type.ENUM
+            ? ((Descriptors.EnumValueDescriptor) field.getDefaultValue()).getNumber()
+            : field.getDefaultValue();
+  }
+
+  /**
+   * Creates a parser for a field of a message type.
+   *
+   * @param type The descriptor of the message type
+   * @param fieldPath The path of the field, e.g. {@code user.id}
+   * @return The parser of the field
+   */
+  public static RoutingKeyParser of(Descriptors.Descriptor type, String fieldPath) {
+    List<Descriptors.FieldDescriptor> path = new ArrayList<>();
+    String[] names = fieldPath.split("\\.");
+    Descriptors.Descriptor current = type;
+    for (int i = 0; i < names.length; i++) {
+      Descriptors.FieldDescriptor field = current.findFieldByName(names[i]);
+      if (field == null) {
+        throw new IllegalArgumentException(
+            "Unknown field " + names[i] + " of message " + current.getFullName());
+      }
+      if (field.isRepeated()) {
+        throw new IllegalArgumentException("Repeated field " + field.getFullName());
+      }
+      boolean last = i == names.length - 1;
+      Descriptors.FieldDescriptor.Type fieldType = field.getType();
+      if (last == (fieldType == Descriptors.FieldDescriptor.Type.MESSAGE)
+          || fieldType == Descriptors.FieldDescriptor.Type.GROUP) {
+        throw new IllegalArgumentException(
+            last
+                ? "Field " + field.getFullName() + " is not a scalar field"
+                : "Field " + field.getFullName() + " is not a message field");
+      }
+      path.add(field);
+      current = last ? null : field.getMessageType();
+    }
+    return new RoutingKeyParser(path);
+  }
+
+  /**
+   * Creates a parser for a field of the requests of a method generated by the protobuf compiler.
+   *
+   * @param method The method, possibly bound with the {@link BufferMarshaller}
+   * @param fieldPath The path of the field, e.g. {@code user.id}
+   * @return The parser of the field
+   */
+  public static RoutingKeyParser of(MethodDescriptor<?, ?> method, String fieldPath) {
+    if (!(method.getSchemaDescriptor() instanceof ProtoMethodDescriptorSupplier)) {
+      throw new IllegalArgumentException(
+          "Method " + method.getFullMethodName() + " has no protobuf descriptor");
+    }
+    ProtoMethodDescriptorSupplier supplier =
+        (ProtoMethodDescriptorSupplier) method.getSchemaDescriptor();
+    return of(supplier.getMethodDescriptor().getInputType(), fieldPath);
+  }
+
+  /**
+   * Reads the field from a serialized message.
+   *
+   * @param message The serialized message
+   * @return The value of the field, an {@link Integer} holding the number of enum values, or the
+   *     default value of the field if it is not set
+   */
+  @SuppressWarnings("deprecation")
+  public Object parse(Buffer message) {
+    // Buffer#getByteBuf has no public replacement in Vert.x 4 to read a message without copying it
+    CodedInputStream input = CodedInputStream.newInstance(message.getByteBuf().nioBuffer());
+    try {
+      Object value = this.find(input, 0);
+      return value != null ? value : this.defaultValue;
+    } catch (IOException e) {
+      throw Status.INVALID_ARGUMENT
+          .withDescription("Invalid protobuf byte sequence")
+          .withCause(e)
+          .asRuntimeException();
+    }
+  }
+
+  private Object find(CodedInputStream input, int depth) throws IOException {
+    Descriptors.FieldDescriptor field = this.path.get(depth);
+    Object value = null;
+    int tag;
+    while ((tag = input.readTag()) != 0) {
+      if (WireFormat.getTagFieldNumber(tag) != field.getNumber()) {
+        input.skipField(tag);
+      } else if (depth == this.path.size() - 1) {
+        value = read(input, field);
+      } else {
+        int limit = input.pushLimit(input.readRawVarint32());
+        Object nested = this.find(input, depth + 1);
+        if (nested != null) {
+          value = nested;
+        }
+        input.popLimit(limit);
+      }
+    }
+    return value;
+  }
+
+  private static Object read(CodedInputStream input, Descriptors.FieldDescriptor field)
+      throws IOException {
+    switch (field.getType()) {
+      case DOUBLE:
+        return input.readDouble();
+      case FLOAT:
+        return input.readFloat();
+      case INT64:
+        return input.readInt64();
+      case UINT64:
+        return input.readUInt64();
+      case INT32:
+        return input.readInt32();
+      case FIXED64:
+        return input.readFixed64();
+      case FIXED32:
+        return input.readFixed32();
+      case BOOL:
+        return input.readBool();
+      case STRING:
+        return input.readString();
+      case BYTES:
+        return input.readBytes();
+      case UINT32:
+        return input.readUInt32();
+      case ENUM:
+        return input.readEnum();
+      case SFIXED32:
+        return input.readSFixed32();
+      case SFIXED64:
+        return input.readSFixed64();
+      case SINT32:
+        return input.readSInt32();
+      case SINT64:
+        return input.readSInt64();
+      default:
+        throw new IllegalStateException("Unsupported field type " + field.getType());
+    }
+  }
+}
@@ -0,0 +1,216 @@
+package com.dream11.grpc.processor;
+
+import com.dream11.grpc.annotation.GrpcClientInterceptor;
+import com.dream11.grpc.annotation.GrpcInterceptor;
+import com.dream11.grpc.annotation.GrpcService;
+import com.dream11.grpc.util.AnnotationUtil;
+import java.io.IOException;
+import java.io.Writer;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.TreeMap;
+import java.util.TreeSet;
+import javax.annotation.processing.AbstractProcessor;
+import javax.annotation.processing.RoundEnvironment;
+import javax.annotation.processing.SupportedOptions;
+import javax.lang.model.SourceVersion;
+import javax.lang.model.element.Element;
+import javax.lang.model.element.ElementKind;
+import javax.lang.model.element.ExecutableElement;
+import javax.lang.model.element.Modifier;
+import javax.lang.model.element.TypeElement;
+import javax.lang.model.type.DeclaredType;
+import javax.lang.model.type.TypeKind;
+import javax.lang.model.type.TypeMirror;
+import javax.tools.Diagnostic;
+import javax.tools.StandardLocation;
+
+/**
+ * Annotation processor discovering the classes annotated with {@link GrpcService}, {@link
+ * GrpcInterceptor} and {@link GrpcClientInterceptor} at build time, so that applications start
+ * without scanning the classpath, and can be compiled to GraalVM native images. It generates:
+ *
+ * <ul>
+ *   <li>{@value AnnotationUtil#INDEX_RESOURCE}, the index {@link AnnotationUtil} reads in place of
+ *       scanning the classpath in native images, or when the {@value
+ *       AnnotationUtil#AUTHORITATIVE_INDEX_PROPERTY} system property is set
+ *   <li>{@code reflect-config.json}, registering the constructors and public methods of the
+ *       annotated classes for the {@link com.dream11.grpc.ClassInjector}, and the protobuf messages
+ *       the services exchange, with their nested messages, for the reflective accessors of protobuf
+ *   <li>{@code resource-config.json}, including the index in the native image
+ * </ul>
+ *
+ * <p>The processor is not registered as a service, and must be listed in the annotation processors
+ * of the build. The native image configuration is written to {@code
+ * META-INF/native-image/com.dream11.grpc/<name>}, where the name is given by the {@value #NAME}
+ * processor option, {@code grpc-index} by default. As any annotation processor, it only sees the
+ * classes being compiled: the index of an incremental build may miss classes compiled before, and
+ * should be regenerated by a clean build.
+ */
+@SupportedOptions(GrpcIndexProcessor.NAME)
+public class GrpcIndexProcessor extends AbstractProcessor {
+
+  /** Processor option naming the directory of the generated native image configuration. */
+  public static final String NAME = "grpc.index.name";
+
+  private static final List<Class<?>> ANNOTATIONS =
+      List.of(GrpcService.class, GrpcInterceptor.class, GrpcClientInterceptor.class);
+
+  private static final String MESSAGE = "com.google.protobuf.Message";
+
+  private final Map<String, Set<String>> annotated = new TreeMap<>();
+  private final Set<String> messages = new TreeSet<>();
+
+  @Override
+  public Set<String> getSupportedAnnotationTypes() {
+    Set<String> names = new TreeSet<>();
+    ANNOTATIONS.forEach(annotation -> names.add(annotation.getCanonicalName()));
+    return names;
+  }
+
+  @Override
+  public SourceVersion getSupportedSourceVersion() {
+    return SourceVersion.latestSupported();
+  }
+
+  @Override
+  public boolean process(Set<? extends TypeElement> annotations, RoundEnvironment roundEnv) {
+    for (Class<?> annotation : ANNOTATIONS) {
+      TypeElement annotationElement =
+          this.processingEnv.getElementUtils().getTypeElement(annotation.getCanonicalName());
+      for (Element element : roundEnv.getElementsAnnotatedWith(annotationElement)) {
+        if (element.getKind() != ElementKind.CLASS) {
+          continue;
+        }
+        TypeElement type = (TypeElement) element;
+        this.annotated
+            .computeIfAbsent(annotation.getName(), name -> new TreeSet<>())
+            .add(this.binaryName(type));
+        if (annotation == GrpcService.class) {
+          this.collectServiceMessages(type);
+        }
+      }
+    }
+    if (roundEnv.processingOver() && !this.annotated.isEmpty()) {
+      this.writeFiles();
+    }
+    return false;
+  }
+
+  /** Collects the messages exchanged by the methods of a service and of its base classes. */
+  private void collectServiceMessages(TypeElement service) {
+    TypeMirror type = service.asType();
+    while (type.getKind() == TypeKind.DECLARED) {
+      TypeElement element = (TypeElement) ((DeclaredType) type).asElement();
+      if (element.getQualifiedName().contentEquals(Object.class.getName())) {
+        break;
+      }
+      for (Element member : element.getEnclosedElements()) {
+        if (member.getKind() == ElementKind.METHOD) {
+          ExecutableElement method = (ExecutableElement) member;
+          method.getParameters().forEach(parameter -> this.collectMessages(parameter.asType()));
+          this.collectMessages(method.getReturnType());
+        }
+      }
+      type = element.getSuperclass();
+    }
+  }
+
+  /**
+   * Collects the messages of a type, e.g. {@code StreamObserver<Response>}, and the messages they
+   * hold.
+   */
+  private void collectMessages(TypeMirror type) {
+    if (type.getKind() != TypeKind.DECLARED) {
+      return;
+    }
+    ((DeclaredType) type).getTypeArguments().forEach(this::collectMessages);
+    TypeElement message = (TypeElement) ((DeclaredType) type).asElement();
+    TypeElement messageType = this.processingEnv.getElementUtils().getTypeElement(MESSAGE);
+    if (messageType == null
+        || message.getModifiers().contains(Modifier.ABSTRACT)
+        || !this.processingEnv
+            .getTypeUtils()
+            .isAssignable(this.processingEnv.getTypeUtils().erasure(type), messageType.asType())) {
+      return;
+    }
+    if (!this.messages.add(this.binaryName(message))) {
+      return;
+    }
+    for (Element member : message.getEnclosedElements()) {
+      if (member.getKind() == ElementKind.CLASS
+          && member.getSimpleName().contentEquals("Builder")) {
+        this.messages.add(this.binaryName((TypeElement) member));
+      } else if (member.getKind() == ElementKind.METHOD
+          && member.getModifiers().contains(Modifier.PUBLIC)) {
+        this.collectMessages(((ExecutableElement) member).getReturnType());
+      }
+    }
+  }
+
+  private void writeFiles() {
+    String directory =
+        "META-INF/native-image/com.dream11.grpc/"
+            + this.processingEnv.getOptions().getOrDefault(NAME, "grpc-index");
+    List<String> index = new ArrayList<>();
+    this.annotated.forEach(
+        (annotation, classes) -> classes.forEach(clazz -> index.add(annotation + " " + clazz)));
+
+    List<String> reflection = new ArrayList<>();
+    this.annotated.values().stream()
+        .flatMap(Set::stream)
+        .distinct()
+        .forEach(
+            clazz ->
+                reflection.add(
+                    reflectionEntry(clazz, "allDeclaredConstructors", "allPublicMethods")));
+    this.messages.forEach(
+        message ->
+            reflection.add(
+                reflectionEntry(
+                    message, "allDeclaredFields", "allDeclaredMethods", "allPublicMethods")));
+
+    this.write(AnnotationUtil.INDEX_RESOURCE, String.join("\n", index) + "\n");
+    this.write(
+        directory + "/reflect-config.json", "[\n" + String.join(",\n", reflection) + "\n]\n");
+    this.write(
+        directory + "/resource-config.json",
+        "{\n"
+            + "  \"resources\": {\n"
+            + "    \"includes\": [\n"
+            + "      {\"pattern\": \"\\\\Q"
+            + AnnotationUtil.INDEX_RESOURCE
+            + "\\\\E\"}\n"
+            + "    ]\n"
+            + "  }\n"
+            + "}\n");
+  }
+
+  private static String reflectionEntry(String name, String... flags) {
+    StringBuilder entry = new StringBuilder("  {\n    \"name\": \"").append(name).append('"');
+    for (String flag : flags) {
+      entry.append(",\n    \"").append(flag).append("\": true");
+    }
+    return entry.append("\n  }").toString();
+  }
+
+  private void write(String resource, String content) {
+    try (Writer writer =
+        this.processingEnv
+            .getFiler()
+            .createResource(StandardLocation.CLASS_OUTPUT, "", resource)
+            .openWriter()) {
+      writer.write(content);
+    } catch (IOException e) {
+      this.processingEnv
+          .getMessager()
+          .printMessage(Diagnostic.Kind.ERROR, "Failed to write " + resource + ": " + e);
+    }
+  }
+
+  private String binaryName(TypeElement type) {
+    return this.processingEnv.getElementUtils().getBinaryName(type).toString();
+  }
+}
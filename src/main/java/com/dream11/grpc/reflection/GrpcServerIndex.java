@@ -9,160 +9,268 @@ import java.util.Collections;
 import java.util.HashMap;
 import java.util.HashSet;
 import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
 import java.util.List;
 import java.util.Map;
 import java.util.Queue;
 import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.function.Supplier;
+import lombok.extern.slf4j.Slf4j;
 
+/**
+ * Index of the file descriptors of the services of a server, used by the reflection service. An
+ * index is immutable: {@link #withService(ServerServiceDefinition)} and {@link
+ * #withoutService(String)} return a new index, which only indexes the files the added service
+ * brings in, or only forgets the files no remaining service uses, instead of walking every file
+ * again.
+ *
+ * <p>A lazy index only registers the services when it is created. The files they depend on are
+ * walked when a lookup misses, one at a time until the lookup is answered, and their files, symbols
+ * and extensions are memoized for the next lookups. Lookups are thread-safe. A lazy index does not
+ * detect duplicated symbols: the first file defining a symbol wins.
+ */
+@Slf4j
 public class GrpcServerIndex {
 
-  private final Set<String> names;
+  private final boolean lazy;
+  private final Map<String, Descriptors.FileDescriptor> serviceFiles;
+  private final Map<String, Set<String>> filesByService;
   private final Map<String, Descriptors.FileDescriptor> descriptorsByName;
   private final Map<String, Descriptors.FileDescriptor> descriptorsBySymbol;
   private final Map<String, Map<Integer, Descriptors.FileDescriptor>>
       descriptorsByExtensionAndNumber;
+  private final Queue<Descriptors.FileDescriptor> pendingFiles = new ArrayDeque<>();
+  private final Set<String> visitedFiles = new HashSet<>();
+  private boolean walking;
 
   public GrpcServerIndex(List<ServerServiceDefinition> definitions) {
-    Queue<Descriptors.FileDescriptor> fileDescriptorsToProcess = new ArrayDeque<>();
-    Set<String> files = new HashSet<>();
-    Set<String> serviceNames = new HashSet<>();
-    Map<String, Descriptors.FileDescriptor> fileDescriptorsByName = new LinkedHashMap<>();
-    Map<String, Descriptors.FileDescriptor> fileDescriptorsBySymbol = new LinkedHashMap<>();
-    Map<String, Map<Integer, Descriptors.FileDescriptor>> fileDescriptorsByExtensionAndNumber =
-        new LinkedHashMap<>();
-
-    // Collect the services
-    for (ServerServiceDefinition definition : definitions) {
-      ServiceDescriptor serviceDescriptor = definition.getServiceDescriptor();
-      if (serviceDescriptor.getSchemaDescriptor() instanceof ProtoFileDescriptorSupplier) {
-        ProtoFileDescriptorSupplier supplier =
-            (ProtoFileDescriptorSupplier) serviceDescriptor.getSchemaDescriptor();
-        Descriptors.FileDescriptor fd = supplier.getFileDescriptor();
-        String serviceName = serviceDescriptor.getName();
-        if (serviceNames.contains(serviceName)) {
-          throw new IllegalStateException("Duplicated gRPC service: " + serviceName);
-        }
-        serviceNames.add(serviceName);
+    this(definitions, false);
+  }
 
-        if (!files.contains(fd.getName())) {
-          files.add(fd.getName());
-          fileDescriptorsToProcess.add(fd);
-        }
+  /**
+   * Creates the index of services.
+   *
+   * @param definitions The definitions of the services
+   * @param lazy Whether to index the files of the services as they are looked up
+   */
+  public GrpcServerIndex(List<ServerServiceDefinition> definitions, boolean lazy) {
+    this(lazy);
+    for (ServerServiceDefinition definition : definitions) {
+      String serviceName = definition.getServiceDescriptor().getName();
+      if (this.serviceFiles.containsKey(serviceName)) {
+        throw new IllegalStateException("Duplicated gRPC service: " + serviceName);
       }
+      this.addService(definition);
     }
+  }
 
-    // Traverse the set of service and add dependencies
-    while (!fileDescriptorsToProcess.isEmpty()) {
-      Descriptors.FileDescriptor fd = fileDescriptorsToProcess.remove();
-      this.processFileDescriptor(
-          fd, fileDescriptorsByName, fileDescriptorsBySymbol, fileDescriptorsByExtensionAndNumber);
-      for (Descriptors.FileDescriptor dep : fd.getDependencies()) {
-        if (!files.contains(dep.getName())) {
-          files.add(dep.getName());
-          fileDescriptorsToProcess.add(dep);
-        }
-      }
+  private GrpcServerIndex(boolean lazy) {
+    this.lazy = lazy;
+    this.serviceFiles = new LinkedHashMap<>();
+    this.filesByService = new LinkedHashMap<>();
+    this.descriptorsByName = lazy ? new ConcurrentHashMap<>() : new LinkedHashMap<>();
+    this.descriptorsBySymbol = lazy ? new ConcurrentHashMap<>() : new LinkedHashMap<>();
+    this.descriptorsByExtensionAndNumber = lazy ? new ConcurrentHashMap<>() : new LinkedHashMap<>();
+  }
+
+  private GrpcServerIndex(GrpcServerIndex index) {
+    this(index.lazy);
+    // The files of a lazy index are walked again on demand
+    if (!this.lazy) {
+      this.filesByService.putAll(index.filesByService);
+      this.descriptorsByName.putAll(index.descriptorsByName);
+      this.descriptorsBySymbol.putAll(index.descriptorsBySymbol);
+      index.descriptorsByExtensionAndNumber.forEach(
+          (type, numbers) ->
+              this.descriptorsByExtensionAndNumber.put(type, new HashMap<>(numbers)));
     }
+    this.serviceFiles.putAll(index.serviceFiles);
+  }
+
+  /**
+   * Returns a new index with a service added, replacing the service of the same name if there is
+   * one.
+   *
+   * @param definition The definition of the service
+   * @return The new index
+   */
+  public GrpcServerIndex withService(ServerServiceDefinition definition) {
+    GrpcServerIndex index = new GrpcServerIndex(this);
+    index.removeService(definition.getServiceDescriptor().getName());
+    index.addService(definition);
+    return index;
+  }
 
-    this.descriptorsByName = Collections.unmodifiableMap(fileDescriptorsByName);
-    this.descriptorsByExtensionAndNumber =
-        Collections.unmodifiableMap(fileDescriptorsByExtensionAndNumber);
-    this.descriptorsBySymbol = Collections.unmodifiableMap(fileDescriptorsBySymbol);
-    this.names = Collections.unmodifiableSet(serviceNames);
+  /**
+   * Returns a new index without a service.
+   *
+   * @param serviceName The fully qualified name of the service
+   * @return The new index
+   */
+  public GrpcServerIndex withoutService(String serviceName) {
+    GrpcServerIndex index = new GrpcServerIndex(this);
+    index.removeService(serviceName);
+    return index;
   }
 
   public Set<String> getServiceNames() {
-    return this.names;
+    return Collections.unmodifiableSet(this.serviceFiles.keySet());
   }
 
   public Descriptors.FileDescriptor getFileDescriptorByName(String name) {
-    return this.descriptorsByName.get(name);
+    return this.lookup(() -> this.descriptorsByName.get(name));
   }
 
   public Descriptors.FileDescriptor getFileDescriptorBySymbol(String symbol) {
-    return this.descriptorsBySymbol.get(symbol);
+    return this.lookup(() -> this.descriptorsBySymbol.get(symbol));
   }
 
   public Descriptors.FileDescriptor getFileDescriptorByExtensionAndNumber(String type, int number) {
-    return this.descriptorsByExtensionAndNumber.getOrDefault(type, Map.of()).get(number);
+    return this.lookup(
+        () -> this.descriptorsByExtensionAndNumber.getOrDefault(type, Map.of()).get(number));
   }
 
   public Set<Integer> getExtensionNumbersOfType(String type) {
-    return this.descriptorsByExtensionAndNumber.getOrDefault(type, Map.of()).keySet();
+    if (this.lazy) {
+      // The extensions of a type may be defined by any file
+      this.lookup(() -> null);
+    }
+    return Collections.unmodifiableSet(
+        this.descriptorsByExtensionAndNumber.getOrDefault(type, Map.of()).keySet());
+  }
+
+  /**
+   * Looks up the index. On a miss, a lazy index walks the files not indexed yet until the lookup is
+   * answered or every file is indexed.
+   */
+  private <T> T lookup(Supplier<T> lookup) {
+    T result = lookup.get();
+    if (result != null || !this.lazy) {
+      return result;
+    }
+    synchronized (this) {
+      if (!this.walking) {
+        this.walking = true;
+        this.serviceFiles.values().forEach(this::enqueue);
+      }
+      while ((result = lookup.get()) == null && !this.pendingFiles.isEmpty()) {
+        Descriptors.FileDescriptor fd = this.pendingFiles.remove();
+        this.processFileDescriptor(fd);
+        fd.getDependencies().forEach(this::enqueue);
+      }
+    }
+    return result;
+  }
+
+  private void enqueue(Descriptors.FileDescriptor fd) {
+    if (this.visitedFiles.add(fd.getName())) {
+      this.pendingFiles.add(fd);
+    }
+  }
+
+  /**
+   * Registers a service. An eager index also indexes the files of the service and their
+   * dependencies that are not indexed yet.
+   */
+  private void addService(ServerServiceDefinition definition) {
+    ServiceDescriptor serviceDescriptor = definition.getServiceDescriptor();
+    if (!(serviceDescriptor.getSchemaDescriptor() instanceof ProtoFileDescriptorSupplier)) {
+      return;
+    }
+    Descriptors.FileDescriptor fd =
+        ((ProtoFileDescriptorSupplier) serviceDescriptor.getSchemaDescriptor()).getFileDescriptor();
+    this.serviceFiles.put(serviceDescriptor.getName(), fd);
+    if (this.lazy) {
+      return;
+    }
+
+    // Traverse the file of the service and its dependencies
+    Set<String> files = new LinkedHashSet<>();
+    Queue<Descriptors.FileDescriptor> fileDescriptorsToProcess = new ArrayDeque<>();
+    files.add(fd.getName());
+    fileDescriptorsToProcess.add(fd);
+    while (!fileDescriptorsToProcess.isEmpty()) {
+      Descriptors.FileDescriptor file = fileDescriptorsToProcess.remove();
+      if (!this.descriptorsByName.containsKey(file.getName())) {
+        this.processFileDescriptor(file);
+      }
+      for (Descriptors.FileDescriptor dep : file.getDependencies()) {
+        if (files.add(dep.getName())) {
+          fileDescriptorsToProcess.add(dep);
+        }
+      }
+    }
+    this.filesByService.put(serviceDescriptor.getName(), files);
   }
 
-  private void processFileDescriptor(
-      Descriptors.FileDescriptor fd,
-      Map<String, Descriptors.FileDescriptor> descriptorsByName,
-      Map<String, Descriptors.FileDescriptor> descriptorsBySymbol,
-      Map<String, Map<Integer, Descriptors.FileDescriptor>> descriptorsByExtensionAndNumber) {
+  /** Forgets a service. An eager index also forgets the files that no other service uses. */
+  private void removeService(String serviceName) {
+    this.serviceFiles.remove(serviceName);
+    Set<String> files = this.filesByService.remove(serviceName);
+    if (files == null) {
+      return;
+    }
+    Set<String> used = new LinkedHashSet<>();
+    this.filesByService.values().forEach(used::addAll);
+    for (String file : files) {
+      if (!used.contains(file)) {
+        this.forgetFileDescriptor(this.descriptorsByName.remove(file));
+      }
+    }
+  }
+
+  private void processFileDescriptor(Descriptors.FileDescriptor fd) {
     String name = fd.getName();
-    if (descriptorsByName.containsKey(name)) {
+    if (this.descriptorsByName.containsKey(name)) {
       throw new IllegalStateException("File name already used: " + name);
     }
-    descriptorsByName.put(name, fd);
-    fd.getServices().forEach(service -> this.processService(service, fd, descriptorsBySymbol));
-    fd.getMessageTypes()
-        .forEach(
-            type ->
-                this.processType(type, fd, descriptorsBySymbol, descriptorsByExtensionAndNumber));
-    fd.getExtensions()
-        .forEach(
-            extension -> this.processExtension(extension, fd, descriptorsByExtensionAndNumber));
+    this.descriptorsByName.put(name, fd);
+    fd.getServices().forEach(service -> this.processService(service, fd));
+    fd.getMessageTypes().forEach(type -> this.processType(type, fd));
+    fd.getExtensions().forEach(extension -> this.processExtension(extension, fd));
   }
 
   private void processService(
-      Descriptors.ServiceDescriptor service,
-      Descriptors.FileDescriptor fd,
-      Map<String, Descriptors.FileDescriptor> descriptorsBySymbol) {
+      Descriptors.ServiceDescriptor service, Descriptors.FileDescriptor fd) {
     String fullyQualifiedServiceName = service.getFullName();
-    if (descriptorsBySymbol.containsKey(fullyQualifiedServiceName)) {
+    if (this.isDefined(this.descriptorsBySymbol, fullyQualifiedServiceName)) {
       throw new IllegalStateException("Service already defined: " + fullyQualifiedServiceName);
     }
-    descriptorsBySymbol.put(fullyQualifiedServiceName, fd);
+    this.descriptorsBySymbol.putIfAbsent(fullyQualifiedServiceName, fd);
     for (Descriptors.MethodDescriptor method : service.getMethods()) {
       String fullyQualifiedMethodName = method.getFullName();
-      if (descriptorsBySymbol.containsKey(fullyQualifiedMethodName)) {
+      if (this.isDefined(this.descriptorsBySymbol, fullyQualifiedMethodName)) {
         throw new IllegalStateException(
             "Method already defined: "
                 + fullyQualifiedMethodName
                 + " in "
                 + fullyQualifiedServiceName);
       }
-      descriptorsBySymbol.put(fullyQualifiedMethodName, fd);
+      this.descriptorsBySymbol.putIfAbsent(fullyQualifiedMethodName, fd);
     }
   }
 
-  private void processType(
-      Descriptors.Descriptor type,
-      Descriptors.FileDescriptor fd,
-      Map<String, Descriptors.FileDescriptor> descriptorsBySymbol,
-      Map<String, Map<Integer, Descriptors.FileDescriptor>> descriptorsByExtensionAndNumber) {
+  private void processType(Descriptors.Descriptor type, Descriptors.FileDescriptor fd) {
     String fullyQualifiedTypeName = type.getFullName();
-    if (descriptorsBySymbol.containsKey(fullyQualifiedTypeName)) {
+    if (this.isDefined(this.descriptorsBySymbol, fullyQualifiedTypeName)) {
       throw new IllegalStateException("Type already defined: " + fullyQualifiedTypeName);
     }
-    descriptorsBySymbol.put(fullyQualifiedTypeName, fd);
-    type.getExtensions()
-        .forEach(
-            extension -> this.processExtension(extension, fd, descriptorsByExtensionAndNumber));
-    type.getNestedTypes()
-        .forEach(
-            nestedType ->
-                this.processType(
-                    nestedType, fd, descriptorsBySymbol, descriptorsByExtensionAndNumber));
+    this.descriptorsBySymbol.putIfAbsent(fullyQualifiedTypeName, fd);
+    type.getExtensions().forEach(extension -> this.processExtension(extension, fd));
+    type.getNestedTypes().forEach(nestedType -> this.processType(nestedType, fd));
   }
 
   private void processExtension(
-      Descriptors.FieldDescriptor extension,
-      Descriptors.FileDescriptor fd,
-      Map<String, Map<Integer, Descriptors.FileDescriptor>> descriptorsByExtensionAndNumber) {
+      Descriptors.FieldDescriptor extension, Descriptors.FileDescriptor fd) {
     String extensionName = extension.getContainingType().getFullName();
     int extensionNumber = extension.getNumber();
 
-    descriptorsByExtensionAndNumber.computeIfAbsent(extensionName, s -> new HashMap<>());
+    Map<Integer, Descriptors.FileDescriptor> numbers =
+        this.descriptorsByExtensionAndNumber.computeIfAbsent(
+            extensionName, s -> this.lazy ? new ConcurrentHashMap<>() : new HashMap<>());
 
-    if (descriptorsByExtensionAndNumber.get(extensionName).containsKey(extensionNumber)) {
+    if (this.isDefined(numbers, extensionNumber)) {
       throw new IllegalStateException(
           "Extension name "
               + extensionName
@@ -170,6 +278,51 @@ public class GrpcServerIndex {
               + extensionNumber
               + " are already defined");
     }
-    descriptorsByExtensionAndNumber.get(extensionName).put(extensionNumber, fd);
+    numbers.putIfAbsent(extensionNumber, fd);
+  }
+
+  /**
+   * Checks whether a symbol is already defined. A lazy index cannot report duplicated symbols to
+   * the application when they are found, so it logs them and keeps the first definition.
+   */
+  private <K> boolean isDefined(Map<K, Descriptors.FileDescriptor> descriptors, K key) {
+    Descriptors.FileDescriptor defined = descriptors.get(key);
+    if (defined != null && this.lazy) {
+      log.warn("Ignoring duplicated symbol:{} already defined in {}", key, defined.getName());
+      return false;
+    }
+    return defined != null;
+  }
+
+  /** Removes the symbols and extensions of a file from the index. */
+  private void forgetFileDescriptor(Descriptors.FileDescriptor fd) {
+    fd.getServices()
+        .forEach(
+            service -> {
+              this.descriptorsBySymbol.remove(service.getFullName());
+              service
+                  .getMethods()
+                  .forEach(method -> this.descriptorsBySymbol.remove(method.getFullName()));
+            });
+    fd.getMessageTypes().forEach(this::forgetType);
+    fd.getExtensions().forEach(this::forgetExtension);
+  }
+
+  private void forgetType(Descriptors.Descriptor type) {
+    this.descriptorsBySymbol.remove(type.getFullName());
+    type.getExtensions().forEach(this::forgetExtension);
+    type.getNestedTypes().forEach(this::forgetType);
+  }
+
+  private void forgetExtension(Descriptors.FieldDescriptor extension) {
+    String extensionName = extension.getContainingType().getFullName();
+    Map<Integer, Descriptors.FileDescriptor> numbers =
+        this.descriptorsByExtensionAndNumber.get(extensionName);
+    if (numbers != null) {
+      numbers.remove(extension.getNumber());
+      if (numbers.isEmpty()) {
+        this.descriptorsByExtensionAndNumber.remove(extensionName);
+      }
+    }
   }
 }
@@ -22,12 +22,21 @@ import java.util.stream.Collectors;
 public class ReflectionServiceV1Handler
     implements Handler<GrpcServerRequest<ServerReflectionRequest, ServerReflectionResponse>> {
 
-  private final GrpcServerIndex index;
+  private volatile GrpcServerIndex index;
 
   public ReflectionServiceV1Handler(GrpcServerIndex index) {
     this.index = index;
   }
 
+  /**
+   * Replaces the index served by the handler, when services are added or removed at runtime.
+   *
+   * @param index The new index
+   */
+  public void setIndex(GrpcServerIndex index) {
+    this.index = index;
+  }
+
   @Override
   public void handle(GrpcServerRequest<ServerReflectionRequest, ServerReflectionResponse> request) {
     request.handler(
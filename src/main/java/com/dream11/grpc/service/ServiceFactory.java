@@ -0,0 +1,309 @@
+package com.dream11.grpc.service;
+
+import com.dream11.grpc.ClassInjector;
+import io.grpc.BindableService;
+import io.grpc.Metadata;
+import io.grpc.MethodDescriptor;
+import io.grpc.ServerCall;
+import io.grpc.ServerMethodDefinition;
+import io.grpc.ServerServiceDefinition;
+import io.grpc.ServiceDescriptor;
+import io.grpc.Status;
+import io.vertx.core.Context;
+import io.vertx.core.Future;
+import io.vertx.core.Promise;
+import io.vertx.core.Vertx;
+import java.lang.reflect.Method;
+import java.lang.reflect.Modifier;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Consumer;
+import lombok.extern.slf4j.Slf4j;
+
+/**
+ * Creates the services of a verticle through its {@link ClassInjector}, and binds them to their
+ * {@link ServerServiceDefinition}s. Services can be created on the calling thread, on a worker
+ * thread so that services with heavy constructors are created in parallel without blocking the
+ * event loop, or lazily on their first call.
+ *
+ * <p>Services created on worker threads are given a timeout; a service still being constructed when
+ * it expires fails the start of the verticle, although its construction is not interrupted.
+ */
+@Slf4j
+public final class ServiceFactory {
+
+  /** Prefixes of the classes generated by reactive gRPC compilers around the grpc-java classes. */
+  private static final List<String> GENERATED_PREFIXES = List.of("Rx", "Reactor", "Vertx");
+
+  private final Vertx vertx;
+  private final ClassInjector injector;
+  private final Duration timeout;
+
+  /**
+   * Creates a factory of services.
+   *
+   * @param vertx The Vert.x instance whose worker pool creates the services
+   * @param injector The injector instantiating the services
+   * @param timeout Maximum time to create a service on a worker thread
+   */
+  public ServiceFactory(Vertx vertx, ClassInjector injector, Duration timeout) {
+    this.vertx = vertx;
+    this.injector = injector;
+    this.timeout = timeout;
+  }
+
+  /**
+   * Creates a service on the calling thread and binds it.
+   *
+   * @param clazz The class of the service
+   * @return The definition of the service
+   */
+  public ServerServiceDefinition create(Class<?> clazz) {
+    long start = System.nanoTime();
+    BindableService service = (BindableService) this.injector.getInstance(clazz);
+    ServerServiceDefinition definition = service.bindService();
+    log.info(
+        "Created service:{} in {}ms",
+        clazz.getName(),
+        TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - start));
+    return definition;
+  }
+
+  /**
+   * Creates a service on a worker thread and binds it. The returned future completes on the context
+   * of the caller.
+   *
+   * @param clazz The class of the service
+   * @return A future completed with the definition of the service, or failed if the service cannot
+   *     be created within the timeout
+   */
+  public Future<ServerServiceDefinition> createOnWorker(Class<?> clazz) {
+    return this.vertx
+        .executeBlocking(() -> this.create(clazz), false)
+        .timeout(this.timeout.toMillis(), TimeUnit.MILLISECONDS)
+        .recover(
+            err ->
+                Future.failedFuture(
+                    new IllegalStateException("Failed to create service " + clazz.getName(), err)));
+  }
+
+  /**
+   * Returns the definition of a service that is created on a worker thread on its first call. The
+   * calls received while the service is created wait for it, and are failed with {@code
+   * UNAVAILABLE} if it cannot be created, in which case the next call tries again.
+   *
+   * <p>The methods of the service are read from the service descriptor of the grpc-java class the
+   * service is generated from, so that the service does not need to be created to be registered.
+   *
+   * @param clazz The class of the service, extending a generated {@code ImplBase} class
+   * @return The definition of the service
+   * @throws IllegalStateException If the service descriptor of the service cannot be found
+   */
+  public ServerServiceDefinition createLazy(Class<?> clazz) {
+    ServiceDescriptor descriptor = findServiceDescriptor(clazz);
+    LazyService service = new LazyService(clazz);
+    ServerServiceDefinition.Builder builder = ServerServiceDefinition.builder(descriptor);
+    for (MethodDescriptor<?, ?> method : descriptor.getMethods()) {
+      addLazyMethod(builder, method, service);
+    }
+    return builder.build();
+  }
+
+  private static <R1, R2> void addLazyMethod(
+      ServerServiceDefinition.Builder builder,
+      MethodDescriptor<R1, R2> method,
+      LazyService service) {
+    builder.addMethod(method, service::startCall);
+  }
+
+  /**
+   * Finds the service descriptor of a service in the grpc-java class enclosing one of its base
+   * classes, e.g. {@code GreeterGrpc} for a service extending {@code GreeterGrpc.GreeterImplBase}
+   * or {@code RxGreeterGrpc.GreeterImplBase}.
+   */
+  static ServiceDescriptor findServiceDescriptor(Class<?> clazz) {
+    for (Class<?> type = clazz; type != null && type != Object.class; type = type.getSuperclass()) {
+      Class<?> enclosing = type.getEnclosingClass();
+      if (enclosing == null) {
+        continue;
+      }
+      List<String> candidates = new ArrayList<>(List.of(enclosing.getName()));
+      for (String prefix : GENERATED_PREFIXES) {
+        if (enclosing.getSimpleName().startsWith(prefix)) {
+          candidates.add(
+              enclosing.getPackageName()
+                  + "."
+                  + enclosing.getSimpleName().substring(prefix.length()));
+        }
+      }
+      for (String candidate : candidates) {
+        ServiceDescriptor descriptor = getServiceDescriptor(candidate, clazz.getClassLoader());
+        if (descriptor != null) {
+          return descriptor;
+        }
+      }
+    }
+    throw new IllegalStateException(
+        "Cannot find the service descriptor of lazy service "
+            + clazz.getName()
+            + ", lazy services must extend a class generated by the gRPC compiler");
+  }
+
+  private static ServiceDescriptor getServiceDescriptor(String className, ClassLoader loader) {
+    try {
+      Method method = Class.forName(className, true, loader).getMethod("getServiceDescriptor");
+      if (Modifier.isStatic(method.getModifiers())
+          && method.getReturnType() == ServiceDescriptor.class) {
+        return (ServiceDescriptor) method.invoke(null);
+      }
+    } catch (ReflectiveOperationException e) {
+      // Not a grpc-java class
+    }
+    return null;
+  }
+
+  /** A service created on its first call, shared by all the event loops of the verticle. */
+  private final class LazyService {
+
+    private final Class<?> clazz;
+    private Future<Map<String, ServerMethodDefinition<?, ?>>> methods;
+
+    LazyService(Class<?> clazz) {
+      this.clazz = clazz;
+    }
+
+    /** Returns the methods of the service, creating it on the first call. */
+    private synchronized Future<Map<String, ServerMethodDefinition<?, ?>>> getMethods() {
+      Future<Map<String, ServerMethodDefinition<?, ?>>> methods = this.methods;
+      if (methods == null) {
+        log.info("Creating lazy service:{} on its first call", this.clazz.getName());
+        // Forget a failed creation before the calls waiting for it are failed
+        Promise<Map<String, ServerMethodDefinition<?, ?>>> created = Promise.promise();
+        methods = created.future();
+        this.methods = methods;
+        ServiceFactory.this
+            .createOnWorker(this.clazz)
+            .map(
+                definition -> {
+                  Map<String, ServerMethodDefinition<?, ?>> byName = new HashMap<>();
+                  definition
+                      .getMethods()
+                      .forEach(
+                          method ->
+                              byName.put(method.getMethodDescriptor().getFullMethodName(), method));
+                  return byName;
+                })
+            .onComplete(
+                ar -> {
+                  if (ar.failed()) {
+                    this.reset(created.future());
+                  }
+                  created.handle(ar);
+                });
+      }
+      return methods;
+    }
+
+    /** Forgets a failed creation, so that the next call tries again. */
+    private synchronized void reset(Future<Map<String, ServerMethodDefinition<?, ?>>> failed) {
+      if (this.methods == failed) {
+        this.methods = null;
+      }
+    }
+
+    <R1, R2> ServerCall.Listener<R1> startCall(ServerCall<R1, R2> call, Metadata headers) {
+      Future<Map<String, ServerMethodDefinition<?, ?>>> future = this.getMethods();
+      if (future.succeeded()) {
+        return this.startCall(future.result(), call, headers);
+      }
+      DelayedListener<R1> delayed = new DelayedListener<>();
+      Context caller = Vertx.currentContext();
+      future.onComplete(
+          ar -> {
+            Runnable start =
+                () -> {
+                  if (ar.succeeded()) {
+                    delayed.setListener(this.startCall(ar.result(), call, headers));
+                  } else if (!call.isCancelled()) {
+                    log.error("Failed to create lazy service:{}", this.clazz.getName(), ar.cause());
+                    call.close(
+                        Status.UNAVAILABLE
+                            .withDescription("Service " + this.clazz.getName() + " is unavailable")
+                            .withCause(ar.cause()),
+                        new Metadata());
+                  }
+                };
+            if (caller == null || Vertx.currentContext() == caller) {
+              start.run();
+            } else {
+              caller.runOnContext(v -> start.run());
+            }
+          });
+      return delayed;
+    }
+
+    @SuppressWarnings("unchecked")
+    private <R1, R2> ServerCall.Listener<R1> startCall(
+        Map<String, ServerMethodDefinition<?, ?>> methods,
+        ServerCall<R1, R2> call,
+        Metadata headers) {
+      ServerMethodDefinition<R1, R2> method =
+          (ServerMethodDefinition<R1, R2>)
+              methods.get(call.getMethodDescriptor().getFullMethodName());
+      return method.getServerCallHandler().startCall(call, headers);
+    }
+  }
+
+  /**
+   * A listener buffering the events of a call until the listener of the service is available.
+   * Events are delivered on the context of the call, as is the listener of the service.
+   */
+  private static final class DelayedListener<R1> extends ServerCall.Listener<R1> {
+
+    private List<Consumer<ServerCall.Listener<R1>>> pending = new ArrayList<>();
+    private ServerCall.Listener<R1> listener;
+
+    void setListener(ServerCall.Listener<R1> listener) {
+      this.listener = listener;
+      this.pending.forEach(event -> event.accept(listener));
+      this.pending = null;
+    }
+
+    private void deliver(Consumer<ServerCall.Listener<R1>> event) {
+      if (this.listener != null) {
+        event.accept(this.listener);
+      } else {
+        this.pending.add(event);
+      }
+    }
+
+    @Override
+    public void onMessage(R1 message) {
+      this.deliver(listener -> listener.onMessage(message));
+    }
+
+    @Override
+    public void onHalfClose() {
+      this.deliver(ServerCall.Listener::onHalfClose);
+    }
+
+    @Override
+    public void onCancel() {
+      this.deliver(ServerCall.Listener::onCancel);
+    }
+
+    @Override
+    public void onComplete() {
+      this.deliver(ServerCall.Listener::onComplete);
+    }
+
+    @Override
+    public void onReady() {
+      this.deliver(ServerCall.Listener::onReady);
+    }
+  }
+}
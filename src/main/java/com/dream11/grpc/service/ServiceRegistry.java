@@ -0,0 +1,184 @@
+package com.dream11.grpc.service;
+
+import com.dream11.grpc.annotation.ServiceScope;
+import com.dream11.grpc.metrics.GrpcServerMetrics;
+import io.grpc.ServerServiceDefinition;
+import io.vertx.core.Context;
+import io.vertx.core.Future;
+import io.vertx.core.Promise;
+import io.vertx.core.Vertx;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.function.Supplier;
+import lombok.extern.slf4j.Slf4j;
+
+/**
+ * Process-wide registry of the services registered by the verticles, enforcing the {@link
+ * ServiceScope} of each service: a service of the {@link ServiceScope#VERTICLE} scope is created
+ * for every verticle acquiring it, while a service of the {@link ServiceScope#SHARED} scope is
+ * created by the first verticle acquiring it and handed to the others, until the last of them
+ * releases it. The number of instances of each service is reported through {@link
+ * GrpcServerMetrics#recordServiceInstances(String, ServiceScope, int)}.
+ *
+ * <p>A verticle acquiring a shared service while it is being created by another verticle waits for
+ * it. If its creation fails, every verticle waiting for it fails, and the next verticle acquiring
+ * it creates it again.
+ */
+@Slf4j
+public final class ServiceRegistry {
+
+  private static final ServiceRegistry INSTANCE = new ServiceRegistry();
+
+  private final Map<Class<?>, Entry> entries = new HashMap<>();
+
+  ServiceRegistry() {}
+
+  /**
+   * Returns the registry of the process.
+   *
+   * @return The registry of the process
+   */
+  public static ServiceRegistry getInstance() {
+    return INSTANCE;
+  }
+
+  /**
+   * Acquires a service for a verticle, creating it unless it is shared and already created. A
+   * verticle must {@link #release(Class, ServiceScope, GrpcServerMetrics)} every service it
+   * acquired successfully once it stops.
+   *
+   * @param clazz The class of the service
+   * @param scope The scope of the service
+   * @param creator Creates the service and binds it, on the context of the caller
+   * @param metrics The metrics the number of instances of the service is reported to
+   * @return A future completed on the context of the caller with the definition of the service
+   */
+  public Future<ServerServiceDefinition> acquire(
+      Class<?> clazz,
+      ServiceScope scope,
+      Supplier<Future<ServerServiceDefinition>> creator,
+      GrpcServerMetrics metrics) {
+    if (scope == ServiceScope.VERTICLE) {
+      return creator.get().onSuccess(definition -> this.update(clazz, scope, 1, metrics));
+    }
+    Promise<ServerServiceDefinition> created;
+    synchronized (this) {
+      Entry entry = this.entries.get(clazz);
+      if (entry != null) {
+        entry.references++;
+        log.info("Sharing service:{} references:{}", clazz.getName(), entry.references);
+        return onCaller(entry.definition);
+      }
+      created = Promise.promise();
+      this.entries.put(clazz, new Entry(created.future()));
+    }
+    created
+        .future()
+        .onComplete(
+            ar -> {
+              if (ar.succeeded()) {
+                log.info("Created shared service:{}", clazz.getName());
+                metrics.recordServiceInstances(clazz.getName(), scope, 1);
+              } else {
+                this.remove(clazz, created.future());
+              }
+            });
+    Future<ServerServiceDefinition> definition = creator.get();
+    definition.onComplete(created);
+    return definition;
+  }
+
+  /**
+   * Releases a service acquired by a verticle. A shared service is forgotten once released by all
+   * the verticles that acquired it, so that it is created again if a verticle is deployed later.
+   *
+   * @param clazz The class of the service
+   * @param scope The scope of the service
+   * @param metrics The metrics the number of instances of the service is reported to
+   */
+  public void release(Class<?> clazz, ServiceScope scope, GrpcServerMetrics metrics) {
+    if (scope == ServiceScope.VERTICLE) {
+      this.update(clazz, scope, -1, metrics);
+      return;
+    }
+    synchronized (this) {
+      Entry entry = this.entries.get(clazz);
+      if (entry == null || --entry.references > 0) {
+        return;
+      }
+      this.entries.remove(clazz);
+    }
+    log.info("Released shared service:{}", clazz.getName());
+    metrics.recordServiceInstances(clazz.getName(), scope, 0);
+  }
+
+  /**
+   * Returns the number of instances of a service in the process.
+   *
+   * @param clazz The class of the service
+   * @return The number of instances of the service
+   */
+  public synchronized int getInstanceCount(Class<?> clazz) {
+    Entry entry = this.entries.get(clazz);
+    if (entry == null) {
+      return 0;
+    }
+    return entry.definition == null ? entry.references : (entry.definition.succeeded() ? 1 : 0);
+  }
+
+  /** Counts the instances of a service of the {@link ServiceScope#VERTICLE} scope. */
+  private void update(Class<?> clazz, ServiceScope scope, int delta, GrpcServerMetrics metrics) {
+    int instances;
+    synchronized (this) {
+      Entry entry = this.entries.computeIfAbsent(clazz, key -> new Entry(null));
+      instances = entry.references += delta;
+      if (instances <= 0) {
+        this.entries.remove(clazz);
+      }
+    }
+    metrics.recordServiceInstances(clazz.getName(), scope, Math.max(0, instances));
+  }
+
+  private synchronized void remove(Class<?> clazz, Future<ServerServiceDefinition> failed) {
+    Entry entry = this.entries.get(clazz);
+    if (entry != null && entry.definition == failed) {
+      this.entries.remove(clazz);
+    }
+  }
+
+  /**
+   * Returns a future completed on the context of the caller, as the future of a shared service
+   * completes on the context of the verticle creating it.
+   */
+  private static <T> Future<T> onCaller(Future<T> future) {
+    Context caller = Vertx.currentContext();
+    if (caller == null) {
+      return future;
+    }
+    Promise<T> promise = Promise.promise();
+    future.onComplete(
+        ar -> {
+          if (Vertx.currentContext() == caller) {
+            promise.handle(ar);
+          } else {
+            caller.runOnContext(v -> promise.handle(ar));
+          }
+        });
+    return promise.future();
+  }
+
+  /**
+   * The instances of a service: the number of verticles holding it, and the definition of a shared
+   * service, null for a service of the {@link ServiceScope#VERTICLE} scope.
+   */
+  private static final class Entry {
+
+    private final Future<ServerServiceDefinition> definition;
+    private int references;
+
+    Entry(Future<ServerServiceDefinition> definition) {
+      this.definition = definition;
+      this.references = definition == null ? 0 : 1;
+    }
+  }
+}
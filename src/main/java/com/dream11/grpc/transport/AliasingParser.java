@@ -0,0 +1,87 @@
+package com.dream11.grpc.transport;
+
+import com.google.protobuf.ByteString;
+import com.google.protobuf.CodedInputStream;
+import com.google.protobuf.ExtensionRegistryLite;
+import com.google.protobuf.InvalidProtocolBufferException;
+import com.google.protobuf.MessageLite;
+import com.google.protobuf.Parser;
+import com.google.protobuf.UnsafeByteOperations;
+import io.grpc.MethodDescriptor;
+import io.grpc.Status;
+import io.netty.buffer.ByteBuf;
+
+/**
+ * Parses protobuf request messages from the buffer they were deframed from, with aliasing enabled:
+ * {@code bytes} fields are {@link com.google.protobuf.ByteString}s referencing the buffer rather
+ * than copies of it. The marshallers of grpc-java copy each message into an array before parsing
+ * it, and each {@code bytes} field once more, which is significant for messages carrying large
+ * binary payloads.
+ *
+ * <p>The data is still copied once, by Vert.x: the HTTP/2 stream copies each DATA frame out of the
+ * pooled network buffer into an unpooled heap buffer before handing it to the call. The parser
+ * wraps that heap copy with {@link UnsafeByteOperations#unsafeWrap}, so there is nothing to release
+ * once the call completes; the copy is freed by the garbage collector. An aliased field keeps the
+ * whole copy reachable for as long as the field itself is, including the other messages of the same
+ * DATA frame.
+ *
+ * @param <T> The message type
+ */
+final class AliasingParser<T> {
+
+  private final Parser<T> parser;
+
+  private AliasingParser(Parser<T> parser) {
+    this.parser = parser;
+  }
+
+  /**
+   * Creates a parser for the messages of a marshaller.
+   *
+   * @param marshaller The marshaller of the messages
+   * @return The parser, or null if the marshaller is not a protobuf marshaller
+   */
+  @SuppressWarnings("unchecked")
+  static <T> AliasingParser<T> of(MethodDescriptor.Marshaller<T> marshaller) {
+    if (!(marshaller instanceof MethodDescriptor.PrototypeMarshaller)) {
+      return null;
+    }
+    Object prototype = ((MethodDescriptor.PrototypeMarshaller<T>) marshaller).getMessagePrototype();
+    if (!(prototype instanceof MessageLite)) {
+      return null;
+    }
+    return new AliasingParser<>((Parser<T>) ((MessageLite) prototype).getParserForType());
+  }
+
+  /**
+   * Parses a message.
+   *
+   * @param message The serialized message, which must not be modified while the parsed message is
+   *     in use
+   * @return The parsed message
+   */
+  T parse(ByteBuf message) {
+    // Only inputs over immutable data alias, which the public factories of CodedInputStream never
+    // assume, hence the detour through an unsafely wrapped ByteString
+    ByteString bytes =
+        message.hasArray()
+            ? UnsafeByteOperations.unsafeWrap(
+                message.array(),
+                message.arrayOffset() + message.readerIndex(),
+                message.readableBytes())
+            : UnsafeByteOperations.unsafeWrap(message.nioBuffer());
+    CodedInputStream input = bytes.newCodedInput();
+    input.enableAliasing(true);
+    input.setSizeLimit(Integer.MAX_VALUE);
+    try {
+      T parsed = this.parser.parseFrom(input, ExtensionRegistryLite.getEmptyRegistry());
+      input.checkLastTagWas(0);
+      return parsed;
+    } catch (InvalidProtocolBufferException e) {
+      throw Status.INTERNAL
+          .withDescription("Invalid protobuf byte sequence")
+          .withCause(e)
+          .asRuntimeException();
+    }
+  }
+}
@@ -0,0 +1,132 @@
+package com.dream11.grpc.transport;
+
+import com.dream11.grpc.annotation.CallPriority;
+import com.dream11.grpc.metrics.GrpcServerMetrics;
+import io.vertx.core.Context;
+import java.util.Queue;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.atomic.AtomicBoolean;
+import lombok.extern.slf4j.Slf4j;
+
+/**
+ * Runs the pending work of the calls served by one event loop, such as the delivery of request
+ * messages and the writes of responses, in the order of the {@link CallPriority} of their methods
+ * rather than in the order it was submitted.
+ *
+ * <p>Work is queued per priority, and run on the event loop by batches of at most {@link
+ * #MAX_TASKS_PER_RUN} tasks, picked according to the {@link SchedulingPolicy}. A batch leaving work
+ * queued resubmits itself behind the other tasks of the event loop, so that a backlog of calls does
+ * not hold them back. This does not yield to I/O: Netty runs the resubmitted batch in the same pass
+ * over its task queue, and only processes I/O once the queue is drained or its time budget for
+ * tasks is spent. The work of a single priority, and thus of a single call, runs in submission
+ * order. Tasks may be submitted from any thread. The time each task spent queued is reported per
+ * priority to {@link GrpcServerMetrics#recordSchedulingDelay(CallPriority, long)}.
+ */
+@Slf4j
+final class CallScheduler {
+
+  /** Maximum number of tasks run before yielding to the other tasks of the event loop. */
+  static final int MAX_TASKS_PER_RUN = 32;
+
+  /** Weights of the priorities with the {@link SchedulingPolicy#WEIGHTED} policy. */
+  private static final int[] WEIGHTS = {1, 2, 4, 8};
+
+  private static final CallPriority[] PRIORITIES = CallPriority.values();
+
+  private final SchedulingPolicy policy;
+  private final GrpcServerMetrics metrics;
+  private final Queue<Task>[] queues;
+  private final AtomicBoolean scheduled = new AtomicBoolean();
+  private int current = PRIORITIES.length - 1;
+  private int credit = WEIGHTS[PRIORITIES.length - 1];
+
+  @SuppressWarnings({"unchecked", "rawtypes"})
+  CallScheduler(SchedulingPolicy policy, GrpcServerMetrics metrics) {
+    this.policy = policy;
+    this.metrics = metrics;
+    this.queues = new Queue[PRIORITIES.length];
+    for (int i = 0; i < this.queues.length; i++) {
+      this.queues[i] = new ConcurrentLinkedQueue<>();
+    }
+  }
+
+  /**
+   * Queues a task, and schedules a batch on the event loop if none is scheduled yet.
+   *
+   * @param priority The priority of the call the task belongs to
+   * @param context The context of the event loop, shared by all the calls of the scheduler
+   * @param task The task
+   */
+  void submit(CallPriority priority, Context context, Runnable task) {
+    this.queues[priority.ordinal()].add(new Task(priority, task, System.nanoTime()));
+    this.schedule(context);
+  }
+
+  private void schedule(Context context) {
+    if (this.scheduled.compareAndSet(false, true)) {
+      context.runOnContext(v -> this.run(context));
+    }
+  }
+
+  private void run(Context context) {
+    try {
+      Task task;
+      for (int i = 0; i < MAX_TASKS_PER_RUN && (task = this.poll()) != null; i++) {
+        this.metrics.recordSchedulingDelay(task.priority, System.nanoTime() - task.queuedNanos);
+        try {
+          task.runnable.run();
+        } catch (RuntimeException e) {
+          log.error("Exception while running a task of a call", e);
+        }
+      }
+    } finally {
+      this.scheduled.set(false);
+    }
+    // Tasks may remain after a full batch, or have been queued before the release of the flag
+    for (Queue<Task> queue : this.queues) {
+      if (!queue.isEmpty()) {
+        this.schedule(context);
+        return;
+      }
+    }
+  }
+
+  /** Picks the next task to run according to the policy, or returns null if none is queued. */
+  private Task poll() {
+    if (this.policy == SchedulingPolicy.STRICT) {
+      for (int i = this.queues.length - 1; i >= 0; i--) {
+        Task task = this.queues[i].poll();
+        if (task != null) {
+          return task;
+        }
+      }
+      return null;
+    }
+    // Weighted round robin, from the highest priority down, each taking up to its weight in tasks
+    for (int i = 0; i <= this.queues.length; i++) {
+      if (this.credit > 0) {
+        Task task = this.queues[this.current].poll();
+        if (task != null) {
+          this.credit--;
+          return task;
+        }
+      }
+      this.current = this.current == 0 ? this.queues.length - 1 : this.current - 1;
+      this.credit = WEIGHTS[this.current];
+    }
+    return null;
+  }
+
+  /** A queued task, with the priority of its call and the time it was queued at. */
+  private static final class Task {
+    private final CallPriority priority;
+    private final Runnable runnable;
+    private final long queuedNanos;
+
+    private Task(CallPriority priority, Runnable runnable, long queuedNanos) {
+      this.priority = priority;
+      this.runnable = runnable;
+      this.queuedNanos = queuedNanos;
+    }
+  }
+}
@@ -0,0 +1,262 @@
+package com.dream11.grpc.transport;
+
+import com.dream11.grpc.GrpcVerticleOptions;
+import com.dream11.grpc.metrics.GrpcServerMetrics;
+import com.dream11.grpc.passthrough.BufferMarshaller;
+import io.grpc.Codec;
+import io.grpc.Compressor;
+import io.grpc.CompressorRegistry;
+import io.grpc.Decompressor;
+import io.grpc.DecompressorRegistry;
+import io.grpc.MethodDescriptor;
+import io.grpc.ServerMethodDefinition;
+import io.grpc.ServerServiceDefinition;
+import io.netty.buffer.ByteBuf;
+import io.netty.buffer.ByteBufInputStream;
+import io.vertx.core.Handler;
+import io.vertx.core.buffer.Buffer;
+import io.vertx.core.http.HttpMethod;
+import io.vertx.core.http.HttpVersion;
+import io.vertx.reactivex.core.http.HttpServerRequest;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Entry point of the HTTP requests of the listeners. Calls to the methods of the registered
+ * services are served directly by a {@link HttpServerCall}, which applies the {@link MethodPolicy}
+ * of each method; every other request, such as the reflection and health services, is handed to the
+ * fallback handler, usually the Vert.x {@link io.vertx.reactivex.grpc.server.GrpcServer}.
+ *
+ * <p>Services are registered while the verticle starts, before the listeners are bound, and may be
+ * added, replaced or removed afterwards. The methods are held in a copy-on-write table swapped as a
+ * whole on every change, so that a lookup never sees a service half updated, and calls in flight
+ * finish on the version of the method they started with.
+ *
+ * <p>A router serves the listeners of one verticle, and thus one event loop; with priority
+ * scheduling, the work of its calls is run by a {@link CallScheduler} shared by all of them.
+ */
+public class GrpcCallRouter implements Handler<HttpServerRequest> {
+
+  static final String GRPC_CONTENT_TYPE = "application/grpc";
+
+  private final Handler<HttpServerRequest> fallback;
+  private final GrpcVerticleOptions options;
+  private final GrpcServerMetrics metrics;
+  private final CallScheduler scheduler;
+  private final CompressorRegistry compressorRegistry = CompressorRegistry.newEmptyInstance();
+  private DecompressorRegistry decompressorRegistry = DecompressorRegistry.emptyInstance();
+  private volatile Map<String, RegisteredMethod<?, ?>> methods = Map.of();
+
+  /**
+   * Creates a router.
+   *
+   * @param fallback The handler of the requests that are not calls to a registered service
+   * @param options The options of the verticle, holding the codecs and the default limits
+   * @param metrics The metrics to report compression and scheduling delays to
+   */
+  public GrpcCallRouter(
+      Handler<HttpServerRequest> fallback, GrpcVerticleOptions options, GrpcServerMetrics metrics) {
+    this.fallback = fallback;
+    this.options = options;
+    this.metrics = metrics;
+    this.scheduler =
+        options.isPriorityScheduling()
+            ? new CallScheduler(options.getSchedulingPolicy(), metrics)
+            : null;
+    this.registerCodec(new Codec.Gzip());
+    options.getCodecs().forEach(this::registerCodec);
+  }
+
+  private void registerCodec(Codec codec) {
+    this.compressorRegistry.register(codec);
+    this.decompressorRegistry = this.decompressorRegistry.with(codec, true);
+  }
+
+  /**
+   * Registers the methods of a service, replacing the methods of the service of the same name if
+   * there is one.
+   *
+   * @param definition The definition of the service, with its interceptors
+   * @param serviceClass The class implementing the service, holding the annotations of its policy
+   */
+  public synchronized void addService(ServerServiceDefinition definition, Class<?> serviceClass) {
+    Map<String, RegisteredMethod<?, ?>> methods =
+        this.copyWithoutService(definition.getServiceDescriptor().getName());
+    for (ServerMethodDefinition<?, ?> method : definition.getMethods()) {
+      MethodPolicy policy =
+          MethodPolicy.resolve(
+              serviceClass, method.getMethodDescriptor().getBareMethodName(), this.options);
+      methods.put(
+          "/" + method.getMethodDescriptor().getFullMethodName(),
+          new RegisteredMethod<>(method, policy));
+    }
+    this.methods = methods;
+  }
+
+  /**
+   * Unregisters the methods of a service. Calls to the service then fall back to the fallback
+   * handler, which answers them with {@code UNIMPLEMENTED}.
+   *
+   * @param serviceName The fully qualified name of the service
+   */
+  public synchronized void removeService(String serviceName) {
+    this.methods = this.copyWithoutService(serviceName);
+  }
+
+  private Map<String, RegisteredMethod<?, ?>> copyWithoutService(String serviceName) {
+    String prefix = "/" + serviceName + "/";
+    Map<String, RegisteredMethod<?, ?>> methods = new HashMap<>(this.methods);
+    methods.keySet().removeIf(path -> path.startsWith(prefix));
+    return methods;
+  }
+
+  /**
+   * Returns the size of the responses sent by the services of the process and not yet handed to
+   * their stream, i.e. queued because of slow clients, coalesced or dispatched from other threads.
+   *
+   * @return The size of the pending responses, in bytes
+   */
+  public static long getPendingOutboundBytes() {
+    return HttpServerCall.PENDING_OUTBOUND_BYTES.sum();
+  }
+
+  @Override
+  public void handle(HttpServerRequest request) {
+    RegisteredMethod<?, ?> method = this.lookup(request.getDelegate());
+    if (method == null) {
+      this.fallback.handle(request);
+      return;
+    }
+    new HttpServerCall<>(request.getDelegate(), method, this.metrics).start();
+  }
+
+  private RegisteredMethod<?, ?> lookup(io.vertx.core.http.HttpServerRequest request) {
+    if (request.version() != HttpVersion.HTTP_2 || request.method() != HttpMethod.POST) {
+      return null;
+    }
+    String contentType = request.getHeader("content-type");
+    if (contentType == null || !isGrpcContentType(contentType)) {
+      return null;
+    }
+    return this.methods.get(request.path());
+  }
+
+  /** Accepts {@code application/grpc} and its subtypes, but not {@code application/grpc-web}. */
+  static boolean isGrpcContentType(String contentType) {
+    if (!contentType.startsWith(GRPC_CONTENT_TYPE)) {
+      return false;
+    }
+    if (contentType.length() == GRPC_CONTENT_TYPE.length()) {
+      return true;
+    }
+    char next = contentType.charAt(GRPC_CONTENT_TYPE.length());
+    return next == '+' || next == ';';
+  }
+
+  /**
+   * A method of a registered service, with the codecs resolved from its policy.
+   *
+   * @param <Req> The request type
+   * @param <Resp> The response type
+   */
+  final class RegisteredMethod<Req, Resp> {
+
+    final ServerMethodDefinition<Req, Resp> definition;
+    final MethodPolicy policy;
+    final String acceptEncodingHeader;
+    final AliasingParser<Req> aliasingParser;
+    final CallScheduler scheduler;
+
+    RegisteredMethod(ServerMethodDefinition<Req, Resp> definition, MethodPolicy policy) {
+      this.definition = definition;
+      this.policy = policy;
+      for (String encoding : policy.getSendEncodings()) {
+        if (GrpcCallRouter.this.compressorRegistry.lookupCompressor(encoding) == null) {
+          throw new IllegalArgumentException(
+              "No codec registered for encoding "
+                  + encoding
+                  + " of method "
+                  + definition.getMethodDescriptor().getFullMethodName());
+        }
+      }
+      this.acceptEncodingHeader =
+          String.join(
+              ",",
+              policy.getAcceptEncodings().isEmpty()
+                  ? GrpcCallRouter.this.decompressorRegistry.getAdvertisedMessageEncodings()
+                  : policy.getAcceptEncodings());
+      this.aliasingParser =
+          GrpcCallRouter.this.options.isZeroCopyDecoding()
+              ? AliasingParser.of(definition.getMethodDescriptor().getRequestMarshaller())
+              : null;
+      this.scheduler = GrpcCallRouter.this.scheduler;
+    }
+
+    /**
+     * Parses a request message. Passthrough methods receive the message buffer itself, and the
+     * message buffer is aliased by protobuf requests when zero-copy decoding is enabled.
+     *
+     * @param message The serialized message
+     * @return The parsed message
+     */
+    @SuppressWarnings({"unchecked", "deprecation"})
+    Req parseRequest(ByteBuf message) {
+      MethodDescriptor<Req, Resp> descriptor = this.definition.getMethodDescriptor();
+      if (descriptor.getRequestMarshaller() == BufferMarshaller.INSTANCE) {
+        // Buffer#buffer(ByteBuf) has no public replacement in Vert.x 4 to wrap it without copying
+        return (Req) Buffer.buffer(message);
+      }
+      if (this.aliasingParser != null) {
+        return this.aliasingParser.parse(message);
+      }
+      return descriptor.parseRequest(new ByteBufInputStream(message));
+    }
+
+    /**
+     * Returns the decompressor of a request encoding, or null if the encoding is not accepted by
+     * the method.
+     */
+    Decompressor lookupDecompressor(String encoding) {
+      List<String> accepted = this.policy.getAcceptEncodings();
+      if (!accepted.isEmpty() && !accepted.contains(encoding)) {
+        return null;
+      }
+      return GrpcCallRouter.this.decompressorRegistry.lookupDecompressor(encoding);
+    }
+
+    /** Returns the compressor of an encoding, or null if none is registered under that encoding. */
+    Compressor lookupCompressor(String encoding) {
+      return GrpcCallRouter.this.compressorRegistry.lookupCompressor(encoding);
+    }
+
+    /**
+     * Negotiates the compressor of the responses: the first encoding of the policy that the client
+     * accepts.
+     *
+     * @param acceptEncoding The {@code grpc-accept-encoding} header of the request
+     * @return The compressor, or null to send the responses uncompressed
+     */
+    Compressor negotiateCompressor(String acceptEncoding) {
+      for (String encoding : this.policy.getSendEncodings()) {
+        if (acceptsEncoding(acceptEncoding, encoding)) {
+          return GrpcCallRouter.this.compressorRegistry.lookupCompressor(encoding);
+        }
+      }
+      return null;
+    }
+  }
+
+  /** Checks whether an encoding is listed in a {@code grpc-accept-encoding} header. */
+  static boolean acceptsEncoding(String acceptEncoding, String encoding) {
+    if (acceptEncoding == null) {
+      return false;
+    }
+    for (String accepted : acceptEncoding.split(",")) {
+      if (accepted.trim().equals(encoding)) {
+        return true;
+      }
+    }
+    return false;
+  }
+}
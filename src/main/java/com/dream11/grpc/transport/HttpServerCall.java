@@ -0,0 +1,783 @@
+package com.dream11.grpc.transport;
+
+import com.dream11.grpc.metrics.GrpcServerMetrics;
+import com.dream11.grpc.transport.GrpcCallRouter.RegisteredMethod;
+import io.grpc.Attributes;
+import io.grpc.Compressor;
+import io.grpc.Decompressor;
+import io.grpc.Grpc;
+import io.grpc.Metadata;
+import io.grpc.MethodDescriptor;
+import io.grpc.ServerCall;
+import io.grpc.Status;
+import io.grpc.StatusRuntimeException;
+import io.netty.buffer.ByteBuf;
+import io.netty.buffer.Unpooled;
+import io.netty.handler.codec.http2.Http2Error;
+import io.vertx.core.Context;
+import io.vertx.core.MultiMap;
+import io.vertx.core.Vertx;
+import io.vertx.core.buffer.Buffer;
+import io.vertx.core.http.HttpServerRequest;
+import io.vertx.core.http.HttpServerResponse;
+import io.vertx.core.net.HostAndPort;
+import io.vertx.core.net.SocketAddress;
+import io.vertx.grpc.common.impl.Utils;
+import java.net.InetAddress;
+import java.net.InetSocketAddress;
+import java.net.UnknownHostException;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.Queue;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.LongAdder;
+import lombok.extern.slf4j.Slf4j;
+
+/**
+ * A call served directly on top of an HTTP/2 request of Vert.x.
+ *
+ * <p>The state of the call is confined to the event loop of the request. Methods called by the
+ * service from another thread, e.g. from a worker, are dispatched to the event loop in the order
+ * they are called; methods called from the event loop run inline unless such a dispatched method is
+ * still pending, to preserve that order.
+ *
+ * <p>Requests are read as the service requests them: complete messages that have not been requested
+ * are queued and the request is paused, which stops replenishing the HTTP/2 flow-control window of
+ * the stream until the queue has been consumed.
+ *
+ * <p>Responses are framed on the thread sending them. The call stops being ready once the responses
+ * not yet handed to the stream exceed {@link #ON_READY_THRESHOLD} or the stream cannot be written
+ * to, and becomes ready again when they have been written, so that services waiting for the call to
+ * be ready, such as the ones implemented with Rx {@code Flowable}s, produce responses at the pace
+ * of the client. Responses sent while the stream cannot be written to are held in a queue bounded
+ * by {@link MethodPolicy#getMaxOutboundQueueSize()}; the stream is reset once the queue overflows.
+ * With write coalescing, the responses sent within one iteration of the event loop are gathered and
+ * written at once, at the end of the iteration or once they exceed the coalescing threshold.
+ *
+ * <p>With priority scheduling, the delivery of each request message and every method called by the
+ * service are run by the {@link CallScheduler} of the event loop, in the order of the priority of
+ * the method, instead of inline.
+ *
+ * @param <Req> The request type
+ * @param <Resp> The response type
+ */
+@Slf4j
+final class HttpServerCall<Req, Resp> extends ServerCall<Req, Resp> {
+
+  static final String GRPC_ENCODING = "grpc-encoding";
+  static final String GRPC_ACCEPT_ENCODING = "grpc-accept-encoding";
+  static final String GRPC_STATUS = "grpc-status";
+  static final String GRPC_MESSAGE = "grpc-message";
+  static final String IDENTITY = "identity";
+
+  /** Overhead of each header in the HTTP/2 header list size, see RFC 7540 section 6.5.2. */
+  static final int HEADER_ENTRY_OVERHEAD = 32;
+
+  /** Size of the responses pending for the stream above which the call is not ready. */
+  static final int ON_READY_THRESHOLD = 32 * 1024;
+
+  /** Size of the responses not yet handed to their stream, summed over the calls of the process. */
+  static final LongAdder PENDING_OUTBOUND_BYTES = new LongAdder();
+
+  private final HttpServerRequest request;
+  private final HttpServerResponse response;
+  private final RegisteredMethod<Req, Resp> method;
+  private final Context context;
+  private final Thread eventLoop;
+  private final AtomicInteger pendingTasks = new AtomicInteger();
+  private final MessageDeframer deframer;
+  private final MessageFramer framer;
+  private final GrpcServerMetrics metrics;
+  private final Queue<ByteBuf> messages = new ArrayDeque<>();
+  private final Queue<Buffer> outbound = new ArrayDeque<>();
+  private final List<Buffer> batch = new ArrayList<>();
+  private final AtomicLong pendingBytes = new AtomicLong();
+  private long batchBytes;
+  private boolean flushScheduled;
+  private long outboundBytes;
+  private int peakOutboundMessages;
+  private long peakOutboundBytes;
+  private boolean outboundReported;
+  private Listener<Req> listener;
+  private Compressor compressor;
+  private boolean messageCompression = true;
+  private boolean headersPrepared;
+  private int demand;
+  private boolean delivering;
+  private boolean deliveryScheduled;
+  private boolean paused;
+  private boolean requestEnded;
+  private boolean halfCloseDelivered;
+  private boolean completePending;
+  private Attributes attributes;
+  private volatile boolean writable = true;
+  private volatile boolean closed;
+  private volatile boolean cancelled;
+
+  HttpServerCall(
+      HttpServerRequest request, RegisteredMethod<Req, Resp> method, GrpcServerMetrics metrics) {
+    this.request = request;
+    this.response = request.response();
+    this.method = method;
+    this.context = Vertx.currentContext();
+    this.eventLoop = Thread.currentThread();
+    String fullMethodName = method.definition.getMethodDescriptor().getFullMethodName();
+    this.deframer =
+        new MessageDeframer(fullMethodName, method.policy.getMaxInboundMessageSize(), metrics);
+    this.framer = new MessageFramer(fullMethodName, method.policy.getMinCompressionSize(), metrics);
+    this.metrics = metrics;
+  }
+
+  /** Checks the limits of the method, negotiates the codecs of the call and starts it. */
+  void start() {
+    int metadataSize = metadataSize(this.request.headers());
+    int maxMetadataSize = this.method.policy.getMaxInboundMetadataSize();
+    if (metadataSize > maxMetadataSize) {
+      this.reject(
+          Status.RESOURCE_EXHAUSTED.withDescription(
+              String.format(
+                  "Request metadata size %d exceeds maximum %d", metadataSize, maxMetadataSize)));
+      return;
+    }
+    String encoding = this.request.getHeader(GRPC_ENCODING);
+    if (encoding != null && !IDENTITY.equals(encoding)) {
+      Decompressor decompressor = this.method.lookupDecompressor(encoding);
+      if (decompressor == null) {
+        this.reject(
+            Status.UNIMPLEMENTED.withDescription(
+                String.format("Can't find decompressor for %s", encoding)));
+        return;
+      }
+      this.deframer.setDecompressor(decompressor);
+    }
+    this.compressor = this.method.negotiateCompressor(this.request.getHeader(GRPC_ACCEPT_ENCODING));
+    this.request.handler(this::onData);
+    this.request.endHandler(v -> this.onRequestEnd());
+    this.request.exceptionHandler(this::onException);
+    this.response.exceptionHandler(this::onException);
+    this.response.closeHandler(v -> this.onStreamClosed());
+    this.response.drainHandler(v -> this.onWritable());
+    Metadata headers = Utils.readMetadata(this.request.headers());
+    try {
+      this.listener = this.method.definition.getServerCallHandler().startCall(this, headers);
+    } catch (RuntimeException e) {
+      this.onListenerFailure(e);
+      return;
+    }
+    if (this.completePending) {
+      // Closed while starting
+      this.listener.onComplete();
+      return;
+    }
+    this.deliver();
+    if (this.isReady()) {
+      this.onDrain();
+    }
+  }
+
+  @Override
+  public void request(int numMessages) {
+    if (this.runsInline()) {
+      this.doRequest(numMessages);
+    } else {
+      this.dispatch(() -> this.doRequest(numMessages));
+    }
+  }
+
+  @Override
+  public void sendHeaders(Metadata headers) {
+    if (this.runsInline()) {
+      this.doSendHeaders(headers);
+    } else {
+      this.dispatch(() -> this.doSendHeaders(headers));
+    }
+  }
+
+  @Override
+  public void sendMessage(Resp message) {
+    if (this.closed) {
+      throw new IllegalStateException("Already closed");
+    }
+    Buffer frame =
+        this.framer.frame(
+            this.getMethodDescriptor().streamResponse(message),
+            this.messageCompression ? this.compressor : null);
+    this.addPendingBytes(frame.length());
+    if (this.runsInline()) {
+      this.doSendMessage(frame);
+    } else {
+      this.dispatch(() -> this.doSendMessage(frame));
+    }
+  }
+
+  @Override
+  public void close(Status status, Metadata trailers) {
+    if (this.closed) {
+      throw new IllegalStateException("Already closed");
+    }
+    this.closed = true;
+    if (this.runsInline()) {
+      this.doClose(status, trailers);
+    } else {
+      this.dispatch(() -> this.doClose(status, trailers));
+    }
+  }
+
+  @Override
+  public boolean isReady() {
+    return !this.closed
+        && !this.cancelled
+        && this.writable
+        && this.pendingBytes.get() < ON_READY_THRESHOLD;
+  }
+
+  @Override
+  public boolean isCancelled() {
+    return this.cancelled;
+  }
+
+  @Override
+  public void setCompression(String encoding) {
+    if (this.headersPrepared) {
+      throw new IllegalStateException("Headers already sent");
+    }
+    Compressor selected = this.method.lookupCompressor(encoding);
+    if (selected == null) {
+      throw new IllegalArgumentException("Unable to find compressor by name " + encoding);
+    }
+    // As in grpc-java, the responses are sent uncompressed if the client does not accept it
+    this.compressor =
+        GrpcCallRouter.acceptsEncoding(this.request.getHeader(GRPC_ACCEPT_ENCODING), encoding)
+            ? selected
+            : null;
+  }
+
+  @Override
+  public void setMessageCompression(boolean enabled) {
+    this.messageCompression = enabled;
+  }
+
+  @Override
+  public MethodDescriptor<Req, Resp> getMethodDescriptor() {
+    return this.method.definition.getMethodDescriptor();
+  }
+
+  @Override
+  public Attributes getAttributes() {
+    if (this.attributes == null) {
+      this.attributes = this.createAttributes();
+    }
+    return this.attributes;
+  }
+
+  @Override
+  public String getAuthority() {
+    HostAndPort authority = this.request.authority();
+    if (authority == null) {
+      return null;
+    }
+    return authority.port() < 0 ? authority.host() : authority.host() + ":" + authority.port();
+  }
+
+  private boolean runsInline() {
+    return this.method.scheduler == null
+        && Thread.currentThread() == this.eventLoop
+        && this.pendingTasks.get() == 0;
+  }
+
+  private void dispatch(Runnable task) {
+    this.pendingTasks.incrementAndGet();
+    Runnable pending =
+        () -> {
+          this.pendingTasks.decrementAndGet();
+          task.run();
+        };
+    if (this.method.scheduler != null) {
+      this.method.scheduler.submit(this.method.policy.getPriority(), this.context, pending);
+    } else {
+      this.context.runOnContext(v -> pending.run());
+    }
+  }
+
+  private boolean isDone() {
+    return this.closed || this.cancelled;
+  }
+
+  // Buffer#getByteBuf has no public replacement in Vert.x 4 to read a chunk without copying it
+  @SuppressWarnings("deprecation")
+  private void onData(Buffer chunk) {
+    if (this.isDone()) {
+      return;
+    }
+    try {
+      this.deframer.decode(chunk.getByteBuf(), this.messages::add);
+    } catch (StatusRuntimeException e) {
+      this.abort(e.getStatus());
+      return;
+    }
+    this.scheduleDelivery();
+    if (!this.messages.isEmpty() && !this.paused) {
+      this.paused = true;
+      this.request.pause();
+    }
+  }
+
+  private void onRequestEnd() {
+    this.requestEnded = true;
+    this.scheduleDelivery();
+  }
+
+  private void doRequest(int numMessages) {
+    this.demand = (int) Math.min((long) this.demand + numMessages, Integer.MAX_VALUE);
+    this.scheduleDelivery();
+  }
+
+  /**
+   * Delivers the queued messages requested by the service, inline or, with priority scheduling, one
+   * message per task of the scheduler so that the messages of other calls can be interleaved.
+   */
+  private void scheduleDelivery() {
+    if (this.method.scheduler == null) {
+      this.deliver();
+      return;
+    }
+    if (this.deliveryScheduled) {
+      return;
+    }
+    this.deliveryScheduled = true;
+    this.method.scheduler.submit(
+        this.method.policy.getPriority(),
+        this.context,
+        () -> {
+          this.deliveryScheduled = false;
+          this.deliver(1);
+          if (this.canDeliver()) {
+            this.scheduleDelivery();
+          }
+        });
+  }
+
+  /** Returns whether a requested message or the half-close is waiting to be delivered. */
+  private boolean canDeliver() {
+    if (this.isDone() || this.listener == null) {
+      return false;
+    }
+    return this.messages.isEmpty()
+        ? this.requestEnded && !this.halfCloseDelivered
+        : this.demand > 0;
+  }
+
+  private void deliver() {
+    this.deliver(Integer.MAX_VALUE);
+  }
+
+  /**
+   * Delivers the queued messages requested by the service, then the half-close once the request has
+   * been fully read. Reentrant calls, from a listener requesting more messages, only update the
+   * demand consumed by the outer loop.
+   *
+   * @param maxMessages The maximum number of messages to deliver
+   */
+  private void deliver(int maxMessages) {
+    if (this.delivering || this.listener == null) {
+      return;
+    }
+    this.delivering = true;
+    try {
+      ByteBuf message;
+      int delivered = 0;
+      while (!this.isDone()
+          && this.demand > 0
+          && delivered++ < maxMessages
+          && (message = this.messages.poll()) != null) {
+        this.demand--;
+        Req parsed;
+        try {
+          parsed = this.method.parseRequest(message);
+        } catch (RuntimeException e) {
+          this.abort(
+              Status.INTERNAL.withDescription("Invalid protobuf byte sequence").withCause(e));
+          return;
+        }
+        try {
+          this.listener.onMessage(parsed);
+        } catch (RuntimeException e) {
+          this.onListenerFailure(e);
+        }
+      }
+      if (!this.isDone()
+          && this.requestEnded
+          && this.messages.isEmpty()
+          && !this.halfCloseDelivered) {
+        this.halfCloseDelivered = true;
+        try {
+          this.listener.onHalfClose();
+        } catch (RuntimeException e) {
+          this.onListenerFailure(e);
+        }
+      }
+    } finally {
+      this.delivering = false;
+    }
+    if (this.paused && (this.messages.isEmpty() || this.isDone())) {
+      this.paused = false;
+      this.request.resume();
+    }
+  }
+
+  private void onDrain() {
+    if (this.isDone() || this.listener == null) {
+      return;
+    }
+    try {
+      this.listener.onReady();
+    } catch (RuntimeException e) {
+      this.onListenerFailure(e);
+    }
+  }
+
+  private void doSendHeaders(Metadata headers) {
+    this.prepareHeaders();
+    Utils.writeMetadata(headers, this.response.headers());
+  }
+
+  private void doSendMessage(Buffer frame) {
+    if (this.cancelled || this.response.closed()) {
+      this.addPendingBytes(-frame.length());
+      return;
+    }
+    this.prepareHeaders();
+    if (!this.method.policy.isWriteCoalescing()) {
+      if (!this.outbound.isEmpty() || this.response.writeQueueFull()) {
+        this.enqueue(frame);
+      } else if (this.write(frame, 1) && this.isReady()) {
+        this.onDrain();
+      }
+      return;
+    }
+    this.batch.add(frame);
+    this.batchBytes += frame.length();
+    if (this.batchBytes >= this.method.policy.getWriteCoalescingThreshold()) {
+      this.flushBatch();
+    } else if (!this.flushScheduled) {
+      this.flushScheduled = true;
+      this.context.runOnContext(
+          v -> {
+            this.flushScheduled = false;
+            this.flushBatch();
+          });
+    }
+  }
+
+  /**
+   * Writes the coalesced responses, or queues them if the stream cannot be written to. The batch
+   * only holds responses sent after the queued ones, so that the order of the responses is kept.
+   */
+  private void flushBatch() {
+    if (this.batch.isEmpty() || this.cancelled) {
+      return;
+    }
+    if (this.outbound.isEmpty() && !this.response.writeQueueFull()) {
+      if (this.writeBatch() && this.isReady()) {
+        this.onDrain();
+      }
+      return;
+    }
+    List<Buffer> frames = new ArrayList<>(this.batch);
+    this.batch.clear();
+    this.batchBytes = 0;
+    for (Buffer frame : frames) {
+      if (this.cancelled) {
+        // The frames not queued are still pending
+        this.addPendingBytes(-frame.length());
+      } else {
+        this.enqueue(frame);
+      }
+    }
+  }
+
+  /**
+   * Writes the coalesced responses to the stream as a single buffer, without copying them.
+   *
+   * @return Whether the responses pending for the stream fell below {@link #ON_READY_THRESHOLD}
+   */
+  @SuppressWarnings("deprecation")
+  private boolean writeBatch() {
+    int messages = this.batch.size();
+    // Vert.x 4 has no public way to compose buffers without copying them other than through the
+    // deprecated Buffer#getByteBuf and Buffer#buffer(ByteBuf)
+    Buffer frames =
+        messages == 1
+            ? this.batch.get(0)
+            : Buffer.buffer(
+                Unpooled.wrappedBuffer(
+                    this.batch.stream().map(Buffer::getByteBuf).toArray(ByteBuf[]::new)));
+    this.batch.clear();
+    this.batchBytes = 0;
+    return this.write(frames, messages);
+  }
+
+  /**
+   * Writes responses to the stream.
+   *
+   * @param frames The framed responses
+   * @param messages The number of responses
+   * @return Whether the responses pending for the stream fell below {@link #ON_READY_THRESHOLD}
+   */
+  private boolean write(Buffer frames, int messages) {
+    long pending = this.addPendingBytes(-frames.length());
+    this.response.write(frames);
+    this.writable = !this.response.writeQueueFull();
+    this.metrics.recordResponseWrite(
+        this.getMethodDescriptor().getFullMethodName(), messages, frames.length());
+    return pending < ON_READY_THRESHOLD && pending + frames.length() >= ON_READY_THRESHOLD;
+  }
+
+  /** Queues a response until the stream can be written to, resetting the stream on overflow. */
+  private void enqueue(Buffer frame) {
+    this.writable = false;
+    this.outbound.add(frame);
+    this.outboundBytes += frame.length();
+    this.peakOutboundMessages = Math.max(this.peakOutboundMessages, this.outbound.size());
+    this.peakOutboundBytes = Math.max(this.peakOutboundBytes, this.outboundBytes);
+    int maxSize = this.method.policy.getMaxOutboundQueueSize();
+    if (this.outboundBytes > maxSize) {
+      String fullMethodName = this.getMethodDescriptor().getFullMethodName();
+      log.warn(
+          "Outbound queue of call {} exceeds maximum size {}, resetting the stream",
+          fullMethodName,
+          maxSize);
+      this.metrics.recordOutboundQueueOverflow(fullMethodName);
+      this.response.reset(Http2Error.CANCEL.code());
+      this.cancel();
+    }
+  }
+
+  /** Writes the queued responses once the stream can be written to again. */
+  private void onWritable() {
+    Buffer frame;
+    while (!this.isDone()
+        && !this.response.writeQueueFull()
+        && (frame = this.outbound.poll()) != null) {
+      this.outboundBytes -= frame.length();
+      this.write(frame, 1);
+    }
+    this.writable = this.outbound.isEmpty() && !this.isDone() && !this.response.writeQueueFull();
+    if (this.isReady()) {
+      this.onDrain();
+    }
+  }
+
+  /** Hands the queued and coalesced responses to the stream regardless of its writability. */
+  private void flushOutbound() {
+    Buffer frame;
+    while ((frame = this.outbound.poll()) != null) {
+      this.outboundBytes -= frame.length();
+      this.write(frame, 1);
+    }
+    if (!this.batch.isEmpty()) {
+      this.writeBatch();
+    }
+  }
+
+  /** Reports the peak depth of the outbound queue once the call is over. */
+  private void reportOutboundQueue() {
+    if (this.outboundReported) {
+      return;
+    }
+    this.outboundReported = true;
+    this.metrics.recordOutboundQueueDepth(
+        this.getMethodDescriptor().getFullMethodName(),
+        this.peakOutboundMessages,
+        this.peakOutboundBytes);
+  }
+
+  private void doClose(Status status, Metadata trailers) {
+    this.messages.clear();
+    if (this.cancelled) {
+      return;
+    }
+    // The trailers follow the queued responses
+    this.flushOutbound();
+    this.reportOutboundQueue();
+    this.writeStatus(status, trailers);
+    if (this.listener == null) {
+      this.completePending = true;
+      return;
+    }
+    try {
+      this.listener.onComplete();
+    } catch (RuntimeException e) {
+      log.error("Exception while completing {}", this.getMethodDescriptor().getFullMethodName(), e);
+    }
+  }
+
+  /**
+   * Sets the headers of the response: the content type, the encoding negotiated for the responses
+   * and the encodings accepted by the method.
+   */
+  private void prepareHeaders() {
+    if (this.headersPrepared) {
+      return;
+    }
+    this.headersPrepared = true;
+    MultiMap headers = this.response.headers();
+    headers.set("content-type", GrpcCallRouter.GRPC_CONTENT_TYPE);
+    if (this.compressor != null) {
+      headers.set(GRPC_ENCODING, this.compressor.getMessageEncoding());
+    }
+    if (!this.method.acceptEncodingHeader.isEmpty()) {
+      headers.set(GRPC_ACCEPT_ENCODING, this.method.acceptEncodingHeader);
+    }
+  }
+
+  /**
+   * Ends the response with a status, in the trailers or, when no message has been sent, in the
+   * headers of a trailers-only response.
+   */
+  private void writeStatus(Status status, Metadata trailers) {
+    if (this.response.ended() || this.response.closed()) {
+      return;
+    }
+    this.prepareHeaders();
+    MultiMap target =
+        this.response.headWritten() ? this.response.trailers() : this.response.headers();
+    Utils.writeMetadata(trailers, target);
+    target.set(GRPC_STATUS, String.valueOf(status.getCode().value()));
+    if (status.getDescription() != null) {
+      target.set(GRPC_MESSAGE, Utils.utf8PercentEncode(status.getDescription()));
+    }
+    this.response.end();
+  }
+
+  /** Rejects the call before it is started. */
+  private void reject(Status status) {
+    log.debug(
+        "Rejecting call {}, status:{}", this.getMethodDescriptor().getFullMethodName(), status);
+    this.closed = true;
+    this.writeStatus(status, new Metadata());
+    this.stopReading();
+  }
+
+  /**
+   * Fails the call because of the transport, e.g. an oversized or corrupted message: the client
+   * receives the status and the service is notified that the call has been cancelled.
+   */
+  private void abort(Status status) {
+    if (this.isDone()) {
+      return;
+    }
+    log.debug(
+        "Aborting call {}, status:{}", this.getMethodDescriptor().getFullMethodName(), status);
+    boolean trailersOnly = !this.response.headWritten();
+    this.writeStatus(status, new Metadata());
+    if (trailersOnly) {
+      this.stopReading();
+    }
+    this.cancel();
+  }
+
+  /**
+   * Resets the stream of a rejected request that the client is still sending, so that the rest of
+   * the request is neither sent nor buffered. Only used after a trailers-only response, which is
+   * not subject to flow control and is therefore sent before the reset.
+   */
+  private void stopReading() {
+    if (!this.request.isEnded()) {
+      this.response.reset(Http2Error.CANCEL.code());
+    }
+  }
+
+  private void onStreamClosed() {
+    if (!this.isDone()) {
+      // Reset by the client, or the connection has been closed
+      this.cancel();
+    }
+  }
+
+  /**
+   * Accounts for responses framed or handed to the stream, for this call and for the process.
+   *
+   * @param delta The size of the responses, negative once they are handed to the stream
+   * @return The size of the responses pending for this call
+   */
+  private long addPendingBytes(long delta) {
+    PENDING_OUTBOUND_BYTES.add(delta);
+    return this.pendingBytes.addAndGet(delta);
+  }
+
+  private void cancel() {
+    this.cancelled = true;
+    this.messages.clear();
+    this.outbound.clear();
+    this.batch.clear();
+    this.addPendingBytes(-this.outboundBytes - this.batchBytes);
+    this.outboundBytes = 0;
+    this.batchBytes = 0;
+    this.reportOutboundQueue();
+    if (this.paused) {
+      this.paused = false;
+      this.request.resume();
+    }
+    if (this.listener != null) {
+      try {
+        this.listener.onCancel();
+      } catch (RuntimeException e) {
+        log.error(
+            "Exception while cancelling {}", this.getMethodDescriptor().getFullMethodName(), e);
+      }
+    }
+  }
+
+  /** Fails the call when a callback of the service throws, as grpc-java does. */
+  private void onListenerFailure(RuntimeException e) {
+    log.error("Exception while executing {}", this.getMethodDescriptor().getFullMethodName(), e);
+    if (!this.closed) {
+      this.closed = true;
+      this.doClose(Status.fromThrowable(e), new Metadata());
+    }
+  }
+
+  private void onException(Throwable err) {
+    log.debug("Stream error on call {}", this.getMethodDescriptor().getFullMethodName(), err);
+  }
+
+  private Attributes createAttributes() {
+    Attributes.Builder builder = Attributes.newBuilder();
+    InetSocketAddress remote = toInetSocketAddress(this.request.connection().remoteAddress());
+    if (remote != null) {
+      builder.set(Grpc.TRANSPORT_ATTR_REMOTE_ADDR, remote);
+    }
+    InetSocketAddress local = toInetSocketAddress(this.request.connection().localAddress());
+    if (local != null) {
+      builder.set(Grpc.TRANSPORT_ATTR_LOCAL_ADDR, local);
+    }
+    if (this.request.connection().isSsl()) {
+      builder.set(Grpc.TRANSPORT_ATTR_SSL_SESSION, this.request.connection().sslSession());
+    }
+    return builder.build();
+  }
+
+  /** Computes the size of the request headers as accounted by HTTP/2. */
+  private static int metadataSize(MultiMap headers) {
+    int size = 0;
+    for (Map.Entry<String, String> header : headers) {
+      size += header.getKey().length() + header.getValue().length() + HEADER_ENTRY_OVERHEAD;
+    }
+    return size;
+  }
+
+  private static InetSocketAddress toInetSocketAddress(SocketAddress address) {
+    if (address == null || !address.isInetSocket()) {
+      return null;
+    }
+    try {
+      return new InetSocketAddress(InetAddress.getByName(address.hostAddress()), address.port());
+    } catch (UnknownHostException e) {
+      return null;
+    }
+  }
+}
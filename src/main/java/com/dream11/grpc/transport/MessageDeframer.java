@@ -0,0 +1,139 @@
+package com.dream11.grpc.transport;
+
+import com.dream11.grpc.metrics.GrpcServerMetrics;
+import io.grpc.Decompressor;
+import io.grpc.Status;
+import io.netty.buffer.ByteBuf;
+import io.netty.buffer.ByteBufInputStream;
+import io.netty.buffer.Unpooled;
+import java.io.IOException;
+import java.io.InputStream;
+import java.util.function.Consumer;
+
+/**
+ * Reads the length-prefixed messages of the gRPC protocol from the chunks of a request body.
+ * Messages contained in a single chunk are sliced out of it without copying; only messages spanning
+ * several chunks are assembled in a buffer of their exact size. Compressed messages are
+ * decompressed as soon as they are complete.
+ *
+ * <p>Failures are reported by throwing a {@link io.grpc.StatusRuntimeException} with the status to
+ * close the call with.
+ */
+final class MessageDeframer {
+
+  private static final int DECOMPRESS_CHUNK_SIZE = 8192;
+
+  private final String fullMethodName;
+  private final long maxMessageSize;
+  private final GrpcServerMetrics metrics;
+  private final ByteBuf header = Unpooled.buffer(MessageFramer.HEADER_LENGTH);
+  private Decompressor decompressor;
+  private boolean compressed;
+  private int length = -1;
+  private ByteBuf body;
+
+  MessageDeframer(String fullMethodName, long maxMessageSize, GrpcServerMetrics metrics) {
+    this.fullMethodName = fullMethodName;
+    this.maxMessageSize = maxMessageSize;
+    this.metrics = metrics;
+  }
+
+  /**
+   * Sets the decompressor of the messages flagged as compressed, as negotiated by the {@code
+   * grpc-encoding} header of the request.
+   */
+  void setDecompressor(Decompressor decompressor) {
+    this.decompressor = decompressor;
+  }
+
+  /**
+   * Reads the messages completed by a chunk of the request body.
+   *
+   * @param chunk The chunk, which is consumed
+   * @param handler The handler of the uncompressed messages
+   */
+  void decode(ByteBuf chunk, Consumer<ByteBuf> handler) {
+    while (true) {
+      if (this.length < 0) {
+        int missing = MessageFramer.HEADER_LENGTH - this.header.readableBytes();
+        this.header.writeBytes(chunk, Math.min(missing, chunk.readableBytes()));
+        if (this.header.readableBytes() < MessageFramer.HEADER_LENGTH) {
+          return;
+        }
+        this.readHeader();
+      }
+      ByteBuf message;
+      if (this.body == null && chunk.readableBytes() >= this.length) {
+        message = chunk.readSlice(this.length);
+      } else {
+        if (this.body == null) {
+          this.body = Unpooled.buffer(this.length);
+        }
+        this.body.writeBytes(
+            chunk, Math.min(this.length - this.body.readableBytes(), chunk.readableBytes()));
+        if (this.body.readableBytes() < this.length) {
+          return;
+        }
+        message = this.body;
+        this.body = null;
+      }
+      this.length = -1;
+      handler.accept(this.compressed ? this.decompress(message) : message);
+    }
+  }
+
+  private void readHeader() {
+    int flags = this.header.readUnsignedByte();
+    if ((flags & 0xfe) != 0) {
+      throw Status.INTERNAL
+          .withDescription("gRPC frame header malformed: reserved bits not zero")
+          .asRuntimeException();
+    }
+    long messageLength = this.header.readUnsignedInt();
+    this.header.clear();
+    if (messageLength > this.maxMessageSize) {
+      throw Status.RESOURCE_EXHAUSTED
+          .withDescription(
+              String.format(
+                  "gRPC message exceeds maximum size %d: %d", this.maxMessageSize, messageLength))
+          .asRuntimeException();
+    }
+    this.compressed = (flags & 1) != 0;
+    this.length = (int) messageLength;
+  }
+
+  private ByteBuf decompress(ByteBuf message) {
+    if (this.decompressor == null) {
+      throw Status.INTERNAL
+          .withDescription("Can't decode compressed gRPC message as compression not configured")
+          .asRuntimeException();
+    }
+    int compressedLength = message.readableBytes();
+    long start = System.nanoTime();
+    ByteBuf out = Unpooled.buffer((int) Math.min(compressedLength * 2L, this.maxMessageSize));
+    try (InputStream in = this.decompressor.decompress(new ByteBufInputStream(message))) {
+      while (out.writeBytes(in, DECOMPRESS_CHUNK_SIZE) >= 0) {
+        // The size limit also applies to decompressed messages, to bound the memory of a call
+        if (out.readableBytes() > this.maxMessageSize) {
+          throw Status.RESOURCE_EXHAUSTED
+              .withDescription(
+                  String.format(
+                      "Decompressed gRPC message exceeds maximum size %d", this.maxMessageSize))
+              .asRuntimeException();
+        }
+      }
+    } catch (IOException e) {
+      throw Status.INTERNAL
+          .withDescription("Failed to decompress gRPC message")
+          .withCause(e)
+          .asRuntimeException();
+    }
+    this.metrics.recordDecompression(
+        this.fullMethodName,
+        this.decompressor.getMessageEncoding(),
+        compressedLength,
+        out.readableBytes(),
+        System.nanoTime() - start);
+    return out;
+  }
+}
@@ -0,0 +1,101 @@
+package com.dream11.grpc.transport;
+
+import com.dream11.grpc.metrics.GrpcServerMetrics;
+import io.grpc.Compressor;
+import io.grpc.Drainable;
+import io.grpc.KnownLength;
+import io.netty.buffer.ByteBuf;
+import io.netty.buffer.ByteBufOutputStream;
+import io.netty.buffer.Unpooled;
+import io.vertx.core.buffer.Buffer;
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import lombok.SneakyThrows;
+
+/**
+ * Writes the length-prefixed messages of the gRPC protocol. Each message is compressed on its own,
+ * and flagged accordingly, so that messages smaller than the minimum compression size of the method
+ * are sent as they are even when a codec has been negotiated for the call.
+ */
+final class MessageFramer {
+
+  static final int HEADER_LENGTH = 5;
+  private static final int MIN_COMPRESSED_CAPACITY = 64;
+
+  private final String fullMethodName;
+  private final int minCompressionSize;
+  private final GrpcServerMetrics metrics;
+
+  MessageFramer(String fullMethodName, int minCompressionSize, GrpcServerMetrics metrics) {
+    this.fullMethodName = fullMethodName;
+    this.minCompressionSize = minCompressionSize;
+    this.metrics = metrics;
+  }
+
+  /**
+   * Frames a serialized message.
+   *
+   * @param stream The serialized message, as returned by the marshaller of the method
+   * @param compressor The compressor negotiated for the call, or null to send it uncompressed
+   * @return The message with its prefix
+   */
+  @SneakyThrows
+  Buffer frame(InputStream stream, Compressor compressor) {
+    try (InputStream in = stream) {
+      int length = in instanceof KnownLength ? in.available() : -1;
+      if (compressor == null || (length >= 0 && length < this.minCompressionSize)) {
+        return this.frameUncompressed(in, length);
+      }
+      if (length < 0) {
+        // The size is needed to apply the threshold, serialize the message upfront
+        byte[] bytes = in.readAllBytes();
+        return bytes.length < this.minCompressionSize
+            ? this.frameUncompressed(new ByteArrayInputStream(bytes), bytes.length)
+            : this.frameCompressed(new ByteArrayInputStream(bytes), bytes.length, compressor);
+      }
+      return this.frameCompressed(in, length, compressor);
+    }
+  }
+
+  private Buffer frameUncompressed(InputStream stream, int length) throws IOException {
+    ByteBuf buf = Unpooled.buffer(HEADER_LENGTH + Math.max(length, 0));
+    buf.writerIndex(HEADER_LENGTH);
+    drain(stream, new ByteBufOutputStream(buf));
+    buf.setByte(0, 0);
+    buf.setInt(1, buf.writerIndex() - HEADER_LENGTH);
+    return wrap(buf);
+  }
+
+  private Buffer frameCompressed(InputStream stream, int length, Compressor compressor)
+      throws IOException {
+    ByteBuf buf = Unpooled.buffer(HEADER_LENGTH + Math.max(length / 2, MIN_COMPRESSED_CAPACITY));
+    buf.writerIndex(HEADER_LENGTH);
+    long start = System.nanoTime();
+    try (OutputStream out = compressor.compress(new ByteBufOutputStream(buf))) {
+      drain(stream, out);
+    }
+    long nanos = System.nanoTime() - start;
+    int compressedLength = buf.writerIndex() - HEADER_LENGTH;
+    buf.setByte(0, 1);
+    buf.setInt(1, compressedLength);
+    this.metrics.recordCompression(
+        this.fullMethodName, compressor.getMessageEncoding(), length, compressedLength, nanos);
+    return wrap(buf);
+  }
+
+  // Buffer#buffer(ByteBuf) has no public replacement in Vert.x 4 to wrap a frame without copying it
+  @SuppressWarnings("deprecation")
+  private static Buffer wrap(ByteBuf buf) {
+    return Buffer.buffer(buf);
+  }
+
+  private static void drain(InputStream stream, OutputStream out) throws IOException {
+    if (stream instanceof Drainable) {
+      ((Drainable) stream).drainTo(out);
+    } else {
+      stream.transferTo(out);
+    }
+  }
+}
@@ -0,0 +1,133 @@
+package com.dream11.grpc.transport;
+
+import com.dream11.grpc.GrpcVerticleOptions;
+import com.dream11.grpc.annotation.CallPriority;
+import com.dream11.grpc.annotation.Compression;
+import com.dream11.grpc.annotation.GrpcMethod;
+import com.dream11.grpc.annotation.GrpcService;
+import java.lang.reflect.Method;
+import java.util.List;
+import lombok.Getter;
+import lombok.Setter;
+import lombok.experimental.Accessors;
+
+/**
+ * Transport settings of a single method, resolved from the {@link GrpcService} annotation of its
+ * service and the {@link GrpcMethod} annotation of the method, the latter taking precedence.
+ */
+@Getter
+@Setter
+@Accessors(chain = true)
+public class MethodPolicy {
+
+  /** Encodings responses may be compressed with, in order of preference. */
+  private List<String> sendEncodings = List.of();
+
+  /** Encodings accepted for compressed requests, or an empty list to accept all codecs. */
+  private List<String> acceptEncodings = List.of();
+
+  /** Serialized size, in bytes, below which responses are sent uncompressed. */
+  private int minCompressionSize = Compression.DEFAULT_MIN_MESSAGE_SIZE;
+
+  /** Maximum size, in bytes, of request messages. */
+  private int maxInboundMessageSize = GrpcVerticleOptions.DEFAULT_MAX_INBOUND_MESSAGE_SIZE;
+
+  /** Maximum size, in bytes, of request metadata. */
+  private int maxInboundMetadataSize = GrpcVerticleOptions.DEFAULT_MAX_INBOUND_METADATA_SIZE;
+
+  /** Maximum size, in bytes, of the outbound queue of each stream. */
+  private int maxOutboundQueueSize = GrpcVerticleOptions.DEFAULT_MAX_OUTBOUND_QUEUE_SIZE;
+
+  /** Whether to coalesce the writes of responses, see {@link #writeCoalescingThreshold}. */
+  private boolean writeCoalescing = false;
+
+  /** Size, in bytes, of the coalesced responses of a stream above which they are written. */
+  private int writeCoalescingThreshold = GrpcVerticleOptions.DEFAULT_WRITE_COALESCING_THRESHOLD;
+
+  /** Priority of the calls to the method. */
+  private CallPriority priority = CallPriority.NORMAL;
+
+  /**
+   * Resolves the policy of a method from the annotations of the class implementing its service.
+   *
+   * @param serviceClass The class implementing the service
+   * @param bareMethodName The name of the RPC, e.g. {@code SayHello}
+   * @param options The options of the verticle, holding the defaults of the policy
+   * @return The policy of the method
+   */
+  public static MethodPolicy resolve(
+      Class<?> serviceClass, String bareMethodName, GrpcVerticleOptions options) {
+    MethodPolicy policy =
+        new MethodPolicy()
+            .setMaxInboundMessageSize(options.getMaxInboundMessageSize())
+            .setMaxInboundMetadataSize(options.getMaxInboundMetadataSize())
+            .setMaxOutboundQueueSize(options.getMaxOutboundQueueSize())
+            .setWriteCoalescing(options.isWriteCoalescing())
+            .setWriteCoalescingThreshold(options.getWriteCoalescingThreshold());
+    GrpcService service = serviceClass.getAnnotation(GrpcService.class);
+    if (service != null) {
+      policy.apply(service.compression());
+      policy.applyLimits(service.maxInboundMessageSize(), service.maxInboundMetadataSize());
+      policy.priority = service.priority();
+    }
+    GrpcMethod method = findMethodAnnotation(serviceClass, bareMethodName);
+    if (method != null) {
+      policy.apply(method.compression());
+      policy.applyLimits(method.maxInboundMessageSize(), method.maxInboundMetadataSize());
+      policy.apply(method.priority());
+    }
+    return policy;
+  }
+
+  private void apply(Compression[] compression) {
+    if (compression.length > 1) {
+      throw new IllegalArgumentException("At most one compression policy can be set");
+    }
+    if (compression.length == 1) {
+      this.sendEncodings = List.of(compression[0].send());
+      this.acceptEncodings = List.of(compression[0].accept());
+      this.minCompressionSize = compression[0].minMessageSize();
+    }
+  }
+
+  private void apply(CallPriority[] priority) {
+    if (priority.length > 1) {
+      throw new IllegalArgumentException("At most one priority can be set");
+    }
+    if (priority.length == 1) {
+      this.priority = priority[0];
+    }
+  }
+
+  private void applyLimits(int maxInboundMessageSize, int maxInboundMetadataSize) {
+    if (maxInboundMessageSize >= 0) {
+      this.maxInboundMessageSize = maxInboundMessageSize;
+    }
+    if (maxInboundMetadataSize >= 0) {
+      this.maxInboundMetadataSize = maxInboundMetadataSize;
+    }
+  }
+
+  private static GrpcMethod findMethodAnnotation(Class<?> serviceClass, String bareMethodName) {
+    for (Method method : serviceClass.getMethods()) {
+      GrpcMethod annotation = method.getAnnotation(GrpcMethod.class);
+      if (annotation == null) {
+        continue;
+      }
+      String name = annotation.value().isEmpty() ? method.getName() : annotation.value();
+      if (matches(bareMethodName, name)) {
+        return annotation;
+      }
+    }
+    return null;
+  }
+
+  /**
+   * Compares the name of an RPC with the name of a Java method, ignoring the case and the
+   * underscores dropped by the gRPC compiler when generating {@code sayHello} from {@code SayHello}
+   * or {@code say_hello}.
+   */
+  static boolean matches(String bareMethodName, String name) {
+    return bareMethodName.replace("_", "").equalsIgnoreCase(name.replace("_", ""));
+  }
+}
@@ -0,0 +1,25 @@
+package com.dream11.grpc.transport;
+
+import com.dream11.grpc.annotation.CallPriority;
+
+/**
+ * Order in which the pending work of the calls served by an event loop is run when priority
+ * scheduling is enabled, see {@link com.dream11.grpc.GrpcVerticleOptions#isPriorityScheduling()}.
+ */
+public enum SchedulingPolicy {
+
+  /**
+   * Work of a higher {@link CallPriority} always runs before work of a lower priority. Lower
+   * priorities get no share of the event loop as long as higher priorities have work pending, and
+   * may starve under sustained load.
+   */
+  STRICT,
+
+  /**
+   * Every priority with pending work gets a share of the event loop proportional to its weight, 8
+   * for {@link CallPriority#CRITICAL}, 4 for {@link CallPriority#HIGH}, 2 for {@link
+   * CallPriority#NORMAL} and 1 for {@link CallPriority#LOW}, so that lower priorities are slowed
+   * down but never starve. This is the default.
+   */
+  WEIGHTED
+}
@@ -1,26 +1,121 @@
 package com.dream11.grpc.util;
 
+import java.io.BufferedReader;
+import java.io.InputStreamReader;
 import java.lang.annotation.Annotation;
+import java.net.URL;
+import java.nio.charset.StandardCharsets;
 import java.util.ArrayList;
+import java.util.Enumeration;
 import java.util.List;
+import lombok.SneakyThrows;
 import lombok.experimental.UtilityClass;
+import lombok.extern.slf4j.Slf4j;
 import org.reflections.Reflections;
 
 /**
  * Utility class for working with Java annotations. This class provides methods to scan and process
  * classes with specific annotations.
  */
+@Slf4j
 @UtilityClass
 public class AnnotationUtil {
+
+  /**
+   * The index of annotated classes generated at build time by {@link
+   * com.dream11.grpc.processor.GrpcIndexProcessor}, one {@code annotation class} pair per line.
+   */
+  public static final String INDEX_RESOURCE = "META-INF/grpc/index";
+
+  /**
+   * System property which, set to {@code true}, makes the {@link #INDEX_RESOURCE} indexes the
+   * authoritative source of the annotated classes on the JVM, as they always are in native images.
+   */
+  public static final String AUTHORITATIVE_INDEX_PROPERTY = "grpc.index.authoritative";
+
   /**
-   * Scans a specified package and returns all classes that are annotated with the given annotation.
+   * Returns all classes of a package, and of its sub-packages, that are annotated with the given
+   * annotation. The classes are found by scanning the classpath, unless the index is authoritative:
+   * in native images, where the classpath cannot be scanned, or when the {@link
+   * #AUTHORITATIVE_INDEX_PROPERTY} is set. The classes are then read from the {@link
+   * #INDEX_RESOURCE} indexes of the classpath when they index any class of the package, and entries
+   * of classes that no longer exist are skipped.
    *
    * @param packageName The name of the package to scan for annotated classes
    * @param annotation The annotation class to look for
    * @return A list of classes that are annotated with the specified annotation
+   * @throws IllegalStateException If no index covers the package in a native image
    */
   public List<Class<?>> getClassesWithAnnotation(
       String packageName, Class<? extends Annotation> annotation) {
+    if (isIndexAuthoritative()) {
+      List<Class<?>> indexed = getIndexedClasses(packageName, annotation);
+      if (indexed != null) {
+        return indexed;
+      }
+      if (isNativeImage()) {
+        throw new IllegalStateException(
+            "No "
+                + INDEX_RESOURCE
+                + " index lists the classes of package "
+                + packageName
+                + ", which cannot be scanned in a native image: run the annotation processor"
+                + " com.dream11.grpc.processor.GrpcIndexProcessor in the build of the package");
+      }
+      log.debug("No index of package:{}, scanning the classpath", packageName);
+    }
     return new ArrayList<>(new Reflections(packageName).getTypesAnnotatedWith(annotation));
   }
+
+  /**
+   * Returns whether the indexes are trusted to list all the annotated classes, which they may not
+   * on the JVM, e.g. after an incremental build or when a jar was built without the processor.
+   */
+  private boolean isIndexAuthoritative() {
+    return isNativeImage() || Boolean.getBoolean(AUTHORITATIVE_INDEX_PROPERTY);
+  }
+
+  private boolean isNativeImage() {
+    return System.getProperty("org.graalvm.nativeimage.imagecode") != null;
+  }
+
+  /**
+   * Reads the classes of a package annotated with the given annotation from the indexes of the
+   * classpath.
+   *
+   * @return The indexed classes, or null if no index covers the package
+   */
+  @SneakyThrows
+  private List<Class<?>> getIndexedClasses(
+      String packageName, Class<? extends Annotation> annotation) {
+    ClassLoader classLoader = Thread.currentThread().getContextClassLoader();
+    if (classLoader == null) {
+      classLoader = AnnotationUtil.class.getClassLoader();
+    }
+    boolean covered = false;
+    List<Class<?>> classes = new ArrayList<>();
+    Enumeration<URL> indexes = classLoader.getResources(INDEX_RESOURCE);
+    while (indexes.hasMoreElements()) {
+      URL index = indexes.nextElement();
+      try (BufferedReader reader =
+          new BufferedReader(new InputStreamReader(index.openStream(), StandardCharsets.UTF_8))) {
+        String line;
+        while ((line = reader.readLine()) != null) {
+          String[] entry = line.trim().split(" ");
+          if (entry.length != 2 || !entry[1].startsWith(packageName + ".")) {
+            continue;
+          }
+          covered = true;
+          if (entry[0].equals(annotation.getName())) {
+            try {
+              classes.add(Class.forName(entry[1], false, classLoader));
+            } catch (ClassNotFoundException | LinkageError e) {
+              log.warn("Skipping class:{} of stale index:{}", entry[1], index);
+            }
+          }
+        }
+      }
+    }
+    return covered ? classes : null;
+  }
 }
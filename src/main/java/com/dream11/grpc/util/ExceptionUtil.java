@@ -3,6 +3,12 @@ package com.dream11.grpc.util;
 import com.dream11.grpc.error.GrpcError;
 import com.dream11.grpc.error.GrpcErrorEnum;
 import com.dream11.grpc.error.GrpcException;
+import com.google.protobuf.Any;
+import com.google.rpc.Code;
+import com.google.rpc.ErrorInfo;
+import com.google.rpc.Status;
+import io.grpc.protobuf.StatusProto;
+import lombok.SneakyThrows;
 import lombok.experimental.UtilityClass;
 
 /**
@@ -28,6 +34,39 @@ public class ExceptionUtil {
     }
   }
 
+  /**
+   * Converts an error received by a gRPC client back to a GrpcException, the reverse of {@link
+   * #parseThrowable(Throwable)}. The error code of a {@link GrpcException} thrown by a service is
+   * restored from the details of the status; errors of services that do not report an error code
+   * are given the name of their status code, e.g. {@code UNAVAILABLE}, and errors that do not carry
+   * a status are wrapped with the UNKNOWN_EXCEPTION error code.
+   *
+   * @param throwable The error received by the client, e.g. a {@link
+   *     io.grpc.StatusRuntimeException}
+   * @return A GrpcException with the error code, message and status code of the error
+   */
+  @SneakyThrows
+  public GrpcException toGrpcException(final Throwable throwable) {
+    if (throwable instanceof GrpcException) {
+      return (GrpcException) throwable;
+    }
+    Status status = StatusProto.fromThrowable(throwable);
+    if (status == null) {
+      return new GrpcException(GrpcErrorEnum.UNKNOWN_EXCEPTION, throwable);
+    }
+    Code code = Code.forNumber(status.getCode());
+    for (Any detail : status.getDetailsList()) {
+      if (detail.is(ErrorInfo.class)) {
+        String errorCode = detail.unpack(ErrorInfo.class).getMetadataOrDefault("code", null);
+        if (errorCode != null) {
+          return new GrpcException(errorCode, status.getMessage(), code, throwable);
+        }
+      }
+    }
+    String message = status.getMessage().isEmpty() ? code.name() : status.getMessage();
+    return new GrpcException(code.name(), message, code, throwable);
+  }
+
   /**
    * Creates a new GrpcException with the specified error details and formatted message.
    *
@@ -0,0 +1,222 @@
+package com.dream11.grpc.warmup;
+
+import com.dream11.grpc.inprocess.InProcessChannel;
+import com.dream11.grpc.metrics.GrpcServerMetrics;
+import io.grpc.CallOptions;
+import io.grpc.ClientCall;
+import io.grpc.Metadata;
+import io.grpc.MethodDescriptor;
+import io.grpc.Status;
+import io.reactivex.Completable;
+import io.vertx.core.Context;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.TimeUnit;
+import lombok.extern.slf4j.Slf4j;
+
+/**
+ * Sends synthetic requests to the methods of a verticle through an {@link InProcessChannel} before
+ * the verticle listens, so that the services, their interceptors and the marshallers of their
+ * messages are compiled by the JIT before the first real call. The warm-up calls carry the {@link
+ * #HEADER} header, so that services and interceptors can recognize them, e.g. to skip side effects.
+ *
+ * <p>Each method is called {@code iterations} times with its requests in turn, with up to {@code
+ * concurrency} calls in flight. The warm-up stops early once {@code duration} has elapsed, in which
+ * case the calls still in flight are cancelled. Calls failing, e.g. because a default request is
+ * invalid, are counted but do not fail the warm-up: the code paths they run are warmed up all the
+ * same.
+ */
+@Slf4j
+public final class WarmUp {
+
+  /** The header set on warm-up calls, with the value {@code true}. */
+  public static final Metadata.Key<String> HEADER =
+      Metadata.Key.of("x-warm-up", Metadata.ASCII_STRING_MARSHALLER);
+
+  private final Context context;
+  private final InProcessChannel channel;
+  private final List<Target> targets = new ArrayList<>();
+  private final int iterations;
+  private final Duration duration;
+  private final int concurrency;
+  private final GrpcServerMetrics metrics;
+  private final Set<ClientCall<Object, Object>> inFlight = new HashSet<>();
+  private int next;
+  private boolean stopped;
+  private long timer = -1;
+  private long start;
+  private Runnable onComplete;
+
+  /**
+   * Creates a warm-up of the methods of a channel, run on the context of its server.
+   *
+   * @param context The context of the server
+   * @param channel The channel the methods are called through
+   * @param iterations The number of calls of each method
+   * @param duration The maximum duration of the warm-up
+   * @param concurrency The maximum number of calls in flight
+   * @param metrics The metrics the results of the warm-up are reported to
+   */
+  public WarmUp(
+      Context context,
+      InProcessChannel channel,
+      int iterations,
+      Duration duration,
+      int concurrency,
+      GrpcServerMetrics metrics) {
+    this.context = context;
+    this.channel = channel;
+    this.iterations = iterations;
+    this.duration = duration;
+    this.concurrency = Math.max(1, concurrency);
+    this.metrics = metrics;
+  }
+
+  /**
+   * Adds a method to warm up. Methods without requests are skipped.
+   *
+   * @param method The method, registered on the channel
+   * @param requests The requests sent in turn to the method
+   * @return This instance, for chaining
+   */
+  @SuppressWarnings("unchecked")
+  public WarmUp addMethod(MethodDescriptor<?, ?> method, List<?> requests) {
+    if (!requests.isEmpty()) {
+      this.targets.add(
+          new Target((MethodDescriptor<Object, Object>) method, new ArrayList<>(requests)));
+    }
+    return this;
+  }
+
+  /**
+   * Runs the warm-up on the context of the server, and reports the calls made to each method.
+   *
+   * @return A {@link Completable} that completes once the warm-up is over
+   */
+  public Completable run() {
+    if (this.targets.isEmpty() || this.iterations <= 0) {
+      return Completable.complete();
+    }
+    return Completable.create(
+        emitter -> {
+          this.onComplete = emitter::onComplete;
+          this.context.runOnContext(
+              v -> {
+                this.start = System.nanoTime();
+                this.timer =
+                    this.context.owner().setTimer(this.duration.toMillis(), id -> this.onTimeout());
+                this.fill();
+              });
+        });
+  }
+
+  /** Starts calls until the maximum number of calls in flight is reached. */
+  private void fill() {
+    while (!this.stopped && this.inFlight.size() < this.concurrency) {
+      Target target = this.nextTarget();
+      if (target == null) {
+        break;
+      }
+      this.call(target);
+    }
+    if (this.inFlight.isEmpty()) {
+      this.stop();
+    }
+  }
+
+  /** Returns the next method in turn with calls left to start, or null if there is none. */
+  private Target nextTarget() {
+    for (int i = 0; i < this.targets.size(); i++) {
+      Target target = this.targets.get(this.next++ % this.targets.size());
+      if (target.started < this.iterations) {
+        return target;
+      }
+    }
+    return null;
+  }
+
+  private void call(Target target) {
+    Object request = target.requests.get(target.started++ % target.requests.size());
+    ClientCall<Object, Object> call = this.channel.newCall(target.method, CallOptions.DEFAULT);
+    this.inFlight.add(call);
+    Metadata headers = new Metadata();
+    headers.put(HEADER, "true");
+    call.start(
+        new ClientCall.Listener<>() {
+          @Override
+          public void onClose(Status status, Metadata trailers) {
+            WarmUp.this.onClose(target, call, status);
+          }
+        },
+        headers);
+    call.request(Integer.MAX_VALUE);
+    call.sendMessage(request);
+    call.halfClose();
+  }
+
+  private void onClose(Target target, ClientCall<Object, Object> call, Status status) {
+    if (!this.inFlight.remove(call)) {
+      return;
+    }
+    target.completed++;
+    if (!status.isOk()) {
+      target.failures++;
+    }
+    // Start the next calls on a fresh stack, as in-process calls may complete synchronously
+    this.context.runOnContext(v -> this.fill());
+  }
+
+  private void onTimeout() {
+    this.timer = -1;
+    log.warn("Warm-up did not complete within {}, cancelling it", this.duration);
+    this.stop();
+  }
+
+  /** Ends the warm-up, cancelling the calls in flight, and reports its results. */
+  private void stop() {
+    if (this.onComplete == null) {
+      return;
+    }
+    this.stopped = true;
+    if (this.timer != -1) {
+      this.context.owner().cancelTimer(this.timer);
+      this.timer = -1;
+    }
+    for (ClientCall<Object, Object> call : List.copyOf(this.inFlight)) {
+      this.inFlight.remove(call);
+      call.cancel("Warm-up is over", null);
+    }
+    long nanos = System.nanoTime() - this.start;
+    for (Target target : this.targets) {
+      log.info(
+          "Warmed up method:{} calls:{} failures:{}",
+          target.method.getFullMethodName(),
+          target.completed,
+          target.failures);
+      this.metrics.recordWarmUp(
+          target.method.getFullMethodName(), target.completed, target.failures, nanos);
+    }
+    log.info("Warm-up completed in {}ms", TimeUnit.NANOSECONDS.toMillis(nanos));
+    Runnable complete = this.onComplete;
+    this.onComplete = null;
+    complete.run();
+  }
+
+  /** A method to warm up, with its requests and the counts of its calls. */
+  private static final class Target {
+
+    private final MethodDescriptor<Object, Object> method;
+    private final List<Object> requests;
+    private int started;
+    private int completed;
+    private int failures;
+
+    Target(MethodDescriptor<Object, Object> method, List<Object> requests) {
+      this.method = method;
+      this.requests = requests;
+    }
+  }
+}
@@ -0,0 +1,30 @@
+package com.dream11.fixtures;
+
+import com.dream11.grpc.annotation.CallPriority;
+import com.dream11.grpc.annotation.Compression;
+import com.dream11.grpc.annotation.GrpcMethod;
+import com.dream11.grpc.annotation.GrpcService;
+
+/**
+ * Service whose methods have their own policies. Annotated fixtures live outside of the {@code
+ * com.dream11.grpc} package, which the verticles of the tests scan for services.
+ */
+@GrpcService(
+    compression = @Compression(send = "gzip"),
+    maxInboundMessageSize = 1024,
+    priority = CallPriority.HIGH)
+public class Catalog {
+
+  public void getProduct() {}
+
+  @GrpcMethod(
+      compression =
+          @Compression(
+              send = {"zstd", "gzip"},
+              minMessageSize = 4096),
+      maxInboundMessageSize = 16 * 1024 * 1024)
+  public void listProducts() {}
+
+  @GrpcMethod(value = "Export", compression = @Compression, priority = CallPriority.LOW)
+  public void exportAll() {}
+}
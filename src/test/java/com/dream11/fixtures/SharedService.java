@@ -0,0 +1,16 @@
+package com.dream11.fixtures;
+
+import com.dream11.grpc.annotation.GrpcService;
+import com.dream11.grpc.annotation.ServiceScope;
+import io.grpc.BindableService;
+import io.grpc.ServerServiceDefinition;
+
+/** Service shared by all the verticles of the process. */
+@GrpcService(scope = ServiceScope.SHARED)
+public class SharedService implements BindableService {
+
+  @Override
+  public ServerServiceDefinition bindService() {
+    return ServerServiceDefinition.builder("test.Shared").build();
+  }
+}
@@ -0,0 +1,257 @@
+package com.dream11.grpc.client;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import com.dream11.grpc.ClassInjector;
+import com.dream11.grpc.annotation.GrpcClientInterceptor;
+import com.dream11.grpc.error.GrpcException;
+import com.dream11.grpc.metrics.GrpcClientMetrics;
+import com.dream11.grpc.util.ExceptionUtil;
+import com.google.rpc.Code;
+import io.grpc.CallOptions;
+import io.grpc.Channel;
+import io.grpc.ClientCall;
+import io.grpc.ClientInterceptor;
+import io.grpc.Contexts;
+import io.grpc.ForwardingClientCall;
+import io.grpc.Metadata;
+import io.grpc.MethodDescriptor;
+import io.grpc.Server;
+import io.grpc.ServerCall;
+import io.grpc.ServerCallHandler;
+import io.grpc.ServerInterceptor;
+import io.grpc.ServerInterceptors;
+import io.grpc.ServerServiceDefinition;
+import io.grpc.Status;
+import io.grpc.netty.NettyServerBuilder;
+import io.grpc.stub.ClientCalls;
+import io.grpc.stub.ServerCalls;
+import io.grpc.stub.StreamObserver;
+import io.vertx.core.Context;
+import io.vertx.reactivex.core.Vertx;
+import java.io.ByteArrayInputStream;
+import java.io.InputStream;
+import java.nio.charset.StandardCharsets;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.TimeUnit;
+import lombok.SneakyThrows;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+class AbstractGrpcClientTest {
+
+  static final Metadata.Key<String> CALLER =
+      Metadata.Key.of("x-caller", Metadata.ASCII_STRING_MARSHALLER);
+
+  static final io.grpc.Context.Key<String> CALLER_CONTEXT = io.grpc.Context.key("caller");
+
+  static final MethodDescriptor.Marshaller<String> MARSHALLER =
+      new MethodDescriptor.Marshaller<>() {
+        @Override
+        public InputStream stream(String value) {
+          return new ByteArrayInputStream(value.getBytes(StandardCharsets.UTF_8));
+        }
+
+        @Override
+        @SneakyThrows
+        public String parse(InputStream stream) {
+          return new String(stream.readAllBytes(), StandardCharsets.UTF_8);
+        }
+      };
+
+  static final MethodDescriptor<String, String> ECHO =
+      MethodDescriptor.newBuilder(MARSHALLER, MARSHALLER)
+          .setType(MethodDescriptor.MethodType.UNARY)
+          .setFullMethodName("test.Echo/Echo")
+          .build();
+
+  final List<String> calls = new CopyOnWriteArrayList<>();
+  Vertx vertx;
+  Server server;
+  TestClient client;
+
+  @BeforeEach
+  @SneakyThrows
+  void setup() {
+    ServerServiceDefinition service =
+        ServerServiceDefinition.builder("test.Echo")
+            .addMethod(
+                ECHO,
+                ServerCalls.asyncUnaryCall(
+                    (String request, StreamObserver<String> response) -> {
+                      if (request.isEmpty()) {
+                        response.onError(
+                            ExceptionUtil.parseThrowable(
+                                new GrpcException(
+                                    "EMPTY", "Empty request", Code.INVALID_ARGUMENT)));
+                      } else {
+                        response.onNext(request + " from " + CALLER_CONTEXT.get());
+                        response.onCompleted();
+                      }
+                    }))
+            .build();
+    this.server =
+        NettyServerBuilder.forPort(0)
+            .addService(ServerInterceptors.intercept(service, new CallerInterceptor()))
+            .build()
+            .start();
+    this.vertx = Vertx.vertx();
+    this.client =
+        new TestClient(
+            this.vertx,
+            new GrpcClientOptions().setPort(this.server.getPort()).setConnectionsPerEventLoop(2),
+            this.calls);
+  }
+
+  @AfterEach
+  @SneakyThrows
+  void tearDown() {
+    this.client.rxClose().blockingAwait();
+    this.vertx.rxClose().blockingAwait();
+    this.server.shutdownNow().awaitTermination(5, TimeUnit.SECONDS);
+  }
+
+  @Test
+  @SneakyThrows
+  void testResponsesAreDeliveredOnTheContextOfTheCaller() {
+    // arrange
+    Context context = this.vertx.getDelegate().getOrCreateContext();
+    CompletableFuture<Boolean> sameContext = new CompletableFuture<>();
+    CompletableFuture<String> reply = new CompletableFuture<>();
+
+    // act
+    context.runOnContext(
+        v ->
+            ClientCalls.asyncUnaryCall(
+                this.client.getChannel().newCall(ECHO, CallOptions.DEFAULT),
+                "hello",
+                new StreamObserver<>() {
+                  @Override
+                  public void onNext(String value) {
+                    sameContext.complete(io.vertx.core.Vertx.currentContext() == context);
+                    reply.complete(value);
+                  }
+
+                  @Override
+                  public void onError(Throwable t) {
+                    reply.completeExceptionally(t);
+                  }
+
+                  @Override
+                  public void onCompleted() {}
+                }));
+
+    // assert
+    assertThat(reply.get(5, TimeUnit.SECONDS)).isEqualTo("hello from test-client");
+    assertThat(sameContext.get()).isTrue();
+  }
+
+  @Test
+  void testCallsAreMeasured() {
+    // act
+    String reply =
+        ClientCalls.blockingUnaryCall(this.client.getChannel(), ECHO, CallOptions.DEFAULT, "hi");
+
+    // assert
+    assertThat(reply).isEqualTo("hi from test-client");
+    assertThat(this.calls)
+        .containsExactly("localhost:" + this.server.getPort() + " test.Echo/Echo OK");
+  }
+
+  @Test
+  void testErrorsAreMappedToGrpcExceptions() {
+    // act
+    GrpcException exception = null;
+    try {
+      ClientCalls.blockingUnaryCall(this.client.getChannel(), ECHO, CallOptions.DEFAULT, "");
+    } catch (RuntimeException e) {
+      exception = ExceptionUtil.toGrpcException(e);
+    }
+
+    // assert
+    assertThat(exception).isNotNull();
+    assertThat(exception.getErrorCode()).isEqualTo("EMPTY");
+    assertThat(exception.getErrorMessage()).isEqualTo("Empty request");
+    assertThat(exception.getGrpcCode()).isEqualTo(Code.INVALID_ARGUMENT);
+    assertThat(this.calls).hasSize(1).allMatch(call -> call.endsWith("INVALID_ARGUMENT"));
+  }
+
+  static class CallerInterceptor implements ServerInterceptor {
+    @Override
+    public <R1, R2> ServerCall.Listener<R1> interceptCall(
+        ServerCall<R1, R2> call, Metadata headers, ServerCallHandler<R1, R2> next) {
+      return Contexts.interceptCall(
+          io.grpc.Context.current().withValue(CALLER_CONTEXT, headers.get(CALLER)),
+          call,
+          headers,
+          next);
+    }
+  }
+
+  @GrpcClientInterceptor
+  public static class TestClientInterceptor implements ClientInterceptor {
+    @Override
+    public <R1, R2> ClientCall<R1, R2> interceptCall(
+        MethodDescriptor<R1, R2> method, CallOptions callOptions, Channel next) {
+      return new ForwardingClientCall.SimpleForwardingClientCall<>(
+          next.newCall(method, callOptions)) {
+        @Override
+        public void start(Listener<R2> responseListener, Metadata headers) {
+          headers.put(CALLER, "test-client");
+          super.start(responseListener, headers);
+        }
+      };
+    }
+  }
+
+  static class TestClient extends AbstractGrpcClient {
+
+    private final List<String> calls;
+
+    TestClient(Vertx vertx, GrpcClientOptions options, List<String> calls) {
+      super(vertx, AbstractGrpcClientTest.class.getPackageName(), options);
+      this.calls = calls;
+    }
+
+    @Override
+    protected ClassInjector getInjector() {
+      return new ClassInjector() {
+        @Override
+        @SneakyThrows
+        public <T> T getInstance(Class<T> clazz) {
+          return clazz.getDeclaredConstructor().newInstance();
+        }
+      };
+    }
+
+    @Override
+    protected GrpcClientMetrics getMetrics() {
+      return new GrpcClientMetrics() {
+        @Override
+        public void recordClientCall(
+            String target, String fullMethodName, Status.Code code, long nanos) {
+          TestClient.this.calls.add(target + " " + fullMethodName + " " + code);
+        }
+
+        @Override
+        public void recordEndpointEjection(String target, String endpoint) {
+          TestClient.this.calls.add(target + " ejected " + endpoint);
+        }
+
+        @Override
+        public void recordClientRetry(String target, String fullMethodName, boolean hedge) {
+          TestClient.this.calls.add(
+              target + " " + fullMethodName + (hedge ? " hedged" : " retried"));
+        }
+
+        @Override
+        public void recordRetryBudgetExhausted(String target, String fullMethodName) {
+          TestClient.this.calls.add(target + " " + fullMethodName + " budget exhausted");
+        }
+      };
+    }
+  }
+}
@@ -0,0 +1,64 @@
+package com.dream11.grpc.client;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+import io.vertx.core.net.SocketAddress;
+import io.vertx.reactivex.core.Vertx;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.Duration;
+import lombok.SneakyThrows;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+class EndpointGroupTest {
+
+  @TempDir Path directory;
+
+  @Test
+  void testParse() {
+    // act
+    SocketAddress host = EndpointGroup.parse("catalog-1:9090");
+    SocketAddress ipv6 = EndpointGroup.parse("[::1]:9091");
+
+    // assert
+    assertThat(host.host()).isEqualTo("catalog-1");
+    assertThat(host.port()).isEqualTo(9090);
+    assertThat(ipv6.host()).isEqualTo("::1");
+    assertThat(ipv6.port()).isEqualTo(9091);
+  }
+
+  @Test
+  void testInvalidEndpointIsRejected() {
+    // act & assert
+    assertThatThrownBy(() -> EndpointGroup.parse("catalog"))
+        .isInstanceOf(IllegalArgumentException.class)
+        .hasMessageContaining("expected host:port");
+  }
+
+  @Test
+  @SneakyThrows
+  void testEndpointsAreRefreshedFromFile() {
+    // arrange
+    Vertx vertx = Vertx.vertx();
+    Path file = this.directory.resolve("endpoints");
+    Files.writeString(file, "# catalog\ncatalog-1:9090\n\ncatalog-2:9090\n");
+    EndpointGroup group =
+        EndpointGroup.fromFile(vertx, "catalog", file.toString(), Duration.ofMillis(20));
+    int initial = group.getEndpoints().size();
+
+    // act
+    Files.writeString(file, "catalog-3:9090\n");
+    long deadline = System.currentTimeMillis() + 5000;
+    while (group.getEndpoints().size() != 1 && System.currentTimeMillis() < deadline) {
+      Thread.sleep(10);
+    }
+    group.close();
+    vertx.rxClose().blockingAwait();
+
+    // assert
+    assertThat(initial).isEqualTo(2);
+    assertThat(group.getEndpoints()).containsExactly(EndpointGroup.parse("catalog-3:9090"));
+  }
+}
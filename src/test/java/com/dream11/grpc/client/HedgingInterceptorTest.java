@@ -0,0 +1,221 @@
+package com.dream11.grpc.client;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import com.dream11.grpc.error.GrpcError;
+import com.dream11.grpc.error.GrpcException;
+import com.dream11.grpc.util.ExceptionUtil;
+import com.google.rpc.Code;
+import io.grpc.CallOptions;
+import io.grpc.Contexts;
+import io.grpc.Metadata;
+import io.grpc.Server;
+import io.grpc.ServerCall;
+import io.grpc.ServerCallHandler;
+import io.grpc.ServerInterceptor;
+import io.grpc.ServerInterceptors;
+import io.grpc.ServerServiceDefinition;
+import io.grpc.Status;
+import io.grpc.StatusRuntimeException;
+import io.grpc.netty.NettyServerBuilder;
+import io.grpc.stub.ClientCalls;
+import io.grpc.stub.ServerCallStreamObserver;
+import io.grpc.stub.ServerCalls;
+import io.grpc.stub.StreamObserver;
+import io.vertx.reactivex.core.Vertx;
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import lombok.Getter;
+import lombok.RequiredArgsConstructor;
+import lombok.SneakyThrows;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+class HedgingInterceptorTest {
+
+  static final io.grpc.Context.Key<String> ATTEMPT_CONTEXT = io.grpc.Context.key("attempt");
+
+  final List<String> calls = new CopyOnWriteArrayList<>();
+  final List<String> attempts = new CopyOnWriteArrayList<>();
+  final CountDownLatch firstAttemptCancelled = new CountDownLatch(1);
+  volatile Mode firstAttempt = Mode.OK;
+  Vertx vertx;
+  Server server;
+  AbstractGrpcClientTest.TestClient client;
+
+  @BeforeEach
+  @SneakyThrows
+  void setup() {
+    ServerServiceDefinition service =
+        ServerServiceDefinition.builder("test.Echo")
+            .addMethod(
+                AbstractGrpcClientTest.ECHO,
+                ServerCalls.asyncUnaryCall(
+                    (String request, StreamObserver<String> response) -> {
+                      String attempt = ATTEMPT_CONTEXT.get();
+                      this.attempts.add(attempt == null ? "0" : attempt);
+                      if (attempt == null && this.firstAttempt != Mode.OK) {
+                        this.fail(response);
+                        return;
+                      }
+                      response.onNext(request);
+                      response.onCompleted();
+                    }))
+            .build();
+    this.server =
+        NettyServerBuilder.forPort(0)
+            .addService(ServerInterceptors.intercept(service, new AttemptInterceptor()))
+            .build()
+            .start();
+    this.vertx = Vertx.vertx();
+  }
+
+  @AfterEach
+  @SneakyThrows
+  void tearDown() {
+    this.client.rxClose().blockingAwait();
+    this.vertx.rxClose().blockingAwait();
+    this.server.shutdownNow().awaitTermination(5, TimeUnit.SECONDS);
+  }
+
+  @Test
+  void testSlowCallIsHedged() throws InterruptedException {
+    // arrange
+    this.client = this.createClient(new HedgingPolicy().addMethod("test.Echo/*"));
+    for (int i = 0; i < HedgingPolicy.MIN_LATENCY_SAMPLES; i++) {
+      this.call();
+    }
+    this.firstAttempt = Mode.SLOW;
+
+    // act
+    String reply = this.call();
+
+    // assert
+    assertThat(reply).isEqualTo("hi");
+    assertThat(this.attempts).endsWith("0", "1");
+    assertThat(this.calls).contains(this.target() + " test.Echo/Echo hedged");
+    assertThat(this.firstAttemptCancelled.await(5, TimeUnit.SECONDS)).isTrue();
+  }
+
+  @Test
+  void testUnavailableCallIsRetried() {
+    // arrange
+    this.client = this.createClient(new HedgingPolicy().addMethod("test.Echo/Echo"));
+    this.firstAttempt = Mode.UNAVAILABLE;
+
+    // act
+    String reply = this.call();
+
+    // assert
+    assertThat(reply).isEqualTo("hi");
+    assertThat(this.attempts).containsExactly("0", "1");
+    assertThat(this.calls)
+        .containsExactly(
+            this.target() + " test.Echo/Echo retried", this.target() + " test.Echo/Echo OK");
+  }
+
+  @Test
+  void testRetryableErrorIsRetried() {
+    // arrange
+    this.client =
+        this.createClient(
+            new HedgingPolicy()
+                .addMethod("test.Echo/Echo")
+                .addRetryableError(TestError.DEPENDENCY_UNAVAILABLE));
+    this.firstAttempt = Mode.DEPENDENCY_UNAVAILABLE;
+
+    // act
+    String reply = this.call();
+
+    // assert
+    assertThat(reply).isEqualTo("hi");
+    assertThat(this.attempts).containsExactly("0", "1");
+  }
+
+  @Test
+  void testRetriesAreBoundedByTheBudget() {
+    // arrange
+    this.client =
+        this.createClient(new HedgingPolicy().addMethod("test.Echo/Echo").setMaxBudgetTokens(0));
+    this.firstAttempt = Mode.UNAVAILABLE;
+
+    // act
+    StatusRuntimeException error = null;
+    try {
+      this.call();
+    } catch (StatusRuntimeException e) {
+      error = e;
+    }
+
+    // assert
+    assertThat(error).isNotNull();
+    assertThat(error.getStatus().getCode()).isEqualTo(Status.Code.UNAVAILABLE);
+    assertThat(this.attempts).containsExactly("0");
+    assertThat(this.calls).contains(this.target() + " test.Echo/Echo budget exhausted");
+  }
+
+  private String call() {
+    return ClientCalls.blockingUnaryCall(
+        this.client.getChannel(), AbstractGrpcClientTest.ECHO, CallOptions.DEFAULT, "hi");
+  }
+
+  private String target() {
+    return "localhost:" + this.server.getPort();
+  }
+
+  private AbstractGrpcClientTest.TestClient createClient(HedgingPolicy policy) {
+    return new AbstractGrpcClientTest.TestClient(
+        this.vertx,
+        new GrpcClientOptions().setPort(this.server.getPort()).setHedgingPolicy(policy),
+        this.calls);
+  }
+
+  private void fail(StreamObserver<String> response) {
+    switch (this.firstAttempt) {
+      case SLOW:
+        // Never completes, so that only the hedge can complete the call
+        ((ServerCallStreamObserver<String>) response)
+            .setOnCancelHandler(this.firstAttemptCancelled::countDown);
+        break;
+      case UNAVAILABLE:
+        response.onError(Status.UNAVAILABLE.asRuntimeException());
+        break;
+      default:
+        response.onError(
+            ExceptionUtil.parseThrowable(new GrpcException(TestError.DEPENDENCY_UNAVAILABLE)));
+    }
+  }
+
+  enum Mode {
+    OK,
+    SLOW,
+    UNAVAILABLE,
+    DEPENDENCY_UNAVAILABLE
+  }
+
+  @Getter
+  @RequiredArgsConstructor
+  enum TestError implements GrpcError {
+    DEPENDENCY_UNAVAILABLE("DEPENDENCY_UNAVAILABLE", "Dependency unavailable", Code.INTERNAL);
+
+    final String errorCode;
+    final String errorMessage;
+    final Code grpcCode;
+  }
+
+  static class AttemptInterceptor implements ServerInterceptor {
+    @Override
+    public <R1, R2> ServerCall.Listener<R1> interceptCall(
+        ServerCall<R1, R2> call, Metadata headers, ServerCallHandler<R1, R2> next) {
+      return Contexts.interceptCall(
+          io.grpc.Context.current()
+              .withValue(ATTEMPT_CONTEXT, headers.get(HedgingInterceptor.PREVIOUS_ATTEMPTS)),
+          call,
+          headers,
+          next);
+    }
+  }
+}
@@ -0,0 +1,153 @@
+package com.dream11.grpc.client;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import io.grpc.CallOptions;
+import io.grpc.Server;
+import io.grpc.ServerServiceDefinition;
+import io.grpc.StatusRuntimeException;
+import io.grpc.netty.NettyServerBuilder;
+import io.grpc.stub.ClientCalls;
+import io.grpc.stub.ServerCalls;
+import io.vertx.core.VertxOptions;
+import io.vertx.reactivex.core.Vertx;
+import java.net.ServerSocket;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.TimeUnit;
+import lombok.SneakyThrows;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+class LoadBalancerTest {
+
+  final List<Server> servers = new ArrayList<>();
+  final Map<String, Integer> served = new ConcurrentHashMap<>();
+  final List<String> calls = new CopyOnWriteArrayList<>();
+  Vertx vertx;
+  AbstractGrpcClientTest.TestClient client;
+
+  @BeforeEach
+  void setup() {
+    // A single event loop, so that calls started from the test share the same load balancer
+    this.vertx = Vertx.vertx(new VertxOptions().setEventLoopPoolSize(1));
+  }
+
+  @AfterEach
+  @SneakyThrows
+  void tearDown() {
+    this.client.rxClose().blockingAwait();
+    this.vertx.rxClose().blockingAwait();
+    for (Server server : this.servers) {
+      server.shutdownNow().awaitTermination(5, TimeUnit.SECONDS);
+    }
+  }
+
+  @Test
+  void testSlowEndpointIsAvoided() {
+    // arrange
+    String fast = this.startServer("fast", 0);
+    String slow = this.startServer("slow", 50);
+    // A short decay, so that the latency of the connection of the first call is soon forgotten
+    this.client =
+        this.createClient(
+            new GrpcClientOptions().setLatencyDecay(Duration.ofMillis(100)), fast, slow);
+
+    // act
+    for (int i = 0; i < 40; i++) {
+      this.call();
+    }
+
+    // assert
+    assertThat(this.served.get("fast")).isGreaterThan(30);
+  }
+
+  @Test
+  @SneakyThrows
+  void testUnavailableEndpointIsEjected() {
+    // arrange
+    String available = this.startServer("available", 0);
+    String unavailable;
+    try (ServerSocket socket = new ServerSocket(0)) {
+      unavailable = "localhost:" + socket.getLocalPort();
+    }
+    this.client =
+        this.createClient(
+            new GrpcClientOptions().setOutlierEjectionFailures(1), available, unavailable);
+
+    // act
+    int failures = 0;
+    for (int i = 0; i < 40; i++) {
+      try {
+        this.call();
+      } catch (StatusRuntimeException e) {
+        failures++;
+      }
+    }
+
+    // assert
+    assertThat(failures).isEqualTo(1);
+    assertThat(this.served.get("available")).isEqualTo(39);
+    assertThat(this.calls).contains("test ejected " + unavailable);
+  }
+
+  @Test
+  void testEmptyGroupFailsCalls() {
+    // arrange
+    this.client = this.createClient(new GrpcClientOptions());
+
+    // act
+    StatusRuntimeException error = null;
+    try {
+      this.call();
+    } catch (StatusRuntimeException e) {
+      error = e;
+    }
+
+    // assert
+    assertThat(error).isNotNull();
+    assertThat(error.getStatus().getDescription()).isEqualTo("No endpoint of test is available");
+  }
+
+  private String call() {
+    return ClientCalls.blockingUnaryCall(
+        this.client.getChannel(), AbstractGrpcClientTest.ECHO, CallOptions.DEFAULT, "hi");
+  }
+
+  private AbstractGrpcClientTest.TestClient createClient(
+      GrpcClientOptions options, String... endpoints) {
+    return new AbstractGrpcClientTest.TestClient(
+        this.vertx,
+        options.setEndpointGroup(EndpointGroup.of("test", endpoints)).setConnectionsPerEventLoop(1),
+        this.calls);
+  }
+
+  @SneakyThrows
+  private String startServer(String name, long delayMillis) {
+    ServerServiceDefinition service =
+        ServerServiceDefinition.builder("test.Echo")
+            .addMethod(
+                AbstractGrpcClientTest.ECHO,
+                ServerCalls.asyncUnaryCall(
+                    (request, response) -> {
+                      this.served.merge(name, 1, Integer::sum);
+                      sleep(delayMillis);
+                      response.onNext(request);
+                      response.onCompleted();
+                    }))
+            .build();
+    Server server = NettyServerBuilder.forPort(0).addService(service).build().start();
+    this.servers.add(server);
+    return "localhost:" + server.getPort();
+  }
+
+  @SneakyThrows
+  private static void sleep(long millis) {
+    Thread.sleep(millis);
+  }
+}
@@ -0,0 +1,124 @@
+package com.dream11.grpc.connection;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+import com.dream11.grpc.GrpcVerticleOptions;
+import com.dream11.grpc.metrics.GrpcServerMetrics;
+import com.dream11.grpc.util.RawGrpcClient;
+import com.dream11.grpc.util.RawGrpcClient.Reply;
+import com.dream11.grpc.verticle.ServiceVerticle;
+import io.grpc.BindableService;
+import io.grpc.MethodDescriptor;
+import io.grpc.ServerServiceDefinition;
+import io.grpc.stub.ServerCalls;
+import io.vertx.core.Future;
+import io.vertx.core.Promise;
+import io.vertx.core.Vertx;
+import io.vertx.core.http.GoAway;
+import io.vertx.core.http.HttpClientOptions;
+import java.time.Duration;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.TimeUnit;
+import lombok.SneakyThrows;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+class ConnectionDrainIT {
+
+  static final MethodDescriptor<String, String> SLOW =
+      RawGrpcClient.method("test.Drain/Slow", MethodDescriptor.MethodType.UNARY);
+  static final Duration GRACE_PERIOD = Duration.ofSeconds(5);
+
+  final SlowService service = new SlowService();
+  final Promise<GoAway> goAway = Promise.promise();
+  final ConcurrentLinkedQueue<String> events = new ConcurrentLinkedQueue<>();
+  Vertx vertx;
+  RawGrpcClient client;
+  String deploymentId;
+
+  @BeforeEach
+  void setup() {
+    this.vertx = Vertx.vertx();
+    int port = ServiceVerticle.freePort();
+    GrpcVerticleOptions options = new GrpcVerticleOptions().setShutdownGracePeriod(GRACE_PERIOD);
+    this.deploymentId =
+        await(
+            this.vertx.deployVerticle(
+                new ServiceVerticle(port, options, GrpcServerMetrics.NOOP, this.service)));
+    this.client =
+        new RawGrpcClient(
+            this.vertx,
+            port,
+            new HttpClientOptions(),
+            connection -> connection.goAwayHandler(this.goAway::tryComplete));
+  }
+
+  @AfterEach
+  void cleanUp() {
+    await(this.vertx.close());
+  }
+
+  @Test
+  @SneakyThrows
+  void testUndeployDrainsConnections() {
+    // arrange
+    Future<Reply> slowCall = this.client.call(SLOW.getFullMethodName(), "slow");
+    slowCall.onSuccess(reply -> this.events.add("reply"));
+    assertThat(this.service.started.await(5, TimeUnit.SECONDS)).isTrue();
+
+    // act
+    CompletableFuture<Void> undeployed =
+        this.vertx.undeploy(this.deploymentId).toCompletionStage().toCompletableFuture();
+    undeployed.thenRun(() -> this.events.add("undeployed"));
+    GoAway frame = await(this.goAway.future());
+    Future<Reply> refusedCall = this.client.call(SLOW.getFullMethodName(), "refused");
+
+    // assert
+    assertThat(frame.getErrorCode()).isZero();
+    assertThatThrownBy(() -> await(refusedCall)).isInstanceOf(ExecutionException.class);
+    undeployed.get(GRACE_PERIOD.toMillis(), TimeUnit.MILLISECONDS);
+    Reply reply = await(slowCall);
+    assertThat(reply.getStatus()).isEqualTo("0");
+    assertThat(reply.getMessages()).containsExactly("slow");
+    assertThat(this.events).containsExactly("reply", "undeployed");
+    assertThat(this.service.calls).isEqualTo(1);
+  }
+
+  @SneakyThrows
+  static <T> T await(Future<T> future) {
+    return future.toCompletionStage().toCompletableFuture().get(10, TimeUnit.SECONDS);
+  }
+
+  /** Replies to its calls after a second. */
+  static class SlowService implements BindableService {
+
+    final CountDownLatch started = new CountDownLatch(1);
+    volatile int calls;
+
+    @Override
+    public ServerServiceDefinition bindService() {
+      return ServerServiceDefinition.builder("test.Drain")
+          .addMethod(
+              SLOW,
+              ServerCalls.asyncUnaryCall(
+                  (request, response) -> {
+                    this.calls++;
+                    this.started.countDown();
+                    Vertx.currentContext()
+                        .owner()
+                        .setTimer(
+                            1000,
+                            id -> {
+                              response.onNext(request);
+                              response.onCompleted();
+                            });
+                  }))
+          .build();
+    }
+  }
+}
@@ -0,0 +1,164 @@
+package com.dream11.grpc.connection;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import com.dream11.grpc.GrpcVerticleOptions;
+import com.dream11.grpc.metrics.GrpcServerMetrics;
+import com.dream11.grpc.util.RawGrpcClient;
+import com.dream11.grpc.util.RawGrpcClient.Reply;
+import com.dream11.grpc.verticle.ServiceVerticle;
+import io.grpc.BindableService;
+import io.grpc.MethodDescriptor;
+import io.grpc.ServerServiceDefinition;
+import io.grpc.stub.ServerCalls;
+import io.vertx.core.Future;
+import io.vertx.core.Promise;
+import io.vertx.core.Vertx;
+import io.vertx.core.buffer.Buffer;
+import io.vertx.core.http.GoAway;
+import io.vertx.core.http.HttpClientOptions;
+import io.vertx.core.http.HttpConnection;
+import java.time.Duration;
+import java.util.List;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.TimeUnit;
+import lombok.SneakyThrows;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+class ConnectionManagerIT {
+
+  static final MethodDescriptor<String, String> SLEEP =
+      RawGrpcClient.method("test.Managed/Sleep", MethodDescriptor.MethodType.UNARY);
+
+  final List<String> shutdownReasons = new CopyOnWriteArrayList<>();
+  final GrpcServerMetrics metrics =
+      new GrpcServerMetrics() {
+        @Override
+        public void recordConnectionShutdown(String listener, String reason) {
+          ConnectionManagerIT.this.shutdownReasons.add(reason);
+        }
+      };
+  final Promise<HttpConnection> connection = Promise.promise();
+  final Promise<GoAway> goAway = Promise.promise();
+  final ConcurrentLinkedQueue<String> events = new ConcurrentLinkedQueue<>();
+  Vertx vertx;
+  RawGrpcClient client;
+
+  @BeforeEach
+  void setup() {
+    this.vertx = Vertx.vertx();
+  }
+
+  @AfterEach
+  void cleanUp() {
+    await(this.vertx.close());
+  }
+
+  private void deploy(GrpcVerticleOptions options) {
+    int port = ServiceVerticle.freePort();
+    await(this.vertx.deployVerticle(new ServiceVerticle(port, options, this.metrics, new Sleep())));
+    this.client =
+        new RawGrpcClient(
+            this.vertx,
+            port,
+            new HttpClientOptions(),
+            connection -> {
+              this.connection.tryComplete(connection);
+              connection.goAwayHandler(
+                  frame -> {
+                    this.events.add("goaway");
+                    this.goAway.tryComplete(frame);
+                  });
+            });
+  }
+
+  /** Calls the method sleeping for the given time before replying. */
+  private Future<Reply> sleep(Duration duration) {
+    return this.client
+        .call(SLEEP.getFullMethodName(), String.valueOf(duration.toMillis()))
+        .onSuccess(reply -> this.events.add("reply"));
+  }
+
+  @Test
+  void testMaxAgeSendsGoAwayAndLetsCallsComplete() {
+    // arrange
+    this.deploy(
+        new GrpcVerticleOptions()
+            .setMaxConnectionAge(Duration.ofMillis(200))
+            .setMaxConnectionAgeGrace(Duration.ofSeconds(2)));
+
+    // act
+    Reply reply = await(this.sleep(Duration.ofMillis(600)));
+
+    // assert
+    assertThat(reply.getStatus()).isEqualTo("0");
+    assertThat(await(this.goAway.future()).getErrorCode()).isZero();
+    assertThat(this.events).containsExactly("goaway", "reply");
+    assertThat(this.shutdownReasons).containsExactly("max_age");
+  }
+
+  @Test
+  void testIdleConnectionIsClosedOnlyWithoutActiveCalls() {
+    // arrange
+    this.deploy(new GrpcVerticleOptions().setMaxConnectionIdle(Duration.ofMillis(300)));
+
+    // act
+    Reply reply = await(this.sleep(Duration.ofMillis(900)));
+    GoAway frame = await(this.goAway.future());
+
+    // assert
+    assertThat(reply.getStatus()).isEqualTo("0");
+    assertThat(frame.getErrorCode()).isZero();
+    assertThat(this.events).containsExactly("reply", "goaway");
+    assertThat(this.shutdownReasons).containsExactly("max_idle");
+  }
+
+  @Test
+  void testTooManyPingsAreAnsweredWithEnhanceYourCalm() {
+    // arrange
+    this.deploy(new GrpcVerticleOptions().setPermitKeepAliveTime(Duration.ofHours(1)));
+    await(this.sleep(Duration.ZERO));
+    HttpConnection connection = await(this.connection.future());
+
+    // act
+    for (int i = 0; i <= ConnectionManager.MAX_PING_STRIKES; i++) {
+      connection.ping(Buffer.buffer().appendLong(i));
+    }
+    GoAway frame = await(this.goAway.future());
+
+    // assert
+    assertThat(frame.getErrorCode()).isEqualTo(ConnectionManager.ENHANCE_YOUR_CALM);
+    assertThat(frame.getDebugData().toString()).isEqualTo("too_many_pings");
+    assertThat(this.shutdownReasons).containsExactly("too_many_pings");
+  }
+
+  @SneakyThrows
+  static <T> T await(Future<T> future) {
+    return future.toCompletionStage().toCompletableFuture().get(10, TimeUnit.SECONDS);
+  }
+
+  /** Replies to its calls after the number of milliseconds of the request. */
+  static class Sleep implements BindableService {
+
+    @Override
+    public ServerServiceDefinition bindService() {
+      return ServerServiceDefinition.builder("test.Managed")
+          .addMethod(
+              SLEEP,
+              ServerCalls.asyncUnaryCall(
+                  (request, response) ->
+                      Vertx.currentContext()
+                          .owner()
+                          .setTimer(
+                              Math.max(Long.parseLong(request), 1),
+                              id -> {
+                                response.onNext(request);
+                                response.onCompleted();
+                              })))
+          .build();
+    }
+  }
+}
@@ -0,0 +1,156 @@
+package com.dream11.grpc.connection;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import com.dream11.grpc.GrpcVerticleOptions;
+import com.dream11.grpc.metrics.GrpcServerMetrics;
+import com.dream11.grpc.util.RawGrpcClient;
+import com.dream11.grpc.util.RawGrpcClient.Reply;
+import com.dream11.grpc.verticle.ServiceVerticle;
+import io.grpc.BindableService;
+import io.grpc.MethodDescriptor;
+import io.grpc.ServerServiceDefinition;
+import io.grpc.stub.ServerCalls;
+import io.grpc.stub.StreamObserver;
+import io.vertx.core.Future;
+import io.vertx.core.Vertx;
+import io.vertx.core.http.HttpClientOptions;
+import io.vertx.core.http.HttpClientRequest;
+import io.vertx.core.http.HttpClientResponse;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import lombok.SneakyThrows;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+class FlowControlTunerIT {
+
+  static final MethodDescriptor<String, String> SINK =
+      RawGrpcClient.method("test.Flow/Sink", MethodDescriptor.MethodType.CLIENT_STREAMING);
+  static final int MAX_WINDOW = 256 * 1024;
+  static final String MESSAGE = "x".repeat(16 * 1024);
+  static final int BATCH = 16;
+
+  final List<Integer> recordedWindows = new CopyOnWriteArrayList<>();
+  final List<Integer> remoteWindows = new CopyOnWriteArrayList<>();
+  final AtomicInteger pings = new AtomicInteger();
+  final GrpcServerMetrics metrics =
+      new GrpcServerMetrics() {
+        @Override
+        public void recordFlowControlWindow(String listener, int windowSize) {
+          FlowControlTunerIT.this.recordedWindows.add(windowSize);
+        }
+      };
+  Vertx vertx;
+  RawGrpcClient client;
+
+  @BeforeEach
+  void setup() {
+    this.vertx = Vertx.vertx();
+    int port = ServiceVerticle.freePort();
+    GrpcVerticleOptions options =
+        new GrpcVerticleOptions()
+            .setFlowControlAutoTuning(true)
+            .setMaxFlowControlWindow(MAX_WINDOW);
+    await(this.vertx.deployVerticle(new ServiceVerticle(port, options, this.metrics, new Sink())));
+    this.client =
+        new RawGrpcClient(
+            this.vertx,
+            port,
+            new HttpClientOptions(),
+            connection ->
+                connection
+                    .remoteSettingsHandler(
+                        settings -> this.remoteWindows.add(settings.getInitialWindowSize()))
+                    .pingHandler(ping -> this.pings.incrementAndGet()));
+  }
+
+  @AfterEach
+  void cleanUp() {
+    await(this.vertx.close());
+  }
+
+  @Test
+  void testWindowGrowsUpToTheMaximum() {
+    // arrange
+    HttpClientRequest request = await(this.client.request(SINK.getFullMethodName()));
+    int sent = 0;
+
+    // act
+    long deadline = System.nanoTime() + TimeUnit.SECONDS.toNanos(10);
+    while (!this.remoteWindows.contains(MAX_WINDOW) && System.nanoTime() < deadline) {
+      sent += this.write(request);
+    }
+    int pingsAtMaximum = this.pings.get();
+    for (int i = 0; i < 4; i++) {
+      sent += this.write(request);
+    }
+    Reply reply = await(request.end().compose(v -> request.response()).compose(this::reply));
+
+    // assert
+    assertThat(this.remoteWindows).contains(MAX_WINDOW);
+    assertThat(this.recordedWindows)
+        .isNotEmpty()
+        .isSorted()
+        .doesNotHaveDuplicates()
+        .allSatisfy(window -> assertThat(window).isLessThanOrEqualTo(MAX_WINDOW))
+        .endsWith(MAX_WINDOW);
+    assertThat(this.pings.get()).isEqualTo(pingsAtMaximum);
+    assertThat(reply.getStatus()).isEqualTo("0");
+    assertThat(reply.getMessages()).containsExactly(String.valueOf(sent));
+  }
+
+  /** Writes a batch of messages and waits for them to be sent. */
+  private int write(HttpClientRequest request) {
+    List<Future<?>> writes = new ArrayList<>();
+    for (int i = 0; i < BATCH; i++) {
+      writes.add(request.write(RawGrpcClient.frame(MESSAGE)));
+    }
+    await(Future.all(writes));
+    return BATCH;
+  }
+
+  private Future<Reply> reply(HttpClientResponse response) {
+    return response.body().map(body -> Reply.of(response, body));
+  }
+
+  @SneakyThrows
+  static <T> T await(Future<T> future) {
+    return future.toCompletionStage().toCompletableFuture().get(10, TimeUnit.SECONDS);
+  }
+
+  /** Counts the messages of its calls. */
+  static class Sink implements BindableService {
+
+    @Override
+    public ServerServiceDefinition bindService() {
+      return ServerServiceDefinition.builder("test.Flow")
+          .addMethod(
+              SINK,
+              ServerCalls.asyncClientStreamingCall(
+                  response ->
+                      new StreamObserver<String>() {
+                        int count;
+
+                        @Override
+                        public void onNext(String value) {
+                          this.count++;
+                        }
+
+                        @Override
+                        public void onError(Throwable t) {}
+
+                        @Override
+                        public void onCompleted() {
+                          response.onNext(String.valueOf(this.count));
+                          response.onCompleted();
+                        }
+                      }))
+          .build();
+    }
+  }
+}
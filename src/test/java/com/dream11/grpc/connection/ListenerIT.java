@@ -0,0 +1,146 @@
+package com.dream11.grpc.connection;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+import com.dream11.grpc.GrpcListenerOptions;
+import com.dream11.grpc.GrpcVerticleOptions;
+import com.dream11.grpc.metrics.GrpcServerMetrics;
+import com.dream11.grpc.util.RawGrpcClient;
+import com.dream11.grpc.util.RawGrpcClient.Reply;
+import com.dream11.grpc.verticle.ServiceVerticle;
+import io.grpc.BindableService;
+import io.grpc.MethodDescriptor;
+import io.grpc.ServerServiceDefinition;
+import io.grpc.stub.ServerCalls;
+import io.vertx.core.Future;
+import io.vertx.core.Vertx;
+import io.vertx.core.http.HttpServerOptions;
+import java.nio.file.Path;
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.TimeUnit;
+import lombok.SneakyThrows;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+class ListenerIT {
+
+  static final MethodDescriptor<String, String> ECHO =
+      RawGrpcClient.method("test.Listener/Echo", MethodDescriptor.MethodType.UNARY);
+
+  final List<String> rejectedConnections = new CopyOnWriteArrayList<>();
+  final GrpcServerMetrics metrics =
+      new GrpcServerMetrics() {
+        @Override
+        public void recordRejectedConnection(String listener) {
+          ListenerIT.this.rejectedConnections.add(listener);
+        }
+      };
+  Vertx vertx;
+
+  @BeforeEach
+  void setup() {
+    this.vertx = Vertx.vertx();
+  }
+
+  @AfterEach
+  void cleanUp() {
+    await(this.vertx.close());
+  }
+
+  @Test
+  void testServicesAreServedOnEveryListener() {
+    // arrange
+    int port = ServiceVerticle.freePort();
+    int internalPort = ServiceVerticle.freePort();
+    GrpcVerticleOptions options =
+        new GrpcVerticleOptions()
+            .addListener(
+                new GrpcListenerOptions("internal", new HttpServerOptions().setPort(internalPort)));
+    await(this.vertx.deployVerticle(new ServiceVerticle(port, options, this.metrics, new Echo())));
+
+    // act
+    Reply reply = await(new RawGrpcClient(this.vertx, port).call(ECHO.getFullMethodName(), "a"));
+    Reply internalReply =
+        await(new RawGrpcClient(this.vertx, internalPort).call(ECHO.getFullMethodName(), "b"));
+
+    // assert
+    assertThat(reply.getStatus()).isEqualTo("0");
+    assertThat(reply.getMessages()).containsExactly("a");
+    assertThat(internalReply.getStatus()).isEqualTo("0");
+    assertThat(internalReply.getMessages()).containsExactly("b");
+  }
+
+  @Test
+  void testConnectionsBeyondMaxConnectionsAreRejected() {
+    // arrange
+    int port = ServiceVerticle.freePort();
+    int limitedPort = ServiceVerticle.freePort();
+    GrpcVerticleOptions options =
+        new GrpcVerticleOptions()
+            .addListener(
+                new GrpcListenerOptions("limited", new HttpServerOptions().setPort(limitedPort))
+                    .setMaxConnections(1));
+    await(this.vertx.deployVerticle(new ServiceVerticle(port, options, this.metrics, new Echo())));
+    RawGrpcClient first = new RawGrpcClient(this.vertx, limitedPort);
+    RawGrpcClient second = new RawGrpcClient(this.vertx, limitedPort);
+    await(first.call(ECHO.getFullMethodName(), "first"));
+
+    // act
+    Future<Reply> rejected = second.call(ECHO.getFullMethodName(), "second");
+
+    // assert
+    assertThatThrownBy(() -> await(rejected)).isInstanceOf(ExecutionException.class);
+    assertThat(this.rejectedConnections).containsExactly("limited");
+    Reply reply = await(first.call(ECHO.getFullMethodName(), "again"));
+    assertThat(reply.getStatus()).isEqualTo("0");
+    assertThat(reply.getMessages()).containsExactly("again");
+  }
+
+  @Test
+  void testDomainSocketRequiresNativeTransport(@TempDir Path directory) {
+    // arrange
+    GrpcVerticleOptions options =
+        new GrpcVerticleOptions().setDomainSocketPath(directory.resolve("grpc.sock").toString());
+    ServiceVerticle verticle =
+        new ServiceVerticle(
+            ServiceVerticle.freePort(), options, GrpcServerMetrics.NOOP, new Echo());
+
+    // act
+    Future<String> deployment = this.vertx.deployVerticle(verticle);
+
+    // assert
+    assertThatThrownBy(() -> await(deployment))
+        .isInstanceOf(ExecutionException.class)
+        .hasRootCauseInstanceOf(IllegalStateException.class)
+        .hasRootCauseMessage(
+            "Domain socket listener domain-socket requires the native transport, enable it with"
+                + " VertxOptions#setPreferNativeTransport");
+  }
+
+  @SneakyThrows
+  static <T> T await(Future<T> future) {
+    return future.toCompletionStage().toCompletableFuture().get(10, TimeUnit.SECONDS);
+  }
+
+  /** Replies with the request. */
+  static class Echo implements BindableService {
+
+    @Override
+    public ServerServiceDefinition bindService() {
+      return ServerServiceDefinition.builder("test.Listener")
+          .addMethod(
+              ECHO,
+              ServerCalls.asyncUnaryCall(
+                  (request, response) -> {
+                    response.onNext(request);
+                    response.onCompleted();
+                  }))
+          .build();
+    }
+  }
+}
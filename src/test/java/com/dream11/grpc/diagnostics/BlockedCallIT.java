@@ -0,0 +1,111 @@
+package com.dream11.grpc.diagnostics;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import com.dream11.grpc.GrpcVerticleOptions;
+import com.dream11.grpc.metrics.GrpcServerMetrics;
+import com.dream11.grpc.util.RawGrpcClient;
+import com.dream11.grpc.util.RawGrpcClient.Reply;
+import com.dream11.grpc.verticle.ServiceVerticle;
+import io.grpc.BindableService;
+import io.grpc.MethodDescriptor;
+import io.grpc.ServerServiceDefinition;
+import io.grpc.stub.ServerCalls;
+import io.vertx.core.Future;
+import io.vertx.core.Vertx;
+import java.time.Duration;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import lombok.SneakyThrows;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+class BlockedCallIT {
+
+  static final MethodDescriptor<String, String> SPIN =
+      RawGrpcClient.method("test.Blocking/Spin", MethodDescriptor.MethodType.UNARY);
+  static final Duration SPIN_TIME = Duration.ofMillis(300);
+  static final Duration THRESHOLD = Duration.ofMillis(100);
+
+  final List<String> blockedCalls = new CopyOnWriteArrayList<>();
+  final Map<String, Long> onLoopTimes = new ConcurrentHashMap<>();
+  final CountDownLatch callOver = new CountDownLatch(1);
+  final GrpcServerMetrics metrics =
+      new GrpcServerMetrics() {
+        @Override
+        public void recordBlockedCall(String fullMethodName, long nanos) {
+          BlockedCallIT.this.blockedCalls.add(fullMethodName);
+        }
+
+        @Override
+        public void recordOnLoopTime(String fullMethodName, long nanos) {
+          BlockedCallIT.this.onLoopTimes.put(fullMethodName, nanos);
+          BlockedCallIT.this.callOver.countDown();
+        }
+      };
+  Vertx vertx;
+  RawGrpcClient client;
+
+  @BeforeEach
+  void setup() {
+    this.vertx = Vertx.vertx();
+    int port = ServiceVerticle.freePort();
+    GrpcVerticleOptions options =
+        new GrpcVerticleOptions()
+            .setOnLoopTimeTracking(true)
+            .setBlockedCallThreshold(THRESHOLD)
+            .setBlockedCallCheckInterval(Duration.ofMillis(20));
+    await(this.vertx.deployVerticle(new ServiceVerticle(port, options, this.metrics, new Spin())));
+    this.client = new RawGrpcClient(this.vertx, port);
+  }
+
+  @AfterEach
+  void cleanUp() {
+    await(this.vertx.close());
+  }
+
+  @Test
+  @SneakyThrows
+  void testBusySpinningCallIsReportedOnce() {
+    // act
+    Reply reply = await(this.client.call(SPIN.getFullMethodName(), "spin"));
+
+    // assert
+    assertThat(reply.getStatus()).isEqualTo("0");
+    assertThat(this.callOver.await(5, TimeUnit.SECONDS)).isTrue();
+    assertThat(this.blockedCalls).containsExactly(SPIN.getFullMethodName());
+    assertThat(this.onLoopTimes.get(SPIN.getFullMethodName()))
+        .isGreaterThanOrEqualTo(SPIN_TIME.toNanos());
+  }
+
+  @SneakyThrows
+  static <T> T await(Future<T> future) {
+    return future.toCompletionStage().toCompletableFuture().get(10, TimeUnit.SECONDS);
+  }
+
+  /** Holds the event loop before replying. */
+  static class Spin implements BindableService {
+
+    @Override
+    public ServerServiceDefinition bindService() {
+      return ServerServiceDefinition.builder("test.Blocking")
+          .addMethod(
+              SPIN,
+              ServerCalls.asyncUnaryCall(
+                  (request, response) -> {
+                    long end = System.nanoTime() + SPIN_TIME.toNanos();
+                    while (System.nanoTime() < end) {
+                      Thread.onSpinWait();
+                    }
+                    response.onNext(request);
+                    response.onCompleted();
+                  }))
+          .build();
+    }
+  }
+}
@@ -0,0 +1,86 @@
+package com.dream11.grpc.diagnostics;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import com.dream11.grpc.annotation.CallPriority;
+import com.dream11.grpc.diagnostics.MemoryPressureMonitor.Signal;
+import com.dream11.grpc.metrics.GrpcServerMetrics;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import org.junit.jupiter.api.Test;
+
+class MemoryPressureMonitorTest {
+
+  final List<String> recorded = new ArrayList<>();
+  final MemoryPressureMonitor monitor =
+      new MemoryPressureMonitor(
+          0.7,
+          0.85,
+          1000,
+          Duration.ofMillis(100),
+          new GrpcServerMetrics() {
+            @Override
+            public void recordAdmissionLevel(CallPriority lowestAdmitted, Signal signal) {
+              MemoryPressureMonitorTest.this.recorded.add(lowestAdmitted + " " + signal);
+            }
+          });
+
+  @Test
+  void testNoPressure() {
+    // act
+    this.monitor.update(0.7, 0.5, 1000);
+
+    // assert
+    for (CallPriority priority : CallPriority.values()) {
+      assertThat(this.monitor.getShedSignal(priority)).isNull();
+    }
+    assertThat(this.recorded).isEmpty();
+  }
+
+  @Test
+  void testLowestPrioritiesAreShedFirst() {
+    // act
+    this.monitor.update(0.75, 0, 0);
+    CallPriority low = this.monitor.getLowestAdmitted();
+    Signal lowSignal = this.monitor.getShedSignal(CallPriority.LOW);
+    this.monitor.update(0.85, 0, 0);
+    CallPriority medium = this.monitor.getLowestAdmitted();
+    this.monitor.update(0.99, 0, 0);
+    CallPriority high = this.monitor.getLowestAdmitted();
+
+    // assert
+    assertThat(low).isEqualTo(CallPriority.NORMAL);
+    assertThat(lowSignal).isEqualTo(Signal.HEAP);
+    assertThat(medium).isEqualTo(CallPriority.HIGH);
+    assertThat(high).isEqualTo(CallPriority.CRITICAL);
+    assertThat(this.monitor.getShedSignal(CallPriority.HIGH)).isEqualTo(Signal.HEAP);
+    assertThat(this.monitor.getShedSignal(CallPriority.CRITICAL)).isNull();
+  }
+
+  @Test
+  void testMostSevereSignalWins() {
+    // act
+    this.monitor.update(0.75, 0.9, 1900);
+    Signal outbound = this.monitor.getShedSignal(CallPriority.HIGH);
+    this.monitor.update(0.75, 0.99, 1100);
+    Signal direct = this.monitor.getShedSignal(CallPriority.HIGH);
+
+    // assert
+    assertThat(outbound).isEqualTo(Signal.OUTBOUND_BYTES);
+    assertThat(direct).isEqualTo(Signal.DIRECT_MEMORY);
+  }
+
+  @Test
+  void testLevelChangesAreRecorded() {
+    // act
+    this.monitor.update(0.75, 0, 0);
+    this.monitor.update(0.76, 0, 0);
+    this.monitor.update(0, 0, 2000);
+    this.monitor.update(0, 0, 0);
+
+    // assert
+    assertThat(this.recorded).containsExactly("NORMAL HEAP", "CRITICAL OUTBOUND_BYTES", "LOW null");
+    assertThat(this.monitor.getShedSignal(CallPriority.LOW)).isNull();
+  }
+}
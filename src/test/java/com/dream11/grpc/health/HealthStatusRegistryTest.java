@@ -0,0 +1,156 @@
+package com.dream11.grpc.health;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import io.grpc.health.v1.HealthCheckResponse;
+import io.grpc.health.v1.HealthCheckResponse.ServingStatus;
+import io.vertx.core.Vertx;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.atomic.AtomicBoolean;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+class HealthStatusRegistryTest {
+
+  Vertx vertx;
+  HealthStatusRegistry registry;
+
+  @BeforeEach
+  void setup() {
+    this.vertx = Vertx.vertx();
+    this.registry = new HealthStatusRegistry(this.vertx.getOrCreateContext());
+  }
+
+  @AfterEach
+  void tearDown() {
+    this.vertx.close();
+  }
+
+  @Test
+  void testCachedResponse() {
+    // arrange
+    this.registry.setStatus("svc", ServingStatus.SERVING);
+
+    // act
+    HealthCheckResponse first = this.registry.getResponse("svc");
+    HealthCheckResponse second = this.registry.getResponse("svc");
+
+    // assert
+    assertThat(first.getStatus()).isEqualTo(ServingStatus.SERVING);
+    assertThat(first).isSameAs(second);
+    assertThat(this.registry.getResponse("unknown")).isNull();
+    assertThat(this.registry.getStatus("unknown")).isEqualTo(ServingStatus.SERVICE_UNKNOWN);
+  }
+
+  @Test
+  void testTerminalState() {
+    // arrange
+    this.registry.setStatus(HealthStatusRegistry.OVERALL, ServingStatus.SERVING);
+
+    // act
+    this.registry.enterTerminalState();
+    this.registry.setStatus(HealthStatusRegistry.OVERALL, ServingStatus.SERVING);
+
+    // assert
+    assertThat(this.registry.getStatus(HealthStatusRegistry.OVERALL))
+        .isEqualTo(ServingStatus.NOT_SERVING);
+  }
+
+  @Test
+  void testIndicators() {
+    // arrange
+    AtomicBoolean healthy = new AtomicBoolean(false);
+    this.registry.setStatus("svc", ServingStatus.SERVING);
+    this.registry.addIndicator(healthy::get);
+
+    // act
+    this.registry.refreshIndicators();
+    ServingStatus overloaded = this.registry.getStatus("svc");
+    healthy.set(true);
+    this.registry.refreshIndicators();
+
+    // assert
+    assertThat(overloaded).isEqualTo(ServingStatus.NOT_SERVING);
+    assertThat(this.registry.getStatus("svc")).isEqualTo(ServingStatus.SERVING);
+  }
+
+  @Test
+  void testWatchers() throws InterruptedException {
+    // arrange
+    List<ServingStatus> received = new ArrayList<>();
+    AtomicBoolean terminated = new AtomicBoolean();
+    CountDownLatch done = new CountDownLatch(1);
+
+    // act
+    this.vertx.runOnContext(
+        v -> {
+          this.registry.addWatcher(
+              "svc",
+              new HealthStatusRegistry.Watcher() {
+                @Override
+                public void onStatus(HealthCheckResponse response) {
+                  received.add(response.getStatus());
+                }
+
+                @Override
+                public void onTerminated() {
+                  terminated.set(true);
+                }
+              });
+          this.registry.setStatus("svc", ServingStatus.SERVING);
+          this.registry.setStatus("svc", ServingStatus.SERVING);
+          this.registry.setStatus("svc", ServingStatus.NOT_SERVING);
+          this.registry.setStatus("svc", ServingStatus.SERVING);
+          this.registry.enterTerminalState();
+          done.countDown();
+        });
+    done.await();
+
+    // assert
+    assertThat(received)
+        .containsExactly(
+            ServingStatus.SERVICE_UNKNOWN,
+            ServingStatus.SERVING,
+            ServingStatus.NOT_SERVING,
+            ServingStatus.SERVING,
+            ServingStatus.NOT_SERVING);
+    assertThat(terminated).isTrue();
+  }
+
+  @Test
+  void testWatcherAfterTerminalState() throws InterruptedException {
+    // arrange
+    List<ServingStatus> received = new ArrayList<>();
+    AtomicBoolean terminated = new AtomicBoolean();
+    CountDownLatch done = new CountDownLatch(1);
+    this.registry.setStatus("svc", ServingStatus.SERVING);
+    this.registry.enterTerminalState();
+
+    // act
+    this.vertx.runOnContext(
+        v -> {
+          this.registry.addWatcher(
+              "svc",
+              new HealthStatusRegistry.Watcher() {
+                @Override
+                public void onStatus(HealthCheckResponse response) {
+                  received.add(response.getStatus());
+                }
+
+                @Override
+                public void onTerminated() {
+                  terminated.set(true);
+                }
+              });
+          done.countDown();
+        });
+    done.await();
+
+    // assert
+    assertThat(received).containsExactly(ServingStatus.NOT_SERVING);
+    assertThat(terminated).isTrue();
+  }
+}
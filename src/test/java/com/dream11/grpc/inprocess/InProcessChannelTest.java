@@ -0,0 +1,311 @@
+package com.dream11.grpc.inprocess;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+import com.google.common.util.concurrent.ListenableFuture;
+import io.grpc.CallOptions;
+import io.grpc.ClientCall;
+import io.grpc.Metadata;
+import io.grpc.MethodDescriptor;
+import io.grpc.ServerServiceDefinition;
+import io.grpc.Status;
+import io.grpc.StatusRuntimeException;
+import io.grpc.stub.ClientCalls;
+import io.grpc.stub.ServerCallStreamObserver;
+import io.grpc.stub.ServerCalls;
+import io.grpc.stub.StreamObserver;
+import io.vertx.core.Context;
+import io.vertx.core.Vertx;
+import java.io.ByteArrayInputStream;
+import java.io.InputStream;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Iterator;
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicReference;
+import lombok.SneakyThrows;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+class InProcessChannelTest {
+
+  static final MethodDescriptor.Marshaller<Message> MARSHALLER =
+      new MethodDescriptor.Marshaller<>() {
+        @Override
+        public InputStream stream(Message value) {
+          return new ByteArrayInputStream(value.text.getBytes(StandardCharsets.UTF_8));
+        }
+
+        @Override
+        @SneakyThrows
+        public Message parse(InputStream stream) {
+          return new Message(new String(stream.readAllBytes(), StandardCharsets.UTF_8));
+        }
+      };
+
+  static final MethodDescriptor<Message, Message> UNARY =
+      MethodDescriptor.newBuilder(MARSHALLER, MARSHALLER)
+          .setType(MethodDescriptor.MethodType.UNARY)
+          .setFullMethodName("test.Echo/Unary")
+          .build();
+
+  static final MethodDescriptor<Message, Message> STREAMING =
+      MethodDescriptor.newBuilder(MARSHALLER, MARSHALLER)
+          .setType(MethodDescriptor.MethodType.SERVER_STREAMING)
+          .setFullMethodName("test.Echo/Streaming")
+          .build();
+
+  static final MethodDescriptor<Message, Message> SILENT =
+      MethodDescriptor.newBuilder(MARSHALLER, MARSHALLER)
+          .setType(MethodDescriptor.MethodType.UNARY)
+          .setFullMethodName("test.Echo/Silent")
+          .build();
+
+  static final MethodDescriptor<Message, Message> BURST =
+      MethodDescriptor.newBuilder(MARSHALLER, MARSHALLER)
+          .setType(MethodDescriptor.MethodType.SERVER_STREAMING)
+          .setFullMethodName("test.Echo/Burst")
+          .build();
+
+  final CountDownLatch burstSent = new CountDownLatch(1);
+  final AtomicBoolean readyAfterBurst = new AtomicBoolean(true);
+  final CountDownLatch readyAgain = new CountDownLatch(1);
+  Vertx vertx;
+  AtomicReference<Message> received;
+
+  @BeforeEach
+  void setup() {
+    this.vertx = Vertx.vertx();
+    this.received = new AtomicReference<>();
+  }
+
+  @AfterEach
+  void tearDown() {
+    this.vertx.close();
+  }
+
+  @Test
+  void testUnaryCall() {
+    // arrange
+    InProcessChannel channel = this.createChannel(true);
+
+    // act
+    Message response =
+        ClientCalls.blockingUnaryCall(channel, UNARY, CallOptions.DEFAULT, new Message("x"));
+
+    // assert
+    assertThat(response.text).isEqualTo("Hello x");
+  }
+
+  @Test
+  void testServerStreamingCall() {
+    // arrange
+    InProcessChannel channel = this.createChannel(true);
+
+    // act
+    Iterator<Message> responses =
+        ClientCalls.blockingServerStreamingCall(
+            channel, STREAMING, CallOptions.DEFAULT, new Message("3"));
+    List<String> texts = new ArrayList<>();
+    responses.forEachRemaining(message -> texts.add(message.text));
+
+    // assert
+    assertThat(texts).containsExactly("0", "1", "2");
+  }
+
+  @Test
+  @SneakyThrows
+  void testServerIsNotReadyUntilResponsesAreRequested() {
+    // arrange
+    InProcessChannel channel = this.createChannel(true);
+    ClientCall<Message, Message> call = channel.newCall(BURST, CallOptions.DEFAULT);
+    List<String> texts = new CopyOnWriteArrayList<>();
+    CountDownLatch closed = new CountDownLatch(1);
+    call.start(
+        new ClientCall.Listener<>() {
+          @Override
+          public void onMessage(Message message) {
+            texts.add(message.text);
+          }
+
+          @Override
+          public void onClose(Status status, Metadata trailers) {
+            closed.countDown();
+          }
+        },
+        new Metadata());
+    call.sendMessage(new Message(String.valueOf(InProcessCall.READY_THRESHOLD)));
+    call.halfClose();
+    assertThat(this.burstSent.await(5, TimeUnit.SECONDS)).isTrue();
+
+    // act
+    call.request(InProcessCall.READY_THRESHOLD);
+
+    // assert
+    assertThat(this.readyAfterBurst.get()).isFalse();
+    assertThat(this.readyAgain.await(5, TimeUnit.SECONDS)).isTrue();
+    assertThat(closed.await(5, TimeUnit.SECONDS)).isTrue();
+    assertThat(texts).hasSize(InProcessCall.READY_THRESHOLD);
+  }
+
+  @Test
+  void testSerializeMessages() {
+    // arrange
+    InProcessChannel serializing = this.createChannel(true);
+    InProcessChannel passing = this.createChannel(false);
+    Message request = new Message("x");
+
+    // act
+    ClientCalls.blockingUnaryCall(serializing, UNARY, CallOptions.DEFAULT, request);
+    Message serialized = this.received.get();
+    ClientCalls.blockingUnaryCall(passing, UNARY, CallOptions.DEFAULT, request);
+    Message passed = this.received.get();
+
+    // assert
+    assertThat(serialized).isNotSameAs(request);
+    assertThat(serialized.text).isEqualTo("x");
+    assertThat(passed).isSameAs(request);
+  }
+
+  @Test
+  void testUnknownMethod() {
+    // arrange
+    InProcessChannel channel = new InProcessChannel(this.vertx.getOrCreateContext(), true);
+
+    // act & assert
+    assertThatThrownBy(
+            () ->
+                ClientCalls.blockingUnaryCall(
+                    channel, UNARY, CallOptions.DEFAULT, new Message("x")))
+        .isInstanceOf(StatusRuntimeException.class)
+        .extracting(err -> ((StatusRuntimeException) err).getStatus().getCode())
+        .isEqualTo(Status.Code.UNIMPLEMENTED);
+  }
+
+  @Test
+  void testDeadline() {
+    // arrange
+    InProcessChannel channel = this.createChannel(true);
+    CallOptions options = CallOptions.DEFAULT.withDeadlineAfter(100, TimeUnit.MILLISECONDS);
+
+    // act & assert
+    assertThatThrownBy(
+            () -> ClientCalls.blockingUnaryCall(channel, SILENT, options, new Message("x")))
+        .isInstanceOf(StatusRuntimeException.class)
+        .extracting(err -> ((StatusRuntimeException) err).getStatus().getCode())
+        .isEqualTo(Status.Code.DEADLINE_EXCEEDED);
+  }
+
+  @Test
+  @SneakyThrows
+  void testReplaceAndRemoveService() {
+    // arrange
+    Context context = this.vertx.getOrCreateContext();
+    InProcessChannel channel = new InProcessChannel(context, true);
+    AtomicReference<StreamObserver<Message>> pending = new AtomicReference<>();
+    channel.addService(
+        ServerServiceDefinition.builder("test.Echo")
+            .addMethod(
+                UNARY, ServerCalls.asyncUnaryCall((request, observer) -> pending.set(observer)))
+            .build());
+    ListenableFuture<Message> inFlight =
+        ClientCalls.futureUnaryCall(channel.newCall(UNARY, CallOptions.DEFAULT), new Message("x"));
+    while (pending.get() == null) {
+      Thread.sleep(1);
+    }
+
+    // act
+    channel.addService(
+        ServerServiceDefinition.builder("test.Echo")
+            .addMethod(
+                UNARY,
+                ServerCalls.asyncUnaryCall(
+                    (request, observer) -> {
+                      observer.onNext(new Message("Bye " + request.text));
+                      observer.onCompleted();
+                    }))
+            .build());
+    Message replaced =
+        ClientCalls.blockingUnaryCall(channel, UNARY, CallOptions.DEFAULT, new Message("y"));
+    context.runOnContext(
+        v -> {
+          pending.get().onNext(new Message("Hello x"));
+          pending.get().onCompleted();
+        });
+    Message old = inFlight.get(5, TimeUnit.SECONDS);
+    channel.removeService("test.Echo");
+
+    // assert
+    assertThat(replaced.text).isEqualTo("Bye y");
+    assertThat(old.text).isEqualTo("Hello x");
+    assertThatThrownBy(
+            () ->
+                ClientCalls.blockingUnaryCall(
+                    channel, UNARY, CallOptions.DEFAULT, new Message("z")))
+        .isInstanceOf(StatusRuntimeException.class)
+        .extracting(err -> ((StatusRuntimeException) err).getStatus().getCode())
+        .isEqualTo(Status.Code.UNIMPLEMENTED);
+  }
+
+  private InProcessChannel createChannel(boolean serializeMessages) {
+    InProcessChannel channel =
+        new InProcessChannel(this.vertx.getOrCreateContext(), serializeMessages);
+    channel.addService(
+        ServerServiceDefinition.builder("test.Echo")
+            .addMethod(
+                UNARY,
+                ServerCalls.asyncUnaryCall(
+                    (request, observer) -> {
+                      this.received.set(request);
+                      observer.onNext(new Message("Hello " + request.text));
+                      observer.onCompleted();
+                    }))
+            .addMethod(
+                STREAMING,
+                ServerCalls.asyncServerStreamingCall(
+                    (request, observer) -> {
+                      for (int i = 0; i < Integer.parseInt(request.text); i++) {
+                        observer.onNext(new Message(String.valueOf(i)));
+                      }
+                      observer.onCompleted();
+                    }))
+            .addMethod(SILENT, ServerCalls.asyncUnaryCall((request, observer) -> {}))
+            .addMethod(
+                BURST,
+                ServerCalls.asyncServerStreamingCall(
+                    (request, observer) -> {
+                      // Sends the responses without waiting for readiness, then completes once the
+                      // client has requested them
+                      ServerCallStreamObserver<Message> server =
+                          (ServerCallStreamObserver<Message>) observer;
+                      server.setOnReadyHandler(
+                          () -> {
+                            if (this.burstSent.getCount() == 0 && server.isReady()) {
+                              this.readyAgain.countDown();
+                              server.onCompleted();
+                            }
+                          });
+                      for (int i = 0; i < Integer.parseInt(request.text); i++) {
+                        server.onNext(new Message(String.valueOf(i)));
+                      }
+                      this.readyAfterBurst.set(server.isReady());
+                      this.burstSent.countDown();
+                    }))
+            .build());
+    return channel;
+  }
+
+  static class Message {
+    final String text;
+
+    Message(String text) {
+      this.text = text;
+    }
+  }
+}
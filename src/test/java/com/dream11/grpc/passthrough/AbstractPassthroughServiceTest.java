@@ -0,0 +1,96 @@
+package com.dream11.grpc.passthrough;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+import com.dream11.grpc.inprocess.InProcessChannel;
+import io.grpc.MethodDescriptor;
+import io.grpc.ServerServiceDefinition;
+import io.grpc.Status;
+import io.grpc.StatusRuntimeException;
+import io.grpc.health.v1.HealthCheckRequest;
+import io.grpc.health.v1.HealthCheckResponse;
+import io.grpc.health.v1.HealthCheckResponse.ServingStatus;
+import io.grpc.health.v1.HealthGrpc;
+import io.reactivex.Flowable;
+import io.vertx.core.Vertx;
+import io.vertx.core.buffer.Buffer;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+class AbstractPassthroughServiceTest {
+
+  Vertx vertx;
+  HealthGrpc.HealthBlockingStub stub;
+
+  @BeforeEach
+  void setup() {
+    this.vertx = Vertx.vertx();
+    InProcessChannel channel = new InProcessChannel(this.vertx.getOrCreateContext(), true);
+    channel.addService(new HealthProxy().bindService());
+    this.stub = HealthGrpc.newBlockingStub(channel);
+  }
+
+  @AfterEach
+  void tearDown() {
+    this.vertx.close();
+  }
+
+  @Test
+  void testForwardRequest() {
+    // act
+    HealthCheckResponse response =
+        this.stub.check(HealthCheckRequest.newBuilder().setService("up").build());
+
+    // assert
+    assertThat(response.getStatus()).isEqualTo(ServingStatus.SERVING);
+  }
+
+  @Test
+  void testForwardError() {
+    // act & assert
+    assertThatThrownBy(
+            () -> this.stub.check(HealthCheckRequest.newBuilder().setService("unknown").build()))
+        .isInstanceOf(StatusRuntimeException.class)
+        .extracting(err -> ((StatusRuntimeException) err).getStatus().getCode())
+        .isEqualTo(Status.Code.NOT_FOUND);
+  }
+
+  @Test
+  void testKeepSchema() {
+    // act
+    ServerServiceDefinition definition = new HealthProxy().bindService();
+
+    // assert
+    assertThat(definition.getServiceDescriptor().getSchemaDescriptor())
+        .isSameAs(HealthGrpc.getServiceDescriptor().getSchemaDescriptor());
+    assertThat(definition.getMethods()).hasSize(2);
+  }
+
+  static class HealthProxy extends AbstractPassthroughService {
+
+    final RoutingKeyParser parser = RoutingKeyParser.of(HealthGrpc.getCheckMethod(), "service");
+
+    HealthProxy() {
+      super(HealthGrpc.getServiceDescriptor());
+    }
+
+    @Override
+    protected Flowable<Buffer> handle(
+        MethodDescriptor<Buffer, Buffer> method, Flowable<Buffer> requests) {
+      return requests.flatMap(
+          request -> {
+            if (!"up".equals(this.parser.parse(request))) {
+              return Flowable.error(Status.NOT_FOUND.asRuntimeException());
+            }
+            return Flowable.just(
+                Buffer.buffer(
+                    HealthCheckResponse.newBuilder()
+                        .setStatus(ServingStatus.SERVING)
+                        .build()
+                        .toByteArray()));
+          });
+    }
+  }
+}
@@ -0,0 +1,110 @@
+package com.dream11.grpc.passthrough;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+import io.grpc.reflection.v1alpha.ExtensionRequest;
+import io.grpc.reflection.v1alpha.ServerReflectionGrpc;
+import io.grpc.reflection.v1alpha.ServerReflectionRequest;
+import io.vertx.core.buffer.Buffer;
+import lombok.SneakyThrows;
+import org.junit.jupiter.api.Test;
+
+class RoutingKeyParserTest {
+
+  static final Buffer MESSAGE =
+      Buffer.buffer(
+          ServerReflectionRequest.newBuilder()
+              .setHost("shard-1")
+              .setFileContainingExtension(
+                  ExtensionRequest.newBuilder()
+                      .setContainingType("test.Type")
+                      .setExtensionNumber(42))
+              .build()
+              .toByteArray());
+
+  @Test
+  void testParseField() {
+    // arrange
+    RoutingKeyParser parser = RoutingKeyParser.of(ServerReflectionRequest.getDescriptor(), "host");
+
+    // act
+    Object key = parser.parse(MESSAGE);
+
+    // assert
+    assertThat(key).isEqualTo("shard-1");
+  }
+
+  @Test
+  void testParseNestedField() {
+    // arrange
+    RoutingKeyParser parser =
+        RoutingKeyParser.of(
+            ServerReflectionGrpc.getServerReflectionInfoMethod(),
+            "file_containing_extension.extension_number");
+
+    // act
+    Object key = parser.parse(MESSAGE);
+
+    // assert
+    assertThat(key).isEqualTo(42);
+  }
+
+  @Test
+  @SneakyThrows
+  void testParseDuplicatedField() {
+    // arrange
+    RoutingKeyParser hostParser =
+        RoutingKeyParser.of(ServerReflectionRequest.getDescriptor(), "host");
+    RoutingKeyParser nestedParser =
+        RoutingKeyParser.of(
+            ServerReflectionRequest.getDescriptor(), "file_containing_extension.extension_number");
+    Buffer message =
+        MESSAGE
+            .copy()
+            .appendBytes(
+                ServerReflectionRequest.newBuilder()
+                    .setHost("shard-2")
+                    .setFileContainingExtension(
+                        ExtensionRequest.newBuilder().setContainingType("test.Other"))
+                    .build()
+                    .toByteArray());
+
+    // act
+    Object host = hostParser.parse(message);
+    Object extensionNumber = nestedParser.parse(message);
+
+    // assert
+    ServerReflectionRequest parsed = ServerReflectionRequest.parseFrom(message.getBytes());
+    assertThat(host).isEqualTo(parsed.getHost()).isEqualTo("shard-2");
+    assertThat(extensionNumber)
+        .isEqualTo(parsed.getFileContainingExtension().getExtensionNumber())
+        .isEqualTo(42);
+  }
+
+  @Test
+  void testParseMissingField() {
+    // arrange
+    RoutingKeyParser parser =
+        RoutingKeyParser.of(ServerReflectionRequest.getDescriptor(), "file_by_filename");
+
+    // act
+    Object key = parser.parse(MESSAGE);
+
+    // assert
+    assertThat(key).isEqualTo("");
+  }
+
+  @Test
+  void testInvalidPath() {
+    // act & assert
+    assertThatThrownBy(
+            () -> RoutingKeyParser.of(ServerReflectionRequest.getDescriptor(), "host.name"))
+        .isInstanceOf(IllegalArgumentException.class);
+    assertThatThrownBy(
+            () ->
+                RoutingKeyParser.of(
+                    ServerReflectionRequest.getDescriptor(), "file_containing_extension"))
+        .isInstanceOf(IllegalArgumentException.class);
+  }
+}
@@ -0,0 +1,201 @@
+package com.dream11.grpc.processor;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+import com.dream11.grpc.annotation.GrpcService;
+import com.dream11.grpc.util.AnnotationUtil;
+import com.google.protobuf.StringValue;
+import io.grpc.BindableService;
+import io.grpc.stub.StreamObserver;
+import java.io.File;
+import java.net.URL;
+import java.net.URLClassLoader;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.Collectors;
+import javax.tools.JavaCompiler;
+import javax.tools.StandardJavaFileManager;
+import javax.tools.ToolProvider;
+import lombok.SneakyThrows;
+import lombok.extern.slf4j.Slf4j;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+@Slf4j
+class GrpcIndexProcessorTest {
+
+  @TempDir Path directory;
+  Path classes;
+
+  @BeforeEach
+  @SneakyThrows
+  void setup() {
+    Path sources = Files.createDirectories(this.directory.resolve("src/sample"));
+    Files.writeString(
+        sources.resolve("EchoService.java"),
+        "package sample;\n"
+            + "@com.dream11.grpc.annotation.GrpcService\n"
+            + "public class EchoService implements io.grpc.BindableService {\n"
+            + "  public void echo(com.google.protobuf.StringValue request,\n"
+            + "      io.grpc.stub.StreamObserver<com.google.protobuf.Empty> response) {}\n"
+            + "  public io.grpc.ServerServiceDefinition bindService() { return null; }\n"
+            + "}\n");
+    Files.writeString(
+        sources.resolve("AuthInterceptor.java"),
+        "package sample;\n"
+            + "@com.dream11.grpc.annotation.GrpcInterceptor\n"
+            + "public class AuthInterceptor {}\n");
+    this.classes = Files.createDirectories(this.directory.resolve("classes"));
+
+    JavaCompiler compiler = ToolProvider.getSystemJavaCompiler();
+    try (StandardJavaFileManager fileManager = compiler.getStandardFileManager(null, null, null)) {
+      JavaCompiler.CompilationTask task =
+          compiler.getTask(
+              null,
+              fileManager,
+              null,
+              List.of(
+                  "-d",
+                  this.classes.toString(),
+                  "-classpath",
+                  classpath(
+                      GrpcService.class,
+                      BindableService.class,
+                      StreamObserver.class,
+                      StringValue.class)),
+              null,
+              fileManager.getJavaFileObjects(
+                  sources.resolve("EchoService.java").toFile(),
+                  sources.resolve("AuthInterceptor.java").toFile()));
+      task.setProcessors(List.of(new GrpcIndexProcessor()));
+      assertThat(task.call()).isTrue();
+    }
+  }
+
+  @Test
+  @SneakyThrows
+  void testIndexAndNativeImageConfigurationAreGenerated() {
+    // act
+    List<String> index = Files.readAllLines(this.classes.resolve(AnnotationUtil.INDEX_RESOURCE));
+    Path configuration = this.classes.resolve("META-INF/native-image/com.dream11.grpc/grpc-index");
+    String reflection = Files.readString(configuration.resolve("reflect-config.json"));
+    String resources = Files.readString(configuration.resolve("resource-config.json"));
+
+    // assert
+    assertThat(index)
+        .containsExactly(
+            "com.dream11.grpc.annotation.GrpcInterceptor sample.AuthInterceptor",
+            "com.dream11.grpc.annotation.GrpcService sample.EchoService");
+    assertThat(reflection)
+        .contains(
+            "\"name\": \"sample.EchoService\"",
+            "\"name\": \"sample.AuthInterceptor\"",
+            "\"name\": \"com.google.protobuf.StringValue\"",
+            "\"name\": \"com.google.protobuf.StringValue$Builder\"",
+            "\"name\": \"com.google.protobuf.Empty\"");
+    assertThat(resources).contains("META-INF/grpc/index");
+  }
+
+  @Test
+  @SneakyThrows
+  void testAuthoritativeIndexIsReadWithoutScanning() {
+    // arrange
+    Files.write(
+        this.classes.resolve(AnnotationUtil.INDEX_RESOURCE),
+        List.of(
+            "com.dream11.grpc.annotation.GrpcInterceptor sample.AuthInterceptor",
+            "com.dream11.grpc.annotation.GrpcService sample.MissingService"));
+
+    // act
+    List<String> indexed = this.discover(true, new ArrayList<>());
+    List<String> scanned = this.discover(false, new ArrayList<>());
+
+    // assert
+    assertThat(indexed).isEmpty();
+    assertThat(scanned).containsExactly("sample.EchoService");
+  }
+
+  @Test
+  void testMissingIndexFailsInNativeImage() {
+    // arrange
+    System.setProperty("org.graalvm.nativeimage.imagecode", "runtime");
+
+    // act & assert
+    try {
+      assertThatThrownBy(
+              () -> AnnotationUtil.getClassesWithAnnotation("unindexed", GrpcService.class))
+          .isInstanceOf(IllegalStateException.class)
+          .hasMessageContaining(AnnotationUtil.INDEX_RESOURCE)
+          .hasMessageContaining(GrpcIndexProcessor.class.getName());
+    } finally {
+      System.clearProperty("org.graalvm.nativeimage.imagecode");
+    }
+  }
+
+  @Test
+  void testIndexAndScanningDiscoverTheSameServices() {
+    // arrange
+    List<Long> indexed = new ArrayList<>();
+    List<Long> scanned = new ArrayList<>();
+
+    // act
+    List<String> indexedClasses = this.discover(true, indexed);
+    List<String> scannedClasses = this.discover(false, scanned);
+
+    // assert
+    assertThat(indexedClasses).containsExactly("sample.EchoService");
+    assertThat(scannedClasses).containsExactly("sample.EchoService");
+    log.info(
+        "Discovered the services in {}us with the index, {}us by scanning",
+        TimeUnit.NANOSECONDS.toMicros(median(indexed)),
+        TimeUnit.NANOSECONDS.toMicros(median(scanned)));
+  }
+
+  /**
+   * Discovers the services of the sample package a few times, with or without an authoritative
+   * index, recording the time it takes.
+   */
+  @SneakyThrows
+  private List<String> discover(boolean authoritative, List<Long> nanos) {
+    ClassLoader previous = Thread.currentThread().getContextClassLoader();
+    List<Class<?>> services = List.of();
+    try (URLClassLoader classLoader =
+        new URLClassLoader(new URL[] {this.classes.toUri().toURL()}, previous)) {
+      Thread.currentThread().setContextClassLoader(classLoader);
+      System.setProperty(
+          AnnotationUtil.AUTHORITATIVE_INDEX_PROPERTY, String.valueOf(authoritative));
+      for (int i = 0; i < 5; i++) {
+        long start = System.nanoTime();
+        services = AnnotationUtil.getClassesWithAnnotation("sample", GrpcService.class);
+        nanos.add(System.nanoTime() - start);
+      }
+    } finally {
+      System.clearProperty(AnnotationUtil.AUTHORITATIVE_INDEX_PROPERTY);
+      Thread.currentThread().setContextClassLoader(previous);
+    }
+    return services.stream().map(Class::getName).collect(Collectors.toList());
+  }
+
+  /** Returns the classpath entries of classes, the classpath of the tests not being reliable. */
+  @SneakyThrows
+  private static String classpath(Class<?>... classes) {
+    List<String> entries = new ArrayList<>();
+    for (Class<?> clazz : classes) {
+      entries.add(
+          Path.of(clazz.getProtectionDomain().getCodeSource().getLocation().toURI()).toString());
+    }
+    return String.join(File.pathSeparator, entries);
+  }
+
+  private static long median(List<Long> nanos) {
+    List<Long> sorted = new ArrayList<>(nanos);
+    Collections.sort(sorted);
+    return sorted.get(sorted.size() / 2);
+  }
+}
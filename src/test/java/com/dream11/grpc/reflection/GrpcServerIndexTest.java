@@ -0,0 +1,114 @@
+package com.dream11.grpc.reflection;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+import io.grpc.ServerServiceDefinition;
+import io.grpc.health.v1.HealthGrpc;
+import io.grpc.reflection.v1alpha.ServerReflectionGrpc;
+import java.util.List;
+import org.junit.jupiter.api.Test;
+
+class GrpcServerIndexTest {
+
+  static final String HEALTH_NAME = "grpc.health.v1.Health";
+  static final String REFLECTION_NAME = "grpc.reflection.v1alpha.ServerReflection";
+  static final ServerServiceDefinition HEALTH = new HealthGrpc.HealthImplBase() {}.bindService();
+  static final ServerServiceDefinition REFLECTION =
+      new ServerReflectionGrpc.ServerReflectionImplBase() {}.bindService();
+
+  @Test
+  void testIndexServices() {
+    // act
+    GrpcServerIndex index = new GrpcServerIndex(List.of(HEALTH, REFLECTION));
+
+    // assert
+    assertThat(index.getServiceNames()).containsExactlyInAnyOrder(HEALTH_NAME, REFLECTION_NAME);
+    assertThat(index.getFileDescriptorBySymbol("grpc.health.v1.Health.Check").getName())
+        .isEqualTo("grpc/health/v1/health.proto");
+    assertThat(index.getFileDescriptorBySymbol("grpc.health.v1.HealthCheckRequest")).isNotNull();
+  }
+
+  @Test
+  void testDuplicatedService() {
+    // act & assert
+    assertThatThrownBy(() -> new GrpcServerIndex(List.of(HEALTH, HEALTH)))
+        .isInstanceOf(IllegalStateException.class)
+        .hasMessage("Duplicated gRPC service: grpc.health.v1.Health");
+  }
+
+  @Test
+  void testWithService() {
+    // arrange
+    GrpcServerIndex index = new GrpcServerIndex(List.of(HEALTH));
+
+    // act
+    GrpcServerIndex added = index.withService(REFLECTION);
+    GrpcServerIndex replaced = added.withService(HEALTH);
+
+    // assert
+    assertThat(index.getServiceNames()).containsExactly(HEALTH_NAME);
+    assertThat(index.getFileDescriptorBySymbol(REFLECTION_NAME)).isNull();
+    assertThat(added.getFileDescriptorBySymbol(REFLECTION_NAME)).isNotNull();
+    assertThat(replaced.getServiceNames()).containsExactlyInAnyOrder(HEALTH_NAME, REFLECTION_NAME);
+    assertThat(replaced.getFileDescriptorByName("grpc/health/v1/health.proto")).isNotNull();
+  }
+
+  @Test
+  void testWithoutService() {
+    // arrange
+    GrpcServerIndex index = new GrpcServerIndex(List.of(HEALTH, REFLECTION));
+
+    // act
+    GrpcServerIndex removed = index.withoutService(HEALTH_NAME);
+
+    // assert
+    assertThat(removed.getServiceNames()).containsExactly(REFLECTION_NAME);
+    assertThat(removed.getFileDescriptorByName("grpc/health/v1/health.proto")).isNull();
+    assertThat(removed.getFileDescriptorBySymbol("grpc.health.v1.HealthCheckRequest")).isNull();
+    assertThat(removed.getFileDescriptorBySymbol(REFLECTION_NAME)).isNotNull();
+    assertThat(index.getFileDescriptorBySymbol("grpc.health.v1.HealthCheckRequest")).isNotNull();
+  }
+
+  @Test
+  void testLazyIndex() {
+    // arrange
+    GrpcServerIndex eager = new GrpcServerIndex(List.of(HEALTH, REFLECTION));
+    GrpcServerIndex lazy = new GrpcServerIndex(List.of(HEALTH, REFLECTION), true);
+
+    // act
+    List<String> symbols =
+        List.of(
+            REFLECTION_NAME,
+            "grpc.health.v1.Health.Watch",
+            "grpc.health.v1.HealthCheckRequest",
+            "grpc.reflection.v1alpha.ServerReflectionRequest",
+            "unknown.Symbol");
+
+    // assert
+    assertThat(lazy.getServiceNames()).isEqualTo(eager.getServiceNames());
+    for (String symbol : symbols) {
+      assertThat(lazy.getFileDescriptorBySymbol(symbol))
+          .isEqualTo(eager.getFileDescriptorBySymbol(symbol));
+    }
+    assertThat(lazy.getFileDescriptorByName("grpc/health/v1/health.proto"))
+        .isEqualTo(eager.getFileDescriptorByName("grpc/health/v1/health.proto"));
+    assertThat(lazy.getExtensionNumbersOfType("grpc.health.v1.HealthCheckRequest")).isEmpty();
+  }
+
+  @Test
+  void testLazyIndexWithoutService() {
+    // arrange
+    GrpcServerIndex lazy = new GrpcServerIndex(List.of(HEALTH, REFLECTION), true);
+    lazy.getFileDescriptorBySymbol("grpc.health.v1.HealthCheckRequest");
+
+    // act
+    GrpcServerIndex removed = lazy.withoutService(HEALTH_NAME);
+
+    // assert
+    assertThat(removed.getServiceNames()).containsExactly(REFLECTION_NAME);
+    assertThat(removed.getFileDescriptorBySymbol("grpc.health.v1.HealthCheckRequest")).isNull();
+    assertThat(removed.getFileDescriptorBySymbol(REFLECTION_NAME)).isNotNull();
+    assertThat(lazy.getFileDescriptorBySymbol("grpc.health.v1.HealthCheckRequest")).isNotNull();
+  }
+}
@@ -0,0 +1,105 @@
+package com.dream11.grpc.service;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+import com.dream11.fixtures.SharedService;
+import com.dream11.grpc.ClassInjector;
+import com.dream11.grpc.GrpcVerticleOptions;
+import com.dream11.grpc.annotation.ServiceScope;
+import com.dream11.grpc.metrics.GrpcServerMetrics;
+import com.dream11.grpc.verticle.ServiceVerticle;
+import io.grpc.BindableService;
+import io.grpc.ServerServiceDefinition;
+import io.vertx.core.Future;
+import io.vertx.core.Vertx;
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.TimeUnit;
+import lombok.SneakyThrows;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+class ServiceCreationIT {
+
+  final List<Integer> sharedInstances = new CopyOnWriteArrayList<>();
+  final GrpcServerMetrics metrics =
+      new GrpcServerMetrics() {
+        @Override
+        public void recordServiceInstances(String serviceClass, ServiceScope scope, int instances) {
+          if (serviceClass.equals(SharedService.class.getName())) {
+            ServiceCreationIT.this.sharedInstances.add(instances);
+          }
+        }
+      };
+  final CountDownLatch startFailed = new CountDownLatch(1);
+  Vertx vertx;
+
+  @BeforeEach
+  void setup() {
+    this.vertx = Vertx.vertx();
+  }
+
+  @AfterEach
+  void cleanUp() {
+    this.startFailed.countDown();
+    await(this.vertx.close());
+  }
+
+  @Test
+  @SneakyThrows
+  void testServiceCreatedAfterAFailureIsReleased() {
+    // arrange
+    GrpcVerticleOptions options = new GrpcVerticleOptions().setParallelServiceCreation(true);
+    ServiceVerticle verticle =
+        new ServiceVerticle(
+            ServiceVerticle.freePort(), options, this.metrics, new SharedService(), new Broken()) {
+          @Override
+          protected ClassInjector getInjector() {
+            ClassInjector injector = super.getInjector();
+            return new ClassInjector() {
+              @Override
+              @SneakyThrows
+              public <T> T getInstance(Class<T> clazz) {
+                if (clazz == Broken.class) {
+                  throw new IllegalStateException("Broken service");
+                }
+                // The shared service is only created once the start has failed
+                ServiceCreationIT.this.startFailed.await(5, TimeUnit.SECONDS);
+                return injector.getInstance(clazz);
+              }
+            };
+          }
+        };
+    Future<String> deployment = this.vertx.deployVerticle(verticle);
+    assertThatThrownBy(() -> await(deployment)).isInstanceOf(ExecutionException.class);
+
+    // act
+    this.startFailed.countDown();
+
+    // assert
+    long end = System.nanoTime() + TimeUnit.SECONDS.toNanos(5);
+    while (!this.sharedInstances.contains(0) && System.nanoTime() < end) {
+      Thread.sleep(10);
+    }
+    assertThat(this.sharedInstances).containsExactly(1, 0);
+    assertThat(ServiceRegistry.getInstance().getInstanceCount(SharedService.class)).isZero();
+  }
+
+  @SneakyThrows
+  static <T> T await(Future<T> future) {
+    return future.toCompletionStage().toCompletableFuture().get(10, TimeUnit.SECONDS);
+  }
+
+  /** Service whose creation fails. */
+  static class Broken implements BindableService {
+
+    @Override
+    public ServerServiceDefinition bindService() {
+      return ServerServiceDefinition.builder("test.Broken").build();
+    }
+  }
+}
@@ -0,0 +1,268 @@
+package com.dream11.grpc.service;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+import com.dream11.grpc.ClassInjector;
+import com.dream11.grpc.inprocess.InProcessChannel;
+import io.grpc.BindableService;
+import io.grpc.CallOptions;
+import io.grpc.MethodDescriptor;
+import io.grpc.ServerServiceDefinition;
+import io.grpc.ServiceDescriptor;
+import io.grpc.Status;
+import io.grpc.StatusRuntimeException;
+import io.grpc.stub.ClientCalls;
+import io.grpc.stub.ServerCalls;
+import io.vertx.core.Future;
+import io.vertx.core.Vertx;
+import java.io.ByteArrayInputStream;
+import java.io.InputStream;
+import java.lang.reflect.InvocationTargetException;
+import java.lang.reflect.Proxy;
+import java.nio.charset.StandardCharsets;
+import java.time.Duration;
+import java.util.concurrent.Callable;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import lombok.SneakyThrows;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+class ServiceFactoryTest {
+
+  static final AtomicInteger CREATED = new AtomicInteger();
+  static final AtomicInteger FAILURES = new AtomicInteger();
+
+  Vertx vertx;
+  InProcessChannel channel;
+
+  @BeforeEach
+  void setup() {
+    CREATED.set(0);
+    FAILURES.set(0);
+    this.vertx = Vertx.vertx();
+    this.channel = new InProcessChannel(this.vertx.getOrCreateContext(), true);
+  }
+
+  @AfterEach
+  void tearDown() {
+    this.vertx.close();
+  }
+
+  @Test
+  void testLazyServiceIsCreatedOnItsFirstCall() {
+    // arrange
+    ServerServiceDefinition definition =
+        this.createFactory(Duration.ofSeconds(5)).createLazy(EchoService.class);
+    this.channel.addService(definition);
+    int createdBeforeCall = CREATED.get();
+
+    // act
+    String first = this.call("a");
+    String second = this.call("b");
+
+    // assert
+    assertThat(definition.getServiceDescriptor().getName()).isEqualTo("test.Echo");
+    assertThat(createdBeforeCall).isZero();
+    assertThat(first).isEqualTo("a");
+    assertThat(second).isEqualTo("b");
+    assertThat(CREATED.get()).isEqualTo(1);
+  }
+
+  @Test
+  void testLazyServiceIsCreatedAgainAfterAFailure() {
+    // arrange
+    FAILURES.set(1);
+    this.channel.addService(
+        this.createFactory(Duration.ofSeconds(5)).createLazy(EchoService.class));
+
+    // act
+    Status.Code failure = null;
+    try {
+      this.call("a");
+    } catch (StatusRuntimeException e) {
+      failure = e.getStatus().getCode();
+    }
+    String reply = this.call("b");
+
+    // assert
+    assertThat(failure).isEqualTo(Status.Code.UNAVAILABLE);
+    assertThat(reply).isEqualTo("b");
+    assertThat(CREATED.get()).isEqualTo(1);
+  }
+
+  @Test
+  void testLazyServiceFailingImmediatelyIsCreatedAgain() {
+    // arrange
+    FAILURES.set(1);
+    ServiceFactory factory =
+        new ServiceFactory(
+            synchronousWorkers(this.vertx), this.createInjector(), Duration.ofSeconds(5));
+    this.channel.addService(factory.createLazy(EchoService.class));
+
+    // act
+    Status.Code failure = null;
+    try {
+      this.call("a");
+    } catch (StatusRuntimeException e) {
+      failure = e.getStatus().getCode();
+    }
+    String reply = this.call("b");
+
+    // assert
+    assertThat(failure).isEqualTo(Status.Code.UNAVAILABLE);
+    assertThat(reply).isEqualTo("b");
+    assertThat(CREATED.get()).isEqualTo(1);
+  }
+
+  @Test
+  @SneakyThrows
+  void testCreationOnWorkerTimesOut() {
+    // arrange
+    ServiceFactory factory = this.createFactory(Duration.ofMillis(50));
+
+    // act
+    Future<ServerServiceDefinition> future = factory.createOnWorker(SlowService.class);
+    Throwable error =
+        future
+            .toCompletionStage()
+            .toCompletableFuture()
+            .handle((definition, e) -> e)
+            .get(5, TimeUnit.SECONDS);
+
+    // assert
+    assertThat(error)
+        .isInstanceOf(IllegalStateException.class)
+        .hasMessage("Failed to create service " + SlowService.class.getName());
+  }
+
+  @Test
+  void testLazyServiceMustBeGenerated() {
+    // act & assert
+    assertThatThrownBy(() -> ServiceFactory.findServiceDescriptor(SlowService.class))
+        .isInstanceOf(IllegalStateException.class)
+        .hasMessageContaining("lazy services must extend a class generated by the gRPC compiler");
+  }
+
+  private String call(String request) {
+    return ClientCalls.blockingUnaryCall(this.channel, EchoGrpc.ECHO, CallOptions.DEFAULT, request);
+  }
+
+  private ServiceFactory createFactory(Duration timeout) {
+    return new ServiceFactory(this.vertx, this.createInjector(), timeout);
+  }
+
+  private ClassInjector createInjector() {
+    return new ClassInjector() {
+      @Override
+      @SneakyThrows
+      public <T> T getInstance(Class<T> clazz) {
+        return clazz.getDeclaredConstructor().newInstance();
+      }
+    };
+  }
+
+  /**
+   * Wraps a Vert.x instance so that blocking code runs on the calling thread, completing the
+   * creation of a service before {@link ServiceFactory#createOnWorker(Class)} returns.
+   */
+  @SuppressWarnings("unchecked")
+  private static Vertx synchronousWorkers(Vertx vertx) {
+    return (Vertx)
+        Proxy.newProxyInstance(
+            Vertx.class.getClassLoader(),
+            new Class<?>[] {Vertx.class},
+            (proxy, method, args) -> {
+              if (method.getName().equals("executeBlocking") && args[0] instanceof Callable) {
+                try {
+                  return Future.succeededFuture(((Callable<Object>) args[0]).call());
+                } catch (Exception e) {
+                  return Future.failedFuture(e);
+                }
+              }
+              try {
+                return method.invoke(vertx, args);
+              } catch (InvocationTargetException e) {
+                throw e.getCause();
+              }
+            });
+  }
+
+  /** Stands for a class generated by the gRPC compiler. */
+  public static final class EchoGrpc {
+
+    static final MethodDescriptor.Marshaller<String> MARSHALLER =
+        new MethodDescriptor.Marshaller<>() {
+          @Override
+          public InputStream stream(String value) {
+            return new ByteArrayInputStream(value.getBytes(StandardCharsets.UTF_8));
+          }
+
+          @Override
+          @SneakyThrows
+          public String parse(InputStream stream) {
+            return new String(stream.readAllBytes(), StandardCharsets.UTF_8);
+          }
+        };
+
+    static final MethodDescriptor<String, String> ECHO =
+        MethodDescriptor.newBuilder(MARSHALLER, MARSHALLER)
+            .setType(MethodDescriptor.MethodType.UNARY)
+            .setFullMethodName("test.Echo/Echo")
+            .build();
+
+    static final ServiceDescriptor SERVICE = new ServiceDescriptor("test.Echo", ECHO);
+
+    public static ServiceDescriptor getServiceDescriptor() {
+      return SERVICE;
+    }
+
+    public abstract static class EchoImplBase implements BindableService {
+
+      public abstract String echo(String request);
+
+      @Override
+      public ServerServiceDefinition bindService() {
+        return ServerServiceDefinition.builder(getServiceDescriptor())
+            .addMethod(
+                ECHO,
+                ServerCalls.asyncUnaryCall(
+                    (request, response) -> {
+                      response.onNext(this.echo(request));
+                      response.onCompleted();
+                    }))
+            .build();
+      }
+    }
+  }
+
+  public static class EchoService extends EchoGrpc.EchoImplBase {
+
+    public EchoService() {
+      if (FAILURES.getAndDecrement() > 0) {
+        throw new IllegalStateException("Cache preload failed");
+      }
+      CREATED.incrementAndGet();
+    }
+
+    @Override
+    public String echo(String request) {
+      return request;
+    }
+  }
+
+  public static class SlowService implements BindableService {
+
+    @SneakyThrows
+    public SlowService() {
+      Thread.sleep(500);
+    }
+
+    @Override
+    public ServerServiceDefinition bindService() {
+      return ServerServiceDefinition.builder("test.Slow").build();
+    }
+  }
+}
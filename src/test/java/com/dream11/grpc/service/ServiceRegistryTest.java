@@ -0,0 +1,121 @@
+package com.dream11.grpc.service;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import com.dream11.grpc.annotation.ServiceScope;
+import com.dream11.grpc.metrics.GrpcServerMetrics;
+import io.grpc.ServerServiceDefinition;
+import io.vertx.core.Future;
+import io.vertx.core.Promise;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicInteger;
+import org.junit.jupiter.api.Test;
+
+class ServiceRegistryTest {
+
+  final ServiceRegistry registry = new ServiceRegistry();
+  final AtomicInteger created = new AtomicInteger();
+  final List<String> recorded = new ArrayList<>();
+  final GrpcServerMetrics metrics =
+      new GrpcServerMetrics() {
+        @Override
+        public void recordServiceInstances(String serviceClass, ServiceScope scope, int instances) {
+          ServiceRegistryTest.this.recorded.add(scope + " " + instances);
+        }
+      };
+
+  @Test
+  void testSharedServiceIsCreatedOnce() {
+    // arrange
+    Promise<ServerServiceDefinition> creation = Promise.promise();
+
+    // act
+    Future<ServerServiceDefinition> first = this.acquire(ServiceScope.SHARED, creation.future());
+    Future<ServerServiceDefinition> second = this.acquire(ServiceScope.SHARED, null);
+    boolean completedBeforeCreation = second.isComplete();
+    creation.complete(definition());
+    Future<ServerServiceDefinition> third = this.acquire(ServiceScope.SHARED, null);
+
+    // assert
+    assertThat(completedBeforeCreation).isFalse();
+    assertThat(this.created.get()).isEqualTo(1);
+    assertThat(second.result()).isSameAs(first.result());
+    assertThat(third.result()).isSameAs(first.result());
+    assertThat(this.registry.getInstanceCount(Service.class)).isEqualTo(1);
+    assertThat(this.recorded).containsExactly("SHARED 1");
+  }
+
+  @Test
+  void testSharedServiceIsCreatedAgainOnceReleasedByAll() {
+    // arrange
+    this.acquire(ServiceScope.SHARED, Future.succeededFuture(definition()));
+    this.acquire(ServiceScope.SHARED, null);
+
+    // act
+    this.registry.release(Service.class, ServiceScope.SHARED, this.metrics);
+    int afterFirstRelease = this.registry.getInstanceCount(Service.class);
+    this.registry.release(Service.class, ServiceScope.SHARED, this.metrics);
+    int afterSecondRelease = this.registry.getInstanceCount(Service.class);
+    this.acquire(ServiceScope.SHARED, Future.succeededFuture(definition()));
+
+    // assert
+    assertThat(afterFirstRelease).isEqualTo(1);
+    assertThat(afterSecondRelease).isZero();
+    assertThat(this.created.get()).isEqualTo(2);
+    assertThat(this.recorded).containsExactly("SHARED 1", "SHARED 0", "SHARED 1");
+  }
+
+  @Test
+  void testFailedSharedServiceIsCreatedAgain() {
+    // arrange
+    Promise<ServerServiceDefinition> creation = Promise.promise();
+    Future<ServerServiceDefinition> first = this.acquire(ServiceScope.SHARED, creation.future());
+    Future<ServerServiceDefinition> waiting = this.acquire(ServiceScope.SHARED, null);
+
+    // act
+    creation.fail(new IllegalStateException("Cache preload failed"));
+    Future<ServerServiceDefinition> retry =
+        this.acquire(ServiceScope.SHARED, Future.succeededFuture(definition()));
+
+    // assert
+    assertThat(first.failed()).isTrue();
+    assertThat(waiting.failed()).isTrue();
+    assertThat(retry.succeeded()).isTrue();
+    assertThat(this.created.get()).isEqualTo(2);
+    assertThat(this.registry.getInstanceCount(Service.class)).isEqualTo(1);
+  }
+
+  @Test
+  void testVerticleServiceIsCreatedForEveryVerticle() {
+    // act
+    this.acquire(ServiceScope.VERTICLE, Future.succeededFuture(definition()));
+    this.acquire(ServiceScope.VERTICLE, Future.succeededFuture(definition()));
+    int acquired = this.registry.getInstanceCount(Service.class);
+    this.registry.release(Service.class, ServiceScope.VERTICLE, this.metrics);
+
+    // assert
+    assertThat(acquired).isEqualTo(2);
+    assertThat(this.created.get()).isEqualTo(2);
+    assertThat(this.registry.getInstanceCount(Service.class)).isEqualTo(1);
+    assertThat(this.recorded).containsExactly("VERTICLE 1", "VERTICLE 2", "VERTICLE 1");
+  }
+
+  private Future<ServerServiceDefinition> acquire(
+      ServiceScope scope, Future<ServerServiceDefinition> creation) {
+    return this.registry.acquire(
+        Service.class,
+        scope,
+        () -> {
+          this.created.incrementAndGet();
+          return creation;
+        },
+        this.metrics);
+  }
+
+  private static ServerServiceDefinition definition() {
+    return ServerServiceDefinition.builder("test.Service").build();
+  }
+
+  static class Service {}
+}
@@ -0,0 +1,67 @@
+package com.dream11.grpc.transport;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+import com.google.protobuf.ByteString;
+import com.google.protobuf.BytesValue;
+import io.grpc.MethodDescriptor;
+import io.grpc.StatusRuntimeException;
+import io.grpc.protobuf.ProtoUtils;
+import io.netty.buffer.ByteBuf;
+import io.netty.buffer.Unpooled;
+import java.io.InputStream;
+import org.junit.jupiter.api.Test;
+
+class AliasingParserTest {
+
+  static final MethodDescriptor.Marshaller<BytesValue> MARSHALLER =
+      ProtoUtils.marshaller(BytesValue.getDefaultInstance());
+
+  @Test
+  void testBytesFieldsAliasTheMessageBuffer() {
+    // arrange
+    byte[] serialized = BytesValue.of(ByteString.copyFrom(new byte[4096])).toByteArray();
+    ByteBuf chunk = Unpooled.buffer().writeZero(7).writeBytes(serialized).writeZero(3);
+    ByteBuf message = chunk.slice(7, serialized.length);
+
+    // act
+    BytesValue parsed = AliasingParser.of(MARSHALLER).parse(message);
+    message.setByte(serialized.length - 1, 42);
+
+    // assert
+    assertThat(parsed.getValue().size()).isEqualTo(4096);
+    assertThat(parsed.getValue().byteAt(4095)).isEqualTo((byte) 42);
+  }
+
+  @Test
+  void testInvalidMessageIsRejected() {
+    // arrange
+    ByteBuf message = Unpooled.wrappedBuffer(new byte[] {10, 100, 1});
+
+    // act & assert
+    assertThatThrownBy(() -> AliasingParser.of(MARSHALLER).parse(message))
+        .isInstanceOf(StatusRuntimeException.class)
+        .hasMessageContaining("Invalid protobuf byte sequence");
+  }
+
+  @Test
+  void testNonProtobufMarshallerIsNotSupported() {
+    // arrange
+    MethodDescriptor.Marshaller<String> marshaller =
+        new MethodDescriptor.Marshaller<>() {
+          @Override
+          public InputStream stream(String value) {
+            return InputStream.nullInputStream();
+          }
+
+          @Override
+          public String parse(InputStream stream) {
+            return "";
+          }
+        };
+
+    // act & assert
+    assertThat(AliasingParser.of(marshaller)).isNull();
+  }
+}
@@ -0,0 +1,153 @@
+package com.dream11.grpc.transport;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import com.dream11.grpc.annotation.CallPriority;
+import com.dream11.grpc.metrics.GrpcServerMetrics;
+import io.vertx.core.Context;
+import io.vertx.core.Vertx;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import lombok.SneakyThrows;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+class CallSchedulerTest {
+
+  final List<String> delays = Collections.synchronizedList(new ArrayList<>());
+  final GrpcServerMetrics metrics =
+      new GrpcServerMetrics() {
+        @Override
+        public void recordSchedulingDelay(CallPriority priority, long nanos) {
+          CallSchedulerTest.this.delays.add(priority.name());
+        }
+      };
+  Vertx vertx;
+
+  @BeforeEach
+  void setUp() {
+    this.vertx = Vertx.vertx();
+  }
+
+  @AfterEach
+  void tearDown() {
+    this.vertx.close();
+  }
+
+  @Test
+  void testStrictPolicy() {
+    // arrange
+    CallScheduler scheduler = new CallScheduler(SchedulingPolicy.STRICT, this.metrics);
+
+    // act
+    List<CallPriority> order =
+        this.run(
+            scheduler,
+            List.of(CallPriority.LOW, CallPriority.NORMAL, CallPriority.CRITICAL, CallPriority.LOW),
+            List.of(CallPriority.HIGH, CallPriority.NORMAL));
+
+    // assert
+    assertThat(order)
+        .containsExactly(
+            CallPriority.CRITICAL,
+            CallPriority.HIGH,
+            CallPriority.NORMAL,
+            CallPriority.NORMAL,
+            CallPriority.LOW,
+            CallPriority.LOW);
+    assertThat(this.delays).hasSize(6);
+  }
+
+  @Test
+  void testWeightedPolicy() {
+    // arrange
+    CallScheduler scheduler = new CallScheduler(SchedulingPolicy.WEIGHTED, this.metrics);
+    List<CallPriority> submitted = new ArrayList<>();
+    for (int i = 0; i < 10; i++) {
+      submitted.add(CallPriority.LOW);
+      submitted.add(CallPriority.CRITICAL);
+    }
+
+    // act
+    List<CallPriority> order = this.run(scheduler, submitted, List.of());
+
+    // assert
+    assertThat(order.subList(0, 8)).containsOnly(CallPriority.CRITICAL);
+    assertThat(order.get(8)).isEqualTo(CallPriority.LOW);
+    assertThat(order.subList(9, 11)).containsOnly(CallPriority.CRITICAL);
+    assertThat(order.subList(11, 20)).containsOnly(CallPriority.LOW);
+  }
+
+  @Test
+  void testTasksOfAPriorityRunInSubmissionOrder() {
+    // arrange
+    CallScheduler scheduler = new CallScheduler(SchedulingPolicy.WEIGHTED, this.metrics);
+    Context context = this.vertx.getOrCreateContext();
+    int count = CallScheduler.MAX_TASKS_PER_RUN * 3;
+    List<Integer> order = new ArrayList<>();
+    CountDownLatch latch = new CountDownLatch(count);
+
+    // act
+    for (int i = 0; i < count; i++) {
+      int index = i;
+      scheduler.submit(
+          CallPriority.NORMAL,
+          context,
+          () -> {
+            order.add(index);
+            latch.countDown();
+          });
+    }
+    await(latch);
+
+    // assert
+    assertThat(order).isSorted().hasSize(count);
+  }
+
+  /**
+   * Submits tasks from the event loop, so that they are all queued before the scheduler runs, then
+   * tasks submitted from the first task that runs.
+   */
+  private List<CallPriority> run(
+      CallScheduler scheduler, List<CallPriority> first, List<CallPriority> nested) {
+    Context context = this.vertx.getOrCreateContext();
+    List<CallPriority> order = new ArrayList<>();
+    CountDownLatch latch = new CountDownLatch(first.size() + nested.size());
+    context.runOnContext(
+        v -> {
+          boolean[] submitted = {false};
+          for (CallPriority priority : first) {
+            scheduler.submit(
+                priority,
+                context,
+                () -> {
+                  order.add(priority);
+                  latch.countDown();
+                  if (!submitted[0]) {
+                    submitted[0] = true;
+                    for (CallPriority other : nested) {
+                      scheduler.submit(
+                          other,
+                          context,
+                          () -> {
+                            order.add(other);
+                            latch.countDown();
+                          });
+                    }
+                  }
+                });
+          }
+        });
+    await(latch);
+    return order;
+  }
+
+  @SneakyThrows
+  private static void await(CountDownLatch latch) {
+    assertThat(latch.await(5, TimeUnit.SECONDS)).isTrue();
+  }
+}
@@ -0,0 +1,201 @@
+package com.dream11.grpc.transport;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import com.dream11.grpc.GrpcVerticleOptions;
+import com.dream11.grpc.metrics.GrpcServerMetrics;
+import com.dream11.grpc.util.RawGrpcClient;
+import com.dream11.grpc.util.RawGrpcClient.Reply;
+import com.dream11.grpc.verticle.ServiceVerticle;
+import io.grpc.BindableService;
+import io.grpc.MethodDescriptor;
+import io.grpc.ServerServiceDefinition;
+import io.grpc.Status;
+import io.grpc.health.v1.HealthGrpc;
+import io.grpc.stub.ServerCalls;
+import io.grpc.stub.StreamObserver;
+import io.vertx.core.Future;
+import io.vertx.core.MultiMap;
+import io.vertx.core.Vertx;
+import io.vertx.core.buffer.Buffer;
+import io.vertx.core.http.HttpClientRequest;
+import io.vertx.core.http.HttpClientResponse;
+import java.io.ByteArrayOutputStream;
+import java.nio.charset.StandardCharsets;
+import java.util.concurrent.TimeUnit;
+import java.util.zip.GZIPOutputStream;
+import lombok.SneakyThrows;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+class HttpServerCallIT {
+
+  static final MethodDescriptor<String, String> ECHO =
+      RawGrpcClient.method("test.Transport/Echo", MethodDescriptor.MethodType.BIDI_STREAMING);
+  static final MethodDescriptor<String, String> FAIL =
+      RawGrpcClient.method("test.Transport/Fail", MethodDescriptor.MethodType.UNARY);
+
+  final MultiMap headers = MultiMap.caseInsensitiveMultiMap();
+  Vertx vertx;
+  RawGrpcClient client;
+
+  @BeforeEach
+  void setup() {
+    this.vertx = Vertx.vertx();
+    int port = ServiceVerticle.freePort();
+    await(
+        this.vertx.deployVerticle(
+            new ServiceVerticle(
+                port, new GrpcVerticleOptions(), GrpcServerMetrics.NOOP, new Transport())));
+    this.client = new RawGrpcClient(this.vertx, port);
+  }
+
+  @AfterEach
+  void cleanUp() {
+    await(this.vertx.close());
+  }
+
+  @Test
+  void testMessagesAreDeliveredInOrder() {
+    // act
+    Reply reply = await(this.client.call(ECHO.getFullMethodName(), "a", "b", "c"));
+
+    // assert
+    assertThat(reply.getMessages()).containsExactly("a", "b", "c");
+    assertThat(reply.getStatus()).isEqualTo("0");
+  }
+
+  @Test
+  void testStatusOfTheServiceIsSentInTheTrailers() {
+    // act
+    Reply reply = this.send(FAIL, "bad", null);
+
+    // assert
+    assertThat(reply.getStatus()).isEqualTo(String.valueOf(Status.Code.INVALID_ARGUMENT.value()));
+    assertThat(this.headers.get("grpc-message")).isEqualTo("invalid");
+  }
+
+  @Test
+  void testGzipRequestIsDecompressed() {
+    // act
+    Reply reply = this.send(ECHO, "compressed", "gzip");
+
+    // assert
+    assertThat(reply.getMessages()).containsExactly("compressed");
+    assertThat(reply.getStatus()).isEqualTo("0");
+    assertThat(this.headers.get("grpc-accept-encoding")).isEqualTo("gzip");
+  }
+
+  @Test
+  void testUnknownEncodingIsUnimplemented() {
+    // act
+    Reply reply = this.send(ECHO, "compressed", "br");
+
+    // assert
+    assertThat(reply.getMessages()).isEmpty();
+    assertThat(reply.getStatus()).isEqualTo(String.valueOf(Status.Code.UNIMPLEMENTED.value()));
+  }
+
+  @Test
+  void testMalformedFrameIsRejected() {
+    // arrange
+    HttpClientRequest request = await(this.client.request(ECHO.getFullMethodName()));
+    Buffer frame = RawGrpcClient.frame("malformed");
+    frame.setByte(0, (byte) 2);
+
+    // act
+    request.end(frame);
+    Reply reply = await(request.response().compose(this::reply));
+
+    // assert
+    assertThat(reply.getStatus()).isEqualTo(String.valueOf(Status.Code.INTERNAL.value()));
+  }
+
+  @Test
+  void testCallsToOtherServicesFallBackToTheGrpcServer() {
+    // act
+    Reply reply = await(this.client.call(HealthGrpc.getCheckMethod().getFullMethodName(), ""));
+
+    // assert
+    assertThat(reply.getMessages()).hasSize(1);
+    assertThat(reply.getStatus()).isEqualTo("0");
+  }
+
+  /** Sends a single message, compressed with gzip when an encoding is given. */
+  private Reply send(MethodDescriptor<String, String> method, String message, String encoding) {
+    HttpClientRequest request = await(this.client.request(method.getFullMethodName()));
+    if (encoding == null) {
+      request.end(RawGrpcClient.frame(message));
+    } else {
+      byte[] compressed = gzip(message);
+      request
+          .putHeader("grpc-encoding", encoding)
+          .end(
+              Buffer.buffer()
+                  .appendByte((byte) 1)
+                  .appendInt(compressed.length)
+                  .appendBytes(compressed));
+    }
+    return await(request.response().compose(this::reply));
+  }
+
+  /** Reads the reply of a call, and keeps the headers of its response. */
+  private Future<Reply> reply(HttpClientResponse response) {
+    return response
+        .body()
+        .map(
+            body -> {
+              this.headers.addAll(response.headers());
+              return Reply.of(response, body);
+            });
+  }
+
+  @SneakyThrows
+  static byte[] gzip(String message) {
+    ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+    try (GZIPOutputStream out = new GZIPOutputStream(bytes)) {
+      out.write(message.getBytes(StandardCharsets.UTF_8));
+    }
+    return bytes.toByteArray();
+  }
+
+  @SneakyThrows
+  static <T> T await(Future<T> future) {
+    return future.toCompletionStage().toCompletableFuture().get(10, TimeUnit.SECONDS);
+  }
+
+  /** Echoes the messages of its calls, or fails them. */
+  static class Transport implements BindableService {
+
+    @Override
+    public ServerServiceDefinition bindService() {
+      return ServerServiceDefinition.builder("test.Transport")
+          .addMethod(
+              ECHO,
+              ServerCalls.asyncBidiStreamingCall(
+                  response ->
+                      new StreamObserver<String>() {
+                        @Override
+                        public void onNext(String value) {
+                          response.onNext(value);
+                        }
+
+                        @Override
+                        public void onError(Throwable t) {}
+
+                        @Override
+                        public void onCompleted() {
+                          response.onCompleted();
+                        }
+                      }))
+          .addMethod(
+              FAIL,
+              ServerCalls.asyncUnaryCall(
+                  (request, response) ->
+                      response.onError(
+                          Status.INVALID_ARGUMENT.withDescription("invalid").asRuntimeException())))
+          .build();
+    }
+  }
+}
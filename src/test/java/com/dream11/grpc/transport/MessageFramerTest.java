@@ -0,0 +1,128 @@
+package com.dream11.grpc.transport;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+import com.dream11.grpc.metrics.GrpcServerMetrics;
+import io.grpc.Codec;
+import io.grpc.Status;
+import io.grpc.StatusRuntimeException;
+import io.netty.buffer.ByteBuf;
+import io.netty.buffer.Unpooled;
+import io.vertx.core.buffer.Buffer;
+import java.io.ByteArrayInputStream;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.List;
+import org.junit.jupiter.api.Test;
+
+class MessageFramerTest {
+
+  static final String METHOD = "test.Echo/Unary";
+
+  @Test
+  void testSmallMessageIsNotCompressed() {
+    // arrange
+    MessageFramer framer = new MessageFramer(METHOD, 1024, GrpcServerMetrics.NOOP);
+
+    // act
+    Buffer frame = framer.frame(stream("x".repeat(100)), new Codec.Gzip());
+
+    // assert
+    assertThat(frame.getByte(0)).isEqualTo((byte) 0);
+    assertThat(frame.getInt(1)).isEqualTo(100);
+    assertThat(frame.length()).isEqualTo(MessageFramer.HEADER_LENGTH + 100);
+  }
+
+  @Test
+  void testLargeMessageIsCompressed() {
+    // arrange
+    List<Long> sizes = new ArrayList<>();
+    MessageFramer framer =
+        new MessageFramer(
+            METHOD,
+            1024,
+            new GrpcServerMetrics() {
+              @Override
+              public void recordCompression(
+                  String fullMethodName,
+                  String encoding,
+                  long uncompressedBytes,
+                  long compressedBytes,
+                  long nanos) {
+                sizes.add(uncompressedBytes);
+                sizes.add(compressedBytes);
+              }
+            });
+
+    // act
+    Buffer frame = framer.frame(stream("x".repeat(4096)), new Codec.Gzip());
+
+    // assert
+    assertThat(frame.getByte(0)).isEqualTo((byte) 1);
+    assertThat(frame.getInt(1)).isEqualTo(frame.length() - MessageFramer.HEADER_LENGTH);
+    assertThat(sizes).containsExactly(4096L, (long) frame.length() - MessageFramer.HEADER_LENGTH);
+  }
+
+  @Test
+  void testDeframeSplitMessages() {
+    // arrange
+    MessageFramer framer = new MessageFramer(METHOD, 1024, GrpcServerMetrics.NOOP);
+    MessageDeframer deframer = new MessageDeframer(METHOD, 1 << 20, GrpcServerMetrics.NOOP);
+    deframer.setDecompressor(new Codec.Gzip());
+    Buffer frames =
+        Buffer.buffer()
+            .appendBuffer(framer.frame(stream("a"), new Codec.Gzip()))
+            .appendBuffer(framer.frame(stream("b".repeat(4096)), new Codec.Gzip()))
+            .appendBuffer(framer.frame(stream(""), null));
+    List<String> messages = new ArrayList<>();
+
+    // act
+    for (int i = 0; i < frames.length(); i += 3) {
+      Buffer chunk = frames.getBuffer(i, Math.min(i + 3, frames.length()));
+      deframer.decode(
+          Unpooled.wrappedBuffer(chunk.getBytes()), message -> messages.add(text(message)));
+    }
+
+    // assert
+    assertThat(messages).containsExactly("a", "b".repeat(4096), "");
+  }
+
+  @Test
+  void testOversizedMessageIsRejected() {
+    // arrange
+    MessageFramer framer = new MessageFramer(METHOD, 1024, GrpcServerMetrics.NOOP);
+    MessageDeframer deframer = new MessageDeframer(METHOD, 16, GrpcServerMetrics.NOOP);
+    Buffer frame = framer.frame(stream("x".repeat(17)), null);
+
+    // act & assert
+    assertThatThrownBy(
+            () -> deframer.decode(Unpooled.wrappedBuffer(frame.getBytes()), message -> {}))
+        .isInstanceOf(StatusRuntimeException.class)
+        .extracting(err -> ((StatusRuntimeException) err).getStatus().getCode())
+        .isEqualTo(Status.Code.RESOURCE_EXHAUSTED);
+  }
+
+  @Test
+  void testCompressedMessageWithoutDecompressorIsRejected() {
+    // arrange
+    MessageFramer framer = new MessageFramer(METHOD, 1024, GrpcServerMetrics.NOOP);
+    MessageDeframer deframer = new MessageDeframer(METHOD, 1 << 20, GrpcServerMetrics.NOOP);
+    Buffer frame = framer.frame(stream("x".repeat(4096)), new Codec.Gzip());
+
+    // act & assert
+    assertThatThrownBy(
+            () -> deframer.decode(Unpooled.wrappedBuffer(frame.getBytes()), message -> {}))
+        .isInstanceOf(StatusRuntimeException.class)
+        .extracting(err -> ((StatusRuntimeException) err).getStatus().getCode())
+        .isEqualTo(Status.Code.INTERNAL);
+  }
+
+  private static ByteArrayInputStream stream(String text) {
+    return new ByteArrayInputStream(text.getBytes(StandardCharsets.UTF_8));
+  }
+
+  private static String text(ByteBuf message) {
+    return message.toString(StandardCharsets.UTF_8);
+  }
+}
@@ -0,0 +1,76 @@
+package com.dream11.grpc.transport;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import com.dream11.fixtures.Catalog;
+import com.dream11.grpc.GrpcVerticleOptions;
+import com.dream11.grpc.annotation.CallPriority;
+import com.dream11.grpc.annotation.Compression;
+import org.junit.jupiter.api.Test;
+
+class MethodPolicyTest {
+
+  static final GrpcVerticleOptions OPTIONS = new GrpcVerticleOptions();
+
+  @Test
+  void testServicePolicy() {
+    // act
+    MethodPolicy policy = MethodPolicy.resolve(Catalog.class, "GetProduct", OPTIONS);
+
+    // assert
+    assertThat(policy.getSendEncodings()).containsExactly("gzip");
+    assertThat(policy.getAcceptEncodings()).isEmpty();
+    assertThat(policy.getMinCompressionSize()).isEqualTo(Compression.DEFAULT_MIN_MESSAGE_SIZE);
+  }
+
+  @Test
+  void testMethodPolicyOverridesServicePolicy() {
+    // act
+    MethodPolicy policy = MethodPolicy.resolve(Catalog.class, "List_Products", OPTIONS);
+    MethodPolicy renamed = MethodPolicy.resolve(Catalog.class, "Export", OPTIONS);
+
+    // assert
+    assertThat(policy.getSendEncodings()).containsExactly("zstd", "gzip");
+    assertThat(policy.getMinCompressionSize()).isEqualTo(4096);
+    assertThat(renamed.getSendEncodings()).isEmpty();
+  }
+
+  @Test
+  void testDefaultPolicy() {
+    // act
+    MethodPolicy policy = MethodPolicy.resolve(Object.class, "GetProduct", OPTIONS);
+
+    // assert
+    assertThat(policy.getSendEncodings()).isEmpty();
+    assertThat(policy.getAcceptEncodings()).isEmpty();
+  }
+
+  @Test
+  void testMessageLimits() {
+    // act
+    MethodPolicy service = MethodPolicy.resolve(Catalog.class, "GetProduct", OPTIONS);
+    MethodPolicy method = MethodPolicy.resolve(Catalog.class, "List_Products", OPTIONS);
+    MethodPolicy defaults = MethodPolicy.resolve(Object.class, "GetProduct", OPTIONS);
+
+    // assert
+    assertThat(service.getMaxInboundMessageSize()).isEqualTo(1024);
+    assertThat(service.getMaxInboundMetadataSize())
+        .isEqualTo(GrpcVerticleOptions.DEFAULT_MAX_INBOUND_METADATA_SIZE);
+    assertThat(method.getMaxInboundMessageSize()).isEqualTo(16 * 1024 * 1024);
+    assertThat(defaults.getMaxInboundMessageSize())
+        .isEqualTo(GrpcVerticleOptions.DEFAULT_MAX_INBOUND_MESSAGE_SIZE);
+  }
+
+  @Test
+  void testPriority() {
+    // act
+    MethodPolicy service = MethodPolicy.resolve(Catalog.class, "GetProduct", OPTIONS);
+    MethodPolicy method = MethodPolicy.resolve(Catalog.class, "Export", OPTIONS);
+    MethodPolicy defaults = MethodPolicy.resolve(Object.class, "GetProduct", OPTIONS);
+
+    // assert
+    assertThat(service.getPriority()).isEqualTo(CallPriority.HIGH);
+    assertThat(method.getPriority()).isEqualTo(CallPriority.LOW);
+    assertThat(defaults.getPriority()).isEqualTo(CallPriority.NORMAL);
+  }
+}
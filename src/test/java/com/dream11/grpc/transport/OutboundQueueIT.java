@@ -0,0 +1,213 @@
+package com.dream11.grpc.transport;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import com.dream11.grpc.GrpcVerticleOptions;
+import com.dream11.grpc.metrics.GrpcServerMetrics;
+import com.dream11.grpc.util.RawGrpcClient;
+import com.dream11.grpc.util.RawGrpcClient.Reply;
+import com.dream11.grpc.verticle.ServiceVerticle;
+import io.grpc.BindableService;
+import io.grpc.MethodDescriptor;
+import io.grpc.ServerServiceDefinition;
+import io.grpc.stub.ServerCallStreamObserver;
+import io.grpc.stub.ServerCalls;
+import io.netty.handler.codec.http2.Http2Error;
+import io.vertx.core.Future;
+import io.vertx.core.Promise;
+import io.vertx.core.Vertx;
+import io.vertx.core.http.HttpClientRequest;
+import io.vertx.core.http.HttpClientResponse;
+import io.vertx.core.http.StreamResetException;
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.stream.Collectors;
+import java.util.stream.IntStream;
+import lombok.SneakyThrows;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+class OutboundQueueIT {
+
+  static final MethodDescriptor<String, String> STREAM =
+      RawGrpcClient.method("test.Outbound/Stream", MethodDescriptor.MethodType.SERVER_STREAMING);
+  static final MethodDescriptor<String, String> BLAST =
+      RawGrpcClient.method("test.Outbound/Blast", MethodDescriptor.MethodType.SERVER_STREAMING);
+  static final int MESSAGES = 256;
+
+  final Outbound service = new Outbound();
+  final List<String> overflows = new CopyOnWriteArrayList<>();
+  final GrpcServerMetrics metrics =
+      new GrpcServerMetrics() {
+        @Override
+        public void recordOutboundQueueOverflow(String fullMethodName) {
+          OutboundQueueIT.this.overflows.add(fullMethodName);
+        }
+      };
+  final Promise<Throwable> streamError = Promise.promise();
+  Vertx vertx;
+  RawGrpcClient client;
+
+  @BeforeEach
+  void setup() {
+    this.vertx = Vertx.vertx();
+  }
+
+  @AfterEach
+  void cleanUp() {
+    await(this.vertx.close());
+  }
+
+  private void deploy(GrpcVerticleOptions options) {
+    int port = ServiceVerticle.freePort();
+    await(
+        this.vertx.deployVerticle(new ServiceVerticle(port, options, this.metrics, this.service)));
+    this.client = new RawGrpcClient(this.vertx, port);
+  }
+
+  /**
+   * Opens a call and pauses its response, so that the client stops replenishing its window. The
+   * first error of the stream completes {@link #streamError}.
+   */
+  private HttpClientResponse openPaused(MethodDescriptor<String, String> method) {
+    HttpClientRequest request = await(this.client.request(method.getFullMethodName()));
+    request.end(RawGrpcClient.frame(String.valueOf(MESSAGES)));
+    return await(
+        request
+            .response()
+            .onSuccess(
+                response -> response.pause().exceptionHandler(this.streamError::tryComplete)));
+  }
+
+  @Test
+  @SneakyThrows
+  void testSlowClientMakesTheCallNotReady() {
+    // arrange
+    this.deploy(new GrpcVerticleOptions());
+    HttpClientResponse response = this.openPaused(STREAM);
+    Future<Reply> reply = response.body().map(body -> Reply.of(response, body));
+    assertThat(this.service.notReady.await(5, TimeUnit.SECONDS)).isTrue();
+    int onReadyBeforeResume = this.service.onReadyCalls.get();
+
+    // act
+    response.resume();
+
+    // assert
+    assertThat(await(reply).getMessages()).isEqualTo(messages(MESSAGES));
+    assertThat(await(reply).getStatus()).isEqualTo("0");
+    assertThat(this.service.onReadyCalls.get()).isGreaterThan(onReadyBeforeResume);
+    assertThat(this.overflows).isEmpty();
+  }
+
+  @Test
+  @SneakyThrows
+  void testOverflowingQueueResetsTheStream() {
+    // arrange
+    this.deploy(new GrpcVerticleOptions().setMaxOutboundQueueSize(16 * 1024));
+
+    // act
+    HttpClientResponse response = this.openPaused(BLAST);
+    response.resume();
+
+    // assert
+    assertThat(await(this.streamError.future()))
+        .isInstanceOfSatisfying(
+            StreamResetException.class,
+            reset -> assertThat(reset.getCode()).isEqualTo(Http2Error.CANCEL.code()));
+    assertThat(this.service.cancelled.await(5, TimeUnit.SECONDS)).isTrue();
+    assertThat(this.overflows).containsExactly(BLAST.getFullMethodName());
+    assertThat(GrpcCallRouter.getPendingOutboundBytes()).isZero();
+  }
+
+  @Test
+  @SneakyThrows
+  void testClientResetReleasesTheQueue() {
+    // arrange
+    this.deploy(new GrpcVerticleOptions());
+    HttpClientResponse response = this.openPaused(BLAST);
+    assertThat(this.service.blasted.await(5, TimeUnit.SECONDS)).isTrue();
+
+    // act
+    response.request().reset(Http2Error.CANCEL.code());
+
+    // assert
+    assertThat(this.service.cancelled.await(5, TimeUnit.SECONDS)).isTrue();
+    assertThat(this.service.pendingAfterBlast).isPositive();
+    assertThat(GrpcCallRouter.getPendingOutboundBytes()).isZero();
+    assertThat(this.overflows).isEmpty();
+  }
+
+  static List<String> messages(int count) {
+    return IntStream.range(0, count).mapToObj(Outbound::message).collect(Collectors.toList());
+  }
+
+  @SneakyThrows
+  static <T> T await(Future<T> future) {
+    return future.toCompletionStage().toCompletableFuture().get(10, TimeUnit.SECONDS);
+  }
+
+  /** Streams the number of 1KiB messages of the request, following or ignoring readiness. */
+  static class Outbound implements BindableService {
+
+    final CountDownLatch notReady = new CountDownLatch(1);
+    final CountDownLatch blasted = new CountDownLatch(1);
+    final CountDownLatch cancelled = new CountDownLatch(1);
+    final AtomicInteger onReadyCalls = new AtomicInteger();
+    volatile long pendingAfterBlast;
+
+    static String message(int index) {
+      return String.format("%04d", index) + "x".repeat(1020);
+    }
+
+    @Override
+    public ServerServiceDefinition bindService() {
+      return ServerServiceDefinition.builder("test.Outbound")
+          .addMethod(
+              STREAM,
+              ServerCalls.asyncServerStreamingCall(
+                  (request, observer) -> {
+                    ServerCallStreamObserver<String> call =
+                        (ServerCallStreamObserver<String>) observer;
+                    int total = Integer.parseInt(request);
+                    int[] sent = {0};
+                    Runnable produce =
+                        () -> {
+                          while (call.isReady() && sent[0] < total) {
+                            call.onNext(message(sent[0]++));
+                          }
+                          if (sent[0] < total) {
+                            this.notReady.countDown();
+                          } else if (sent[0] == total) {
+                            sent[0]++;
+                            call.onCompleted();
+                          }
+                        };
+                    call.setOnReadyHandler(
+                        () -> {
+                          this.onReadyCalls.incrementAndGet();
+                          produce.run();
+                        });
+                    produce.run();
+                  }))
+          .addMethod(
+              BLAST,
+              ServerCalls.asyncServerStreamingCall(
+                  (request, observer) -> {
+                    ServerCallStreamObserver<String> call =
+                        (ServerCallStreamObserver<String>) observer;
+                    call.setOnCancelHandler(this.cancelled::countDown);
+                    int total = Integer.parseInt(request);
+                    for (int i = 0; i < total && !call.isCancelled(); i++) {
+                      call.onNext(message(i));
+                    }
+                    this.pendingAfterBlast = GrpcCallRouter.getPendingOutboundBytes();
+                    this.blasted.countDown();
+                  }))
+          .build();
+    }
+  }
+}
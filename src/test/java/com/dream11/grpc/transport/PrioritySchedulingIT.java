@@ -0,0 +1,186 @@
+package com.dream11.grpc.transport;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import com.dream11.grpc.GrpcVerticleOptions;
+import com.dream11.grpc.annotation.CallPriority;
+import com.dream11.grpc.annotation.GrpcMethod;
+import com.dream11.grpc.metrics.GrpcServerMetrics;
+import com.dream11.grpc.util.RawGrpcClient;
+import com.dream11.grpc.util.RawGrpcClient.Reply;
+import com.dream11.grpc.verticle.ServiceVerticle;
+import io.grpc.BindableService;
+import io.grpc.MethodDescriptor;
+import io.grpc.ServerServiceDefinition;
+import io.grpc.stub.ServerCalls;
+import io.grpc.stub.StreamObserver;
+import io.vertx.core.Future;
+import io.vertx.core.Vertx;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.Collectors;
+import java.util.stream.IntStream;
+import lombok.SneakyThrows;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+class PrioritySchedulingIT {
+
+  static final MethodDescriptor<String, String> ECHO =
+      RawGrpcClient.method("test.Priority/Echo", MethodDescriptor.MethodType.BIDI_STREAMING);
+  static final MethodDescriptor<String, String> BLOCK =
+      RawGrpcClient.method("test.Priority/Block", MethodDescriptor.MethodType.UNARY);
+  static final MethodDescriptor<String, String> LOW =
+      RawGrpcClient.method("test.Priority/Low", MethodDescriptor.MethodType.UNARY);
+  static final MethodDescriptor<String, String> CRITICAL =
+      RawGrpcClient.method("test.Priority/Critical", MethodDescriptor.MethodType.UNARY);
+  static final Duration BLOCK_TIME = Duration.ofMillis(500);
+
+  final Prioritized service = new Prioritized();
+  final Set<CallPriority> scheduled = ConcurrentHashMap.newKeySet();
+  final GrpcServerMetrics metrics =
+      new GrpcServerMetrics() {
+        @Override
+        public void recordSchedulingDelay(CallPriority priority, long nanos) {
+          PrioritySchedulingIT.this.scheduled.add(priority);
+        }
+      };
+  Vertx vertx;
+  Vertx clientVertx;
+  RawGrpcClient client;
+
+  @BeforeEach
+  void setup() {
+    this.vertx = Vertx.vertx();
+    // The client must keep sending while the event loop of the server is held
+    this.clientVertx = Vertx.vertx();
+    int port = ServiceVerticle.freePort();
+    GrpcVerticleOptions options =
+        new GrpcVerticleOptions()
+            .setPriorityScheduling(true)
+            .setSchedulingPolicy(SchedulingPolicy.STRICT);
+    await(
+        this.vertx.deployVerticle(new ServiceVerticle(port, options, this.metrics, this.service)));
+    this.client = new RawGrpcClient(this.clientVertx, port);
+  }
+
+  @AfterEach
+  void cleanUp() {
+    await(this.clientVertx.close());
+    await(this.vertx.close());
+  }
+
+  @Test
+  void testMessagesHalfCloseAndTrailersKeepTheirOrder() {
+    // arrange
+    List<String> messages =
+        IntStream.range(0, 50).mapToObj(i -> "m" + i).collect(Collectors.toList());
+
+    // act
+    Reply reply =
+        await(this.client.call(ECHO.getFullMethodName(), messages.toArray(String[]::new)));
+
+    // assert
+    List<String> expected = new ArrayList<>(messages);
+    expected.add("half-close");
+    assertThat(reply.getMessages()).isEqualTo(expected);
+    assertThat(reply.getStatus()).isEqualTo("0");
+    assertThat(this.scheduled).containsExactly(CallPriority.NORMAL);
+  }
+
+  @Test
+  @SneakyThrows
+  void testCriticalCallOvertakesLowCall() {
+    // arrange
+    Future<Reply> block = this.client.call(BLOCK.getFullMethodName(), "block");
+    assertThat(this.service.blocking.await(5, TimeUnit.SECONDS)).isTrue();
+
+    // act
+    Future<Reply> low = this.client.call(LOW.getFullMethodName(), "low");
+    Future<Reply> critical = this.client.call(CRITICAL.getFullMethodName(), "critical");
+
+    // assert
+    assertThat(await(block).getStatus()).isEqualTo("0");
+    assertThat(await(low).getStatus()).isEqualTo("0");
+    assertThat(await(critical).getStatus()).isEqualTo("0");
+    assertThat(this.service.invocations).containsExactly("block", "critical", "low");
+    assertThat(this.scheduled).contains(CallPriority.LOW, CallPriority.CRITICAL);
+  }
+
+  @SneakyThrows
+  static <T> T await(Future<T> future) {
+    return future.toCompletionStage().toCompletableFuture().get(10, TimeUnit.SECONDS);
+  }
+
+  /** Service whose methods have different priorities. */
+  public static class Prioritized implements BindableService {
+
+    final CountDownLatch blocking = new CountDownLatch(1);
+    final List<String> invocations = new CopyOnWriteArrayList<>();
+
+    /** Echoes the messages of the call, then a last message once the client half-closes. */
+    public StreamObserver<String> echo(StreamObserver<String> response) {
+      return new StreamObserver<>() {
+        @Override
+        public void onNext(String value) {
+          response.onNext(value);
+        }
+
+        @Override
+        public void onError(Throwable t) {}
+
+        @Override
+        public void onCompleted() {
+          response.onNext("half-close");
+          response.onCompleted();
+        }
+      };
+    }
+
+    /** Holds the event loop, so that the calls received meanwhile are scheduled together. */
+    @GrpcMethod(priority = CallPriority.LOW)
+    public void block(String request, StreamObserver<String> response) {
+      this.invocations.add(request);
+      this.blocking.countDown();
+      long end = System.nanoTime() + BLOCK_TIME.toNanos();
+      while (System.nanoTime() < end) {
+        Thread.onSpinWait();
+      }
+      this.reply(request, response);
+    }
+
+    @GrpcMethod(priority = CallPriority.LOW)
+    public void low(String request, StreamObserver<String> response) {
+      this.invocations.add(request);
+      this.reply(request, response);
+    }
+
+    @GrpcMethod(priority = CallPriority.CRITICAL)
+    public void critical(String request, StreamObserver<String> response) {
+      this.invocations.add(request);
+      this.reply(request, response);
+    }
+
+    private void reply(String request, StreamObserver<String> response) {
+      response.onNext(request);
+      response.onCompleted();
+    }
+
+    @Override
+    public ServerServiceDefinition bindService() {
+      return ServerServiceDefinition.builder("test.Priority")
+          .addMethod(ECHO, ServerCalls.asyncBidiStreamingCall(this::echo))
+          .addMethod(BLOCK, ServerCalls.asyncUnaryCall(this::block))
+          .addMethod(LOW, ServerCalls.asyncUnaryCall(this::low))
+          .addMethod(CRITICAL, ServerCalls.asyncUnaryCall(this::critical))
+          .build();
+    }
+  }
+}
@@ -0,0 +1,121 @@
+package com.dream11.grpc.transport;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import com.dream11.grpc.GrpcVerticleOptions;
+import com.dream11.grpc.metrics.GrpcServerMetrics;
+import com.dream11.grpc.util.RawGrpcClient;
+import com.dream11.grpc.util.RawGrpcClient.Reply;
+import com.dream11.grpc.verticle.ServiceVerticle;
+import io.grpc.BindableService;
+import io.grpc.MethodDescriptor;
+import io.grpc.ServerServiceDefinition;
+import io.grpc.stub.ServerCalls;
+import io.vertx.core.Future;
+import io.vertx.core.Vertx;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.Collectors;
+import java.util.stream.IntStream;
+import lombok.SneakyThrows;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+class WriteCoalescingIT {
+
+  static final MethodDescriptor<String, String> STREAM =
+      RawGrpcClient.method("test.Coalescing/Stream", MethodDescriptor.MethodType.SERVER_STREAMING);
+
+  /** Size of a framed response: 5 bytes of header and 4 bytes of message. */
+  static final int FRAME_SIZE = 9;
+
+  static final int MESSAGES_PER_BATCH = 10;
+  static final int FIRST_TICK_MESSAGES = 95;
+  static final int LAST_TICK_MESSAGES = 3;
+
+  final List<Integer> writes = new CopyOnWriteArrayList<>();
+  final GrpcServerMetrics metrics =
+      new GrpcServerMetrics() {
+        @Override
+        public void recordResponseWrite(String fullMethodName, int messages, long bytes) {
+          WriteCoalescingIT.this.writes.add(messages);
+        }
+      };
+  Vertx vertx;
+  RawGrpcClient client;
+
+  @BeforeEach
+  void setup() {
+    this.vertx = Vertx.vertx();
+    int port = ServiceVerticle.freePort();
+    GrpcVerticleOptions options =
+        new GrpcVerticleOptions()
+            .setWriteCoalescing(true)
+            .setWriteCoalescingThreshold(MESSAGES_PER_BATCH * FRAME_SIZE);
+    await(this.vertx.deployVerticle(new ServiceVerticle(port, options, this.metrics, new Ticks())));
+    this.client = new RawGrpcClient(this.vertx, port);
+  }
+
+  @AfterEach
+  void cleanUp() {
+    await(this.vertx.close());
+  }
+
+  @Test
+  void testResponsesAreCoalescedInOrder() {
+    // act
+    Reply reply = await(this.client.call(STREAM.getFullMethodName(), "go"));
+
+    // assert
+    assertThat(reply.getStatus()).isEqualTo("0");
+    assertThat(reply.getMessages())
+        .isEqualTo(messages(0, FIRST_TICK_MESSAGES + LAST_TICK_MESSAGES));
+    List<Integer> expected =
+        new ArrayList<>(
+            Collections.nCopies(FIRST_TICK_MESSAGES / MESSAGES_PER_BATCH, MESSAGES_PER_BATCH));
+    // The rest of the first tick is flushed at its end, the last tick is flushed by the close
+    expected.add(FIRST_TICK_MESSAGES % MESSAGES_PER_BATCH);
+    expected.add(LAST_TICK_MESSAGES);
+    assertThat(this.writes).isEqualTo(expected);
+  }
+
+  static List<String> messages(int from, int to) {
+    return IntStream.range(from, to)
+        .mapToObj(i -> String.format("m%03d", i))
+        .collect(Collectors.toList());
+  }
+
+  @SneakyThrows
+  static <T> T await(Future<T> future) {
+    return future.toCompletionStage().toCompletableFuture().get(10, TimeUnit.SECONDS);
+  }
+
+  /** Streams many small responses in one tick, then a few in a later tick before completing. */
+  static class Ticks implements BindableService {
+
+    @Override
+    public ServerServiceDefinition bindService() {
+      return ServerServiceDefinition.builder("test.Coalescing")
+          .addMethod(
+              STREAM,
+              ServerCalls.asyncServerStreamingCall(
+                  (request, response) -> {
+                    messages(0, FIRST_TICK_MESSAGES).forEach(response::onNext);
+                    Vertx.currentContext()
+                        .owner()
+                        .setTimer(
+                            10,
+                            id -> {
+                              int total = FIRST_TICK_MESSAGES + LAST_TICK_MESSAGES;
+                              messages(FIRST_TICK_MESSAGES, total).forEach(response::onNext);
+                              response.onCompleted();
+                            });
+                  }))
+          .build();
+    }
+  }
+}
@@ -6,6 +6,7 @@ import com.dream11.grpc.GrpcErrorTestEnum;
 import com.dream11.grpc.error.GrpcError;
 import com.dream11.grpc.error.GrpcException;
 import com.google.rpc.Code;
+import io.grpc.Status;
 import io.grpc.StatusRuntimeException;
 import org.junit.jupiter.api.Test;
 
@@ -60,4 +61,32 @@ class ExceptionUtilTest {
     assertThat(grpcException.getMessage()).isEqualTo(errorMessage);
     assertThat(grpcException.getMessage()).isEqualTo(grpcException.getErrorMessage());
   }
+
+  @Test
+  void testToGrpcExceptionWithoutErrorCode() {
+    // arrange
+    Throwable throwable = Status.UNAVAILABLE.withDescription("Connection refused").asException();
+
+    // act
+    GrpcException grpcException = ExceptionUtil.toGrpcException(throwable);
+
+    // assert
+    assertThat(grpcException.getErrorCode()).isEqualTo("UNAVAILABLE");
+    assertThat(grpcException.getErrorMessage()).isEqualTo("Connection refused");
+    assertThat(grpcException.getGrpcCode()).isEqualTo(Code.UNAVAILABLE);
+    assertThat(grpcException.getCause()).isSameAs(throwable);
+  }
+
+  @Test
+  void testToGrpcExceptionWithoutStatus() {
+    // arrange
+    Throwable throwable = new IllegalStateException("Closed");
+
+    // act
+    GrpcException grpcException = ExceptionUtil.toGrpcException(throwable);
+
+    // assert
+    assertThat(grpcException.getErrorCode()).isEqualTo("UNKNOWN_EXCEPTION");
+    assertThat(grpcException.getGrpcCode()).isEqualTo(Code.UNKNOWN);
+  }
 }
@@ -0,0 +1,162 @@
+package com.dream11.grpc.util;
+
+import io.grpc.Drainable;
+import io.grpc.KnownLength;
+import io.grpc.MethodDescriptor;
+import io.vertx.core.Future;
+import io.vertx.core.Handler;
+import io.vertx.core.Vertx;
+import io.vertx.core.buffer.Buffer;
+import io.vertx.core.http.HttpClient;
+import io.vertx.core.http.HttpClientOptions;
+import io.vertx.core.http.HttpClientRequest;
+import io.vertx.core.http.HttpClientResponse;
+import io.vertx.core.http.HttpConnection;
+import io.vertx.core.http.HttpMethod;
+import io.vertx.core.http.HttpVersion;
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.List;
+import lombok.Getter;
+import lombok.RequiredArgsConstructor;
+import lombok.SneakyThrows;
+
+/**
+ * gRPC client speaking the HTTP/2 protocol directly, so that tests can observe the frames of the
+ * connection (GOAWAY, PING, SETTINGS) and control the flow of the responses. Messages are strings.
+ */
+public class RawGrpcClient {
+
+  public static final MethodDescriptor.Marshaller<String> MARSHALLER =
+      new MethodDescriptor.Marshaller<>() {
+        @Override
+        public InputStream stream(String value) {
+          return new MessageStream(value.getBytes(StandardCharsets.UTF_8));
+        }
+
+        @Override
+        @SneakyThrows
+        public String parse(InputStream stream) {
+          return new String(stream.readAllBytes(), StandardCharsets.UTF_8);
+        }
+      };
+
+  private final HttpClient client;
+
+  /**
+   * Creates a client of a local server.
+   *
+   * @param vertx The Vert.x instance of the client
+   * @param port The port of the server
+   * @param options The options of the client, the protocol is set to HTTP/2 with prior knowledge
+   * @param connectHandler Called with every connection opened by the client
+   */
+  public RawGrpcClient(
+      Vertx vertx, int port, HttpClientOptions options, Handler<HttpConnection> connectHandler) {
+    this.client =
+        vertx
+            .httpClientBuilder()
+            .with(
+                options
+                    .setProtocolVersion(HttpVersion.HTTP_2)
+                    .setHttp2ClearTextUpgrade(false)
+                    .setDefaultHost("localhost")
+                    .setDefaultPort(port))
+            .withConnectHandler(connectHandler)
+            .build();
+  }
+
+  public RawGrpcClient(Vertx vertx, int port) {
+    this(vertx, port, new HttpClientOptions(), connection -> {});
+  }
+
+  /** Returns a method of string messages. */
+  public static MethodDescriptor<String, String> method(
+      String fullMethodName, MethodDescriptor.MethodType type) {
+    return MethodDescriptor.<String, String>newBuilder()
+        .setType(type)
+        .setFullMethodName(fullMethodName)
+        .setRequestMarshaller(MARSHALLER)
+        .setResponseMarshaller(MARSHALLER)
+        .build();
+  }
+
+  /** Frames a message with the 5 bytes header of the gRPC protocol, uncompressed. */
+  public static Buffer frame(String message) {
+    byte[] bytes = message.getBytes(StandardCharsets.UTF_8);
+    return Buffer.buffer().appendByte((byte) 0).appendInt(bytes.length).appendBytes(bytes);
+  }
+
+  /** Splits a response body into its messages, which must be uncompressed. */
+  public static List<String> deframe(Buffer body) {
+    List<String> messages = new ArrayList<>();
+    int position = 0;
+    while (position < body.length()) {
+      int length = body.getInt(position + 1);
+      messages.add(body.getString(position + 5, position + 5 + length, "UTF-8"));
+      position += 5 + length;
+    }
+    return messages;
+  }
+
+  /** Opens a call; the request messages are to be written by the caller. */
+  public Future<HttpClientRequest> request(String fullMethodName) {
+    return this.client
+        .request(HttpMethod.POST, "/" + fullMethodName)
+        .map(
+            request ->
+                request
+                    .setChunked(true)
+                    .putHeader("content-type", "application/grpc")
+                    .putHeader("te", "trailers"));
+  }
+
+  /** Sends the messages of a call and reads all its responses. */
+  public Future<Reply> call(String fullMethodName, String... messages) {
+    return this.request(fullMethodName)
+        .compose(
+            request -> {
+              for (String message : messages) {
+                request.write(frame(message));
+              }
+              request.end();
+              return request.response();
+            })
+        .compose(response -> response.body().map(body -> Reply.of(response, body)));
+  }
+
+  public Future<Void> close() {
+    return this.client.close();
+  }
+
+  /** Serialized message, drainable as the streams of protobuf, which the Vert.x bridge expects. */
+  static class MessageStream extends ByteArrayInputStream implements Drainable, KnownLength {
+
+    MessageStream(byte[] bytes) {
+      super(bytes);
+    }
+
+    @Override
+    public int drainTo(OutputStream target) throws IOException {
+      return (int) this.transferTo(target);
+    }
+  }
+
+  /** The responses and the status of a call. */
+  @Getter
+  @RequiredArgsConstructor
+  public static class Reply {
+    private final List<String> messages;
+    private final String status;
+
+    /** Reads a reply from a response ended with trailers, or with headers only. */
+    public static Reply of(HttpClientResponse response, Buffer body) {
+      String status = response.getTrailer("grpc-status");
+      return new Reply(deframe(body), status != null ? status : response.getHeader("grpc-status"));
+    }
+  }
+}
@@ -0,0 +1,76 @@
+package com.dream11.grpc.verticle;
+
+import com.dream11.grpc.AbstractGrpcVerticle;
+import com.dream11.grpc.ClassInjector;
+import com.dream11.grpc.Constants;
+import com.dream11.grpc.GrpcVerticleOptions;
+import com.dream11.grpc.metrics.GrpcServerMetrics;
+import io.grpc.BindableService;
+import io.grpc.ServerInterceptor;
+import io.vertx.core.http.HttpServerOptions;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.net.ServerSocket;
+import java.util.Arrays;
+import java.util.List;
+import java.util.stream.Collectors;
+
+/** Verticle serving the given service instances, without discovery, reflection nor logging. */
+public class ServiceVerticle extends AbstractGrpcVerticle {
+
+  private final List<BindableService> services;
+  private final GrpcServerMetrics metrics;
+
+  public ServiceVerticle(
+      int port,
+      GrpcVerticleOptions options,
+      GrpcServerMetrics metrics,
+      BindableService... services) {
+    super(Constants.TEST_PACKAGE_NAME, new HttpServerOptions().setPort(port), false, options);
+    this.services = Arrays.asList(services);
+    this.metrics = metrics;
+  }
+
+  /** Returns a port that is free on the loopback interface. */
+  public static int freePort() {
+    try (ServerSocket socket = new ServerSocket(0)) {
+      return socket.getLocalPort();
+    } catch (IOException e) {
+      throw new UncheckedIOException(e);
+    }
+  }
+
+  @Override
+  protected ClassInjector getInjector() {
+    return new ClassInjector() {
+      @Override
+      public <T> T getInstance(Class<T> clazz) {
+        return ServiceVerticle.this.services.stream()
+            .filter(clazz::isInstance)
+            .map(clazz::cast)
+            .findFirst()
+            .orElseThrow(() -> new IllegalArgumentException("No instance of " + clazz));
+      }
+    };
+  }
+
+  @Override
+  protected List<Class<?>> getGrpcServices() {
+    return this.services.stream().map(Object::getClass).collect(Collectors.toList());
+  }
+
+  @Override
+  protected List<Class<?>> getGrpcInterceptors() {
+    return List.of();
+  }
+
+  @Override
+  protected ServerInterceptor getRequestResponseInterceptor() {
+    return null;
+  }
+
+  @Override
+  protected GrpcServerMetrics getMetrics() {
+    return this.metrics;
+  }
+}
@@ -0,0 +1,164 @@
+package com.dream11.grpc.warmup;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import com.dream11.grpc.inprocess.InProcessChannel;
+import com.dream11.grpc.metrics.GrpcServerMetrics;
+import io.grpc.Metadata;
+import io.grpc.MethodDescriptor;
+import io.grpc.ServerCall;
+import io.grpc.ServerCallHandler;
+import io.grpc.ServerInterceptor;
+import io.grpc.ServerInterceptors;
+import io.grpc.ServerServiceDefinition;
+import io.grpc.Status;
+import io.grpc.stub.ServerCallStreamObserver;
+import io.grpc.stub.ServerCalls;
+import io.vertx.core.Context;
+import io.vertx.core.Vertx;
+import java.io.ByteArrayInputStream;
+import java.io.InputStream;
+import java.nio.charset.StandardCharsets;
+import java.time.Duration;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import lombok.SneakyThrows;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+class WarmUpTest {
+
+  static final MethodDescriptor.Marshaller<String> MARSHALLER =
+      new MethodDescriptor.Marshaller<>() {
+        @Override
+        public InputStream stream(String value) {
+          return new ByteArrayInputStream(value.getBytes(StandardCharsets.UTF_8));
+        }
+
+        @Override
+        @SneakyThrows
+        public String parse(InputStream stream) {
+          return new String(stream.readAllBytes(), StandardCharsets.UTF_8);
+        }
+      };
+
+  static final MethodDescriptor<String, String> ECHO = method("Echo");
+  static final MethodDescriptor<String, String> FAIL = method("Fail");
+  static final MethodDescriptor<String, String> SILENT = method("Silent");
+  static final int CONCURRENCY = 4;
+
+  final AtomicInteger warmUpCalls = new AtomicInteger();
+  final CountDownLatch cancelledCalls = new CountDownLatch(CONCURRENCY);
+  final Map<String, String> recorded = new ConcurrentHashMap<>();
+  Vertx vertx;
+  Context context;
+  InProcessChannel channel;
+
+  @BeforeEach
+  void setup() {
+    this.vertx = Vertx.vertx();
+    this.context = this.vertx.getOrCreateContext();
+    this.channel = new InProcessChannel(this.context, true);
+    ServerServiceDefinition service =
+        ServerServiceDefinition.builder("test.Warm")
+            .addMethod(
+                ECHO,
+                ServerCalls.asyncUnaryCall(
+                    (request, response) -> {
+                      response.onNext(request);
+                      response.onCompleted();
+                    }))
+            .addMethod(
+                FAIL,
+                ServerCalls.asyncUnaryCall(
+                    (request, response) ->
+                        response.onError(Status.INVALID_ARGUMENT.asRuntimeException())))
+            .addMethod(
+                SILENT,
+                ServerCalls.asyncUnaryCall(
+                    (request, response) ->
+                        ((ServerCallStreamObserver<String>) response)
+                            .setOnCancelHandler(this.cancelledCalls::countDown)))
+            .build();
+    this.channel.addService(ServerInterceptors.intercept(service, new WarmUpCallCounter()));
+  }
+
+  @AfterEach
+  void tearDown() {
+    this.vertx.close();
+  }
+
+  @Test
+  void testEveryMethodIsCalledForTheIterations() {
+    // arrange
+    WarmUp warmUp =
+        this.createWarmUp(100, Duration.ofSeconds(10))
+            .addMethod(ECHO, List.of("a", "b"))
+            .addMethod(FAIL, List.of("c"))
+            .addMethod(SILENT, List.of());
+
+    // act
+    boolean completed = warmUp.run().blockingAwait(10, TimeUnit.SECONDS);
+
+    // assert
+    assertThat(completed).isTrue();
+    assertThat(this.warmUpCalls.get()).isEqualTo(200);
+    assertThat(this.recorded)
+        .containsEntry("test.Warm/Echo", "100 0")
+        .containsEntry("test.Warm/Fail", "100 100")
+        .doesNotContainKey("test.Warm/Silent");
+  }
+
+  @Test
+  void testWarmUpStopsAfterItsDuration() throws InterruptedException {
+    // arrange
+    WarmUp warmUp = this.createWarmUp(100, Duration.ofMillis(200)).addMethod(SILENT, List.of("a"));
+
+    // act
+    boolean completed = warmUp.run().blockingAwait(10, TimeUnit.SECONDS);
+
+    // assert
+    assertThat(completed).isTrue();
+    assertThat(this.recorded).containsEntry("test.Warm/Silent", "0 0");
+    assertThat(this.warmUpCalls.get()).isEqualTo(CONCURRENCY);
+    assertThat(this.cancelledCalls.await(10, TimeUnit.SECONDS)).isTrue();
+  }
+
+  private WarmUp createWarmUp(int iterations, Duration duration) {
+    return new WarmUp(
+        this.context,
+        this.channel,
+        iterations,
+        duration,
+        CONCURRENCY,
+        new GrpcServerMetrics() {
+          @Override
+          public void recordWarmUp(String fullMethodName, int calls, int failures, long nanos) {
+            WarmUpTest.this.recorded.put(fullMethodName, calls + " " + failures);
+          }
+        });
+  }
+
+  private static MethodDescriptor<String, String> method(String name) {
+    return MethodDescriptor.newBuilder(MARSHALLER, MARSHALLER)
+        .setType(MethodDescriptor.MethodType.UNARY)
+        .setFullMethodName("test.Warm/" + name)
+        .build();
+  }
+
+  class WarmUpCallCounter implements ServerInterceptor {
+    @Override
+    public <R1, R2> ServerCall.Listener<R1> interceptCall(
+        ServerCall<R1, R2> call, Metadata headers, ServerCallHandler<R1, R2> next) {
+      if ("true".equals(headers.get(WarmUp.HEADER))) {
+        WarmUpTest.this.warmUpCalls.incrementAndGet();
+      }
+      return next.startCall(call, headers);
+    }
+  }
+}